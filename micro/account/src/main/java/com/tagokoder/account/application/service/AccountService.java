@@ -2,31 +2,39 @@ package com.tagokoder.account.application.service;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.tagokoder.account.application.AccountNumberFmt;
 import com.tagokoder.account.domain.model.Account;
 import com.tagokoder.account.domain.port.in.BatchGetAccountSummariesUseCase;
+import com.tagokoder.account.domain.port.in.BatchValidateAccountsAndLimitsUseCase;
 import com.tagokoder.account.domain.port.in.CreateAccountUseCase;
 import com.tagokoder.account.domain.port.in.GetAccountBalancesUseCase;
 import com.tagokoder.account.domain.port.in.GetAccountByNumberUseCase;
+import com.tagokoder.account.domain.port.in.GetDailyLimitUsageUseCase;
 import com.tagokoder.account.domain.port.in.ListAccountsUseCase;
 import com.tagokoder.account.domain.port.in.PatchAccountLimitsUseCase;
 import com.tagokoder.account.domain.port.in.ReleaseHoldUseCase;
 import com.tagokoder.account.domain.port.in.ReserveHoldUseCase;
 import com.tagokoder.account.domain.port.in.ValidateAccountsAndLimitsUseCase;
 import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort;
+import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort;
 import com.tagokoder.account.domain.port.out.AccountLimitsRepositoryPort;
 import com.tagokoder.account.domain.port.out.AccountRepositoryPort;
+import com.tagokoder.account.domain.port.out.AccountValidationReadPort;
 import com.tagokoder.account.domain.port.out.CustomerRepositoryPort;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort;
 
 @Service
 public class AccountService implements
@@ -35,24 +43,38 @@ public class AccountService implements
         GetAccountBalancesUseCase,
         PatchAccountLimitsUseCase,
         ValidateAccountsAndLimitsUseCase,
+        BatchValidateAccountsAndLimitsUseCase,
         ReserveHoldUseCase,
         ReleaseHoldUseCase,
         GetAccountByNumberUseCase,
-        BatchGetAccountSummariesUseCase {
+        BatchGetAccountSummariesUseCase,
+        GetDailyLimitUsageUseCase {
 
     private final AccountRepositoryPort accountRepo;
     private final AccountBalanceRepositoryPort balanceRepo;
     private final AccountLimitsRepositoryPort limitsRepo;
     private final CustomerRepositoryPort customerRepo;
+    private final AccountHoldRepositoryPort holdRepo;
+    private final LimitUsageRepositoryPort usageRepo;
+    private final AccountValidationReadPort validationRead;
+    private final boolean legacyRelease;
 
     public AccountService(AccountRepositoryPort accountRepo,
                           AccountBalanceRepositoryPort balanceRepo,
                           AccountLimitsRepositoryPort limitsRepo,
-                          CustomerRepositoryPort customerRepo) {
+                          CustomerRepositoryPort customerRepo,
+                          AccountHoldRepositoryPort holdRepo,
+                          LimitUsageRepositoryPort usageRepo,
+                          AccountValidationReadPort validationRead,
+                          @Value("${holds.legacy-release.enabled:true}") boolean legacyRelease) {
         this.accountRepo = accountRepo;
         this.balanceRepo = balanceRepo;
         this.limitsRepo = limitsRepo;
         this.customerRepo = customerRepo;
+        this.holdRepo = holdRepo;
+        this.usageRepo = usageRepo;
+        this.validationRead = validationRead;
+        this.legacyRelease = legacyRelease;
     }
 
     @Override
@@ -118,32 +140,44 @@ public class AccountService implements
     }
 
     @Override
-    public ListAccountsUseCase.Result listByCustomer(UUID customerId) {
-        List<Account> accounts = accountRepo.findByCustomerId(customerId);
-
-        var views = accounts.stream().map(a -> {
-            var bal = balanceRepo.findByAccountId(a.getId())
-                    .orElse(new AccountBalanceRepositoryPort.BalancesRow(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+    @Transactional(readOnly = true)
+    public ListAccountsUseCase.Result list(ListAccountsUseCase.Query q) {
+        if (q.pageSize() != null && q.pageSize() <= 0) throw new IllegalArgumentException("page_size must be > 0");
+
+        var after = q.after();
+        // se pide una fila extra para saber si hay página siguiente
+        Integer limit = q.pageSize() == null ? null : q.pageSize() + 1;
+        var rows = accountRepo.listWithBalances(
+                q.customerId(), q.status(), q.currency(), q.productType(),
+                after == null ? null : after.openedAt(),
+                after == null ? null : after.id(),
+                limit);
+
+        ListAccountsUseCase.Cursor next = null;
+        if (q.pageSize() != null && rows.size() > q.pageSize()) {
+            rows = rows.subList(0, q.pageSize());
+            var last = rows.get(rows.size() - 1);
+            next = new ListAccountsUseCase.Cursor(last.openedAt(), last.id());
+        }
 
-            return new ListAccountsUseCase.AccountView(
-                    a.getId(),
-                    a.getCustomerId(),
-                    AccountNumberFmt.fmt12(a.getAccountNumber()),
-                    a.getProductType(),
-                    a.getCurrency(),
-                    a.getStatus(),
-                    a.getOpenedAt().atOffset(ZoneOffset.UTC),
-                    a.getUpdatedAt().atOffset(ZoneOffset.UTC),
-                    new ListAccountsUseCase.Balances(bal.ledger(), bal.available(), bal.hold())
-            );
-        }).toList();
-
-        return new ListAccountsUseCase.Result(views);
+        var views = rows.stream().map(r -> new ListAccountsUseCase.AccountView(
+                r.id(),
+                r.customerId(),
+                AccountNumberFmt.fmt12(r.accountNumber()),
+                r.productType(),
+                r.currency(),
+                r.status(),
+                r.openedAt(),
+                r.updatedAt(),
+                new ListAccountsUseCase.Balances(r.ledger(), r.available(), r.hold())
+        )).toList();
+
+        return new ListAccountsUseCase.Result(views, next);
     }
 
     @Override
-    public GetAccountBalancesUseCase.Result get(UUID accountId) {
-        var bal = balanceRepo.findByAccountId(accountId)
+    public GetAccountBalancesUseCase.Result get(UUID accountId, boolean consistentRead) {
+        var bal = (consistentRead ? balanceRepo.findByAccountId(accountId) : balanceRepo.findCachedByAccountId(accountId))
                 .orElseThrow(() -> new IllegalArgumentException("Account balances not found"));
         return new GetAccountBalancesUseCase.Result(accountId, bal.ledger(), bal.available(), bal.hold());
     }
@@ -162,6 +196,41 @@ public class AccountService implements
     @Override
     @Transactional(readOnly = true)
     public ValidateAccountsAndLimitsUseCase.Result validate(ValidateAccountsAndLimitsUseCase.Command c) {
+        return validateLegs(List.of(c)).get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BatchValidateAccountsAndLimitsUseCase.Result validateBatch(BatchValidateAccountsAndLimitsUseCase.Command c) {
+        List<ValidateAccountsAndLimitsUseCase.Command> legs = c.legs() == null ? List.of() : c.legs();
+        return new BatchValidateAccountsAndLimitsUseCase.Result(validateLegs(legs));
+    }
+
+    /**
+     * Una sola lectura (cuentas + balances + límites + uso de hoy) para todos los legs; después todo en memoria.
+     * Siempre contra la DB (sin near-cache).
+     */
+    private List<ValidateAccountsAndLimitsUseCase.Result> validateLegs(List<ValidateAccountsAndLimitsUseCase.Command> legs) {
+        LinkedHashSet<UUID> ids = new LinkedHashSet<>();
+        for (var leg : legs) {
+            if (leg.sourceAccountId() != null) ids.add(leg.sourceAccountId());
+            if (leg.destinationAccountId() != null) ids.add(leg.destinationAccountId());
+        }
+        Map<UUID, AccountValidationReadPort.ValidationRow> rows = validationRead.load(ids);
+
+        // lo aprobado por legs anteriores del mismo batch (available / dailyOut por origen, dailyIn por destino)
+        Map<UUID, BigDecimal> outSoFar = new HashMap<>();
+        Map<UUID, BigDecimal> inSoFar = new HashMap<>();
+
+        List<ValidateAccountsAndLimitsUseCase.Result> results = new ArrayList<>(legs.size());
+        for (var leg : legs) results.add(validateLeg(leg, rows, outSoFar, inSoFar));
+        return results;
+    }
+
+    private ValidateAccountsAndLimitsUseCase.Result validateLeg(ValidateAccountsAndLimitsUseCase.Command c,
+                                                                Map<UUID, AccountValidationReadPort.ValidationRow> rows,
+                                                                Map<UUID, BigDecimal> outSoFar,
+                                                                Map<UUID, BigDecimal> inSoFar) {
         if (c.amount() == null || c.amount().compareTo(BigDecimal.ZERO) <= 0) {
             return new ValidateAccountsAndLimitsUseCase.Result(false, "amount must be > 0");
         }
@@ -169,52 +238,42 @@ public class AccountService implements
             return new ValidateAccountsAndLimitsUseCase.Result(false, "invalid currency");
         }
 
-        var srcOpt = accountRepo.findById(c.sourceAccountId());
-        if (srcOpt.isEmpty()) return new ValidateAccountsAndLimitsUseCase.Result(false, "source account not found");
+        var src = rows.get(c.sourceAccountId());
+        if (src == null) return new ValidateAccountsAndLimitsUseCase.Result(false, "source account not found");
 
-        var dstOpt = accountRepo.findById(c.destinationAccountId());
-        if (dstOpt.isEmpty()) return new ValidateAccountsAndLimitsUseCase.Result(false, "destination account not found");
+        var dst = rows.get(c.destinationAccountId());
+        if (dst == null) return new ValidateAccountsAndLimitsUseCase.Result(false, "destination account not found");
 
-        var src = srcOpt.get();
-        var dst = dstOpt.get();
+        if (!"active".equalsIgnoreCase(src.status())) return new ValidateAccountsAndLimitsUseCase.Result(false, "source not active");
+        if (!"active".equalsIgnoreCase(dst.status())) return new ValidateAccountsAndLimitsUseCase.Result(false, "destination not active");
 
-        if (!"active".equalsIgnoreCase(src.getStatus())) return new ValidateAccountsAndLimitsUseCase.Result(false, "source not active");
-        if (!"active".equalsIgnoreCase(dst.getStatus())) return new ValidateAccountsAndLimitsUseCase.Result(false, "destination not active");
-
-        if (!c.currency().equalsIgnoreCase(src.getCurrency())) return new ValidateAccountsAndLimitsUseCase.Result(false, "source currency mismatch");
-        if (!c.currency().equalsIgnoreCase(dst.getCurrency())) return new ValidateAccountsAndLimitsUseCase.Result(false, "destination currency mismatch");
+        if (!c.currency().equalsIgnoreCase(src.currency())) return new ValidateAccountsAndLimitsUseCase.Result(false, "source currency mismatch");
+        if (!c.currency().equalsIgnoreCase(dst.currency())) return new ValidateAccountsAndLimitsUseCase.Result(false, "destination currency mismatch");
 
         boolean isCredit = c.sourceAccountId().equals(c.destinationAccountId());
 
         if (isCredit) {
             // CREDIT: NO validar available.
-            // (opcional) validar dailyIn sobre DESTINO
-            var limOpt = limitsRepo.findByAccountId(dst.getId());
-            if (limOpt.isPresent()) {
-            var lim = limOpt.get();
-            if (lim.dailyIn().compareTo(BigDecimal.ZERO) > 0 && c.amount().compareTo(lim.dailyIn()) > 0) {
+            // dailyIn sobre DESTINO: uso acumulado de hoy + este monto
+            BigDecimal in = inSoFar.getOrDefault(dst.accountId(), BigDecimal.ZERO).add(c.amount());
+            if (dst.dailyIn().compareTo(BigDecimal.ZERO) > 0
+                    && dst.inUsed().add(in).compareTo(dst.dailyIn()) > 0) {
                 return new ValidateAccountsAndLimitsUseCase.Result(false, "dailyIn limit exceeded");
             }
-            }
+            inSoFar.put(dst.accountId(), in);
             return new ValidateAccountsAndLimitsUseCase.Result(true, null);
         }
 
-        // DEBIT/TRANSFER: validar available y dailyOut (como ya tienes)
-        var bal = balanceRepo.findByAccountId(src.getId())
-            .orElse(new AccountBalanceRepositoryPort.BalancesRow(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
-
-        if (bal.available().compareTo(c.amount()) < 0) {
+        // DEBIT/TRANSFER: validar available y dailyOut
+        BigDecimal out = outSoFar.getOrDefault(src.accountId(), BigDecimal.ZERO).add(c.amount());
+        if (src.available().compareTo(out) < 0) {
             return new ValidateAccountsAndLimitsUseCase.Result(false, "insufficient available");
         }
-
-        var limOpt = limitsRepo.findByAccountId(src.getId());
-        if (limOpt.isPresent()) {
-            var lim = limOpt.get();
-            if (lim.dailyOut().compareTo(BigDecimal.ZERO) > 0 && c.amount().compareTo(lim.dailyOut()) > 0) {
+        if (src.dailyOut().compareTo(BigDecimal.ZERO) > 0
+                && src.outUsed().add(out).compareTo(src.dailyOut()) > 0) {
             return new ValidateAccountsAndLimitsUseCase.Result(false, "dailyOut limit exceeded");
-            }
         }
-
+        outSoFar.put(src.accountId(), out);
         return new ValidateAccountsAndLimitsUseCase.Result(true, null);
     }
 
@@ -223,27 +282,97 @@ public class AccountService implements
     @Transactional
     public ReserveHoldUseCase.Result reserve(ReserveHoldUseCase.Command c) {
         if (c.amount() == null || c.amount().compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("amount must be > 0");
-        var acc = accountRepo.findById(c.accountId()).orElseThrow(() -> new IllegalArgumentException("account not found"));
+        if (c.holdIdOrNull() == null || c.idempotencyKeyOrNull() == null) {
+            var acc = accountRepo.findById(c.accountId()).orElseThrow(() -> new IllegalArgumentException("account not found"));
+            if (!"active".equalsIgnoreCase(acc.getStatus())) throw new IllegalArgumentException("account not active");
+            if (!c.currency().equalsIgnoreCase(acc.getCurrency())) throw new IllegalArgumentException("currency mismatch");
+
+            // ATÓMICO: incrementa hold y valida que available sigue suficiente
+            var newHold = balanceRepo.incrementHold(c.accountId(), c.amount());
+            usageRepo.add(c.accountId(), c.amount(), BigDecimal.ZERO);
+            return new ReserveHoldUseCase.Result(true, newHold, null, "reserved");
+        }
 
-        if (!"active".equalsIgnoreCase(acc.getStatus())) throw new IllegalArgumentException("account not active");
-        if (!c.currency().equalsIgnoreCase(acc.getCurrency())) throw new IllegalArgumentException("currency mismatch");
+        // un round trip: cuenta + balance + fila de hold + idempotency key
+        var r = holdRepo.reserveAtomic(c.accountId(), c.holdIdOrNull(), c.currency(), c.amount(), c.idempotencyKeyOrNull());
+        if (r.accountStatus() == null) throw new IllegalArgumentException("account not found");
+        if (r.duplicateOf() != null) {
+            BigDecimal hold = r.hot() ? currentHold(c.accountId()) : r.currentHold();
+            return new ReserveHoldUseCase.Result(true, hold, r.duplicateOf(), "duplicate");
+        }
+        if (!"active".equalsIgnoreCase(r.accountStatus())) throw new IllegalArgumentException("account not active");
+        if (!c.currency().equalsIgnoreCase(r.accountCurrency())) throw new IllegalArgumentException("currency mismatch");
+        if (r.newHold() != null) {
+            usageRepo.add(c.accountId(), c.amount(), BigDecimal.ZERO);
+            return new ReserveHoldUseCase.Result(true, r.newHold(), c.holdIdOrNull(), "reserved");
+        }
+        if (!r.hot()) throw new IllegalArgumentException("insufficient available or balances not found");
 
-        // ATÓMICO: incrementa hold y valida que available sigue suficiente
+        // cuenta hot: saldo en slots; reserveAtomic ya dejó tomada la key hasta el commit
         var newHold = balanceRepo.incrementHold(c.accountId(), c.amount());
-
-        return new ReserveHoldUseCase.Result(true, newHold);
+        holdRepo.insertReserved(c.accountId(), c.holdIdOrNull(), c.currency(), c.amount(), c.idempotencyKeyOrNull());
+        usageRepo.add(c.accountId(), c.amount(), BigDecimal.ZERO);
+        return new ReserveHoldUseCase.Result(true, newHold, c.holdIdOrNull(), "reserved");
     }
 
     @Override
     @Transactional
     public ReleaseHoldUseCase.Result release(ReleaseHoldUseCase.Command c) {
         if (c.amount() == null || c.amount().compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("amount must be > 0");
-        var acc = accountRepo.findById(c.accountId()).orElseThrow(() -> new IllegalArgumentException("account not found"));
+        if (c.holdIdOrNull() == null) {
+            var acc = accountRepo.findById(c.accountId()).orElseThrow(() -> new IllegalArgumentException("account not found"));
+            if (!c.currency().equalsIgnoreCase(acc.getCurrency())) throw new IllegalArgumentException("currency mismatch");
 
-        if (!c.currency().equalsIgnoreCase(acc.getCurrency())) throw new IllegalArgumentException("currency mismatch");
+            return releaseUnregistered(c);
+        }
 
+        var r = holdRepo.releaseAtomic(c.accountId(), c.holdIdOrNull(), c.currency(), c.amount());
+        if (r.accountCurrency() == null) throw new IllegalArgumentException("account not found");
+        if (!c.currency().equalsIgnoreCase(r.accountCurrency())) throw new IllegalArgumentException("currency mismatch");
+        if (r.released()) {
+            // hold registrado pero balance sin hold suficiente: rollback de todo
+            if (r.newHold() == null) throw new IllegalArgumentException("insufficient hold or balances not found");
+            reverseUsage(c, r.holdDay());
+            return new ReleaseHoldUseCase.Result(true, r.newHold(), "released");
+        }
+
+        if (r.holdStatus() == null) {
+            // hold_id sin fila en account_holds: las reservas previas a reserveAtomic no la escribían.
+            // Sin el modo legacy no se toca el balance (liberaría hold de otros holds)
+            if (!legacyRelease) throw new IllegalArgumentException("hold not found");
+            return releaseUnregistered(c);
+        }
+        if ("settled".equalsIgnoreCase(r.holdStatus())) throw new IllegalArgumentException("hold already settled");
+        if ("reserved".equalsIgnoreCase(r.holdStatus()) && r.holdAmount().compareTo(c.amount()) != 0) {
+            throw new IllegalArgumentException("amount mismatch");
+        }
+        if ("reserved".equalsIgnoreCase(r.holdStatus()) && r.hot()
+                && holdRepo.releaseIfReserved(c.accountId(), c.holdIdOrNull(), c.amount())) {
+            var newHold = balanceRepo.decrementHold(c.accountId(), c.amount());
+            reverseUsage(c, r.holdDay());
+            return new ReleaseHoldUseCase.Result(true, newHold, "released");
+        }
+
+        // ya released (o lo liberó una llamada concurrente)
+        BigDecimal hold = r.hot() ? currentHold(c.accountId()) : r.currentHold();
+        return new ReleaseHoldUseCase.Result(true, hold, "duplicate");
+    }
+
+    // decrementHold ya exige hold >= amount; sin fila de hold no se sabe el día de la reserva:
+    // el uso se devuelve en el de hoy
+    private ReleaseHoldUseCase.Result releaseUnregistered(ReleaseHoldUseCase.Command c) {
         var newHold = balanceRepo.decrementHold(c.accountId(), c.amount());
-        return new ReleaseHoldUseCase.Result(true, newHold);
+        usageRepo.add(c.accountId(), c.amount().negate(), BigDecimal.ZERO);
+        return new ReleaseHoldUseCase.Result(true, newHold, "released");
+    }
+
+    // el out del hold se contó al reservar; un hold liberado no consume límite
+    private void reverseUsage(ReleaseHoldUseCase.Command c, LocalDate holdDay) {
+        usageRepo.reverse(holdDay, List.of(new LimitUsageRepositoryPort.UsageDelta(c.accountId(), c.amount(), BigDecimal.ZERO)));
+    }
+
+    private BigDecimal currentHold(UUID accountId) {
+        return balanceRepo.findByAccountId(accountId).map(AccountBalanceRepositoryPort.BalancesRow::hold).orElse(BigDecimal.ZERO);
     }
 
     @Override
@@ -305,6 +434,43 @@ public class AccountService implements
         return new BatchGetAccountSummariesUseCase.Result(ok, missing);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public GetDailyLimitUsageUseCase.Result getDailyUsage(GetDailyLimitUsageUseCase.Command c) {
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(c.accountIds() == null ? List.of() : c.accountIds()));
+        if (ids.isEmpty()) return new GetDailyLimitUsageUseCase.Result(List.of(), List.of());
+
+        // tres lecturas set-based: cuentas, límites y uso de hoy
+        Map<UUID, Account> byId = accountRepo.findByIds(ids).stream()
+                .collect(Collectors.toMap(Account::getId, a -> a, (a, b) -> a));
+        Map<UUID, AccountLimitsRepositoryPort.LimitsRow> limits = limitsRepo.findByAccountIds(ids);
+        Map<UUID, LimitUsageRepositoryPort.Usage> usage = usageRepo.today(ids);
+        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+
+        List<GetDailyLimitUsageUseCase.UsageView> views = new ArrayList<>();
+        List<GetDailyLimitUsageUseCase.Missing> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            if (!byId.containsKey(id)) {
+                missing.add(new GetDailyLimitUsageUseCase.Missing(id, "not_found"));
+                continue;
+            }
+            var lim = limits.getOrDefault(id, new AccountLimitsRepositoryPort.LimitsRow(BigDecimal.ZERO, BigDecimal.ZERO));
+            var u = usage.getOrDefault(id, LimitUsageRepositoryPort.Usage.ZERO);
+            views.add(new GetDailyLimitUsageUseCase.UsageView(
+                    id, day, lim.dailyOut(), lim.dailyIn(), u.outUsed(), u.inUsed(),
+                    remaining(lim.dailyOut(), u.outUsed()),
+                    remaining(lim.dailyIn(), u.inUsed())
+            ));
+        }
+        return new GetDailyLimitUsageUseCase.Result(views, missing);
+    }
+
+    // límite 0 = sin límite (igual que validate)
+    private static BigDecimal remaining(BigDecimal limit, BigDecimal used) {
+        if (limit == null || limit.compareTo(BigDecimal.ZERO) <= 0) return null;
+        return limit.subtract(used).max(BigDecimal.ZERO);
+    }
+
     @Transactional
     public void applyOpeningBonus(UUID accountId, BigDecimal amount) {
         balanceRepo.applyCredit(accountId, amount);
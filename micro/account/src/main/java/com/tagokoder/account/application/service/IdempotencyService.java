@@ -1,37 +1,253 @@
 package com.tagokoder.account.application.service;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.tagokoder.account.domain.port.out.IdempotencyRepositoryPort;
+import com.tagokoder.account.domain.port.out.IdempotencyRepositoryPort.Begin;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Idempotency de dos niveles:
+ * - L1: cache in-process acotado con TTL por (key, operation), guarda la respuesta ya serializada
+ * - L2: idempotency_records con la respuesta en binario (protobuf) y marcador in_flight
+ * Duplicados concurrentes esperan el resultado de la primera ejecución (en la misma instancia por
+ * un future compartido; entre réplicas por el marcador in_flight) en vez de ejecutar dos veces.
+ * Un marcador stale lo toma otra ejecución con un token de dueño nuevo: el dueño anterior ya no
+ * completa ni borra la fila y su llamada termina en TakenOverException.
+ */
 @Service
 public class IdempotencyService {
 
+  private static final long POLL_MS = 50;
+  // mismo mapper por defecto con el que se escribía response_json antes de V6
+  private static final ObjectMapper LEGACY_JSON = new ObjectMapper();
+
   private final IdempotencyRepositoryPort repo;
-  private final ObjectMapper om = new ObjectMapper();
+  private final MeterRegistry meters;
+  private final Duration waitTimeout;
+  private final Duration staleAfter;
+
+  private final Cache<CacheKey, byte[]> l1;
+  private final ConcurrentHashMap<CacheKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
 
-  public IdempotencyService(IdempotencyRepositoryPort repo) {
+  public IdempotencyService(
+    IdempotencyRepositoryPort repo,
+    MeterRegistry meters,
+    @Value("${idempotency.cache.max-size:10000}") long cacheMaxSize,
+    @Value("${idempotency.cache.ttl:PT10M}") Duration cacheTtl,
+    @Value("${idempotency.in-flight.wait-timeout:PT10S}") Duration waitTimeout,
+    @Value("${idempotency.in-flight.stale-after:PT30S}") Duration staleAfter
+  ) {
     this.repo = repo;
+    this.meters = meters;
+    this.waitTimeout = waitTimeout;
+    this.staleAfter = staleAfter;
+    this.l1 = Caffeine.newBuilder()
+      .maximumSize(cacheMaxSize)
+      .expireAfterWrite(cacheTtl)
+      .recordStats()
+      .build();
+    CaffeineCacheMetrics.monitor(meters, l1, "idempotency");
+  }
+
+  /**
+   * Ejecuta action una sola vez por (key, operation) y devuelve la misma respuesta a los reintentos.
+   * Sin key no hay idempotencia: ejecuta directo.
+   */
+  public <T> T execute(String key, String operation, Codec<T> codec, Supplier<T> action) {
+    if (key == null || key.isBlank()) return action.get();
+
+    CacheKey k = new CacheKey(key, operation);
+    byte[] cached = l1.getIfPresent(k);
+    if (cached != null) {
+      outcome(operation, "hit_memory");
+      return decode(codec, cached);
+    }
+
+    CompletableFuture<byte[]> mine = new CompletableFuture<>();
+    CompletableFuture<byte[]> other = inFlight.putIfAbsent(k, mine);
+    if (other != null) {
+      outcome(operation, "wait_local");
+      return decode(codec, await(other, operation));
+    }
+
+    try {
+      byte[] bytes = runOnce(k, codec, action);
+      mine.complete(bytes);
+      return decode(codec, bytes);
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(k, mine);
+    }
   }
 
-  public <T> Optional<T> tryGet(String key, String operation, Class<T> clazz) {
-    if (key == null || key.isBlank()) return Optional.empty();
-    return repo.find(key)
-      .filter(r -> operation.equals(r.operation()))
-      .flatMap(r -> {
-        try { return Optional.of(om.readValue(r.responseJson(), clazz)); }
-        catch (Exception e) { return Optional.empty(); }
-      });
+  private <T> byte[] runOnce(CacheKey k, Codec<T> codec, Supplier<T> action) {
+    Begin begin = timed(k.operation(), "begin", () -> repo.begin(k.key(), k.operation(), staleAfter));
+    switch (begin.state()) {
+      case COMPLETED -> {
+        outcome(k.operation(), "hit_db");
+        byte[] bytes = begin.response() != null ? begin.response() : fromLegacyJson(codec, begin.legacyJson());
+        l1.put(k, bytes);
+        return bytes;
+      }
+      case IN_FLIGHT -> {
+        outcome(k.operation(), "wait_remote");
+        byte[] bytes = pollCompleted(k);
+        l1.put(k, bytes);
+        return bytes;
+      }
+      default -> {
+        outcome(k.operation(), "miss");
+        T result;
+        try {
+          result = action.get();
+        } catch (RuntimeException e) {
+          repo.abandon(k.key(), k.operation(), begin.owner());
+          throw e;
+        }
+        byte[] bytes = codec.encode(result);
+        boolean completed = timed(k.operation(), "complete",
+          () -> repo.complete(k.key(), k.operation(), begin.owner(), 200, bytes));
+        if (!completed) {
+          // tardamos más que stale-after y otra ejecución tomó la key: la respuesta guardada es la suya
+          outcome(k.operation(), "taken_over");
+          throw new TakenOverException(k.operation());
+        }
+        l1.put(k, bytes);
+        return bytes;
+      }
+    }
+  }
+
+  // otra réplica está ejecutando la misma key
+  private byte[] pollCompleted(CacheKey k) {
+    long deadline = System.nanoTime() + waitTimeout.toNanos();
+    while (System.nanoTime() < deadline) {
+      var done = repo.findCompleted(k.key(), k.operation());
+      if (done.isPresent()) return done.get();
+      try {
+        Thread.sleep(POLL_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    throw new InProgressException(k.operation());
+  }
+
+  private byte[] await(CompletableFuture<byte[]> f, String operation) {
+    try {
+      return f.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      // la primera ejecución falló: el error se propaga igual a los duplicados
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      throw new InProgressException(operation);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InProgressException(operation);
+    }
+  }
+
+  // fila completed previa a V6: se re-codifica en binario, la acción no se vuelve a ejecutar
+  private static <T> byte[] fromLegacyJson(Codec<T> codec, String json) {
+    try {
+      return codec.encode(codec.decodeLegacyJson(json));
+    } catch (Exception e) {
+      throw new IllegalStateException("legacy idempotent response not decodable", e);
+    }
   }
 
-  public void save(String key, String operation, int statusCode, Object response) {
-    if (key == null || key.isBlank()) return;
+  private static <T> T decode(Codec<T> codec, byte[] bytes) {
     try {
-      String json = om.writeValueAsString(response);
-      repo.save(key, operation, statusCode, json);
-    } catch (Exception ignored) {}
+      return codec.decode(bytes);
+    } catch (Exception e) {
+      throw new IllegalStateException("idempotent response not decodable", e);
+    }
+  }
+
+  private void outcome(String operation, String outcome) {
+    meters.counter("account.idempotency.lookups", "operation", operation, "outcome", outcome).increment();
+  }
+
+  private <R> R timed(String operation, String stage, Supplier<R> s) {
+    return Timer.builder("account.idempotency.store.latency")
+      .tag("operation", operation)
+      .tag("stage", stage)
+      .register(meters)
+      .record(s);
+  }
+
+  private record CacheKey(String key, String operation) {}
+
+  /** Serialización compacta de la respuesta (p.ej. bytes protobuf). */
+  public interface Codec<T> {
+    byte[] encode(T value);
+    T decode(byte[] bytes) throws Exception;
+
+    /** Respuesta de una fila previa a V6 (response_json); sin decoder legacy no hay cómo responderla. */
+    default T decodeLegacyJson(String json) throws Exception {
+      throw new IllegalStateException("no legacy json decoder");
+    }
+
+    static <T> Codec<T> of(Function<T, byte[]> encode, Decoder<T> decode) {
+      return new Codec<>() {
+        @Override public byte[] encode(T value) { return encode.apply(value); }
+        @Override public T decode(byte[] bytes) throws Exception { return decode.decode(bytes); }
+      };
+    }
+
+    /** Filas previas a V6: legacyType es el DTO que se guardaba como json, fromLegacy lo pasa a T. */
+    default <R> Codec<T> withLegacyJson(Class<R> legacyType, Function<R, T> fromLegacy) {
+      Codec<T> self = this;
+      return new Codec<>() {
+        @Override public byte[] encode(T value) { return self.encode(value); }
+        @Override public T decode(byte[] bytes) throws Exception { return self.decode(bytes); }
+        @Override public T decodeLegacyJson(String json) throws Exception {
+          return fromLegacy.apply(LEGACY_JSON.readValue(json, legacyType));
+        }
+      };
+    }
+  }
+
+  @FunctionalInterface
+  public interface Decoder<T> {
+    T decode(byte[] bytes) throws Exception;
+  }
+
+  /**
+   * Esta ejecución terminó después de que otra tomara su marcador por stale: su respuesta no se
+   * guarda. El cliente reintenta y recibe la de la ejecución que quedó como dueña.
+   */
+  public static class TakenOverException extends RuntimeException {
+    public TakenOverException(String operation) {
+      super("idempotent request taken over by another execution: " + operation);
+    }
+  }
+
+  /** Otra ejecución con la misma idempotency key sigue en curso; el cliente debe reintentar. */
+  public static class InProgressException extends RuntimeException {
+    public InProgressException(String operation) {
+      super("idempotent request in progress: " + operation);
+    }
   }
 }
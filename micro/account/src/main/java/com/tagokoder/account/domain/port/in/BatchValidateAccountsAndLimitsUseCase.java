@@ -0,0 +1,17 @@
+package com.tagokoder.account.domain.port.in;
+
+import java.util.List;
+
+public interface BatchValidateAccountsAndLimitsUseCase {
+
+    /**
+     * Legs evaluados en orden, como si se ejecutaran en secuencia: lo que aprueba un leg consume
+     * available y cupo diario para los siguientes de la misma cuenta.
+     */
+    record Command(List<ValidateAccountsAndLimitsUseCase.Command> legs) {}
+
+    /** Un resultado por leg, en el mismo orden. */
+    record Result(List<ValidateAccountsAndLimitsUseCase.Result> results) {}
+
+    Result validateBatch(Command c);
+}
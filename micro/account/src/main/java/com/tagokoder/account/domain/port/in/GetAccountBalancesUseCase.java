@@ -7,5 +7,10 @@ public interface GetAccountBalancesUseCase {
 
     record Result(UUID accountId, BigDecimal ledger, BigDecimal available, BigDecimal hold) {}
 
-    Result get(UUID accountId);
+    /** consistentRead = true: siempre desde la DB; false: puede venir del near-cache (staleness acotada). */
+    Result get(UUID accountId, boolean consistentRead);
+
+    default Result get(UUID accountId) {
+        return get(accountId, false);
+    }
 }
@@ -0,0 +1,29 @@
+package com.tagokoder.account.domain.port.in;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface GetDailyLimitUsageUseCase {
+
+    record Command(List<UUID> accountIds) {}
+
+    /** remaining* null = sin límite configurado (0 o sin fila en account_limits). */
+    record UsageView(
+            UUID accountId,
+            LocalDate day,
+            BigDecimal dailyOut,
+            BigDecimal dailyIn,
+            BigDecimal outUsed,
+            BigDecimal inUsed,
+            BigDecimal outRemainingOrNull,
+            BigDecimal inRemainingOrNull
+    ) {}
+
+    record Missing(UUID accountId, String reason) {}
+
+    record Result(List<UsageView> usages, List<Missing> missing) {}
+
+    Result getDailyUsage(Command c);
+}
@@ -1,6 +1,7 @@
 package com.tagokoder.account.domain.port.in;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,7 +21,24 @@ public interface ListAccountsUseCase {
 
     record Balances(BigDecimal ledger, BigDecimal available, BigDecimal hold) {}
 
-    record Result(List<AccountView> accounts) {}
+    /**
+     * Filtros opcionales (null = sin filtro). pageSize null = sin paginar.
+     * after: cursor keyset (opened_at, id) de la última fila de la página anterior.
+     */
+    record Query(UUID customerId, String status, String currency, String productType, Integer pageSize, Cursor after) {
+        public static Query all(UUID customerId) {
+            return new Query(customerId, null, null, null, null, null);
+        }
+    }
 
-    Result listByCustomer(UUID customerId);
+    record Cursor(OffsetDateTime openedAt, UUID id) {}
+
+    /** next: cursor para la siguiente página, null si no hay más. */
+    record Result(List<AccountView> accounts, Cursor next) {}
+
+    Result list(Query query);
+
+    default Result listByCustomer(UUID customerId) {
+        return list(Query.all(customerId));
+    }
 }
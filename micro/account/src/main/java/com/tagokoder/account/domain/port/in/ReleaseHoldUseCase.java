@@ -4,7 +4,7 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 public interface ReleaseHoldUseCase {
-    record Command(UUID accountId, String currency, BigDecimal amount, String reasonOrNull) {}
-    record Result(boolean ok, BigDecimal newHold) {}
+    record Command(UUID accountId, String currency, BigDecimal amount, String reasonOrNull, UUID holdIdOrNull) {}
+    record Result(boolean ok, BigDecimal newHold, String status) {}
     Result release(Command command);
 }
@@ -0,0 +1,10 @@
+package com.tagokoder.account.domain.port.in;
+
+import java.util.List;
+
+public interface ReplayQuarantinedEventsUseCase {
+    // eventIds vacío => los más antiguos en cuarentena, hasta limit
+    record Command(List<String> eventIds, int limit) {}
+    record Result(int replayed, int failed, List<String> failedEventIds) {}
+    Result replay(Command command);
+}
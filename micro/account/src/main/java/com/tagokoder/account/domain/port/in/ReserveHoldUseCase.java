@@ -4,7 +4,9 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 public interface ReserveHoldUseCase {
-    record Command(UUID accountId, String currency, BigDecimal amount, String reasonOrNull) {}
-    record Result(boolean ok, BigDecimal newHold) {}
+    // holdId + idempotencyKey: se registra el hold y un reintento con la misma key vuelve como duplicate
+    record Command(UUID accountId, String currency, BigDecimal amount, String reasonOrNull,
+                   UUID holdIdOrNull, String idempotencyKeyOrNull) {}
+    record Result(boolean ok, BigDecimal newHold, UUID holdId, String status) {}
     Result reserve(Command command);
 }
@@ -1,16 +1,34 @@
 package com.tagokoder.account.domain.port.out;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface AccountBalanceRepositoryPort {
     Optional<BalancesRow> findByAccountId(UUID accountId);
+
+    /**
+     * Lectura que puede servirse desde un near-cache (staleness acotada por config).
+     * findByAccountId siempre va a la DB.
+     */
+    default Optional<BalancesRow> findCachedByAccountId(UUID accountId) {
+        return findByAccountId(accountId);
+    }
     void init(UUID accountId, BigDecimal ledger, BigDecimal available, BigDecimal hold);
     void initZero(UUID accountId);
 
     BigDecimal incrementHold(UUID accountId, BigDecimal amount);
     BigDecimal decrementHold(UUID accountId, BigDecimal amount);
     BigDecimal applyCredit(UUID accountId, BigDecimal amount); // retorna newAvailable o newLedger, como prefieras
+
+    /** Aplica deltas netos (uno por cuenta) en un solo statement; retorna filas actualizadas. */
+    int applyDeltas(Collection<BalanceDelta> deltas);
+
+    record BalanceDelta(UUID accountId, BigDecimal dLedger, BigDecimal dAvailable, BigDecimal dHold) {
+        public BalanceDelta plus(BalanceDelta o) {
+            return new BalanceDelta(accountId, dLedger.add(o.dLedger), dAvailable.add(o.dAvailable), dHold.add(o.dHold));
+        }
+    }
     record BalancesRow(BigDecimal ledger, BigDecimal available, BigDecimal hold) {}
 }
@@ -1,7 +1,10 @@
 package com.tagokoder.account.domain.port.out;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface AccountHoldRepositoryPort {
@@ -10,5 +13,42 @@ public interface AccountHoldRepositoryPort {
   void insertReserved(UUID accountId, UUID holdId, String currency, BigDecimal amount, String idempotencyKey);
   void markReleased(UUID accountId, UUID holdId);
 
+  /**
+   * Reserve en un solo statement: chequeo de cuenta, balance, fila de hold e idempotency key.
+   * Solo aplica si todo cuadra (newHold != null); cuentas hot nunca se aplican acá.
+   * La key queda bloqueada hasta el commit (también si no se aplicó).
+   */
+  ReserveOutcome reserveAtomic(UUID accountId, UUID holdId, String currency, BigDecimal amount, String idempotencyKey);
+
+  /** Release en un solo statement: hold reserved -> released y balance; cuentas hot nunca se aplican acá. */
+  ReleaseOutcome releaseAtomic(UUID accountId, UUID holdId, String currency, BigDecimal amount);
+
+  /** reserved -> released condicional (cuentas hot); false si ya no estaba reserved. */
+  boolean releaseIfReserved(UUID accountId, UUID holdId, BigDecimal amount);
+
+  /**
+   * Captura desde el ledger: reserved -> settled (el sweeper ya no los vence).
+   * @return los que ya estaban released: su monto volvió a available y la captura debe salir de ahí
+   */
+  Set<HoldKey> settleCaptured(Collection<HoldKey> captured);
+
+  record HoldKey(UUID accountId, UUID holdId) {}
+
   record HoldRow(UUID accountId, UUID holdId, String currency, BigDecimal amount, String status, String idempotencyKey) {}
+
+  /**
+   * @param accountStatus null = la cuenta no existe
+   * @param duplicateOf   hold ya registrado con la misma idempotency key
+   * @param newHold       hold después de reservar; null = no se aplicó
+   */
+  record ReserveOutcome(String accountStatus, String accountCurrency, UUID duplicateOf,
+                        BigDecimal newHold, BigDecimal currentHold, boolean hot) {}
+
+  /**
+   * @param holdStatus null = no hay fila de hold para ese hold_id
+   * @param holdDay    día UTC en que se reservó el hold (ahí se contó el uso diario)
+   * @param newHold    hold de la cuenta después de liberar; null con released = hold inconsistente
+   */
+  record ReleaseOutcome(String accountCurrency, String holdStatus, BigDecimal holdAmount, LocalDate holdDay,
+                        boolean released, BigDecimal newHold, BigDecimal currentHold, boolean hot) {}
 }
@@ -1,11 +1,15 @@
 package com.tagokoder.account.domain.port.out;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface AccountLimitsRepositoryPort {
     Optional<LimitsRow> findByAccountId(UUID accountId);
+    // cuentas sin fila en account_limits no aparecen en el mapa
+    Map<UUID, LimitsRow> findByAccountIds(Collection<UUID> accountIds);
     LimitsRow patch(UUID accountId, BigDecimal dailyOut, BigDecimal dailyIn);
     
 
@@ -2,6 +2,8 @@ package com.tagokoder.account.domain.port.out;
 
 import com.tagokoder.account.domain.model.Account;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,4 +15,25 @@ public interface AccountRepositoryPort {
     boolean existsCustomer(UUID customerId);
     List<Account> findByIds(List<UUID> accountIds);
     Optional<Account> findByAccountNumber(long accountNumber);
+
+    /**
+     * Read-model: cuentas + account_balances en un solo round trip, sin entidades gestionadas.
+     * Filtros null = sin filtro; afterOpenedAt/afterId = keyset; limit null = sin límite.
+     */
+    List<AccountWithBalancesRow> listWithBalances(UUID customerId, String status, String currency, String productType,
+                                                  OffsetDateTime afterOpenedAt, UUID afterId, Integer limit);
+
+    record AccountWithBalancesRow(
+            UUID id,
+            UUID customerId,
+            Long accountNumber,
+            String productType,
+            String currency,
+            String status,
+            OffsetDateTime openedAt,
+            OffsetDateTime updatedAt,
+            BigDecimal ledger,
+            BigDecimal available,
+            BigDecimal hold
+    ) {}
 }
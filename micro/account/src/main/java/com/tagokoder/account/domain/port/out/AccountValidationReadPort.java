@@ -0,0 +1,25 @@
+package com.tagokoder.account.domain.port.out;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/** Todo lo que necesita ValidateAccountsAndLimits, para uno o muchos legs, en una sola lectura. */
+public interface AccountValidationReadPort {
+
+    /** Cuentas que no existen no aparecen en el mapa. */
+    Map<UUID, ValidationRow> load(Collection<UUID> accountIds);
+
+    /** dailyOut/dailyIn 0 = sin límite; outUsed/inUsed = uso de hoy (día UTC). */
+    record ValidationRow(
+            UUID accountId,
+            String status,
+            String currency,
+            BigDecimal available,
+            BigDecimal dailyOut,
+            BigDecimal dailyIn,
+            BigDecimal outUsed,
+            BigDecimal inUsed
+    ) {}
+}
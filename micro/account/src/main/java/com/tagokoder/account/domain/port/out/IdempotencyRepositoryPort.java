@@ -1,10 +1,39 @@
 package com.tagokoder.account.domain.port.out;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface IdempotencyRepositoryPort {
-  Optional<Record> find(String key);
-  void save(String key, String operation, int statusCode, String responseJson);
 
-  record Record(String key, String operation, int statusCode, String responseJson) {}
+  /**
+   * Toma el marcador in_flight de (key, operation) si no existe, o si el existente lleva más de staleAfter
+   * (su dueño se cayó). Serializado por key entre réplicas. ACQUIRED trae el token de dueño del marcador.
+   */
+  Begin begin(String key, String operation, Duration staleAfter);
+
+  /** Respuesta ya completada (binaria), si existe. */
+  Optional<byte[]> findCompleted(String key, String operation);
+
+  /** @return false si el marcador ya no es de owner (otra ejecución lo tomó por stale): no se escribe nada */
+  boolean complete(String key, String operation, UUID owner, int statusCode, byte[] response);
+
+  /**
+   * Libera el marcador in_flight si la ejecución falló: el reintento vuelve a ejecutar.
+   * Solo si sigue siendo de owner.
+   */
+  void abandon(String key, String operation, UUID owner);
+
+  enum BeginState { ACQUIRED, IN_FLIGHT, COMPLETED }
+
+  /**
+   * @param response   respuesta binaria (COMPLETED)
+   * @param legacyJson COMPLETED previo a V6: solo hay response_json (DTO serializado con Jackson)
+   * @param owner      token del marcador in_flight (ACQUIRED)
+   */
+  record Begin(BeginState state, byte[] response, String legacyJson, UUID owner) {
+    public Begin(BeginState state, byte[] response, String legacyJson) {
+      this(state, response, legacyJson, null);
+    }
+  }
 }
@@ -1,10 +1,20 @@
 package com.tagokoder.account.domain.port.out;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface IdentityPrincipalPort {
   PrincipalInfo resolvePrincipal(String bearerAccessToken, boolean requireLink, String purpose);
 
+  /** Igual que resolvePrincipal, pero el adapter puede servirlo de cache por subject hasta tokenExpiresAt. */
+  default PrincipalInfo resolvePrincipal(
+      String bearerAccessToken, String subject, Instant tokenExpiresAt, boolean requireLink, String purpose) {
+    return resolvePrincipal(bearerAccessToken, requireLink, purpose);
+  }
+
+  /** Cambió el customer link o el user_status del subject (evento de identity). */
+  default void invalidate(String subject) {}
+
   record PrincipalInfo(
       String subjectIdOidc,
       String principalId,
@@ -12,4 +22,4 @@ public interface IdentityPrincipalPort {
       List<String> roles,
       String userStatus
   ) {}
-}
\ No newline at end of file
+}
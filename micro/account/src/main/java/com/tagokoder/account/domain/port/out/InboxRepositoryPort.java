@@ -1,7 +1,23 @@
 package com.tagokoder.account.domain.port.out;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 public interface InboxRepositoryPort {
   boolean tryBegin(String eventId, String eventType); // inserta si no existe
   void markProcessed(String eventId);
+
+  /** Versión batch de tryBegin: un solo statement. @return event_ids que se deben procesar */
+  Set<String> tryBeginAll(Collection<String> eventIds, String eventType);
+  void markProcessedAll(Collection<String> eventIds);
   void markFailedSafe(String eventIdOrNull, String eventType, String error);
+
+  /** Deja el evento en status quarantined con el payload crudo para replay manual. */
+  void quarantine(String eventId, String eventType, int attempts, String payload, String error);
+  List<QuarantinedEvent> findQuarantined(String eventType, int limit);
+  Optional<QuarantinedEvent> findQuarantined(String eventId);
+
+  record QuarantinedEvent(String eventId, String eventType, int attempts, String payload, String error) {}
 }
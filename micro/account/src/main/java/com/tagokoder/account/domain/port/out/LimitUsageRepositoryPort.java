@@ -0,0 +1,40 @@
+package com.tagokoder.account.domain.port.out;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/** Uso acumulado del día UTC contra account_limits (daily_out / daily_in). */
+public interface LimitUsageRepositoryPort {
+
+    /**
+     * Suma al uso de hoy. Dentro de una transacción cuenta recién al commit
+     * (un rollback no consume cupo).
+     */
+    void add(UUID accountId, BigDecimal out, BigDecimal in);
+
+    void addAll(Collection<UsageDelta> deltas);
+
+    /**
+     * Devuelve uso contado el día {@code day} (hold liberado o vencido: su out se contó al reservar).
+     * Igual que add: dentro de una transacción cuenta recién al commit.
+     */
+    void reverse(LocalDate day, Collection<UsageDelta> deltas);
+
+    /** Uso de hoy de la cuenta; sin fila = cero. */
+    Usage today(UUID accountId);
+
+    Map<UUID, Usage> today(Collection<UUID> accountIds);
+
+    record UsageDelta(UUID accountId, BigDecimal out, BigDecimal in) {}
+
+    record Usage(BigDecimal outUsed, BigDecimal inUsed) {
+        public static final Usage ZERO = new Usage(BigDecimal.ZERO, BigDecimal.ZERO);
+
+        public Usage plus(Usage o) {
+            return new Usage(outUsed.add(o.outUsed), inUsed.add(o.inUsed));
+        }
+    }
+}
@@ -5,7 +5,9 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
 
+import com.tagokoder.account.infra.props.GrpcInterceptorProperties;
 import com.tagokoder.account.infra.security.grpc.CorrelationServerInterceptor;
+import com.tagokoder.account.infra.security.grpc.FusedServerInterceptor;
 
 import io.grpc.ServerInterceptor;
 import net.devh.boot.grpc.server.interceptor.GlobalServerInterceptorConfigurer;
@@ -15,16 +17,27 @@ public class GrpcInterceptorsConfig implements GlobalServerInterceptorConfigurer
 
   private final CorrelationServerInterceptor corr;
   private final ServerInterceptor authz;
+  private final GrpcInterceptorProperties cfg;
+  private final AppProps props;
 
   public GrpcInterceptorsConfig(
       CorrelationServerInterceptor corr,
-      @Qualifier("authzInterceptor") ServerInterceptor authz) {
+      @Qualifier("authzInterceptor") ServerInterceptor authz,
+      GrpcInterceptorProperties cfg,
+      AppProps props) {
     this.corr = corr;
     this.authz = authz;
+    this.cfg = cfg;
+    this.props = props;
   }
 
   @Override
   public void configureServerInterceptors(List<ServerInterceptor> interceptors) {
+    if (cfg.isFused()) {
+      // correlation + idempotency-key + authz en un solo interceptor
+      interceptors.add(new FusedServerInterceptor(props, authz, cfg.getHashCacheSize()));
+      return;
+    }
     // Orden recomendado: correlation -> authz
     interceptors.add(corr);
     interceptors.add(authz);
@@ -7,10 +7,16 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import com.tagokoder.account.domain.port.out.AccountRepositoryPort;
 import com.tagokoder.account.domain.port.out.IdentityPrincipalPort;
 import com.tagokoder.account.infra.out.audit.AuditPublisher;
+import com.tagokoder.account.infra.props.JwtCacheProperties;
+import com.tagokoder.account.infra.props.ServicePrincipalProperties;
 import com.tagokoder.account.infra.security.authz.AccountResourceTemplates;
 import com.tagokoder.account.infra.security.authz.RouteAuthzRegistry;
+import com.tagokoder.account.infra.security.authz.ServicePrincipals;
 import com.tagokoder.account.infra.security.avp.AvpAuthorizer;
 import com.tagokoder.account.infra.security.grpc.AuthzServerInterceptor;
+import com.tagokoder.account.infra.security.jwt.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class GrpcSecurityConfig {
@@ -25,16 +31,32 @@ public class GrpcSecurityConfig {
     return new AccountResourceTemplates(accountRepo);
   }
 
+  @Bean
+  ServicePrincipals servicePrincipals(ServicePrincipalProperties cfg) {
+    return new ServicePrincipals(cfg);
+  }
+
+  // mismo JWKS que JwtConfig (issuer Cognito sin trailing slash)
+  @Bean(destroyMethod = "close")
+  VerifiedTokenCache verifiedTokenCache(JwtDecoder jwtDecoder, JwtCacheProperties cfg, AppProps props, MeterRegistry meters) {
+    String issuer = props.security().issuerUri();
+    String jwks = (issuer == null || issuer.isBlank()) ? null : issuer.replaceAll("/+$", "") + "/.well-known/jwks.json";
+    VerifiedTokenCache cache = new VerifiedTokenCache(jwtDecoder, cfg, jwks, meters);
+    cache.start();
+    return cache;
+  }
+
   @Bean
   AuthzServerInterceptor authzServerInterceptor(
       AppProps props,
-      JwtDecoder jwtDecoder,
+      VerifiedTokenCache tokens,
       AvpAuthorizer avp,
       AuditPublisher audit,
       RouteAuthzRegistry registry,
       AccountResourceTemplates templates,
-      IdentityPrincipalPort principalPort
+      IdentityPrincipalPort principalPort,
+      ServicePrincipals services
   ) {
-    return new AuthzServerInterceptor(props, jwtDecoder, avp, audit, registry, templates, principalPort);
+    return new AuthzServerInterceptor(props, tokens, avp, audit, registry, templates, principalPort, services);
   }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.tagokoder.account.infra.config;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -12,12 +15,14 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 
+import com.tagokoder.account.infra.props.ServicePrincipalProperties;
+
 @Configuration
 @Profile("!local")
 public class JwtConfig {
 
     @Bean
-    JwtDecoder jwtDecoder(AppProps props) {
+    JwtDecoder jwtDecoder(AppProps props, ServicePrincipalProperties services) {
 
         String issuer = props.security().issuerUri();
         String expectedClientId = props.security().audience(); // tu App Client ID
@@ -29,6 +34,10 @@ public class JwtConfig {
         throw new IllegalStateException("Missing app.security.audience (COGNITO_AUDIENCE)");
         }
 
+        // app clients client_credentials de servicios internos (ServicePrincipals decide qué pueden hacer)
+        Set<String> serviceClientIds = new HashSet<>();
+        services.getServices().values().forEach(s -> serviceClientIds.addAll(s.getClientIds()));
+
         // Importante: issuer sin trailing slash para matchear iss del token
         issuer = issuer.replaceAll("/+$", "");
 
@@ -51,6 +60,9 @@ public class JwtConfig {
         if (expectedClientId.equals(clientId)) {
             return OAuth2TokenValidatorResult.success();
         }
+        if (clientId != null && serviceClientIds.contains(clientId)) {
+            return OAuth2TokenValidatorResult.success();
+        }
         if (jwt.getAudience() != null && jwt.getAudience().contains(expectedClientId)) {
             return OAuth2TokenValidatorResult.success();
         }
@@ -0,0 +1,17 @@
+package com.tagokoder.account.infra.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.tagokoder.account.infra.in.sqs.AccountPartitionedExecutor;
+import com.tagokoder.account.infra.props.LedgerConsumerProperties;
+
+@Configuration
+public class LedgerApplyConfig {
+
+    // compartido por el consumer y el replay de cuarentena: todo apply sobre una cuenta se serializa acá
+    @Bean(destroyMethod = "close")
+    AccountPartitionedExecutor ledgerApplyPartitions(LedgerConsumerProperties cfg) {
+        return new AccountPartitionedExecutor(Math.max(1, cfg.getPartitions()));
+    }
+}
@@ -3,18 +3,26 @@ package com.tagokoder.account.infra.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 
 import com.tagokoder.account.domain.port.out.IdentityPrincipalPort;
 import com.tagokoder.account.infra.out.audit.AuditPublisher;
+import com.tagokoder.account.infra.out.audit.EventBridgeBatcher;
+import com.tagokoder.account.infra.props.AuditPipelineProperties;
+import com.tagokoder.account.infra.props.AuthzDecisionCacheProperties;
+import com.tagokoder.account.infra.props.AuthzEngineProperties;
 import com.tagokoder.account.infra.security.authz.AccountResourceTemplates;
 import com.tagokoder.account.infra.security.authz.RouteAuthzRegistry;
+import com.tagokoder.account.infra.security.authz.ServicePrincipals;
 import com.tagokoder.account.infra.security.avp.AvpAuthorizer;
+import com.tagokoder.account.infra.security.cedar.CedarLocalAuthorizer;
+import com.tagokoder.account.infra.security.cedar.CedarPolicyStore;
 import com.tagokoder.account.infra.security.grpc.AuthzServerInterceptor;
 import com.tagokoder.account.infra.security.grpc.CorrelationServerInterceptor;
 import com.tagokoder.account.infra.security.grpc.NoAuthzServerInterceptor;
+import com.tagokoder.account.infra.security.jwt.VerifiedTokenCache;
 
 import io.grpc.ServerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
 import software.amazon.awssdk.services.verifiedpermissions.VerifiedPermissionsClient;
 
@@ -33,37 +41,71 @@ public class SecurityWiringConfig {
         return new NoAuthzServerInterceptor();
     }
 
+    @Bean(destroyMethod = "close")
+    @Profile("!local")
+    public EventBridgeBatcher auditBatcher(EventBridgeClient eb, AuditPipelineProperties cfg, MeterRegistry meters) {
+        EventBridgeBatcher batcher = new EventBridgeBatcher(eb, cfg, meters);
+        batcher.start();
+        return batcher;
+    }
+
     @Bean
     @Profile("!local")
-    public AuditPublisher auditPublisher(EventBridgeClient eb, AppProps props) {
-        return new AuditPublisher(eb, props);
+    public AuditPublisher auditPublisher(EventBridgeBatcher auditBatcher, AppProps props) {
+        return new AuditPublisher(auditBatcher, props);
+    }
+
+    // solo se carga/refresca si security.authz.engine.mode es local o shadow
+    @Bean(destroyMethod = "close")
+    @Profile("!local")
+    public CedarPolicyStore cedarPolicyStore(
+        AuthzEngineProperties engine,
+        VerifiedPermissionsClient avp,
+        AppProps props,
+        MeterRegistry meters
+    ) {
+        CedarPolicyStore store = new CedarPolicyStore(engine, avp, props.aws().avpPolicyStoreId(), meters);
+        if (engine.getMode() != AuthzEngineProperties.Mode.REMOTE) store.start();
+        return store;
     }
 
     @Bean
     @Profile("!local")
-    public AvpAuthorizer avpAuthorizer(VerifiedPermissionsClient avp, AppProps props) {
-        return new AvpAuthorizer(avp, props);
+    public AvpAuthorizer avpAuthorizer(
+        VerifiedPermissionsClient avp,
+        AppProps props,
+        AuthzDecisionCacheProperties decisionCache,
+        AuthzEngineProperties engine,
+        CedarPolicyStore policyStore,
+        MeterRegistry meters
+    ) {
+        CedarLocalAuthorizer local = engine.getMode() == AuthzEngineProperties.Mode.REMOTE
+            ? null
+            : new CedarLocalAuthorizer(policyStore, engine);
+        return new AvpAuthorizer(avp, props, decisionCache, engine, local, meters);
     }
 
     @Bean(name = "authzInterceptor")
     @Profile("!local")
     public ServerInterceptor authzServerInterceptor(
         AppProps props,
-        JwtDecoder jwtDecoder,
+        VerifiedTokenCache tokens,
         AvpAuthorizer avpAuthorizer,
         AuditPublisher auditPublisher,
         RouteAuthzRegistry registry,
         AccountResourceTemplates templates,
-        IdentityPrincipalPort principalPort
+        IdentityPrincipalPort principalPort,
+        ServicePrincipals services
     ) {
         return new AuthzServerInterceptor(
             props,
-            jwtDecoder,
+            tokens,
             avpAuthorizer,
             auditPublisher,
             registry,
             templates,
-            principalPort
+            principalPort,
+            services
         );
     }
 }
@@ -1,9 +1,10 @@
 package com.tagokoder.account.infra.in.grpc;
 
-import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.resolveCustomerIdForList;
+import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.encodePageToken;
 import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.toAccountId;
 import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.toCreateAccountCommand;
 import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.toGetByNumberCommand;
+import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.toListAccountsQuery;
 import static com.tagokoder.account.infra.in.grpc.validation.AccountsGrpcValidators.toPatchLimitsInput;
 
 import java.time.OffsetDateTime;
@@ -18,7 +19,7 @@ import com.tagokoder.account.domain.port.in.GetAccountByNumberUseCase;
 import com.tagokoder.account.domain.port.in.ListAccountsUseCase;
 import com.tagokoder.account.domain.port.in.PatchAccountLimitsUseCase;
 import com.tagokoder.account.infra.in.grpc.mapper.ProtoEnumMapper;
-import com.tagokoder.account.infra.security.grpc.IdempotencyKeyInterceptor;
+import com.tagokoder.account.infra.security.context.AuthCtx;
 
 import bank.accounts.v1.AccountBalances;
 import bank.accounts.v1.AccountLookup;
@@ -39,6 +40,14 @@ import net.devh.boot.grpc.server.service.GrpcService;
 @GrpcService
 public class AccountsGrpcService extends AccountsServiceGrpc.AccountsServiceImplBase {
 
+    // withLegacyJson: filas previas a V6 guardaban el Result del use case como json
+    private static final IdempotencyService.Codec<CreateAccountResponse> CREATE_ACCOUNT_CODEC =
+            IdempotencyService.Codec.of(CreateAccountResponse::toByteArray, CreateAccountResponse::parseFrom)
+                    .withLegacyJson(CreateAccountUseCase.Result.class, AccountsGrpcService::toCreateAccountResponse);
+    private static final IdempotencyService.Codec<PatchAccountLimitsResponse> PATCH_LIMITS_CODEC =
+            IdempotencyService.Codec.of(PatchAccountLimitsResponse::toByteArray, PatchAccountLimitsResponse::parseFrom)
+                    .withLegacyJson(PatchAccountLimitsUseCase.Result.class, AccountsGrpcService::toPatchLimitsResponse);
+
     private final ListAccountsUseCase listAccounts;
     private final GetAccountByNumberUseCase getByNumber;
     private final GetAccountBalancesUseCase getBalances;
@@ -64,12 +73,11 @@ public class AccountsGrpcService extends AccountsServiceGrpc.AccountsServiceImpl
 
     @Override
     public void listAccounts(ListAccountsRequest request, StreamObserver<ListAccountsResponse> responseObserver) {
-        UUID customerId = resolveCustomerIdForList(request);
-        var res = listAccounts.listByCustomer(customerId);
-
-        System.out.println("AUTHZ request customerId={}"+ customerId);
+        var query = toListAccountsQuery(request);
+        var res = listAccounts.list(query);
 
-        ListAccountsResponse.Builder out = ListAccountsResponse.newBuilder();
+        ListAccountsResponse.Builder out = ListAccountsResponse.newBuilder()
+                .setNextPageToken(encodePageToken(res.next()));
         res.accounts().forEach(a -> {
         AccountView.Builder view = AccountView.newBuilder()
         .setId(a.id().toString())
@@ -118,34 +126,19 @@ public class AccountsGrpcService extends AccountsServiceGrpc.AccountsServiceImpl
     @Override
     public void createAccount(CreateAccountRequest request, StreamObserver<CreateAccountResponse> responseObserver) {
         String idemKey = request.getIdempotencyKey();
-        // cache idempotente (opcional pero recomendado)
-        var cached = idem.tryGet(idemKey, "accounts.createAccount", CreateAccountUseCase.Result.class);
-        if (cached.isPresent()) {
-        var r = cached.get();
-        responseObserver.onNext(CreateAccountResponse.newBuilder()
-            .setAccountId(r.accountId().toString())
-            .setAccountNumber(AccountNumberFmt.fmt12(r.accountNumber()))
-            .build());
-        responseObserver.onCompleted();
-        return;
-        }
-
-        var cmd = toCreateAccountCommand(request);
-        var res = createAccount.create(cmd);
+        // respuesta idempotente guardada como bytes protobuf
+        var out = idem.execute(idemKey, "accounts.createAccount", CREATE_ACCOUNT_CODEC,
+            () -> toCreateAccountResponse(createAccount.create(toCreateAccountCommand(request))));
 
-        idem.save(idemKey, "accounts.createAccount", 200, res);
-
-        responseObserver.onNext(CreateAccountResponse.newBuilder()
-            .setAccountId(res.accountId().toString())
-            .setAccountNumber(AccountNumberFmt.fmt12(res.accountNumber()))
-            .build());
+        responseObserver.onNext(out);
         responseObserver.onCompleted();
     }
 
         @Override
         public void getAccountBalances(GetAccountBalancesRequest request, StreamObserver<GetAccountBalancesResponse> responseObserver) {
             UUID accountId = toAccountId(request);
-            var res = getBalances.get(accountId);
+            boolean consistentRead = request.hasConsistentRead() && request.getConsistentRead().getValue();
+            var res = getBalances.get(accountId, consistentRead);
 
             responseObserver.onNext(GetAccountBalancesResponse.newBuilder()
             .setAccountId(res.accountId().toString())
@@ -160,34 +153,30 @@ public class AccountsGrpcService extends AccountsServiceGrpc.AccountsServiceImpl
 
         @Override
         public void patchAccountLimits(PatchAccountLimitsRequest request, StreamObserver<PatchAccountLimitsResponse> responseObserver) {
-                var in = toPatchLimitsInput(request, IdempotencyKeyInterceptor.IDEMPOTENCY_KEY.get());
+                var in = toPatchLimitsInput(request, AuthCtx.idempotencyKey());
 
-                // 1) si ya existe, responde lo mismo sin re-ejecutar
-                var cached = idem.tryGet(in.idempotencyKey(), "accounts.patchLimits", PatchAccountLimitsUseCase.Result.class);
-                if (cached.isPresent()) {
-                var res = cached.get();
-                responseObserver.onNext(PatchAccountLimitsResponse.newBuilder()
-                .setAccountId(res.accountId().toString())
-                .setDailyOut(GrpcMoney.dbl(res.dailyOut()))
-                .setDailyIn(GrpcMoney.dbl(res.dailyIn()))
-                .build());
-                responseObserver.onCompleted();
-                return;
-                }
+                // misma key -> misma respuesta sin re-ejecutar; duplicados concurrentes esperan a la primera
+                var out = idem.execute(in.idempotencyKey(), "accounts.patchLimits", PATCH_LIMITS_CODEC,
+                        () -> toPatchLimitsResponse(patchLimits.patch(in.command())));
 
-                // 2) ejecuta caso normal
-                var res = patchLimits.patch(in.command());
+                responseObserver.onNext(out);
+                responseObserver.onCompleted();
+        }
 
-                // 3) guarda respuesta idempotente
-                idem.save(in.idempotencyKey(), "accounts.patchLimits", 200, res);
+    private static CreateAccountResponse toCreateAccountResponse(CreateAccountUseCase.Result res) {
+        return CreateAccountResponse.newBuilder()
+                .setAccountId(res.accountId().toString())
+                .setAccountNumber(AccountNumberFmt.fmt12(res.accountNumber()))
+                .build();
+    }
 
-                responseObserver.onNext(PatchAccountLimitsResponse.newBuilder()
+    private static PatchAccountLimitsResponse toPatchLimitsResponse(PatchAccountLimitsUseCase.Result res) {
+        return PatchAccountLimitsResponse.newBuilder()
                 .setAccountId(res.accountId().toString())
                 .setDailyOut(GrpcMoney.dbl(res.dailyOut()))
                 .setDailyIn(GrpcMoney.dbl(res.dailyIn()))
-                .build());
-                responseObserver.onCompleted();
-        }
+                .build();
+    }
 
     private static Timestamp toTimestamp(OffsetDateTime i) {
         if (i == null) return Timestamp.getDefaultInstance();
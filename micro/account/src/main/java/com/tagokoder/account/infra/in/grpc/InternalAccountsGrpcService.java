@@ -1,30 +1,52 @@
 package com.tagokoder.account.infra.in.grpc;
 
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toBatchIdsInput;
+import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toBatchValidateInput;
+import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toDailyUsageInput;
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toOpenAccountWithBonusCommand;
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toReleaseCommand;
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toReleaseHoldInput;
+import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toReplayCommand;
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toReserveCommand;
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toReserveHoldInput;
 import static com.tagokoder.account.infra.in.grpc.validation.InternalAccountsGrpcValidators.toValidateCommand;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.protobuf.DoubleValue;
 import com.google.protobuf.StringValue;
 import com.tagokoder.account.domain.port.in.BatchGetAccountSummariesUseCase;
+import com.tagokoder.account.domain.port.in.BatchValidateAccountsAndLimitsUseCase;
+import com.tagokoder.account.domain.port.in.GetDailyLimitUsageUseCase;
 import com.tagokoder.account.domain.port.in.OpenAccountWithOpeningBonusUseCase;
 import com.tagokoder.account.domain.port.in.ReleaseHoldUseCase;
+import com.tagokoder.account.domain.port.in.ReplayQuarantinedEventsUseCase;
 import com.tagokoder.account.domain.port.in.ReserveHoldUseCase;
 import com.tagokoder.account.domain.port.in.ValidateAccountsAndLimitsUseCase;
 import com.tagokoder.account.infra.in.grpc.mapper.ProtoEnumMapper;
+import com.tagokoder.account.infra.security.context.BatchDecisions;
 
 import bank.accounts.v1.AccountSummary;
 import bank.accounts.v1.BatchGetAccountSummariesRequest;
 import bank.accounts.v1.BatchGetAccountSummariesResponse;
+import bank.accounts.v1.BatchValidateAccountsAndLimitsRequest;
+import bank.accounts.v1.BatchValidateAccountsAndLimitsResponse;
+import bank.accounts.v1.DailyLimitUsage;
+import bank.accounts.v1.GetDailyLimitUsageRequest;
+import bank.accounts.v1.GetDailyLimitUsageResponse;
 import bank.accounts.v1.InternalAccountsServiceGrpc;
+import bank.accounts.v1.LegValidationResult;
 import bank.accounts.v1.MissingAccount;
 import bank.accounts.v1.OpenAccountWithOpeningBonusRequest;
 import bank.accounts.v1.OpenAccountWithOpeningBonusResponse;
 import bank.accounts.v1.ReleaseHoldRequest;
 import bank.accounts.v1.ReleaseHoldResponse;
+import bank.accounts.v1.ReplayQuarantinedEventsRequest;
+import bank.accounts.v1.ReplayQuarantinedEventsResponse;
 import bank.accounts.v1.ReserveHoldRequest;
 import bank.accounts.v1.ReserveHoldResponse;
 import bank.accounts.v1.ValidateAccountsAndLimitsRequest;
@@ -40,19 +62,28 @@ public class InternalAccountsGrpcService extends InternalAccountsServiceGrpc.Int
     private final ReleaseHoldUseCase releaseUC;
     private final BatchGetAccountSummariesUseCase batchSummariesUC;
     private final OpenAccountWithOpeningBonusUseCase openWithBonusUC;
+    private final ReplayQuarantinedEventsUseCase replayUC;
+    private final GetDailyLimitUsageUseCase dailyUsageUC;
+    private final BatchValidateAccountsAndLimitsUseCase batchValidateUC;
 
     public InternalAccountsGrpcService(
             ValidateAccountsAndLimitsUseCase validateUC,
             ReserveHoldUseCase reserveUC,
             ReleaseHoldUseCase releaseUC,
             BatchGetAccountSummariesUseCase batchSummariesUC,
-            OpenAccountWithOpeningBonusUseCase openWithBonusUC
+            OpenAccountWithOpeningBonusUseCase openWithBonusUC,
+            ReplayQuarantinedEventsUseCase replayUC,
+            GetDailyLimitUsageUseCase dailyUsageUC,
+            BatchValidateAccountsAndLimitsUseCase batchValidateUC
     ) {
         this.validateUC = validateUC;
         this.reserveUC = reserveUC;
         this.releaseUC = releaseUC;
         this.batchSummariesUC = batchSummariesUC;
         this.openWithBonusUC =openWithBonusUC;
+        this.replayUC = replayUC;
+        this.dailyUsageUC = dailyUsageUC;
+        this.batchValidateUC = batchValidateUC;
     }
 
     @Override
@@ -88,15 +119,58 @@ public class InternalAccountsGrpcService extends InternalAccountsServiceGrpc.Int
         responseObserver.onCompleted();
         }
 
+        @Override
+        public void batchValidateAccountsAndLimits(BatchValidateAccountsAndLimitsRequest request,
+                                        StreamObserver<BatchValidateAccountsAndLimitsResponse> responseObserver) {
+        var legs = toBatchValidateInput(request);
+
+        // AUTHZ_BATCH: un leg con origen o destino denegado por policy vuelve forbidden y no llega al use case
+        Set<UUID> forbidden = BatchDecisions.forbidden();
+        List<ValidateAccountsAndLimitsUseCase.Command> valid = new ArrayList<>(legs.size());
+        for (var leg : legs) {
+            var cmd = leg.commandOrNull();
+            if (cmd != null && !isForbidden(cmd, forbidden)) valid.add(cmd);
+        }
+        var res = batchValidateUC.validateBatch(new BatchValidateAccountsAndLimitsUseCase.Command(valid));
+
+        // resultados del use case en orden de los legs válidos; los inválidos ya traen su motivo
+        BatchValidateAccountsAndLimitsResponse.Builder out = BatchValidateAccountsAndLimitsResponse.newBuilder();
+        int next = 0;
+        for (int i = 0; i < legs.size(); i++) {
+            var leg = legs.get(i);
+            LegValidationResult.Builder r = LegValidationResult.newBuilder().setIndex(i);
+            if (leg.commandOrNull() == null) {
+                r.setOk(false).setReason(StringValue.of(leg.invalidReasonOrNull()));
+            } else if (isForbidden(leg.commandOrNull(), forbidden)) {
+                r.setOk(false).setReason(StringValue.of("forbidden"));
+            } else {
+                var v = res.results().get(next++);
+                r.setOk(v.ok());
+                if (!v.ok() && v.reasonOrNull() != null) r.setReason(StringValue.of(v.reasonOrNull()));
+            }
+            out.addResults(r.build());
+        }
+
+        responseObserver.onNext(out.build());
+        responseObserver.onCompleted();
+        }
+
+        private static boolean isForbidden(ValidateAccountsAndLimitsUseCase.Command cmd, Set<UUID> forbidden) {
+        return !forbidden.isEmpty()
+            && (forbidden.contains(cmd.sourceAccountId()) || forbidden.contains(cmd.destinationAccountId()));
+        }
+
         @Override
         public void reserveHold(ReserveHoldRequest request, StreamObserver<ReserveHoldResponse> responseObserver) {
         var in = toReserveHoldInput(request);
         var res = reserveUC.reserve(toReserveCommand(in));
 
-        responseObserver.onNext(ReserveHoldResponse.newBuilder()
+        ReserveHoldResponse.Builder out = ReserveHoldResponse.newBuilder()
         .setOk(res.ok())
-        .setNewHold(GrpcMoney.dbl(res.newHold()))
-        .build());
+        .setNewHold(GrpcMoney.dbl(res.newHold()));
+        if (res.holdId() != null) out.setHoldId(res.holdId().toString());
+        if (res.status() != null) out.setStatus(StringValue.of(res.status()));
+        responseObserver.onNext(out.build());
         responseObserver.onCompleted();
         }
 
@@ -106,10 +180,11 @@ public class InternalAccountsGrpcService extends InternalAccountsServiceGrpc.Int
 
         var res = releaseUC.release(toReleaseCommand(in));
 
-        responseObserver.onNext(ReleaseHoldResponse.newBuilder()
+        ReleaseHoldResponse.Builder out = ReleaseHoldResponse.newBuilder()
         .setOk(res.ok())
-        .setNewHold(GrpcMoney.dbl(res.newHold()))
-        .build());
+        .setNewHold(GrpcMoney.dbl(res.newHold()));
+        if (res.status() != null) out.setStatus(StringValue.of(res.status()));
+        responseObserver.onNext(out.build());
         responseObserver.onCompleted();
         }
 
@@ -119,7 +194,13 @@ public class InternalAccountsGrpcService extends InternalAccountsServiceGrpc.Int
             StreamObserver<BatchGetAccountSummariesResponse> responseObserver) {
         var in = toBatchIdsInput(request);
 
-        var res = batchSummariesUC.batchGetSummaries(new BatchGetAccountSummariesUseCase.Command(in.ids(), in.includeInactive()));
+        // AUTHZ_BATCH: las cuentas denegadas por policy vuelven como missing(forbidden); el resto sigue
+        Set<UUID> forbidden = BatchDecisions.forbidden();
+        List<UUID> ids = forbidden.isEmpty()
+                ? in.ids()
+                : in.ids().stream().filter(id -> !forbidden.contains(id)).toList();
+
+        var res = batchSummariesUC.batchGetSummaries(new BatchGetAccountSummariesUseCase.Command(ids, in.includeInactive()));
         BatchGetAccountSummariesResponse.Builder out = BatchGetAccountSummariesResponse.newBuilder();
 
         // accounts OK
@@ -143,7 +224,77 @@ public class InternalAccountsGrpcService extends InternalAccountsServiceGrpc.Int
             out.addMissing(mb.build());
         }
 
+        out.addAllMissing(in.missingEarly());
+        for (UUID id : new LinkedHashSet<>(in.ids())) {
+            if (forbidden.contains(id)) {
+                out.addMissing(MissingAccount.newBuilder()
+                        .setAccountId(id.toString())
+                        .setReason(StringValue.of("forbidden"))
+                        .build());
+            }
+        }
+
+        responseObserver.onNext(out.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getDailyLimitUsage(GetDailyLimitUsageRequest request,
+                                   StreamObserver<GetDailyLimitUsageResponse> responseObserver) {
+        var in = toDailyUsageInput(request);
+
+        // AUTHZ_BATCH, igual que BatchGetAccountSummaries: denegadas vuelven como missing(forbidden)
+        Set<UUID> forbidden = BatchDecisions.forbidden();
+        List<UUID> ids = forbidden.isEmpty()
+                ? in.ids()
+                : in.ids().stream().filter(id -> !forbidden.contains(id)).toList();
+
+        var res = dailyUsageUC.getDailyUsage(new GetDailyLimitUsageUseCase.Command(ids));
+        GetDailyLimitUsageResponse.Builder out = GetDailyLimitUsageResponse.newBuilder();
+
+        for (var u : res.usages()) {
+            DailyLimitUsage.Builder ub = DailyLimitUsage.newBuilder()
+                    .setAccountId(u.accountId().toString())
+                    .setDay(u.day().toString())
+                    .setDailyOut(GrpcMoney.dbl(u.dailyOut()))
+                    .setDailyIn(GrpcMoney.dbl(u.dailyIn()))
+                    .setOutUsed(GrpcMoney.dbl(u.outUsed()))
+                    .setInUsed(GrpcMoney.dbl(u.inUsed()));
+            if (u.outRemainingOrNull() != null) ub.setOutRemaining(DoubleValue.of(GrpcMoney.dbl(u.outRemainingOrNull())));
+            if (u.inRemainingOrNull() != null) ub.setInRemaining(DoubleValue.of(GrpcMoney.dbl(u.inRemainingOrNull())));
+            out.addUsages(ub.build());
+        }
+
+        for (var m : res.missing()) {
+            out.addMissing(MissingAccount.newBuilder()
+                    .setAccountId(m.accountId().toString())
+                    .setReason(StringValue.of(m.reason()))
+                    .build());
+        }
+        out.addAllMissing(in.missingEarly());
+        for (UUID id : new LinkedHashSet<>(in.ids())) {
+            if (forbidden.contains(id)) {
+                out.addMissing(MissingAccount.newBuilder()
+                        .setAccountId(id.toString())
+                        .setReason(StringValue.of("forbidden"))
+                        .build());
+            }
+        }
+
         responseObserver.onNext(out.build());
         responseObserver.onCompleted();
     }
+
+    @Override
+    public void replayQuarantinedEvents(ReplayQuarantinedEventsRequest request,
+                                        StreamObserver<ReplayQuarantinedEventsResponse> responseObserver) {
+        var res = replayUC.replay(toReplayCommand(request));
+
+        responseObserver.onNext(ReplayQuarantinedEventsResponse.newBuilder()
+            .setReplayed(res.replayed())
+            .setFailed(res.failed())
+            .addAllFailedEventIds(res.failedEventIds())
+            .build());
+        responseObserver.onCompleted();
+    }
 }
@@ -1,5 +1,6 @@
 package com.tagokoder.account.infra.in.grpc.error;
 
+import com.tagokoder.account.application.service.IdempotencyService;
 import com.tagokoder.account.infra.security.context.AuthCtx;
 import io.grpc.Metadata;
 import io.grpc.Status;
@@ -23,6 +24,18 @@ public class GlobalGrpcExceptionAdvice {
         return withCorr(Status.INVALID_ARGUMENT.withDescription("Invalid request").asRuntimeException());
     }
 
+    @GrpcExceptionHandler(IdempotencyService.InProgressException.class)
+    public StatusRuntimeException handleIdempotencyInProgress(IdempotencyService.InProgressException ex) {
+        // misma idempotency key ejecutándose en otra llamada: el cliente reintenta y recibe la misma respuesta
+        return withCorr(Status.ABORTED.withDescription("Request in progress").asRuntimeException());
+    }
+
+    @GrpcExceptionHandler(IdempotencyService.TakenOverException.class)
+    public StatusRuntimeException handleIdempotencyTakenOver(IdempotencyService.TakenOverException ex) {
+        // otra ejecución tomó la key por stale y su respuesta es la que queda: conflicto, no éxito
+        return withCorr(Status.ABORTED.withDescription("Request taken over by another execution").asRuntimeException());
+    }
+
     @GrpcExceptionHandler(StatusRuntimeException.class)
     public StatusRuntimeException handleStatusRuntime(StatusRuntimeException ex) {
         // Ya viene “sanitizado” (por tus validators o authz)
@@ -31,7 +44,7 @@ public class GlobalGrpcExceptionAdvice {
 
     @GrpcExceptionHandler(Exception.class)
     public StatusRuntimeException handleUnexpected(Exception ex) {
-        String corrId = AuthCtx.CORRELATION_ID.get();
+        String corrId = AuthCtx.correlationId();
 
         // Log interno con stacktrace (solo server logs)
         log.error("Unhandled error corr_id={}", corrId, ex);
@@ -41,7 +54,7 @@ public class GlobalGrpcExceptionAdvice {
     }
 
     private StatusRuntimeException withCorr(StatusRuntimeException ex) {
-        String corrId = AuthCtx.CORRELATION_ID.get();
+        String corrId = AuthCtx.correlationId();
         Metadata trailers = new Metadata();
         if (corrId != null && !corrId.isBlank()) {
             trailers.put(CORR_HDR, corrId);
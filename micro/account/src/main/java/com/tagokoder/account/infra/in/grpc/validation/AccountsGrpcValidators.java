@@ -3,11 +3,18 @@ package com.tagokoder.account.infra.in.grpc.validation;
 
 import com.tagokoder.account.domain.port.in.CreateAccountUseCase;
 import com.tagokoder.account.domain.port.in.GetAccountByNumberUseCase;
+import com.tagokoder.account.domain.port.in.ListAccountsUseCase;
 import com.tagokoder.account.domain.port.in.PatchAccountLimitsUseCase;
 import com.tagokoder.account.infra.in.grpc.mapper.ProtoEnumMapper;
 import com.tagokoder.account.infra.security.context.AuthCtx;
 import bank.accounts.v1.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.tagokoder.account.infra.in.grpc.validation.GrpcValidation.*;
@@ -29,6 +36,64 @@ public final class AccountsGrpcValidators {
     return requireUuid(req.getCustomerId(), "customer_id");
   }
 
+  private static final int MAX_PAGE_SIZE = 200;
+  private static final Set<String> ACCOUNT_STATUSES = Set.of("active", "frozen");
+
+  /** ListAccounts: filtros opcionales + página keyset (page_size 1..200, page_token opaco). */
+  public static ListAccountsUseCase.Query toListAccountsQuery(ListAccountsRequest req) {
+    UUID customerId = resolveCustomerIdForList(req);
+
+    String status = optionalTrim(req.hasStatus() ? req.getStatus() : null, "status", 16);
+    if (status != null) {
+      status = status.toLowerCase(Locale.ROOT);
+      if (!ACCOUNT_STATUSES.contains(status)) throw invalid("status invalid");
+    }
+
+    String currency = req.hasCurrency() ? requireCurrency(req.getCurrency().getValue()) : null;
+
+    String productType = req.getProductType() == ProductType.PRODUCT_TYPE_UNSPECIFIED
+      ? null
+      : ProtoEnumMapper.mapProductType(req.getProductType());
+
+    Integer pageSize = null;
+    if (req.hasPageSize()) {
+      int n = req.getPageSize().getValue();
+      if (n < 1 || n > MAX_PAGE_SIZE) throw invalid("page_size must be between 1 and " + MAX_PAGE_SIZE);
+      pageSize = n;
+    }
+
+    ListAccountsUseCase.Cursor after = decodePageToken(req.getPageToken());
+    if (after != null && pageSize == null) pageSize = MAX_PAGE_SIZE;
+
+    return new ListAccountsUseCase.Query(customerId, status, currency, productType, pageSize, after);
+  }
+
+  // token = base64url("<epochSecond>.<nano>:<uuid>") de la última fila devuelta
+  public static String encodePageToken(ListAccountsUseCase.Cursor c) {
+    if (c == null) return "";
+    Instant t = c.openedAt().toInstant();
+    String raw = t.getEpochSecond() + "." + t.getNano() + ":" + c.id();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  static ListAccountsUseCase.Cursor decodePageToken(String token) {
+    if (token == null || token.isBlank()) return null;
+    if (token.length() > 128) throw invalid("page_token invalid");
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.US_ASCII);
+      int colon = raw.indexOf(':');
+      int dot = raw.indexOf('.');
+      if (dot < 0 || colon < dot) throw invalid("page_token invalid");
+      Instant t = Instant.ofEpochSecond(
+        Long.parseLong(raw.substring(0, dot)),
+        Integer.parseInt(raw.substring(dot + 1, colon)));
+      UUID id = UUID.fromString(raw.substring(colon + 1));
+      return new ListAccountsUseCase.Cursor(t.atOffset(ZoneOffset.UTC), id);
+    } catch (IllegalArgumentException | java.time.DateTimeException e) {
+      throw invalid("page_token invalid");
+    }
+  }
+
   public static GetAccountByNumberUseCase.Command toGetByNumberCommand(GetAccountByNumberRequest req) {
     String acct = requireAccountNumber12(req.getAccountNumber(), "account_number");
     boolean includeInactive = req.hasIncludeInactive() && req.getIncludeInactive().getValue();
@@ -4,9 +4,11 @@ import bank.accounts.v1.*;
 import com.google.protobuf.StringValue;
 import com.tagokoder.account.domain.port.in.OpenAccountWithOpeningBonusUseCase;
 import com.tagokoder.account.domain.port.in.ReleaseHoldUseCase;
+import com.tagokoder.account.domain.port.in.ReplayQuarantinedEventsUseCase;
 import com.tagokoder.account.domain.port.in.ReserveHoldUseCase;
 import com.tagokoder.account.domain.port.in.ValidateAccountsAndLimitsUseCase;
 import com.tagokoder.account.infra.in.grpc.mapper.ProtoEnumMapper;
+import io.grpc.StatusRuntimeException;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -26,6 +28,27 @@ public final class InternalAccountsGrpcValidators {
         return new ValidateAccountsAndLimitsUseCase.Command(src, dst, currency, amount);
     }
 
+    /** Un leg del batch: command válido o el motivo por el que no pasó la validación de entrada. */
+    public record LegIn(ValidateAccountsAndLimitsUseCase.Command commandOrNull, String invalidReasonOrNull) {}
+
+    public static List<LegIn> toBatchValidateInput(BatchValidateAccountsAndLimitsRequest req) {
+        int n = req.getLegsCount();
+        if (n <= 0) throw invalid("legs is required");
+        if (n > 500) throw invalid("max 500 legs");
+
+        // un leg malformado no tumba el batch: vuelve como resultado fallido en su posición
+        List<LegIn> legs = new ArrayList<>(n);
+        for (ValidateAccountsAndLimitsRequest leg : req.getLegsList()) {
+            try {
+                legs.add(new LegIn(toValidateCommand(leg), null));
+            } catch (StatusRuntimeException e) {
+                String reason = e.getStatus().getDescription();
+                legs.add(new LegIn(null, reason == null ? "invalid leg" : reason));
+            }
+        }
+        return legs;
+    }
+
     public record HoldOpIn(UUID accountId, String currency, BigDecimal amount, String reasonOrNull, UUID holdId, String idempotencyKey) {}
 
     public static HoldOpIn toReserveHoldInput(ReserveHoldRequest req) {
@@ -61,16 +84,23 @@ public final class InternalAccountsGrpcValidators {
     public record BatchIdsIn(List<UUID> ids, List<MissingAccount> missingEarly, boolean includeInactive) {}
 
     public static BatchIdsIn toBatchIdsInput(BatchGetAccountSummariesRequest req) {
-        int n = req.getAccountIdsCount();
+        boolean includeInactive = req.hasIncludeInactive() && req.getIncludeInactive().getValue();
+        return toIdsInput(req.getAccountIdsList(), includeInactive);
+    }
+
+    public static BatchIdsIn toDailyUsageInput(GetDailyLimitUsageRequest req) {
+        return toIdsInput(req.getAccountIdsList(), true);
+    }
+
+    private static BatchIdsIn toIdsInput(List<String> raws, boolean includeInactive) {
+        int n = raws.size();
         if (n <= 0) throw invalid("account_ids is required");
         if (n > 200) throw invalid("max 200 account_ids");
 
-        boolean includeInactive = req.hasIncludeInactive() && req.getIncludeInactive().getValue();
-
         List<UUID> ids = new ArrayList<>(n);
         List<MissingAccount> missingEarly = new ArrayList<>();
 
-        for (String raw : req.getAccountIdsList()) {
+        for (String raw : raws) {
             // defensivo: evita strings gigantes
             String s = optionalTrim(raw, "account_ids[]", 64);
             if (s == null) {
@@ -114,12 +144,25 @@ public final class InternalAccountsGrpcValidators {
         );
     }
 
+    public static ReplayQuarantinedEventsUseCase.Command toReplayCommand(ReplayQuarantinedEventsRequest req) {
+        int limit = req.hasLimit() ? req.getLimit().getValue() : 100;
+        if (limit <= 0 || limit > 500) throw invalid("limit must be 1..500");
+        if (req.getEventIdsCount() > 500) throw invalid("max 500 event_ids");
+
+        List<String> ids = new ArrayList<>(req.getEventIdsCount());
+        for (String raw : req.getEventIdsList()) {
+            String s = optionalTrim(raw, "event_ids[]", 128);
+            if (s != null) ids.add(s);
+        }
+        return new ReplayQuarantinedEventsUseCase.Command(ids, limit);
+    }
+
     // Helpers: convierte HoldOpIn a tus Commands actuales (aunque HOY ignores holdId/idem)
     public static ReserveHoldUseCase.Command toReserveCommand(HoldOpIn in) {
-        return new ReserveHoldUseCase.Command(in.accountId(), in.currency(), in.amount(), in.reasonOrNull());
+        return new ReserveHoldUseCase.Command(in.accountId(), in.currency(), in.amount(), in.reasonOrNull(), in.holdId(), in.idempotencyKey());
     }
 
     public static ReleaseHoldUseCase.Command toReleaseCommand(HoldOpIn in) {
-        return new ReleaseHoldUseCase.Command(in.accountId(), in.currency(), in.amount(), in.reasonOrNull());
+        return new ReleaseHoldUseCase.Command(in.accountId(), in.currency(), in.amount(), in.reasonOrNull(), in.holdId());
     }
 }
\ No newline at end of file
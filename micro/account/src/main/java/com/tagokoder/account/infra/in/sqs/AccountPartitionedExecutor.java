@@ -0,0 +1,109 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor particionado por account_id.
+ * - Cada cuenta cae en una partición (hash % partitions); cada partición es una cola FIFO.
+ * - Una tarea corre cuando está a la cabeza de TODAS sus particiones:
+ *   tareas sobre cuentas disjuntas corren en paralelo, tareas que comparten cuenta se serializan
+ *   en orden de submit.
+ * - Las tareas multi-cuenta se encolan en todas sus particiones de forma atómica, así que el orden
+ *   relativo es el mismo en todas las colas y la tarea más antigua siempre puede avanzar (sin deadlock).
+ */
+public final class AccountPartitionedExecutor implements AutoCloseable {
+
+  private final int partitions;
+  private final ArrayDeque<Task<?>>[] lanes;
+  private final ExecutorService runner;
+  private final Object lock = new Object();
+
+  @SuppressWarnings("unchecked")
+  public AccountPartitionedExecutor(int partitions) {
+    if (partitions <= 0) throw new IllegalArgumentException("partitions must be > 0");
+    this.partitions = partitions;
+    this.lanes = new ArrayDeque[partitions];
+    for (int i = 0; i < partitions; i++) lanes[i] = new ArrayDeque<>();
+    this.runner = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ledger-apply-", 0).factory());
+  }
+
+  /** Encola work serializado contra cualquier otra tarea que comparta alguna de las cuentas. */
+  public <T> CompletableFuture<T> submit(Collection<UUID> accountIds, Callable<T> work) {
+    int[] parts = accountIds.stream()
+      .mapToInt(this::partitionOf)
+      .distinct()
+      .sorted()
+      .toArray();
+
+    Task<T> task = new Task<>(parts, work);
+    synchronized (lock) {
+      for (int p : parts) lanes[p].addLast(task);
+      if (isHead(task)) dispatch(task);
+    }
+    return task.future;
+  }
+
+  int partitionOf(UUID accountId) {
+    return Math.floorMod(accountId.hashCode(), partitions);
+  }
+
+  private boolean isHead(Task<?> t) {
+    for (int p : t.parts) {
+      if (lanes[p].peekFirst() != t) return false;
+    }
+    return true;
+  }
+
+  // llamado con lock tomado
+  private void dispatch(Task<?> t) {
+    t.started = true;
+    runner.execute(() -> {
+      try {
+        t.run();
+      } finally {
+        complete(t);
+      }
+    });
+  }
+
+  private void complete(Task<?> t) {
+    synchronized (lock) {
+      for (int p : t.parts) lanes[p].removeFirst();
+      for (int p : t.parts) {
+        Task<?> next = lanes[p].peekFirst();
+        if (next != null && !next.started && isHead(next)) dispatch(next);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    runner.shutdown();
+  }
+
+  private static final class Task<T> {
+    final int[] parts;
+    final Callable<T> work;
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    boolean started; // guardado por lock
+
+    Task(int[] parts, Callable<T> work) {
+      this.parts = parts;
+      this.work = work;
+    }
+
+    void run() {
+      try {
+        future.complete(work.call());
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Decodifica el body SQS de ledger.journal.posted (SNS / EventBridge) a {@link LedgerPostedDetail}.
+ *
+ * Streaming con {@link JsonParser}: sin árbol intermedio ni data-binding.
+ * - SQS Body puede ser el envelope SNS (field "Message" string con el evento EventBridge)
+ *   o directamente el evento EventBridge.
+ * - EventBridge tiene field "detail" (objeto o string JSON).
+ * Los strings anidados (Message, detail) se tokenizan una sola vez al abrir un parser sobre ellos.
+ */
+@Component
+public class LedgerEventDecoder {
+
+  private final JsonFactory json = new JsonFactory();
+
+  /** Decodifica y completa event_id con el id del envelope si el detail no lo trae. */
+  public LedgerPostedDetail decode(String sqsBody) throws IOException {
+    Envelope env = readEnvelope(sqsBody, true);
+    if (env.detail == null) throw new IllegalArgumentException("EventBridge detail missing");
+
+    String eventId = env.detail.eventId();
+    if (eventId == null || eventId.isBlank()) {
+      return new LedgerPostedDetail(env.id, env.detail.postings());
+    }
+    return env.detail;
+  }
+
+  /**
+   * Misma clave que {@link #decode}: detail.event_id, o el id del envelope si el detail no lo trae.
+   * No exige postings válidos (sirve para mensajes que no decodifican); null si el body no se puede leer.
+   */
+  public String extractEventIdSafe(String sqsBody) {
+    try {
+      Envelope env = readEnvelope(sqsBody, false);
+      return (env.detailEventId != null && !env.detailEventId.isBlank()) ? env.detailEventId : env.id;
+    } catch (Exception ignored) {
+      return null;
+    }
+  }
+
+  private Envelope readEnvelope(String body, boolean withDetail) throws IOException {
+    Envelope env = new Envelope();
+    String snsMessage = null;
+    boolean sns = false;
+
+    try (JsonParser p = json.createParser(body)) {
+      expect(p.nextToken(), JsonToken.START_OBJECT, "body");
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String field = p.currentName();
+        JsonToken t = p.nextToken();
+        switch (field) {
+          case "Type" -> {
+            sns = true;
+            p.skipChildren();
+          }
+          case "Message" -> {
+            if (t == JsonToken.VALUE_STRING) snsMessage = p.getText();
+            else p.skipChildren();
+          }
+          case "id" -> {
+            if (t == JsonToken.VALUE_STRING) env.id = p.getText();
+            else p.skipChildren();
+          }
+          case "detail" -> {
+            if (withDetail) env.detail = readDetail(p, t);
+            else env.detailEventId = readDetailEventId(p, t);
+          }
+          default -> p.skipChildren();
+        }
+      }
+    }
+
+    // Caso SNS envelope: el evento EventBridge viene como string en Message
+    if (sns && snsMessage != null) {
+      return readEnvelope(snsMessage, withDetail);
+    }
+    return env;
+  }
+
+  // detail puede venir como objeto o como string JSON
+  private LedgerPostedDetail readDetail(JsonParser p, JsonToken t) throws IOException {
+    if (t == JsonToken.VALUE_STRING) {
+      try (JsonParser inner = json.createParser(p.getText())) {
+        return readDetailObject(inner, inner.nextToken());
+      }
+    }
+    return readDetailObject(p, t);
+  }
+
+  // solo detail.event_id: el resto del detail se salta sin validar
+  private String readDetailEventId(JsonParser p, JsonToken t) throws IOException {
+    if (t == JsonToken.VALUE_STRING) {
+      try (JsonParser inner = json.createParser(p.getText())) {
+        return readDetailEventIdObject(inner, inner.nextToken());
+      }
+    }
+    return readDetailEventIdObject(p, t);
+  }
+
+  private static String readDetailEventIdObject(JsonParser p, JsonToken t) throws IOException {
+    if (t != JsonToken.START_OBJECT) {
+      p.skipChildren();
+      return null;
+    }
+    String eventId = null;
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      String field = p.currentName();
+      JsonToken v = p.nextToken();
+      if ("event_id".equals(field) && v == JsonToken.VALUE_STRING) eventId = p.getText();
+      else p.skipChildren();
+    }
+    return eventId;
+  }
+
+  private LedgerPostedDetail readDetailObject(JsonParser p, JsonToken t) throws IOException {
+    expect(t, JsonToken.START_OBJECT, "detail");
+    String eventId = null;
+    List<Posting> postings = null;
+
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      String field = p.currentName();
+      JsonToken v = p.nextToken();
+      switch (field) {
+        case "event_id" -> {
+          if (v == JsonToken.VALUE_STRING) eventId = p.getText();
+          else p.skipChildren();
+        }
+        case "postings" -> {
+          if (v != JsonToken.START_ARRAY) throw new IllegalArgumentException("detail.postings missing/invalid");
+          postings = readPostings(p);
+        }
+        default -> p.skipChildren();
+      }
+    }
+    if (postings == null) throw new IllegalArgumentException("detail.postings missing/invalid");
+    return new LedgerPostedDetail(eventId, postings);
+  }
+
+  private List<Posting> readPostings(JsonParser p) throws IOException {
+    List<Posting> out = new ArrayList<>(4);
+    JsonToken t;
+    while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+      expect(t, JsonToken.START_OBJECT, "posting");
+      UUID accountId = null;
+      BigDecimal dLedger = null;
+      BigDecimal dAvailable = null;
+      BigDecimal dHold = null;
+      UUID holdId = null;
+
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String field = p.currentName();
+        JsonToken v = p.nextToken();
+        switch (field) {
+          case "account_id" -> accountId = UUID.fromString(p.getText());
+          case "d_ledger" -> dLedger = decimal(p, v);
+          case "d_available" -> dAvailable = decimal(p, v);
+          case "d_hold" -> dHold = decimal(p, v);
+          case "hold_id" -> {
+            if (v == JsonToken.VALUE_STRING) holdId = UUID.fromString(p.getText());
+            else p.skipChildren();
+          }
+          default -> p.skipChildren();
+        }
+      }
+      if (accountId == null || dLedger == null || dAvailable == null || dHold == null) {
+        throw new IllegalArgumentException("posting incomplete");
+      }
+      out.add(new Posting(accountId, dLedger, dAvailable, dHold, holdId));
+    }
+    return out;
+  }
+
+  // montos como string ("10.50") o número; sin pasar por String intermedio
+  private static BigDecimal decimal(JsonParser p, JsonToken t) throws IOException {
+    return switch (t) {
+      case VALUE_STRING -> new BigDecimal(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+      case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> p.getDecimalValue();
+      default -> throw new IllegalArgumentException("posting amount invalid");
+    };
+  }
+
+  private static void expect(JsonToken actual, JsonToken expected, String what) {
+    if (actual != expected) throw new IllegalArgumentException(what + " must be a JSON object");
+  }
+
+  private static final class Envelope {
+    String id;
+    LedgerPostedDetail detail;
+    String detailEventId;
+  }
+
+  // DTOs mínimos
+  public record LedgerPostedDetail(String eventId, List<Posting> postings) {}
+
+  /** holdId: solo en la pata que captura un hold (d_hold < 0); null en el resto. */
+  public record Posting(UUID accountId, BigDecimal dLedger, BigDecimal dAvailable, BigDecimal dHold, UUID holdId) {
+    public Posting(UUID accountId, BigDecimal dLedger, BigDecimal dAvailable, BigDecimal dHold) {
+      this(accountId, dLedger, dAvailable, dHold, null);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.tagokoder.account.domain.port.in.ReplayQuarantinedEventsUseCase;
+import com.tagokoder.account.domain.port.out.InboxRepositoryPort;
+import com.tagokoder.account.domain.port.out.InboxRepositoryPort.QuarantinedEvent;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.LedgerPostedDetail;
+
+/**
+ * Re-drive de eventos ledger.journal.posted en cuarentena: decodifica el payload guardado
+ * y lo aplica por el mismo camino que el consumer (inbox + deltas), serializado en el mismo
+ * {@link AccountPartitionedExecutor} contra los receives que tocan sus cuentas.
+ */
+@Service
+public class LedgerInboxReplayService implements ReplayQuarantinedEventsUseCase {
+
+  private static final Logger log = LoggerFactory.getLogger(LedgerInboxReplayService.class);
+
+  private final InboxRepositoryPort inbox;
+  private final LedgerEventDecoder decoder;
+  private final LedgerPostingApplier applier;
+  private final AccountPartitionedExecutor partitions;
+
+  public LedgerInboxReplayService(InboxRepositoryPort inbox, LedgerEventDecoder decoder, LedgerPostingApplier applier,
+                                  AccountPartitionedExecutor partitions) {
+    this.inbox = inbox;
+    this.decoder = decoder;
+    this.applier = applier;
+    this.partitions = partitions;
+  }
+
+  @Override
+  public Result replay(Command c) {
+    List<QuarantinedEvent> events = (c.eventIds() == null || c.eventIds().isEmpty())
+      ? inbox.findQuarantined(LedgerPostingApplier.EVENT_TYPE, c.limit())
+      : c.eventIds().stream().flatMap(id -> inbox.findQuarantined(id).stream()).toList();
+
+    int replayed = 0;
+    List<String> failed = new ArrayList<>();
+
+    for (QuarantinedEvent q : events) {
+      try {
+        LedgerPostedDetail decoded = decoder.decode(q.payload());
+        // si el body no traía id, la fila de cuarentena quedó con "sqs:<messageId>"
+        LedgerPostedDetail detail = (decoded.eventId() == null || decoded.eventId().isBlank())
+          ? new LedgerPostedDetail(q.eventId(), decoded.postings())
+          : decoded;
+        partitions.submit(LedgerPostedConsumer.accountIds(detail), () -> applier.apply(detail)).join();
+        inbox.markProcessed(q.eventId());
+        replayed++;
+      } catch (Exception e) {
+        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+        failed.add(q.eventId());
+        inbox.quarantine(q.eventId(), q.eventType(), q.attempts() + 1, q.payload(), cause.toString());
+        log.warn("inbox replay failed eventId={} err={}", q.eventId(), cause.toString());
+      }
+    }
+
+    log.info("inbox replay done replayed={} failed={}", replayed, failed.size());
+    return new Result(replayed, failed.size(), failed);
+  }
+}
@@ -1,168 +1,362 @@
 package com.tagokoder.account.infra.in.sqs;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tagokoder.account.domain.port.out.InboxRepositoryPort;
 import com.tagokoder.account.infra.config.AppProps;
-import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceJpa;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.LedgerPostedDetail;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.Posting;
+import com.tagokoder.account.infra.props.LedgerConsumerProperties;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.Message;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 
+/**
+ * Runtime de consumo de ledger.journal.posted:
+ * - N loops de receive (virtual threads por defecto) que hacen long-poll SIN transacción abierta.
+ * - Cada receive se aplica en una transacción corta con deltas neteados por cuenta
+ *   ({@link LedgerPostingApplier#applyBatch}); si falla, se reintenta mensaje por mensaje.
+ * - La aplicación pasa por un {@link AccountPartitionedExecutor}: receives sobre cuentas disjuntas
+ *   corren en paralelo y los que comparten alguna cuenta se serializan (sin esperas de row-lock entre workers).
+ * - Un mensaje que falla no frena al resto: se re-entrega con backoff exponencial
+ *   (ChangeMessageVisibility) y tras maxAttempts queda en cuarentena en inbox_events.
+ * - ACK por DeleteMessageBatch al final de cada receive.
+ * - Heartbeat que extiende la visibilidad de mensajes lentos.
+ */
 @Service
-//@ConditionalOnProperty(name = "messaging.sqs.enabled", havingValue = "true", matchIfMissing = false)
-public class LedgerPostedConsumer {
+public class LedgerPostedConsumer implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(LedgerPostedConsumer.class);
 
   private final SqsClient sqs;
   private final AppProps props;
+  private final LedgerConsumerProperties cfg;
   private final InboxRepositoryPort inbox;
-  private final SpringDataAccountBalanceJpa balances;
-  private final ObjectMapper om = new ObjectMapper();
-  private static final Logger log = LoggerFactory.getLogger(LedgerPostedConsumer.class);
+  private final LedgerEventDecoder decoder;
+  private final LedgerPostingApplier applier;
+  private final MeterRegistry meters;
+
+  // receiptHandle -> nanoTime en que empezó su proceso (o última extensión)
+  private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+
+  private volatile boolean running;
+  private ExecutorService workers;
+  private ScheduledExecutorService heartbeat;
+  private final AccountPartitionedExecutor partitions;
 
   public LedgerPostedConsumer(
     SqsClient sqs,
     AppProps props,
+    LedgerConsumerProperties cfg,
     InboxRepositoryPort inbox,
-    SpringDataAccountBalanceJpa balances
+    LedgerEventDecoder decoder,
+    LedgerPostingApplier applier,
+    AccountPartitionedExecutor partitions,
+    MeterRegistry meters
   ) {
     this.sqs = sqs;
     this.props = props;
+    this.cfg = cfg;
     this.inbox = inbox;
-    this.balances = balances;
+    this.decoder = decoder;
+    this.applier = applier;
+    this.partitions = partitions;
+    this.meters = meters;
+  }
+
+  @Override
+  public void start() {
+    if (!cfg.isEnabled()) {
+      log.info("ledger consumer disabled (messaging.sqs.enabled=false)");
+      return;
+    }
+    int n = Math.max(1, cfg.getWorkers());
+    ThreadFactory tf = cfg.isVirtualThreads()
+      ? Thread.ofVirtual().name("ledger-consumer-", 0).factory()
+      : Thread.ofPlatform().name("ledger-consumer-", 0).daemon(true).factory();
+
+    running = true;
+    workers = Executors.newFixedThreadPool(n, tf);
+    for (int i = 0; i < n; i++) {
+      Worker w = new Worker(i);
+      workers.execute(w::run);
+    }
+
+    heartbeat = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("ledger-consumer-visibility").daemon(true).factory());
+    long period = Math.max(1, cfg.getVisibilityExtendAfterSeconds() / 2);
+    heartbeat.scheduleWithFixedDelay(this::extendVisibility, period, period, TimeUnit.SECONDS);
+
+    log.info("ledger consumer started workers={} partitions={} virtualThreads={}",
+      n, cfg.getPartitions(), cfg.isVirtualThreads());
   }
 
-  @Scheduled(fixedDelayString = "2000")
-  @Transactional
-  public void poll() throws Exception {
-
-    var resp = sqs.receiveMessage(r -> r
-      .queueUrl(props.aws().ledgerEventsQueueUrl())
-      .waitTimeSeconds(20)
-      .maxNumberOfMessages(10)
-    );
-    //log.info("Polling messages resp: "+resp);
-    for (Message m : resp.messages()) {
+  @Override
+  public void stop() {
+    running = false;
+    if (workers != null) {
+      workers.shutdown();
       try {
-        LedgerPostedDetail detail = unwrapEventBridgeDetail(m.body());
-        String eventId = (detail.eventId() != null && !detail.eventId().isBlank())
-          ? detail.eventId()
-          : extractEventIdSafe(m.body());
-
-        // idempotencia de consumo
-        boolean canProcess = inbox.tryBegin(eventId, "ledger.journal.posted");
-        if (!canProcess) {
-          sqs.deleteMessage(d -> d.queueUrl(props.aws().ledgerEventsQueueUrl()).receiptHandle(m.receiptHandle()));
+        // un receive en curso puede tardar hasta waitTimeSeconds
+        if (!workers.awaitTermination(cfg.getWaitTimeSeconds() + 5L, TimeUnit.SECONDS)) workers.shutdownNow();
+      } catch (InterruptedException e) {
+        workers.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (heartbeat != null) heartbeat.shutdownNow();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private final class Worker {
+    private final String id;
+    private final AtomicInteger inFlightGauge = new AtomicInteger();
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter failed;
+    private final Counter quarantined;
+
+    Worker(int index) {
+      this.id = String.valueOf(index);
+      Gauge.builder("ledger.consumer.inflight", inFlightGauge, AtomicInteger::get)
+        .tag("worker", id).register(meters);
+      this.processed = meters.counter("ledger.consumer.messages", "worker", id, "outcome", "processed");
+      this.duplicates = meters.counter("ledger.consumer.messages", "worker", id, "outcome", "duplicate");
+      this.failed = meters.counter("ledger.consumer.messages", "worker", id, "outcome", "failed");
+      this.quarantined = meters.counter("ledger.consumer.messages", "worker", id, "outcome", "quarantined");
+    }
+
+    void run() {
+      String queueUrl = props.aws().ledgerEventsQueueUrl();
+      while (running) {
+        List<Message> messages;
+        try {
+          messages = sqs.receiveMessage(r -> r
+            .queueUrl(queueUrl)
+            .waitTimeSeconds(cfg.getWaitTimeSeconds())
+            .maxNumberOfMessages(cfg.getMaxMessages())
+            .visibilityTimeout(cfg.getVisibilityTimeoutSeconds())
+            .messageSystemAttributeNames(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
+          ).messages();
+        } catch (Exception e) {
+          log.warn("SQS receive failed worker={} err={}", id, e.toString());
+          sleepQuietly(1000);
           continue;
         }
 
-        // aplica postings
-        for (Posting p : detail.postings()) {
-          balances.applyDeltas(
-            UUID.fromString(p.accountId()),
-            new BigDecimal(p.dLedger()),
-            new BigDecimal(p.dAvailable()),
-            new BigDecimal(p.dHold())
-          );
+        for (Message m : messages) {
+          inFlightGauge.incrementAndGet();
+          inFlight.put(m.receiptHandle(), System.nanoTime());
+        }
+        try {
+          ack(queueUrl, process(messages));
+        } finally {
+          for (Message m : messages) inFlight.remove(m.receiptHandle());
+          inFlightGauge.addAndGet(-messages.size());
         }
+      }
+    }
 
-        inbox.markProcessed(eventId);
-        sqs.deleteMessage(d -> d.queueUrl(props.aws().ledgerEventsQueueUrl()).receiptHandle(m.receiptHandle()));
+    /** @return entradas a borrar de la cola */
+    private List<DeleteMessageBatchRequestEntry> process(List<Message> messages) {
+      List<DeleteMessageBatchRequestEntry> acks = new ArrayList<>(messages.size());
+      List<Message> decodedMsgs = new ArrayList<>(messages.size());
+      List<LedgerPostedDetail> decoded = new ArrayList<>(messages.size());
+      Set<UUID> accounts = new HashSet<>();
 
-      } catch (Exception e) {
-        inbox.markFailedSafe(extractEventIdSafe(m.body()), "ledger.journal.posted", e.toString());
-        log.warn("SQS poll failed: {}", e.toString());
-        throw e; // rollback como pediste
+      for (Message m : messages) {
+        try {
+          LedgerPostedDetail d = decoder.decode(m.body());
+          accounts.addAll(accountIds(d));
+          decoded.add(d);
+          decodedMsgs.add(m);
+        } catch (Exception e) {
+          if (fail(m, eventKey(m), e)) acks.add(ackEntry(m));
+        }
       }
-    }
-  }
+      if (decoded.isEmpty()) return acks;
 
-  /**
-   * SQS Body:
-   * - Si viene de SNS subscription, body es el JSON del envelope SNS con field "Message" (string).
-   * - Message contiene el JSON del evento de EventBridge.
-   * - EventBridge tiene field "detail" (objeto o string JSON).
-   */
-  private LedgerPostedDetail unwrapEventBridgeDetail(String sqsBody) throws Exception {
-    JsonNode root = om.readTree(sqsBody);
-
-    // Caso SNS envelope
-    if (root.has("Type") && root.has("Message")) {
-      String msg = root.get("Message").asText();
-      return unwrapFromEventBridge(msg);
+      // serializado contra cualquier otro receive que toque alguna de estas cuentas
+      try {
+        partitions.submit(accounts, () -> {
+          apply(decodedMsgs, decoded, acks);
+          return null;
+        }).join();
+      } catch (CompletionException e) {
+        // apply ya aísla errores por mensaje; aquí solo llega algo inesperado
+        log.error("SQS partitioned apply failed worker={} err={}", id, e.getCause().toString());
+      }
+      return acks;
     }
 
-    // Caso directo EventBridge en SQS
-    return unwrapFromEventBridge(sqsBody);
-  }
+    private void apply(List<Message> decodedMsgs, List<LedgerPostedDetail> decoded,
+                       List<DeleteMessageBatchRequestEntry> acks) {
+      // camino normal: todo el receive en una transacción con deltas neteados por cuenta
+      try {
+        int applied = applier.applyBatch(decoded);
+        processed.increment(applied);
+        duplicates.increment(decoded.size() - applied);
+        for (Message m : decodedMsgs) acks.add(ackEntry(m));
+        return;
+      } catch (Exception batchErr) {
+        log.warn("SQS batch apply failed worker={} size={} err={}, falling back to per-message",
+          id, decoded.size(), batchErr.toString());
+      }
 
-  private LedgerPostedDetail unwrapFromEventBridge(String eventBridgeJson) throws Exception {
-    JsonNode eb = om.readTree(eventBridgeJson);
+      // fallback: mensaje por mensaje para aislar el que falla
+      for (int i = 0; i < decodedMsgs.size(); i++) {
+        Message m = decodedMsgs.get(i);
+        try {
+          if (applier.apply(decoded.get(i))) processed.increment();
+          else duplicates.increment();
+          acks.add(ackEntry(m));
+        } catch (Exception e) {
+          // misma clave que usa el applier en inbox_events
+          if (fail(m, decoded.get(i).eventId(), e)) acks.add(ackEntry(m));
+        }
+      }
+    }
 
-    String ebId = eb.has("id") ? eb.get("id").asText(null) : null;
+    /**
+     * Maneja un mensaje fallido sin afectar al resto del receive.
+     * @return true si el mensaje quedó en cuarentena y debe borrarse de la cola
+     */
+    private boolean fail(Message m, String eventKey, Exception e) {
+      int attempts = receiveCount(m);
 
-    JsonNode detailNode = eb.get("detail");
-    if (detailNode == null) throw new IllegalArgumentException("EventBridge detail missing");
+      if (attempts >= cfg.getMaxAttempts()) {
+        try {
+          inbox.quarantine(eventKey, LedgerPostingApplier.EVENT_TYPE, attempts, m.body(), e.toString());
+          quarantined.increment();
+          log.error("SQS message quarantined worker={} messageId={} eventId={} attempts={} err={}",
+            id, m.messageId(), eventKey, attempts, e.toString());
+          return true;
+        } catch (Exception qe) {
+          // si no se pudo guardar, que SQS lo vuelva a entregar
+          log.error("SQS quarantine failed messageId={} err={}", m.messageId(), qe.toString());
+        }
+      }
 
-    // detail puede venir como string
-    JsonNode d = detailNode.isTextual() ? om.readTree(detailNode.asText()) : detailNode;
+      failed.increment();
+      inbox.markFailedSafe(eventKey, LedgerPostingApplier.EVENT_TYPE, e.toString());
+      // fuera del heartbeat, si no éste pisaría el backoff
+      inFlight.remove(m.receiptHandle());
+      int delay = backoffSeconds(attempts);
+      try {
+        sqs.changeMessageVisibility(c -> c
+          .queueUrl(props.aws().ledgerEventsQueueUrl())
+          .receiptHandle(m.receiptHandle())
+          .visibilityTimeout(delay));
+      } catch (Exception ve) {
+        log.warn("SQS changeMessageVisibility (backoff) failed messageId={} err={}", m.messageId(), ve.toString());
+      }
+      log.warn("SQS message failed worker={} messageId={} attempts={} retryIn={}s err={}",
+        id, m.messageId(), attempts, delay, e.toString());
+      return false;
+    }
+  }
 
-    String detailEventId = d.has("event_id") ? d.get("event_id").asText(null) : null;
-    String eventId = (detailEventId != null && !detailEventId.isBlank()) ? detailEventId : ebId;
+  static Set<UUID> accountIds(LedgerPostedDetail d) {
+    Set<UUID> ids = new HashSet<>();
+    for (Posting p : d.postings()) ids.add(p.accountId());
+    return ids;
+  }
+
+  private int backoffSeconds(int attempts) {
+    int shift = Math.min(Math.max(attempts - 1, 0), 20);
+    long delay = (long) cfg.getBackoffBaseSeconds() << shift;
+    return (int) Math.min(delay, cfg.getBackoffMaxSeconds());
+  }
 
-    if (!d.has("postings") || !d.get("postings").isArray()) {
-      throw new IllegalArgumentException("detail.postings missing/invalid");
+  private static int receiveCount(Message m) {
+    String v = m.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+    try {
+      return v == null ? 1 : Integer.parseInt(v);
+    } catch (NumberFormatException e) {
+      return 1;
     }
+  }
 
-    List<Posting> postings = om.readerForListOf(Posting.class).readValue(d.get("postings"));
+  // inbox_events.event_id: detail.event_id (o id del envelope), o el messageId si el body ni siquiera se puede leer
+  private String eventKey(Message m) {
+    String eventId = decoder.extractEventIdSafe(m.body());
+    return (eventId != null && !eventId.isBlank()) ? eventId : "sqs:" + m.messageId();
+  }
 
-    return new LedgerPostedDetail(eventId, postings);
+  private static DeleteMessageBatchRequestEntry ackEntry(Message m) {
+    return DeleteMessageBatchRequestEntry.builder()
+      .id(m.messageId())
+      .receiptHandle(m.receiptHandle())
+      .build();
   }
 
-  private String extractEventIdSafe(String sqsBody) {
+  private void ack(String queueUrl, List<DeleteMessageBatchRequestEntry> acks) {
+    if (acks.isEmpty()) return;
     try {
-      JsonNode root = om.readTree(sqsBody);
-      if (root.has("Message")) {
-        JsonNode eb = om.readTree(root.get("Message").asText());
-        if (eb.has("id")) return eb.get("id").asText();
+      var resp = sqs.deleteMessageBatch(d -> d.queueUrl(queueUrl).entries(acks));
+      if (resp.hasFailed() && !resp.failed().isEmpty()) {
+        // no es fatal: el inbox deduplica la re-entrega
+        log.warn("SQS deleteMessageBatch partial failure count={} first={}",
+          resp.failed().size(), resp.failed().get(0).message());
       }
-      if (root.has("id")) return root.get("id").asText();
-      return null;
-    } catch (Exception ignored) {
-      return null;
+    } catch (Exception e) {
+      log.warn("SQS deleteMessageBatch failed count={} err={}", acks.size(), e.toString());
     }
   }
 
-  // DTOs mínimos
-  public record LedgerPostedDetail(String eventId, List<Posting> postings) {}
-
-  public static class Posting {
-    private String account_id;
-    private String d_ledger;
-    private String d_available;
-    private String d_hold;
-
-    public String accountId() { return account_id; }
-    public String dLedger() { return d_ledger; }
-    public String dAvailable() { return d_available; }
-    public String dHold() { return d_hold; }
-
-    // setters para Jackson
-    public void setAccount_id(String v) { this.account_id = v; }
-    public void setD_ledger(String v) { this.d_ledger = v; }
-    public void setD_available(String v) { this.d_available = v; }
-    public void setD_hold(String v) { this.d_hold = v; }
+  private void extendVisibility() {
+    if (inFlight.isEmpty()) return;
+    String queueUrl = props.aws().ledgerEventsQueueUrl();
+    long threshold = TimeUnit.SECONDS.toNanos(cfg.getVisibilityExtendAfterSeconds());
+    long now = System.nanoTime();
+
+    inFlight.forEach((receipt, since) -> {
+      if (now - since < threshold) return;
+      try {
+        sqs.changeMessageVisibility(c -> c
+          .queueUrl(queueUrl)
+          .receiptHandle(receipt)
+          .visibilityTimeout(cfg.getVisibilityTimeoutSeconds()));
+        // replace (no put): si ya terminó, no lo re-insertamos
+        inFlight.replace(receipt, since, now);
+      } catch (Exception e) {
+        log.warn("SQS changeMessageVisibility failed err={}", e.toString());
+      }
+    });
+  }
+
+  private static void sleepQuietly(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 }
@@ -0,0 +1,166 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort;
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort.BalanceDelta;
+import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort;
+import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort.HoldKey;
+import com.tagokoder.account.domain.port.out.InboxRepositoryPort;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort.UsageDelta;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.LedgerPostedDetail;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.Posting;
+
+/**
+ * Aplica eventos ledger.journal.posted en transacciones cortas.
+ * El receive de SQS ocurre fuera; aquí solo se toca la DB.
+ */
+@Component
+public class LedgerPostingApplier {
+
+  static final String EVENT_TYPE = "ledger.journal.posted";
+
+  private final InboxRepositoryPort inbox;
+  private final AccountBalanceRepositoryPort balances;
+  private final RecentEventIds recent;
+  private final LimitUsageRepositoryPort usage;
+  private final AccountHoldRepositoryPort holds;
+
+  public LedgerPostingApplier(
+    InboxRepositoryPort inbox,
+    AccountBalanceRepositoryPort balances,
+    RecentEventIds recent,
+    LimitUsageRepositoryPort usage,
+    AccountHoldRepositoryPort holds
+  ) {
+    this.inbox = inbox;
+    this.balances = balances;
+    this.recent = recent;
+    this.usage = usage;
+    this.holds = holds;
+  }
+
+  /** @return false si el evento ya estaba procesado (duplicado) */
+  @Transactional
+  public boolean apply(LedgerPostedDetail detail) {
+    return applyBatch(List.of(detail)) == 1;
+  }
+
+  /**
+   * Aplica todo un receive batch en una transacción:
+   * - re-entregas recientes se descartan en memoria ({@link RecentEventIds}) sin ir a la DB
+   * - dedupe por inbox con un solo INSERT .. ON CONFLICT DO NOTHING
+   *   (todos los registros inbox commitean junto con los balances)
+   * - holds capturados (posting.hold_id) pasan a settled en la misma transacción
+   * - netea d_ledger/d_available/d_hold por account_id
+   * - un solo UPDATE set-based para todas las cuentas
+   * - uso diario de límites por cuenta (al commit, ver {@link #usageOf})
+   *
+   * @return cantidad de eventos aplicados (el resto eran duplicados)
+   */
+  @Transactional
+  public int applyBatch(List<LedgerPostedDetail> details) {
+    // dedupe dentro del mismo receive (SQS puede entregar el mismo evento dos veces)
+    Map<String, LedgerPostedDetail> unique = new LinkedHashMap<>();
+    List<LedgerPostedDetail> withoutId = new ArrayList<>();
+    for (LedgerPostedDetail d : details) {
+      if (d.eventId() == null || d.eventId().isBlank()) withoutId.add(d);
+      else if (!recent.contains(d.eventId())) unique.putIfAbsent(d.eventId(), d);
+    }
+
+    List<LedgerPostedDetail> accepted = new ArrayList<>(withoutId);
+    if (!unique.isEmpty()) {
+      Set<String> begun = inbox.tryBeginAll(unique.keySet(), EVENT_TYPE);
+      for (LedgerPostedDetail d : unique.values()) {
+        if (begun.contains(d.eventId())) accepted.add(d);
+      }
+    }
+    if (accepted.isEmpty()) return 0;
+
+    Set<HoldKey> expired = settleCaptured(accepted);
+
+    Map<UUID, BalanceDelta> net = new HashMap<>();
+    Map<UUID, UsageDelta> used = new HashMap<>();
+    for (LedgerPostedDetail d : accepted) {
+      for (Posting posting : d.postings()) {
+        HoldKey capture = captureOf(posting);
+        Posting p = capture != null && expired.contains(capture) ? fromAvailable(posting) : posting;
+        BalanceDelta delta = new BalanceDelta(p.accountId(), p.dLedger(), p.dAvailable(), p.dHold());
+        net.merge(delta.accountId(), delta, BalanceDelta::plus);
+        used.merge(p.accountId(), usageOf(p),
+          (a, b) -> new UsageDelta(a.accountId(), a.out().add(b.out()), a.in().add(b.in())));
+      }
+    }
+    balances.applyDeltas(net.values());
+    usage.addAll(used.values());
+
+    List<String> ids = accepted.stream().map(LedgerPostedDetail::eventId).toList();
+    inbox.markProcessedAll(ids);
+    rememberAfterCommit(ids);
+    return accepted.size();
+  }
+
+  /**
+   * Pasa a settled los holds que capturan estos postings.
+   * @return los que el sweeper (o un release) ya había devuelto a available
+   */
+  private Set<HoldKey> settleCaptured(List<LedgerPostedDetail> accepted) {
+    Set<HoldKey> captured = new LinkedHashSet<>();
+    for (LedgerPostedDetail d : accepted) {
+      for (Posting p : d.postings()) {
+        HoldKey k = captureOf(p);
+        if (k != null) captured.add(k);
+      }
+    }
+    return captured.isEmpty() ? Set.of() : holds.settleCaptured(captured);
+  }
+
+  private static HoldKey captureOf(Posting p) {
+    if (p.holdId() == null || p.dHold().signum() >= 0) return null;
+    return new HoldKey(p.accountId(), p.holdId());
+  }
+
+  // el hold ya volvió a available: la captura baja available en lugar de hold
+  static Posting fromAvailable(Posting p) {
+    return new Posting(p.accountId(), p.dLedger(), p.dAvailable().add(p.dHold()), BigDecimal.ZERO, p.holdId());
+  }
+
+  /**
+   * Uso por posting, sin netear (un débito y un crédito del mismo día consumen los dos límites).
+   * Cada salida cuenta una sola vez:
+   * - out: lo que baja de available. La captura de un hold (d_available 0, d_hold < 0) no suma: contó
+   *   al reservar. Si el hold ya se había liberado o vencido, ese uso se devolvió (release / sweeper) y
+   *   la captura llega acá por {@link #fromAvailable} con d_available < 0: cuenta ahora
+   * - in: lo que sube el ledger; liberar un hold (d_ledger 0) no es un ingreso
+   */
+  static UsageDelta usageOf(Posting p) {
+    BigDecimal out = p.dAvailable().signum() < 0 ? p.dAvailable().negate() : BigDecimal.ZERO;
+    BigDecimal in = p.dLedger().signum() > 0 ? p.dLedger() : BigDecimal.ZERO;
+    return new UsageDelta(p.accountId(), out, in);
+  }
+
+  // solo después del commit: si la transacción hace rollback, la re-entrega debe llegar a la DB
+  private void rememberAfterCommit(List<String> ids) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        recent.addAll(ids);
+      }
+    });
+  }
+}
@@ -0,0 +1,129 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tagokoder.account.domain.port.out.IdentityPrincipalPort;
+import com.tagokoder.account.infra.props.PrincipalCacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * identity.principal.changed (EventBridge -> SQS) -> invalida el cache de principals por subject.
+ * Un solo loop de long-poll en virtual thread; invalidar es idempotente, así que una re-entrega no importa
+ * y un mensaje ilegible se borra igual (el TTL del cache cubre lo perdido).
+ */
+@Service
+public class PrincipalChangedConsumer implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(PrincipalChangedConsumer.class);
+
+  private final SqsClient sqs;
+  private final PrincipalCacheProperties cfg;
+  private final IdentityPrincipalPort principals;
+  private final MeterRegistry meters;
+  private final ObjectMapper om = new ObjectMapper();
+
+  private volatile boolean running;
+  private ExecutorService loop;
+
+  public PrincipalChangedConsumer(
+    SqsClient sqs,
+    PrincipalCacheProperties cfg,
+    IdentityPrincipalPort principals,
+    MeterRegistry meters
+  ) {
+    this.sqs = sqs;
+    this.cfg = cfg;
+    this.principals = principals;
+    this.meters = meters;
+  }
+
+  @Override
+  public void start() {
+    if (!cfg.isEnabled() || cfg.getEventsQueueUrl() == null || cfg.getEventsQueueUrl().isBlank()) {
+      log.info("principal events consumer disabled (no identity.principal-cache.events-queue-url)");
+      return;
+    }
+    running = true;
+    loop = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("principal-events").factory());
+    loop.execute(this::run);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (loop != null) {
+      loop.shutdown();
+      try {
+        if (!loop.awaitTermination(cfg.getWaitTimeSeconds() + 5L, TimeUnit.SECONDS)) loop.shutdownNow();
+      } catch (InterruptedException e) {
+        loop.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void run() {
+    String url = cfg.getEventsQueueUrl();
+    while (running) {
+      try {
+        List<Message> msgs = sqs.receiveMessage(r -> r
+          .queueUrl(url)
+          .maxNumberOfMessages(10)
+          .waitTimeSeconds(cfg.getWaitTimeSeconds())).messages();
+        if (msgs.isEmpty()) continue;
+
+        List<DeleteMessageBatchRequestEntry> acks = new ArrayList<>(msgs.size());
+        for (Message m : msgs) {
+          invalidate(m);
+          acks.add(DeleteMessageBatchRequestEntry.builder().id(m.messageId()).receiptHandle(m.receiptHandle()).build());
+        }
+        sqs.deleteMessageBatch(r -> r.queueUrl(url).entries(acks));
+      } catch (Exception e) {
+        if (!running) return;
+        log.warn("principal events receive failed err={}", e.toString());
+        sleepQuietly(1000);
+      }
+    }
+  }
+
+  private void invalidate(Message m) {
+    try {
+      // envelope EventBridge: { "detail-type": ..., "detail": { "subject_id_oidc": ..., "reason": ... } }
+      JsonNode detail = om.readTree(m.body()).path("detail");
+      String sub = detail.path("subject_id_oidc").asText("");
+      principals.invalidate(sub);
+      log.debug("principal cache invalidated sub={} reason={}", sub, detail.path("reason").asText(""));
+    } catch (Exception e) {
+      meters.counter("identity.principal.events.invalid").increment();
+      log.warn("principal event not decodable messageId={} err={}", m.messageId(), e.toString());
+    }
+  }
+
+  private static void sleepQuietly(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
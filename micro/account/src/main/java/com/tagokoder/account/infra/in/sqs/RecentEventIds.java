@@ -0,0 +1,40 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.tagokoder.account.infra.props.LedgerConsumerProperties;
+
+/**
+ * LRU acotado de event_ids ya aplicados (y commiteados) por esta instancia.
+ * Es exacto (no Bloom): un falso positivo descartaría un evento no aplicado.
+ * Solo es un atajo; inbox_events sigue siendo la fuente de verdad entre réplicas.
+ */
+@Component
+public class RecentEventIds {
+
+  private final Map<String, Boolean> lru;
+
+  public RecentEventIds(LedgerConsumerProperties cfg) {
+    int capacity = Math.max(0, cfg.getRecentEventIdsCapacity());
+    this.lru = new LinkedHashMap<>(Math.min(capacity, 1 << 16), 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public synchronized boolean contains(String eventId) {
+    return eventId != null && lru.get(eventId) != null;
+  }
+
+  public synchronized void addAll(Collection<String> eventIds) {
+    for (String id : eventIds) {
+      if (id != null && !id.isBlank()) lru.put(id, Boolean.TRUE);
+    }
+  }
+}
@@ -4,23 +4,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tagokoder.account.infra.config.AppProps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
 import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
 
 import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 
+/** Serializa y encola en EventBridgeBatcher; el PutEvents sale en lote fuera del request. */
 public class AuditPublisher {
     private static final Logger log = LoggerFactory.getLogger(AuditPublisher.class);
 
-    private final EventBridgeClient eb;
+    private final EventBridgeBatcher batcher;
     private final AppProps props;
     private final ObjectMapper om = new ObjectMapper();
 
-    public AuditPublisher(EventBridgeClient eb, AppProps props) {
-        this.eb = eb;
+    public AuditPublisher(EventBridgeBatcher batcher, AppProps props) {
+        this.batcher = batcher;
         this.props = props;
     }
 
@@ -36,9 +35,9 @@ public class AuditPublisher {
                     .detail(detail)
                     .build();
 
-            eb.putEvents(PutEventsRequest.builder().entries(entry).build());
+            batcher.submit(entry);
         } catch (Exception e) {
-            // best-effort fallback
+            // best-effort: solo puede fallar la serialización
             log.warn("audit.publish_failed correlation_id={} err={}",
                     event.get("correlation_id"), e.toString());
         }
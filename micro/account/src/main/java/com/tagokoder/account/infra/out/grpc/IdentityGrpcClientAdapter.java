@@ -1,40 +1,109 @@
 package com.tagokoder.account.infra.out.grpc;
 
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.tagokoder.account.domain.port.out.IdentityPrincipalPort;
+import com.tagokoder.account.infra.props.PrincipalCacheProperties;
 import com.tagokoder.account.infra.security.grpc.BearerTokenCallCredentials;
 
 import bank.identity.v1.PrincipalServiceGrpc;
 import bank.identity.v1.ResolvePrincipalRequest;
 import bank.identity.v1.ResolvePrincipalResponse;
-import io.grpc.Metadata;
-import io.grpc.stub.MetadataUtils;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
+/**
+ * ResolvePrincipal con cache por subject:
+ * - single-flight: llamadas concurrentes del mismo subject esperan una sola ida a identity
+ * - TTL = min(ttl, exp del token que cargó la entrada)
+ * - se carga siempre sin require_customer_link; el NOT_FOUND por link faltante se decide acá,
+ *   así un mismo subject sirve a rutas con y sin requireCustomerLink
+ * - invalidate(subject) cuando identity publica identity.principal.changed
+ */
 @Component
 public class IdentityGrpcClientAdapter implements IdentityPrincipalPort {
 
-  private static final Metadata.Key<String> AUTH =
-      Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Logger log = LoggerFactory.getLogger(IdentityGrpcClientAdapter.class);
 
   private final PrincipalServiceGrpc.PrincipalServiceBlockingStub principalStub;
+  private final PrincipalCacheProperties cfg;
+  private final MeterRegistry meters;
+  private final Cache<String, CachedPrincipal> principals;
 
-  public IdentityGrpcClientAdapter(PrincipalServiceGrpc.PrincipalServiceBlockingStub principalStub) {
+  public IdentityGrpcClientAdapter(
+      PrincipalServiceGrpc.PrincipalServiceBlockingStub principalStub,
+      PrincipalCacheProperties cfg,
+      MeterRegistry meters
+  ) {
     this.principalStub = principalStub;
+    this.cfg = cfg;
+    this.meters = meters;
+    this.principals = Caffeine.newBuilder()
+        .maximumSize(cfg.getMaxSize())
+        .expireAfter(new Expiry<String, CachedPrincipal>() {
+          @Override public long expireAfterCreate(String k, CachedPrincipal v, long now) { return v.ttlNanos(); }
+          @Override public long expireAfterUpdate(String k, CachedPrincipal v, long now, long cur) { return v.ttlNanos(); }
+          @Override public long expireAfterRead(String k, CachedPrincipal v, long now, long cur) { return cur; }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meters, principals, "identity_principals");
   }
 
   @Override
   public PrincipalInfo resolvePrincipal(String accessToken, boolean requireLink, String purpose) {
+    return checkLink(remote(accessToken, requireLink, purpose), requireLink);
+  }
+
+  @Override
+  public PrincipalInfo resolvePrincipal(
+      String accessToken, String subject, Instant tokenExpiresAt, boolean requireLink, String purpose) {
+
+    if (!cfg.isEnabled() || subject == null || subject.isBlank() || tokenExpiresAt == null) {
+      return resolvePrincipal(accessToken, requireLink, purpose);
+    }
+
+    Duration ttl = Duration.between(Instant.now(), tokenExpiresAt);
+    if (ttl.compareTo(cfg.getTtl()) > 0) ttl = cfg.getTtl();
+    if (ttl.isNegative() || ttl.isZero()) return resolvePrincipal(accessToken, requireLink, purpose);
+
+    final long ttlNanos = ttl.toNanos();
+    boolean[] loaded = {false};
+    CachedPrincipal cp = principals.get(subject, k -> {
+      loaded[0] = true;
+      return new CachedPrincipal(remote(accessToken, false, purpose), ttlNanos);
+    });
+    meters.counter("identity.principal.cache.requests", "outcome", loaded[0] ? "miss" : "hit").increment();
 
+    return checkLink(cp.info(), requireLink);
+  }
+
+  @Override
+  public void invalidate(String subject) {
+    if (subject == null || subject.isBlank()) return;
+    principals.invalidate(subject);
+    meters.counter("identity.principal.cache.invalidations").increment();
+  }
+
+  private PrincipalInfo remote(String accessToken, boolean requireLink, String purpose) {
     ResolvePrincipalRequest req = ResolvePrincipalRequest.newBuilder()
         .setRequireCustomerLink(requireLink)
         .setPurpose(purpose)
         .build();
 
-      var resp = principalStub
-          .withCallCredentials(new BearerTokenCallCredentials(accessToken))
-          .resolvePrincipal(req);
-    System.out.println("Respuesta identityPrincipal: "+ resp.getCustomerId());
+    ResolvePrincipalResponse resp = principalStub
+        .withCallCredentials(new BearerTokenCallCredentials(accessToken))
+        .resolvePrincipal(req);
+    log.debug("identity principal resolved sub={} customerId={}", resp.getSubjectIdOidc(), resp.getCustomerId());
 
     return new PrincipalInfo(
         resp.getSubjectIdOidc(),
@@ -44,4 +113,14 @@ public class IdentityGrpcClientAdapter implements IdentityPrincipalPort {
         resp.getUserStatus()
     );
   }
-}
\ No newline at end of file
+
+  // misma respuesta que daría identity con require_customer_link=true
+  private static PrincipalInfo checkLink(PrincipalInfo p, boolean requireLink) {
+    if (requireLink && (p.customerId() == null || p.customerId().isBlank())) {
+      throw Status.NOT_FOUND.withDescription("CUSTOMER_LINK_NOT_FOUND").asRuntimeException();
+    }
+    return p;
+  }
+
+  private record CachedPrincipal(PrincipalInfo info, long ttlNanos) {}
+}
@@ -0,0 +1,147 @@
+package com.tagokoder.account.infra.out.persistence.cache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tagokoder.account.infra.props.BalanceCacheProperties;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * LISTEN sobre el canal de account_balances (trigger de V8) en una conexión dedicada:
+ * cada NOTIFY invalida la entrada del near-cache si es más vieja que la version notificada.
+ * La conexión se abre con DriverManager (misma url/credenciales que el pool), fuera de Hikari:
+ * no ocupa un slot del pool ni la recicla max-lifetime. Un "select 1" periódico detecta conexiones
+ * muertas sin error de socket. Si la conexión se cae, el cache queda en bypass hasta reconectar
+ * (y se vacía al volver).
+ */
+@Component
+public class BalanceChangeListener implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(BalanceChangeListener.class);
+
+  private static final int POLL_MS = 1000;
+  private static final long HEALTH_CHECK_NANOS = 30_000_000_000L;
+
+  private final DataSource dataSource;
+  private final BalanceCacheProperties cfg;
+  private final CachedAccountBalanceRepository cache;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  public BalanceChangeListener(DataSource dataSource, BalanceCacheProperties cfg, CachedAccountBalanceRepository cache) {
+    this.dataSource = dataSource;
+    this.cfg = cfg;
+    this.cache = cache;
+  }
+
+  @Override
+  public void start() {
+    if (!cfg.isEnabled()) {
+      log.info("balance near-cache disabled (balances.cache.enabled=false)");
+      return;
+    }
+    if (!cfg.getChannel().matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalStateException("invalid balances.cache.channel: " + cfg.getChannel());
+    }
+    HikariDataSource pool;
+    try {
+      pool = dataSource.unwrap(HikariDataSource.class);
+    } catch (SQLException e) {
+      // sin url/credenciales para la conexión dedicada: el cache queda en bypass
+      log.warn("balance near-cache not started: datasource is not Hikari ({})", e.toString());
+      return;
+    }
+    running = true;
+    thread = Thread.ofPlatform().name("balance-listen").daemon(true).start(() -> loop(pool));
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (thread != null) {
+      try {
+        thread.join(POLL_MS * 2L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void loop(HikariDataSource pool) {
+    while (running) {
+      try (Connection c = connect(pool); Statement st = c.createStatement()) {
+        st.execute("listen " + cfg.getChannel());
+        PGConnection pg = c.unwrap(PGConnection.class);
+        cache.listenerUp();
+        log.info("balance near-cache listening channel={}", cfg.getChannel());
+
+        long checked = System.nanoTime();
+        while (running) {
+          PGNotification[] ns = pg.getNotifications(POLL_MS);
+          if (ns != null) {
+            for (PGNotification n : ns) handle(n.getParameter());
+          }
+          if (System.nanoTime() - checked >= HEALTH_CHECK_NANOS) {
+            st.execute("select 1");
+            checked = System.nanoTime();
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (running) log.warn("balance near-cache listener lost, bypassing cache err={}", e.toString());
+      } finally {
+        cache.listenerDown();
+      }
+      backoff();
+    }
+  }
+
+  private static Connection connect(HikariDataSource pool) throws SQLException {
+    Properties props = new Properties();
+    props.putAll(pool.getDataSourceProperties());
+    if (pool.getUsername() != null) props.setProperty("user", pool.getUsername());
+    if (pool.getPassword() != null) props.setProperty("password", pool.getPassword());
+    props.setProperty("ApplicationName", "balance-listen");
+    props.setProperty("tcpKeepAlive", "true");
+    // autocommit (default de DriverManager): las notificaciones llegan sin transacción abierta
+    return DriverManager.getConnection(pool.getJdbcUrl(), props);
+  }
+
+  // payload: <account_id>:<version>:<epoch_ms>
+  private void handle(String payload) {
+    try {
+      String[] p = payload.split(":");
+      cache.onChange(UUID.fromString(p[0]), Long.parseLong(p[1]), p.length > 2 ? Long.parseLong(p[2]) : 0L);
+    } catch (RuntimeException e) {
+      log.debug("balance notify ignored payload={}", payload);
+    }
+  }
+
+  private void backoff() {
+    if (!running) return;
+    try {
+      Thread.sleep(cfg.getReconnectBackoff().toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
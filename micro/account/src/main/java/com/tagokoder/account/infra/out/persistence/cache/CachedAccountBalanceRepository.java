@@ -0,0 +1,203 @@
+package com.tagokoder.account.infra.out.persistence.cache;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceJpa;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.AccountBalanceRepositoryAdapter;
+import com.tagokoder.account.infra.props.BalanceCacheProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Near-cache de account_balances por instancia, delante de {@link AccountBalanceRepositoryAdapter}:
+ * - entradas con la version de la fila; expiran a los maxStaleness sí o sí (cota dura de staleness)
+ * - escrituras de esta instancia (ledger consumer, reserve/release de holds) invalidan tras el commit
+ * - escrituras de otras réplicas llegan por LISTEN/NOTIFY ({@link BalanceChangeListener}); solo se
+ *   descarta la entrada si su version es menor a la notificada
+ * - sin LISTEN activo no se cachea: las lecturas van directo a la DB
+ * - cuentas hot (slots > 0) no se cachean: sus slots no emiten NOTIFY
+ *
+ * findByAccountId sigue siendo lectura fuerte; solo findCachedByAccountId usa el cache.
+ */
+@Primary
+@Component
+public class CachedAccountBalanceRepository implements AccountBalanceRepositoryPort {
+
+  private final AccountBalanceRepositoryAdapter delegate;
+  private final SpringDataAccountBalanceJpa jpa;
+  private final BalanceCacheProperties cfg;
+  private final MeterRegistry meters;
+
+  private final Cache<UUID, Entry> cache;
+  // cuentas vistas en modo hot; sale con el NOTIFY del cambio de modo (V9)
+  private final Set<UUID> hot = ConcurrentHashMap.newKeySet();
+  private final Timer staleness;
+  private final Timer notifyLag;
+
+  // lo maneja BalanceChangeListener: sin LISTEN no hay invalidación cruzada -> bypass
+  private volatile boolean listening;
+
+  public CachedAccountBalanceRepository(
+    AccountBalanceRepositoryAdapter delegate,
+    SpringDataAccountBalanceJpa jpa,
+    BalanceCacheProperties cfg,
+    MeterRegistry meters
+  ) {
+    this.delegate = delegate;
+    this.jpa = jpa;
+    this.cfg = cfg;
+    this.meters = meters;
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(cfg.getMaxSize())
+      .expireAfterWrite(cfg.getMaxStaleness())
+      .recordStats()
+      .build();
+    CaffeineCacheMetrics.monitor(meters, cache, "balances");
+    this.staleness = Timer.builder("account.balance.cache.staleness")
+      .description("edad de la entrada servida desde el near-cache")
+      .publishPercentiles(0.5, 0.99)
+      .register(meters);
+    this.notifyLag = Timer.builder("account.balance.cache.notify.lag")
+      .description("UPDATE en Postgres -> NOTIFY recibido")
+      .register(meters);
+    Gauge.builder("account.balance.cache.listening", this, c -> c.listening ? 1 : 0).register(meters);
+  }
+
+  @Override
+  public Optional<BalancesRow> findByAccountId(UUID accountId) {
+    return delegate.findByAccountId(accountId);
+  }
+
+  @Override
+  public Optional<BalancesRow> findCachedByAccountId(UUID accountId) {
+    if (!cfg.isEnabled() || !listening) {
+      meters.counter("account.balance.cache.bypass", "reason", cfg.isEnabled() ? "not_listening" : "disabled").increment();
+      return delegate.findByAccountId(accountId);
+    }
+    if (hot.contains(accountId)) return delegate.findByAccountId(accountId);
+
+    // una invalidación concurrente espera a que termine la carga y la descarta después
+    Entry e = cache.get(accountId, this::load);
+    if (e == null) return hot.contains(accountId) ? delegate.findByAccountId(accountId) : Optional.empty();
+    staleness.record(System.nanoTime() - e.loadedAtNanos(), TimeUnit.NANOSECONDS);
+    return Optional.of(e.row());
+  }
+
+  private Entry load(UUID accountId) {
+    var b = jpa.findById(accountId).orElse(null);
+    if (b == null) return null;
+    if (b.getSlots() > 0) {
+      hot.add(accountId);
+      return null;
+    }
+    return new Entry(new BalancesRow(b.getLedger(), b.getAvailable(), b.getHold()), b.getVersion(), System.nanoTime());
+  }
+
+  @Override
+  public void init(UUID accountId, BigDecimal ledger, BigDecimal available, BigDecimal hold) {
+    delegate.init(accountId, ledger, available, hold);
+    invalidateAfterCommit(List.of(accountId));
+  }
+
+  @Override
+  public void initZero(UUID accountId) {
+    delegate.initZero(accountId);
+    invalidateAfterCommit(List.of(accountId));
+  }
+
+  @Override
+  public BigDecimal incrementHold(UUID accountId, BigDecimal amount) {
+    BigDecimal hold = delegate.incrementHold(accountId, amount);
+    invalidateAfterCommit(List.of(accountId));
+    return hold;
+  }
+
+  @Override
+  public BigDecimal decrementHold(UUID accountId, BigDecimal amount) {
+    BigDecimal hold = delegate.decrementHold(accountId, amount);
+    invalidateAfterCommit(List.of(accountId));
+    return hold;
+  }
+
+  @Override
+  public BigDecimal applyCredit(UUID accountId, BigDecimal amount) {
+    BigDecimal available = delegate.applyCredit(accountId, amount);
+    invalidateAfterCommit(List.of(accountId));
+    return available;
+  }
+
+  @Override
+  public int applyDeltas(Collection<BalanceDelta> deltas) {
+    int n = delegate.applyDeltas(deltas);
+    if (n > 0) invalidateAfterCommit(deltas.stream().map(BalanceDelta::accountId).toList());
+    return n;
+  }
+
+  /** NOTIFY de una escritura (de cualquier réplica, incluida esta). */
+  void onChange(UUID accountId, long version, long emittedAtMillis) {
+    hot.remove(accountId);
+    if (emittedAtMillis > 0) {
+      notifyLag.record(Math.max(0, System.currentTimeMillis() - emittedAtMillis), TimeUnit.MILLISECONDS);
+    }
+    boolean[] dropped = {false};
+    cache.asMap().computeIfPresent(accountId, (k, e) -> {
+      if (e.version() >= version) return e;
+      dropped[0] = true;
+      return null;
+    });
+    if (dropped[0]) invalidated("notify", 1);
+  }
+
+  // al (re)conectar pudieron perderse NOTIFYs: se parte de cero
+  void listenerUp() {
+    cache.invalidateAll();
+    hot.clear();
+    listening = true;
+  }
+
+  void listenerDown() {
+    listening = false;
+    cache.invalidateAll();
+    hot.clear();
+  }
+
+  // la transacción puede hacer rollback: recién al terminar se sabe qué valor quedó
+  private void invalidateAfterCommit(List<UUID> ids) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      cache.invalidateAll(ids);
+      invalidated("local", ids.size());
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        cache.invalidateAll(ids);
+        invalidated("local", ids.size());
+      }
+    });
+  }
+
+  private void invalidated(String source, int n) {
+    meters.counter("account.balance.cache.invalidations", "source", source).increment(n);
+  }
+
+  private record Entry(BalancesRow row, long version, long loadedAtNanos) {}
+}
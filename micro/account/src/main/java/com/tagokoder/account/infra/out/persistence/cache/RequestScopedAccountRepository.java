@@ -0,0 +1,73 @@
+package com.tagokoder.account.infra.out.persistence.cache;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.tagokoder.account.domain.model.Account;
+import com.tagokoder.account.domain.port.out.AccountRepositoryPort;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.AccountRepositoryAdapter;
+import com.tagokoder.account.infra.security.context.RequestAccounts;
+
+/**
+ * findById/findByIds memoizados por llamada gRPC ({@link RequestAccounts}) delante de {@link AccountRepositoryAdapter}:
+ * el template de authz y el use case (reserve/release, batch summaries) leen cada cuenta una sola vez.
+ * save() descarta la entrada.
+ * Sin Context de llamada (consumers, jobs) todo va directo al adapter.
+ */
+@Primary
+@Component
+public class RequestScopedAccountRepository implements AccountRepositoryPort {
+
+  private final AccountRepositoryAdapter delegate;
+
+  public RequestScopedAccountRepository(AccountRepositoryAdapter delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Account save(Account account) {
+    RequestAccounts req = RequestAccounts.current();
+    if (req != null) req.evict(account.getId());
+    return delegate.save(account);
+  }
+
+  @Override
+  public Optional<Account> findById(UUID id) {
+    RequestAccounts req = RequestAccounts.current();
+    if (req == null || id == null) return delegate.findById(id);
+    return req.findById(id, delegate::findById);
+  }
+
+  @Override
+  public List<Account> findByCustomerId(UUID customerId) {
+    return delegate.findByCustomerId(customerId);
+  }
+
+  @Override
+  public boolean existsCustomer(UUID customerId) {
+    return delegate.existsCustomer(customerId);
+  }
+
+  @Override
+  public List<Account> findByIds(List<UUID> accountIds) {
+    RequestAccounts req = RequestAccounts.current();
+    if (req == null || accountIds == null || accountIds.isEmpty()) return delegate.findByIds(accountIds);
+    return req.findByIds(accountIds, delegate::findByIds);
+  }
+
+  @Override
+  public Optional<Account> findByAccountNumber(long accountNumber) {
+    return delegate.findByAccountNumber(accountNumber);
+  }
+
+  @Override
+  public List<AccountWithBalancesRow> listWithBalances(UUID customerId, String status, String currency, String productType,
+                                                       OffsetDateTime afterOpenedAt, UUID afterId, Integer limit) {
+    return delegate.listWithBalances(customerId, status, currency, productType, afterOpenedAt, afterId, limit);
+  }
+}
@@ -0,0 +1,180 @@
+package com.tagokoder.account.infra.out.persistence.holds;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort;
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort.BalancesRow;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort.UsageDelta;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountHoldJpa;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountHoldJpa.SweptAccount;
+import com.tagokoder.account.infra.props.HoldExpiryProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Job de vencimiento de holds (V11):
+ * - lotes de hasta batch-size holds reserved vencidos, FOR UPDATE SKIP LOCKED: varias réplicas
+ *   barren en paralelo, cada una su lote
+ * - cuentas normales: released + un UPDATE de balance por cuenta, todo en un statement
+ * - cuentas hot: de a un hold por BalanceSlots (decrementHold), en la misma transacción del lote
+ * - el uso diario (out contado al reservar) se devuelve en el día de cada reserva, al commit del lote
+ * - cuenta con hold menor a sus vencidos: esos holds quedan expired_unapplied (log + métrica
+ *   account.holds.expired.unapplied) y el resto del lote se aplica igual
+ * Un release/settle concurrente del mismo hold gana o espera: el sweeper nunca toma filas bloqueadas.
+ * Holds capturados por un posting del ledger quedan settled (LedgerPostingApplier) y no se vencen.
+ * Apagado por defecto (holds.expiry.enabled) hasta que el ledger emita esa captura.
+ */
+@Component
+public class HoldExpirySweeper {
+
+  private static final Logger log = LoggerFactory.getLogger(HoldExpirySweeper.class);
+
+  private final SpringDataAccountHoldJpa holds;
+  private final AccountBalanceRepositoryPort balances;
+  private final LimitUsageRepositoryPort usage;
+  private final HoldExpiryProperties cfg;
+  private final TransactionTemplate tx;
+  private final MeterRegistry meters;
+  private final Timer sweepTimer;
+
+  private final AtomicLong backlog = new AtomicLong();
+  private final AtomicLong oldestSeconds = new AtomicLong();
+
+  public HoldExpirySweeper(
+    SpringDataAccountHoldJpa holds,
+    AccountBalanceRepositoryPort balances,
+    LimitUsageRepositoryPort usage,
+    HoldExpiryProperties cfg,
+    PlatformTransactionManager txManager,
+    MeterRegistry meters
+  ) {
+    this.holds = holds;
+    this.balances = balances;
+    this.usage = usage;
+    this.cfg = cfg;
+    this.tx = new TransactionTemplate(txManager);
+    this.meters = meters;
+    this.sweepTimer = Timer.builder("account.holds.expiry.sweep")
+      .description("latencia de un lote del sweeper de holds vencidos")
+      .register(meters);
+
+    Gauge.builder("account.holds.expired.backlog", backlog, AtomicLong::get)
+      .description("holds reserved con expires_at vencido")
+      .register(meters);
+    Gauge.builder("account.holds.expired.oldest.seconds", oldestSeconds, AtomicLong::get)
+      .description("atraso del hold vencido más viejo")
+      .register(meters);
+  }
+
+  @Scheduled(
+    initialDelayString = "${holds.expiry.interval-ms:10000}",
+    fixedDelayString = "${holds.expiry.interval-ms:10000}"
+  )
+  public void run() {
+    if (!cfg.isEnabled()) return;
+
+    try {
+      for (int i = 0; i < cfg.getMaxBatchesPerRun(); i++) {
+        if (sweepOnce() < cfg.getBatchSize()) break;
+      }
+    } catch (RuntimeException e) {
+      // deadlock / cuenta que cambió de modo: el lote hace rollback y se retoma en la próxima corrida
+      log.warn("hold expiry sweep failed err={}", e.toString());
+    } finally {
+      refreshBacklog();
+    }
+  }
+
+  /** @return holds sacados del backlog en este lote (liberados + en cuarentena, normales + hot) */
+  int sweepOnce() {
+    long start = System.nanoTime();
+    try {
+      Integer swept = tx.execute(s -> sweepNormal() + sweepHot());
+      return swept == null ? 0 : swept;
+    } finally {
+      sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private int sweepNormal() {
+    List<SweptAccount> swept = holds.sweepExpired(cfg.getBatchSize());
+    int released = 0;
+    int quarantined = 0;
+    Map<LocalDate, List<UsageDelta>> reversed = new HashMap<>();
+    for (SweptAccount a : swept) {
+      if (Boolean.TRUE.equals(a.getQuarantined())) {
+        quarantined += a.getHolds().intValue();
+        unapplied("normal", a.getAccountId(), a.getHolds().intValue(), a.getAmount());
+        continue;
+      }
+      if (!Boolean.TRUE.equals(a.getApplied())) {
+        throw new IllegalStateException("balance not applied for expired holds account_id=" + a.getAccountId());
+      }
+      released += a.getHolds().intValue();
+      reversed.computeIfAbsent(LocalDate.parse(a.getDay()), d -> new ArrayList<>())
+        .add(new UsageDelta(a.getAccountId(), a.getAmount(), BigDecimal.ZERO));
+    }
+    reversed.forEach(usage::reverse);
+    count("normal", released);
+    return released + quarantined;
+  }
+
+  private int sweepHot() {
+    var expired = holds.lockExpiredHot(cfg.getBatchSize());
+    int released = 0;
+    for (var h : expired) {
+      // decrementHold con hold insuficiente tira y deja la transacción rollback-only: se mira antes
+      BigDecimal hold = balances.findByAccountId(h.getAccountId()).map(BalancesRow::hold).orElse(BigDecimal.ZERO);
+      if (hold.compareTo(h.getAmount()) < 0) {
+        holds.quarantineExpired(h.getAccountId(), h.getHoldId());
+        unapplied("hot", h.getAccountId(), 1, h.getAmount());
+        continue;
+      }
+      // ya bloqueado por lockExpiredHot: el UPDATE no espera ni puede fallar por carrera
+      holds.releaseIfReserved(h.getAccountId(), h.getHoldId(), h.getAmount());
+      balances.decrementHold(h.getAccountId(), h.getAmount());
+      usage.reverse(LocalDate.parse(h.getDay()), List.of(new UsageDelta(h.getAccountId(), h.getAmount(), BigDecimal.ZERO)));
+      released++;
+    }
+    count("hot", released);
+    return expired.size();
+  }
+
+  private void count(String mode, int n) {
+    if (n > 0) meters.counter("account.holds.expired.released", "mode", mode).increment(n);
+  }
+
+  private void unapplied(String mode, UUID accountId, int n, BigDecimal amount) {
+    log.error("expired holds not applied, hold below amount account_id={} holds={} amount={} mode={}",
+      accountId, n, amount, mode);
+    meters.counter("account.holds.expired.unapplied", "mode", mode).increment(n);
+  }
+
+  private void refreshBacklog() {
+    try {
+      var b = holds.expiredBacklog();
+      backlog.set(b.getHolds() == null ? 0 : b.getHolds());
+      oldestSeconds.set(b.getOldestSeconds() == null ? 0 : b.getOldestSeconds().longValue());
+    } catch (RuntimeException e) {
+      log.warn("hold expiry backlog query failed err={}", e.toString());
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.tagokoder.account.infra.out.persistence.jpa;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,6 +20,7 @@ public interface SpringDataAccountBalanceJpa extends JpaRepository<AccountBalanc
     set hold = hold + :amount,
         available = available - :amount
     where account_id = :accountId
+      and slots = 0
       and available >= :amount
   """, nativeQuery = true)
   int reserveHoldAtomic(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount);
@@ -29,6 +31,7 @@ public interface SpringDataAccountBalanceJpa extends JpaRepository<AccountBalanc
     set hold = hold - :amount,
         available = available + :amount
     where account_id = :accountId
+      and slots = 0
       and hold >= :amount
   """, nativeQuery = true)
   int releaseHoldAtomic(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount);
@@ -40,12 +43,46 @@ public interface SpringDataAccountBalanceJpa extends JpaRepository<AccountBalanc
         available = available + :dAvailable,
         hold = hold + :dHold
     where account_id = :accountId
+      and slots = 0
   """, nativeQuery = true)
   int applyDeltas(@Param("accountId") UUID accountId,
                   @Param("dLedger") BigDecimal dLedger,
                   @Param("dAvailable") BigDecimal dAvailable,
                   @Param("dHold") BigDecimal dHold);
 
+  /**
+   * Versión set-based de applyDeltas: un delta neto por cuenta.
+   * Bloquea filas en orden de account_id (CTE locked) para no generar deadlocks entre batches.
+   * Cuentas hot (slots > 0) quedan afuera: sus deltas van a account_balance_slots.
+   */
+  @Modifying
+  @Query(value = """
+    with locked as (
+      select account_id
+      from account_balances
+      where account_id = any(cast(:accountIds as uuid[]))
+        and slots = 0
+      order by account_id
+      for update
+    )
+    update account_balances b
+    set ledger = b.ledger + d.d_ledger,
+        available = b.available + d.d_available,
+        hold = b.hold + d.d_hold
+    from unnest(
+      cast(:accountIds as uuid[]),
+      cast(:dLedger as numeric[]),
+      cast(:dAvailable as numeric[]),
+      cast(:dHold as numeric[])
+    ) as d(account_id, d_ledger, d_available, d_hold)
+    where b.account_id = d.account_id
+      and b.account_id in (select account_id from locked)
+  """, nativeQuery = true)
+  int applyDeltasBatch(@Param("accountIds") UUID[] accountIds,
+                       @Param("dLedger") BigDecimal[] dLedger,
+                       @Param("dAvailable") BigDecimal[] dAvailable,
+                       @Param("dHold") BigDecimal[] dHold);
+
     @Modifying
     @Query(value = """
         INSERT INTO account_balances(account_id, ledger, available, hold)
@@ -59,4 +96,25 @@ public interface SpringDataAccountBalanceJpa extends JpaRepository<AccountBalanc
             @Param("hold") BigDecimal hold
     );
 
+    // cuentas hot (V9): 0 = modo normal
+    @Query(value = "select slots from account_balances where account_id = :accountId", nativeQuery = true)
+    Optional<Integer> slotsOf(@Param("accountId") UUID accountId);
+
+    @Query(value = "select slots from account_balances where account_id = :accountId for update", nativeQuery = true)
+    Optional<Integer> lockSlots(@Param("accountId") UUID accountId);
+
+    @Query(value = """
+        select account_id as "accountId", slots
+        from account_balances
+        where account_id = any(cast(:accountIds as uuid[])) and slots > 0
+        """, nativeQuery = true)
+    List<HotAccount> findHot(@Param("accountIds") UUID[] accountIds);
+
+    @Query(value = "select account_id from account_balances where slots > 0", nativeQuery = true)
+    List<UUID> findHotAccountIds();
+
+    interface HotAccount {
+        UUID getAccountId();
+        int getSlots();
+    }
 }
@@ -0,0 +1,240 @@
+package com.tagokoder.account.infra.out.persistence.jpa;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountBalanceSlotEntity;
+import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountBalanceSlotId;
+
+/**
+ * Statements de cuentas hot (V9). Cada operación bloquea un solo slot:
+ * - el slot se elige empezando en :start y dando la vuelta (order by slot < :start, slot)
+ * - *SkipLocked salta slots que otra transacción tiene tomados; *Wait espera el primero que califique
+ * - gather* junta available/hold en un slot (bloquea todos en orden de slot) cuando ninguno alcanza solo
+ */
+public interface SpringDataAccountBalanceSlotJpa extends JpaRepository<AccountBalanceSlotEntity, AccountBalanceSlotId> {
+
+  @Modifying
+  @Query(value = """
+    update account_balance_slots s
+    set hold = s.hold + :amount,
+        available = s.available - :amount
+    where s.account_id = :accountId
+      and s.slot = (
+        select slot from account_balance_slots
+        where account_id = :accountId and available >= :amount
+        order by slot < :start, slot
+        limit 1
+        for update skip locked
+      )
+  """, nativeQuery = true)
+  int reserveSkipLocked(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount, @Param("start") int start);
+
+  @Modifying
+  @Query(value = """
+    update account_balance_slots s
+    set hold = s.hold + :amount,
+        available = s.available - :amount
+    where s.account_id = :accountId
+      and s.slot = (
+        select slot from account_balance_slots
+        where account_id = :accountId and available >= :amount
+        order by slot < :start, slot
+        limit 1
+        for update
+      )
+      and s.available >= :amount
+  """, nativeQuery = true)
+  int reserveWait(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount, @Param("start") int start);
+
+  @Modifying
+  @Query(value = """
+    update account_balance_slots s
+    set hold = s.hold - :amount,
+        available = s.available + :amount
+    where s.account_id = :accountId
+      and s.slot = (
+        select slot from account_balance_slots
+        where account_id = :accountId and hold >= :amount
+        order by slot < :start, slot
+        limit 1
+        for update skip locked
+      )
+  """, nativeQuery = true)
+  int releaseSkipLocked(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount, @Param("start") int start);
+
+  @Modifying
+  @Query(value = """
+    update account_balance_slots s
+    set hold = s.hold - :amount,
+        available = s.available + :amount
+    where s.account_id = :accountId
+      and s.slot = (
+        select slot from account_balance_slots
+        where account_id = :accountId and hold >= :amount
+        order by slot < :start, slot
+        limit 1
+        for update
+      )
+      and s.hold >= :amount
+  """, nativeQuery = true)
+  int releaseWait(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount, @Param("start") int start);
+
+  // débitos de ledger: slot libre con fondos (o hold) suficientes; queda bloqueado hasta el commit
+  @Query(value = """
+    select slot from account_balance_slots
+    where account_id = :accountId and available >= :amount
+    order by slot < :start, slot
+    limit 1
+    for update skip locked
+  """, nativeQuery = true)
+  Optional<Integer> pickFundedSlot(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount, @Param("start") int start);
+
+  @Query(value = """
+    select slot from account_balance_slots
+    where account_id = :accountId and hold >= :amount
+    order by slot < :start, slot
+    limit 1
+    for update skip locked
+  """, nativeQuery = true)
+  Optional<Integer> pickHeldSlot(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount, @Param("start") int start);
+
+  @Modifying
+  @Query(value = """
+    update account_balance_slots
+    set ledger = ledger + :dLedger,
+        available = available + :dAvailable,
+        hold = hold + :dHold
+    where account_id = :accountId and slot = :slot
+  """, nativeQuery = true)
+  int applyToSlot(@Param("accountId") UUID accountId,
+                  @Param("slot") int slot,
+                  @Param("dLedger") BigDecimal dLedger,
+                  @Param("dAvailable") BigDecimal dAvailable,
+                  @Param("dHold") BigDecimal dHold);
+
+  @Modifying
+  @Query(value = """
+    with locked as (
+      select slot, available
+      from account_balance_slots
+      where account_id = :accountId
+      order by slot
+      for update
+    ), total as (
+      select coalesce(sum(available), 0) as v from locked
+    )
+    update account_balance_slots s
+    set available = case when s.slot = :target then (select v from total) else 0 end
+    where s.account_id = :accountId
+      and s.slot in (select slot from locked)
+  """, nativeQuery = true)
+  int gatherAvailable(@Param("accountId") UUID accountId, @Param("target") int target);
+
+  @Modifying
+  @Query(value = """
+    with locked as (
+      select slot, hold
+      from account_balance_slots
+      where account_id = :accountId
+      order by slot
+      for update
+    ), total as (
+      select coalesce(sum(hold), 0) as v from locked
+    )
+    update account_balance_slots s
+    set hold = case when s.slot = :target then (select v from total) else 0 end
+    where s.account_id = :accountId
+      and s.slot in (select slot from locked)
+  """, nativeQuery = true)
+  int gatherHold(@Param("accountId") UUID accountId, @Param("target") int target);
+
+  /**
+   * Rebalanceo sin bloquear el hot path: solo entre slots libres en este instante (skip locked),
+   * available repartido en partes iguales (el resto de la división queda en el primero).
+   */
+  @Modifying
+  @Query(value = """
+    with idle as (
+      select slot, available
+      from account_balance_slots
+      where account_id = :accountId
+      order by slot
+      for update skip locked
+    ), agg as (
+      select count(*) as n, sum(available) as total, min(slot) as first from idle
+    )
+    update account_balance_slots s
+    set available = trunc(agg.total / agg.n, 6)
+      + case when s.slot = agg.first then agg.total - trunc(agg.total / agg.n, 6) * agg.n else 0 end
+    from agg
+    where s.account_id = :accountId
+      and s.slot in (select slot from idle)
+      and agg.n > 1
+  """, nativeQuery = true)
+  int rebalanceIdle(@Param("accountId") UUID accountId);
+
+  @Query(value = """
+    select coalesce(sum(ledger), 0) as ledger,
+           coalesce(sum(available), 0) as available,
+           coalesce(sum(hold), 0) as hold
+    from account_balance_slots
+    where account_id = :accountId
+  """, nativeQuery = true)
+  SlotTotals totals(@Param("accountId") UUID accountId);
+
+  /**
+   * Pasa una cuenta a modo hot: available repartido en :slots partes, ledger y hold en el slot 0.
+   * Requiere la fila principal bloqueada (lockMain) con slots = 0.
+   */
+  @Modifying
+  @Query(value = """
+    insert into account_balance_slots(account_id, slot, ledger, available, hold)
+    select b.account_id, g.slot,
+           case when g.slot = 0 then b.ledger else 0 end,
+           case when g.slot = 0 then b.available - trunc(b.available / :slots, 6) * (:slots - 1)
+                else trunc(b.available / :slots, 6) end,
+           case when g.slot = 0 then b.hold else 0 end
+    from account_balances b
+    cross join generate_series(0, :slots - 1) as g(slot)
+    where b.account_id = :accountId and b.slots = 0
+  """, nativeQuery = true)
+  int split(@Param("accountId") UUID accountId, @Param("slots") int slots);
+
+  @Modifying
+  @Query(value = """
+    update account_balances
+    set ledger = 0, available = 0, hold = 0, slots = :slots
+    where account_id = :accountId and slots = 0
+  """, nativeQuery = true)
+  int markHot(@Param("accountId") UUID accountId, @Param("slots") int slots);
+
+  /** Vuelta a modo normal: borra los slots (espera a quien los tenga tomados) y suma todo en la fila principal. */
+  @Modifying
+  @Query(value = """
+    with s as (
+      delete from account_balance_slots
+      where account_id = :accountId
+      returning ledger, available, hold
+    )
+    update account_balances b
+    set ledger = b.ledger + (select coalesce(sum(ledger), 0) from s),
+        available = b.available + (select coalesce(sum(available), 0) from s),
+        hold = b.hold + (select coalesce(sum(hold), 0) from s),
+        slots = 0
+    where b.account_id = :accountId and b.slots > 0
+  """, nativeQuery = true)
+  int merge(@Param("accountId") UUID accountId);
+
+  interface SlotTotals {
+    BigDecimal getLedger();
+    BigDecimal getAvailable();
+    BigDecimal getHold();
+  }
+}
@@ -1,12 +1,307 @@
 package com.tagokoder.account.infra.out.persistence.jpa;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountHoldEntity;
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountHoldId;
 
 public interface SpringDataAccountHoldJpa extends JpaRepository<AccountHoldEntity, AccountHoldId> {
-  Optional<AccountHoldEntity> findByIdempotencyKey(String idempotencyKey);
+  // particionada por created_at: la key es única por partición, se toma la más reciente
+  Optional<AccountHoldEntity> findFirstByIdempotencyKeyOrderByCreatedAtDesc(String idempotencyKey);
+
+  /**
+   * ReserveHold en un round trip: status/currency de la cuenta, UPDATE condicional del balance,
+   * INSERT del hold y dedupe por idempotency key (account_hold_claim, V10).
+   * Solo aplica si todo cuadra; el resto de las columnas dice por qué no.
+   * Cuentas hot (slots > 0) no se tocan: las resuelve el caller con BalanceSlots.
+   */
+  @Transactional
+  @Query(value = """
+    with acc as (
+      select a.status, a.currency from accounts a where a.id = :accountId
+    ), prior as (
+      select * from account_hold_claim(:idempotencyKey)
+    ), bal as (
+      update account_balances b
+      set hold = b.hold + :amount,
+          available = b.available - :amount
+      where b.account_id = :accountId
+        and b.slots = 0
+        and b.available >= :amount
+        and exists (select 1 from acc where lower(acc.status) = 'active' and upper(acc.currency) = upper(:currency))
+        and not exists (select 1 from prior)
+      returning b.hold
+    ), ins as (
+      insert into account_holds(account_id, hold_id, currency, amount, status, idempotency_key, created_at, updated_at, expires_at)
+      select :accountId, :holdId, :currency, :amount, 'reserved', :idempotencyKey, now(), now(),
+             now() + make_interval(secs => cast(:ttlSeconds as double precision))
+      from bal
+      returning hold_id
+    )
+    select (select status from acc) as "accountStatus",
+           (select currency from acc) as "accountCurrency",
+           (select hold_id from prior) as "duplicateOf",
+           (select hold from bal) as "newHold",
+           (select hold_id from ins) as "inserted",
+           b.hold as "currentHold",
+           coalesce(b.slots > 0, false) as "hot"
+    from (select 1) one
+    left join account_balances b on b.account_id = :accountId
+  """, nativeQuery = true)
+  ReserveRow reserveAtomic(@Param("accountId") UUID accountId,
+                           @Param("holdId") UUID holdId,
+                           @Param("currency") String currency,
+                           @Param("amount") BigDecimal amount,
+                           @Param("idempotencyKey") String idempotencyKey,
+                           @Param("ttlSeconds") long ttlSeconds);
+
+  /**
+   * ReleaseHold en un round trip: reserved -> released del hold (exacto: account_id, hold_id, amount)
+   * y el balance por el monto del hold. Un release repetido no encuentra el hold en reserved.
+   * holdDay = día UTC de la reserva (el uso diario se devuelve en ese día).
+   */
+  @Transactional
+  @Query(value = """
+    with acc as (
+      select a.currency from accounts a where a.id = :accountId
+    ), rel as (
+      update account_holds h
+      set status = 'released', updated_at = now()
+      where h.account_id = :accountId
+        and h.hold_id = :holdId
+        and h.status = 'reserved'
+        and h.amount = :amount
+        and exists (select 1 from acc where upper(acc.currency) = upper(:currency))
+        and exists (select 1 from account_balances b where b.account_id = :accountId and b.slots = 0)
+      returning h.amount
+    ), bal as (
+      update account_balances b
+      set hold = b.hold - r.amount,
+          available = b.available + r.amount
+      from rel r
+      where b.account_id = :accountId
+        and b.hold >= r.amount
+      returning b.hold
+    ), cur as (
+      select h.status, h.amount, to_char(h.created_at at time zone 'UTC', 'YYYY-MM-DD') as day
+      from account_holds h
+      where h.account_id = :accountId and h.hold_id = :holdId
+      order by h.created_at desc
+      limit 1
+    )
+    select (select currency from acc) as "accountCurrency",
+           (select status from cur) as "holdStatus",
+           (select amount from cur) as "holdAmount",
+           (select day from cur) as "holdDay",
+           exists (select 1 from rel) as "released",
+           (select hold from bal) as "newHold",
+           b.hold as "currentHold",
+           coalesce(b.slots > 0, false) as "hot"
+    from (select 1) one
+    left join account_balances b on b.account_id = :accountId
+  """, nativeQuery = true)
+  ReleaseRow releaseAtomic(@Param("accountId") UUID accountId,
+                           @Param("holdId") UUID holdId,
+                           @Param("currency") String currency,
+                           @Param("amount") BigDecimal amount);
+
+  @Modifying
+  @Query(value = """
+    update account_holds
+    set status = 'released', updated_at = now()
+    where account_id = :accountId and hold_id = :holdId and status = 'reserved' and amount = :amount
+  """, nativeQuery = true)
+  int releaseIfReserved(@Param("accountId") UUID accountId,
+                        @Param("holdId") UUID holdId,
+                        @Param("amount") BigDecimal amount);
+
+  /**
+   * Captura: reserved -> settled de los holds que un posting del ledger consume (por hold_id).
+   * Locks en orden de (account_id, hold_id); el sweeper usa skip locked y no los espera.
+   */
+  @Modifying
+  @Query(value = """
+    with cap as (
+      select c.account_id, c.hold_id
+      from unnest(cast(:accountIds as uuid[]), cast(:holdIds as uuid[])) as c(account_id, hold_id)
+    ), locked as (
+      select h.account_id, h.hold_id, h.created_at
+      from account_holds h
+      join cap c on c.account_id = h.account_id and c.hold_id = h.hold_id
+      where h.status = 'reserved'
+      order by h.account_id, h.hold_id
+      for update of h
+    )
+    update account_holds h
+    set status = 'settled', updated_at = now()
+    from locked l
+    where h.account_id = l.account_id
+      and h.hold_id = l.hold_id
+      and h.created_at = l.created_at
+      and h.status = 'reserved'
+  """, nativeQuery = true)
+  int settleReserved(@Param("accountIds") UUID[] accountIds, @Param("holdIds") UUID[] holdIds);
+
+  /** De los holds dados, los que ya estaban released (vencidos o liberados antes de la captura). */
+  @Query(value = """
+    select h.account_id as "accountId", h.hold_id as "holdId"
+    from account_holds h
+    join unnest(cast(:accountIds as uuid[]), cast(:holdIds as uuid[])) as c(account_id, hold_id)
+      on c.account_id = h.account_id and c.hold_id = h.hold_id
+    where h.status = 'released'
+  """, nativeQuery = true)
+  List<HoldKeyRow> findReleased(@Param("accountIds") UUID[] accountIds, @Param("holdIds") UUID[] holdIds);
+
+  /**
+   * Un lote del sweeper de vencidos (cuentas en modo normal): toma hasta :batchSize holds
+   * reserved vencidos con skip locked (varias réplicas barren en paralelo sin pisarse),
+   * los pasa a released y devuelve hold -> available con un UPDATE por cuenta.
+   * Una fila por (cuenta, día UTC de reserva) para devolver el uso diario en el día en que se contó.
+   * Cuenta cuyo hold no alcanza para la suma de sus vencidos: sus holds quedan expired_unapplied
+   * (quarantined = true) y el resto del lote se aplica igual. Cuenta que pasó a hot entre medio:
+   * sus holds siguen reserved y los toma lockExpiredHot.
+   * applied = false sin quarantined = balance inconsistente con el lock tomado: el caller hace rollback.
+   */
+  @Query(value = """
+    with expired as (
+      select h.account_id, h.hold_id, h.created_at, h.amount,
+             to_char(h.created_at at time zone 'UTC', 'YYYY-MM-DD') as day
+      from account_holds h
+      where h.status = 'reserved'
+        and h.expires_at <= now()
+        and exists (select 1 from account_balances b where b.account_id = h.account_id and b.slots = 0)
+      order by h.expires_at
+      limit :batchSize
+      for update of h skip locked
+    ), per_account as (
+      select account_id, sum(amount) as amount
+      from expired
+      group by account_id
+    ), locked as (
+      -- mismo orden de locks que applyDeltas: dos sweepers con cuentas en común no se cruzan
+      select b.account_id, b.slots = 0 as normal, b.hold >= p.amount as ok
+      from account_balances b
+      join per_account p on p.account_id = b.account_id
+      order by b.account_id
+      for update of b
+    ), rel as (
+      update account_holds h
+      set status = case when l.ok then 'released' else 'expired_unapplied' end,
+          updated_at = now()
+      from expired e
+      join locked l on l.account_id = e.account_id
+      where h.account_id = e.account_id
+        and h.hold_id = e.hold_id
+        and h.created_at = e.created_at
+        and h.status = 'reserved'
+        and l.normal
+      returning h.account_id, h.amount, e.day, l.ok
+    ), bal as (
+      update account_balances b
+      set hold = b.hold - p.amount,
+          available = b.available + p.amount
+      from per_account p
+      join locked l on l.account_id = p.account_id and l.normal and l.ok
+      where b.account_id = p.account_id
+        and b.slots = 0
+        and b.hold >= p.amount
+      returning b.account_id
+    )
+    select r.account_id as "accountId",
+           r.day as "day",
+           count(*) as "holds",
+           sum(r.amount) as "amount",
+           bool_or(not r.ok) as "quarantined",
+           exists (select 1 from bal where bal.account_id = r.account_id) as "applied"
+    from rel r
+    group by r.account_id, r.day
+  """, nativeQuery = true)
+  List<SweptAccount> sweepExpired(@Param("batchSize") int batchSize);
+
+  /** Vencido que no se puede devolver (hold de la cuenta insuficiente): sale del backlog del sweeper. */
+  @Modifying
+  @Query(value = """
+    update account_holds
+    set status = 'expired_unapplied', updated_at = now()
+    where account_id = :accountId and hold_id = :holdId and status = 'reserved'
+  """, nativeQuery = true)
+  int quarantineExpired(@Param("accountId") UUID accountId, @Param("holdId") UUID holdId);
+
+  /** Vencidos de cuentas hot: el saldo vive en slots, se liberan de a uno con BalanceSlots. */
+  @Query(value = """
+    select h.account_id as "accountId", h.hold_id as "holdId", h.amount as "amount",
+           to_char(h.created_at at time zone 'UTC', 'YYYY-MM-DD') as "day"
+    from account_holds h
+    where h.status = 'reserved'
+      and h.expires_at <= now()
+      and exists (select 1 from account_balances b where b.account_id = h.account_id and b.slots > 0)
+    order by h.expires_at
+    limit :batchSize
+    for update of h skip locked
+  """, nativeQuery = true)
+  List<ExpiredHold> lockExpiredHot(@Param("batchSize") int batchSize);
+
+  @Query(value = """
+    select count(*) as "holds",
+           coalesce(cast(extract(epoch from now() - min(expires_at)) as double precision), 0) as "oldestSeconds"
+    from account_holds
+    where status = 'reserved' and expires_at <= now()
+  """, nativeQuery = true)
+  ExpiredBacklog expiredBacklog();
+
+  interface ReserveRow {
+    String getAccountStatus();
+    String getAccountCurrency();
+    UUID getDuplicateOf();
+    BigDecimal getNewHold();
+    UUID getInserted();
+    BigDecimal getCurrentHold();
+    Boolean getHot();
+  }
+
+  interface ReleaseRow {
+    String getAccountCurrency();
+    String getHoldStatus();
+    BigDecimal getHoldAmount();
+    String getHoldDay();
+    Boolean getReleased();
+    BigDecimal getNewHold();
+    BigDecimal getCurrentHold();
+    Boolean getHot();
+  }
+
+  interface SweptAccount {
+    UUID getAccountId();
+    String getDay();
+    Long getHolds();
+    BigDecimal getAmount();
+    Boolean getQuarantined();
+    Boolean getApplied();
+  }
+
+  interface ExpiredHold {
+    UUID getAccountId();
+    UUID getHoldId();
+    BigDecimal getAmount();
+    String getDay();
+  }
+
+  interface HoldKeyRow {
+    UUID getAccountId();
+    UUID getHoldId();
+  }
+
+  interface ExpiredBacklog {
+    Long getHolds();
+    Double getOldestSeconds();
+  }
 }
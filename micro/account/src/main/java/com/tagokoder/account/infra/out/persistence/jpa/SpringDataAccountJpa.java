@@ -1,8 +1,15 @@
 package com.tagokoder.account.infra.out.persistence.jpa;
 
+import com.tagokoder.account.domain.port.out.AccountRepositoryPort.AccountWithBalancesRow;
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +19,75 @@ public interface SpringDataAccountJpa extends JpaRepository<AccountEntity, UUID>
     List<AccountEntity> findByCustomerId(UUID customerId);
     List<AccountEntity> findByIdIn(Collection<UUID> ids);
     Optional<AccountEntity> findByAccountNumber(long accountNumber);
+
+    /**
+     * Cuentas + balances en una sola query, proyectadas a DTO (constructor expression: nada queda en el
+     * persistence context). Orden estable (opened_at, id) para keyset pagination.
+     * Cuentas hot (slots > 0): el saldo es la suma de account_balance_slots, como en findForValidation.
+     */
+    @Query("""
+        select new com.tagokoder.account.domain.port.out.AccountRepositoryPort$AccountWithBalancesRow(
+            a.id, a.customerId, a.accountNumber, a.productType, a.currency, a.status, a.openedAt, a.updatedAt,
+            case when b.slots > 0
+                 then coalesce((select sum(s.ledger) from AccountBalanceSlotEntity s where s.id.accountId = a.id), 0)
+                 else coalesce(b.ledger, 0) end,
+            case when b.slots > 0
+                 then coalesce((select sum(s.available) from AccountBalanceSlotEntity s where s.id.accountId = a.id), 0)
+                 else coalesce(b.available, 0) end,
+            case when b.slots > 0
+                 then coalesce((select sum(s.hold) from AccountBalanceSlotEntity s where s.id.accountId = a.id), 0)
+                 else coalesce(b.hold, 0) end)
+        from AccountEntity a
+        left join AccountBalanceEntity b on b.accountId = a.id
+        where a.customerId = :customerId
+          and (:status is null or a.status = :status)
+          and (:currency is null or a.currency = :currency)
+          and (:productType is null or a.productType = :productType)
+          and (:afterOpenedAt is null
+               or a.openedAt > :afterOpenedAt
+               or (a.openedAt = :afterOpenedAt and a.id > :afterId))
+        order by a.openedAt, a.id
+        """)
+    List<AccountWithBalancesRow> listWithBalances(@Param("customerId") UUID customerId,
+                                                  @Param("status") String status,
+                                                  @Param("currency") String currency,
+                                                  @Param("productType") String productType,
+                                                  @Param("afterOpenedAt") OffsetDateTime afterOpenedAt,
+                                                  @Param("afterId") UUID afterId,
+                                                  Limit limit);
+
+    /**
+     * ValidateAccountsAndLimits (uno o muchos legs) en una lectura: cuenta, available (suma de slots si
+     * la cuenta es hot), límites y uso del día. Sin fila de balance/límites/uso => 0.
+     */
+    @Query(value = """
+        select a.id as "accountId",
+               a.status as "status",
+               a.currency as "currency",
+               case when b.slots > 0
+                    then coalesce((select sum(s.available) from account_balance_slots s where s.account_id = a.id), 0)
+                    else coalesce(b.available, 0)
+               end as "available",
+               coalesce(l.daily_out, 0) as "dailyOut",
+               coalesce(l.daily_in, 0) as "dailyIn",
+               coalesce(u.out_used, 0) as "outUsed",
+               coalesce(u.in_used, 0) as "inUsed"
+        from accounts a
+        left join account_balances b on b.account_id = a.id
+        left join account_limits l on l.account_id = a.id
+        left join account_limit_usage u on u.account_id = a.id and u.day = :day
+        where a.id = any(cast(:accountIds as uuid[]))
+        """, nativeQuery = true)
+    List<ValidationRow> findForValidation(@Param("accountIds") UUID[] accountIds, @Param("day") LocalDate day);
+
+    interface ValidationRow {
+        UUID getAccountId();
+        String getStatus();
+        String getCurrency();
+        BigDecimal getAvailable();
+        BigDecimal getDailyOut();
+        BigDecimal getDailyIn();
+        BigDecimal getOutUsed();
+        BigDecimal getInUsed();
+    }
 }
@@ -2,6 +2,8 @@ package com.tagokoder.account.infra.out.persistence.jpa;
 
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountLimitEntity;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,4 +11,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface SpringDataAccountLimitJpa extends JpaRepository<AccountLimitEntity, UUID> {
     Optional<AccountLimitEntity> findByAccountId(UUID accountId);
+
+    List<AccountLimitEntity> findByAccountIdIn(Collection<UUID> accountIds);
 }
@@ -0,0 +1,70 @@
+package com.tagokoder.account.infra.out.persistence.jpa;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountLimitUsageEntity;
+import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountLimitUsageId;
+
+public interface SpringDataAccountLimitUsageJpa extends JpaRepository<AccountLimitUsageEntity, AccountLimitUsageId> {
+
+  /**
+   * Flush del acumulador: un upsert que suma por (cuenta, día) para todo el lote.
+   * Filas en orden de pk para que dos réplicas flusheando las mismas cuentas no se crucen.
+   */
+  @Transactional
+  @Modifying
+  @Query(value = """
+    insert into account_limit_usage(account_id, day, out_used, in_used, updated_at)
+    select d.account_id, d.day, d.out_used, d.in_used, now()
+    from unnest(
+      cast(:accountIds as uuid[]),
+      cast(:days as date[]),
+      cast(:outUsed as numeric[]),
+      cast(:inUsed as numeric[])
+    ) as d(account_id, day, out_used, in_used)
+    order by d.account_id, d.day
+    on conflict (account_id, day) do update
+    set out_used = account_limit_usage.out_used + excluded.out_used,
+        in_used = account_limit_usage.in_used + excluded.in_used,
+        updated_at = now()
+  """, nativeQuery = true)
+  int addBatch(@Param("accountIds") UUID[] accountIds,
+               @Param("days") String[] days,
+               @Param("outUsed") BigDecimal[] outUsed,
+               @Param("inUsed") BigDecimal[] inUsed);
+
+  @Query(value = """
+    select account_id as "accountId", out_used as "outUsed", in_used as "inUsed"
+    from account_limit_usage
+    where account_id = :accountId and day = :day
+  """, nativeQuery = true)
+  Optional<UsageRow> findUsage(@Param("accountId") UUID accountId, @Param("day") LocalDate day);
+
+  @Query(value = """
+    select account_id as "accountId", out_used as "outUsed", in_used as "inUsed"
+    from account_limit_usage
+    where account_id = any(cast(:accountIds as uuid[])) and day = :day
+  """, nativeQuery = true)
+  List<UsageRow> findUsages(@Param("accountIds") UUID[] accountIds, @Param("day") LocalDate day);
+
+  @Transactional
+  @Modifying
+  @Query(value = "delete from account_limit_usage where day < :before", nativeQuery = true)
+  int purgeBefore(@Param("before") LocalDate before);
+
+  interface UsageRow {
+    UUID getAccountId();
+    BigDecimal getOutUsed();
+    BigDecimal getInUsed();
+  }
+}
@@ -1,11 +1,72 @@
 package com.tagokoder.account.infra.out.persistence.jpa;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.tagokoder.account.infra.out.persistence.jpa.entity.IdempotencyRecordEntity;
 
 public interface SpringDataIdempotencyJpa extends JpaRepository<IdempotencyRecordEntity, java.util.UUID> {
-  Optional<IdempotencyRecordEntity> findByIdempotencyKey(String idempotencyKey);
+  // particionada por created_at: la key es única por partición, se toma la más reciente
+  Optional<IdempotencyRecordEntity> findFirstByIdempotencyKeyAndOperationOrderByCreatedAtDesc(String idempotencyKey, String operation);
+
+  /**
+   * Sin unique global sobre la key (tabla particionada): serializa por (key, operation) con un
+   * advisory lock de transacción (namespace 1768187245 = "idem").
+   */
+  @Query(value = """
+    select count(l)
+    from (select cast(pg_advisory_xact_lock(1768187245, hashtext(:key || '|' || :operation)) as text) as l) x
+  """, nativeQuery = true)
+  long lockKey(@Param("key") String key, @Param("operation") String operation);
+
+  @Modifying
+  @Query(value = """
+    insert into idempotency_records(idempotency_key, operation, status, status_code, started_at, owner)
+    values (:key, :operation, 'in_flight', 0, now(), :owner)
+  """, nativeQuery = true)
+  int insertInFlight(@Param("key") String key, @Param("operation") String operation, @Param("owner") UUID owner);
+
+  // toma un marcador in_flight abandonado: el dueño anterior ya no puede completarlo ni borrarlo
+  @Modifying
+  @Query(value = """
+    update idempotency_records
+    set started_at = now(),
+        owner = :owner
+    where idempotency_key = :key
+      and operation = :operation
+      and status = 'in_flight'
+      and started_at < :staleBefore
+  """, nativeQuery = true)
+  int takeOverStale(@Param("key") String key, @Param("operation") String operation,
+                    @Param("staleBefore") OffsetDateTime staleBefore, @Param("owner") UUID owner);
+
+  @Modifying
+  @Query(value = """
+    update idempotency_records
+    set status = 'completed',
+        status_code = :statusCode,
+        response_bin = :response
+    where idempotency_key = :key
+      and operation = :operation
+      and status = 'in_flight'
+      and owner = :owner
+  """, nativeQuery = true)
+  int complete(@Param("key") String key, @Param("operation") String operation, @Param("owner") UUID owner,
+               @Param("statusCode") int statusCode, @Param("response") byte[] response);
+
+  @Modifying
+  @Query(value = """
+    delete from idempotency_records
+    where idempotency_key = :key
+      and operation = :operation
+      and status = 'in_flight'
+      and owner = :owner
+  """, nativeQuery = true)
+  int deleteInFlight(@Param("key") String key, @Param("operation") String operation, @Param("owner") UUID owner);
 }
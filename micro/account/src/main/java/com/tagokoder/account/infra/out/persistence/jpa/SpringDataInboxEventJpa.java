@@ -1,7 +1,68 @@
 package com.tagokoder.account.infra.out.persistence.jpa;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.tagokoder.account.infra.out.persistence.jpa.entity.InboxEventEntity;
 
-public interface SpringDataInboxEventJpa extends JpaRepository<InboxEventEntity, String> {}
+public interface SpringDataInboxEventJpa extends JpaRepository<InboxEventEntity, String> {
+  List<InboxEventEntity> findByEventTypeAndStatusOrderByQuarantinedAtAsc(String eventType, String status, Pageable page);
+
+  /**
+   * inbox_events está particionada por received_at, así que no hay unique global sobre event_id.
+   * Serializa a quienes intentan el mismo event_id con advisory locks de transacción
+   * (namespace 1768841848 = "inbx"; en orden de event_id, sin deadlocks entre batches);
+   * luego tryBeginAll ve las filas ya commiteadas.
+   */
+  @Query(value = """
+    select count(l)
+    from (
+      select cast(pg_advisory_xact_lock(1768841848, hashtext(event_id)) as text) as l
+      from (select distinct unnest(cast(:eventIds as varchar[])) as event_id order by 1) ids
+    ) locks
+  """, nativeQuery = true)
+  long lockEventIds(@Param("eventIds") String[] eventIds);
+
+  /**
+   * Inserta los event_id que no existen en ninguna partición (sin excepción ni statement fallido por duplicado).
+   * Devuelve los event_id que se pueden procesar: los recién insertados + los existentes aún no processed.
+   * Requiere lockEventIds en la misma transacción.
+   */
+  @Query(value = """
+    with ids as (
+      select distinct unnest(cast(:eventIds as varchar[])) as event_id
+    ),
+    existing as (
+      select e.event_id, e.status
+      from inbox_events e
+      join ids on ids.event_id = e.event_id
+    ),
+    ins as (
+      insert into inbox_events(event_id, event_type, status)
+      select ids.event_id, :eventType, 'received'
+      from ids
+      where not exists (select 1 from existing x where x.event_id = ids.event_id)
+      on conflict do nothing
+      returning event_id
+    )
+    select event_id from ins
+    union all
+    select event_id from existing where status <> 'processed'
+  """, nativeQuery = true)
+  List<String> tryBeginAll(@Param("eventIds") String[] eventIds, @Param("eventType") String eventType);
+
+  @Modifying
+  @Query(value = """
+    update inbox_events
+    set status = 'processed',
+        processed_at = now(),
+        error = null
+    where event_id = any(cast(:eventIds as varchar[]))
+  """, nativeQuery = true)
+  int markProcessedAll(@Param("eventIds") String[] eventIds);
+}
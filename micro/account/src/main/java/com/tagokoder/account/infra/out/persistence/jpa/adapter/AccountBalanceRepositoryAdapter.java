@@ -1,35 +1,50 @@
 package com.tagokoder.account.infra.out.persistence.jpa.adapter;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort;
 import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceJpa;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceJpa.HotAccount;
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountBalanceEntity;
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountEntity;
+import com.tagokoder.account.infra.out.persistence.slots.BalanceSlots;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+/**
+ * account_balances con dos modos por cuenta:
+ * - normal (slots = 0): una fila, statements atómicos sobre ella
+ * - hot (slots > 0): los statements normales no la tocan (filtran slots = 0) y todo va a {@link BalanceSlots}
+ */
 @Component
 public class AccountBalanceRepositoryAdapter implements AccountBalanceRepositoryPort {
 
     private final SpringDataAccountBalanceJpa jpa;
+    private final BalanceSlots slots;
     @PersistenceContext
     private EntityManager em;
 
-    public AccountBalanceRepositoryAdapter(SpringDataAccountBalanceJpa jpa) {
+    public AccountBalanceRepositoryAdapter(SpringDataAccountBalanceJpa jpa, BalanceSlots slots) {
         this.jpa = jpa;
+        this.slots = slots;
     }
 
  @Override
   public Optional<BalancesRow> findByAccountId(UUID accountId) {
-    return jpa.findById(accountId).map(e ->
-      new BalancesRow(e.getLedger(), e.getAvailable(), e.getHold())
+    return jpa.findById(accountId).map(e -> e.getSlots() > 0
+      ? slots.totals(accountId)
+      : new BalancesRow(e.getLedger(), e.getAvailable(), e.getHold())
     );
   }
 
@@ -61,15 +76,21 @@ public class AccountBalanceRepositoryAdapter implements AccountBalanceRepository
   @Override
   public BigDecimal incrementHold(UUID accountId, BigDecimal amount) {
     int updated = jpa.reserveHoldAtomic(accountId, amount);
-    if (updated != 1) throw new IllegalArgumentException("insufficient available or balances not found");
-    return jpa.findById(accountId).orElseThrow().getHold();
+    if (updated == 1) return jpa.findById(accountId).orElseThrow().getHold();
+
+    int n = jpa.slotsOf(accountId).orElse(0);
+    if (n > 0) return slots.reserve(accountId, n, amount);
+    throw new IllegalArgumentException("insufficient available or balances not found");
   }
 
   @Override
   public BigDecimal decrementHold(UUID accountId, BigDecimal amount) {
     int updated = jpa.releaseHoldAtomic(accountId, amount);
-    if (updated != 1) throw new IllegalArgumentException("insufficient hold or balances not found");
-    return jpa.findById(accountId).orElseThrow().getHold();
+    if (updated == 1) return jpa.findById(accountId).orElseThrow().getHold();
+
+    int n = jpa.slotsOf(accountId).orElse(0);
+    if (n > 0) return slots.release(accountId, n, amount);
+    throw new IllegalArgumentException("insufficient hold or balances not found");
   }
 
   @Override
@@ -86,8 +107,68 @@ public class AccountBalanceRepositoryAdapter implements AccountBalanceRepository
               BigDecimal.ZERO       // dHold
       );
 
-      if (updated != 1) throw new IllegalArgumentException("balances not found");
-      return jpa.findById(accountId).orElseThrow().getAvailable();
+      if (updated == 1) return jpa.findById(accountId).orElseThrow().getAvailable();
+
+      int n = jpa.slotsOf(accountId).orElse(0);
+      if (n > 0 && slots.apply(accountId, n, amount, amount, BigDecimal.ZERO)) return slots.totals(accountId).available();
+      throw new IllegalArgumentException("balances not found");
+  }
+
+  @Override
+  @Transactional
+  public int applyDeltas(Collection<BalanceDelta> deltas) {
+      if (deltas == null || deltas.isEmpty()) return 0;
+
+      // el orden de locks lo fija el CTE en SQL; aquí solo dejamos los arrays deterministas
+      List<BalanceDelta> sorted = deltas.stream()
+              .sorted(Comparator.comparing(BalanceDelta::accountId))
+              .toList();
+
+      Map<UUID, Integer> hot = hotSlots(sorted);
+      List<BalanceDelta> normal = hot.isEmpty()
+              ? sorted
+              : sorted.stream().filter(d -> !hot.containsKey(d.accountId())).toList();
+
+      int applied = normal.isEmpty() ? 0 : applyBatch(normal);
+      if (applied < normal.size()) {
+          // alguna pudo pasar a hot entre la consulta y el UPDATE (o no tiene fila, como antes)
+          Map<UUID, Integer> late = hotSlots(normal);
+          for (BalanceDelta d : normal) {
+              Integer n = late.get(d.accountId());
+              if (n != null && slots.apply(d.accountId(), n, d.dLedger(), d.dAvailable(), d.dHold())) applied++;
+          }
+      }
+      for (BalanceDelta d : sorted) {
+          Integer n = hot.get(d.accountId());
+          if (n == null) continue;
+          if (slots.apply(d.accountId(), n, d.dLedger(), d.dAvailable(), d.dHold())
+                  || jpa.applyDeltas(d.accountId(), d.dLedger(), d.dAvailable(), d.dHold()) == 1) {
+              applied++;
+          }
+      }
+      return applied;
+  }
+
+  private int applyBatch(List<BalanceDelta> sorted) {
+      int n = sorted.size();
+      UUID[] ids = new UUID[n];
+      BigDecimal[] dLedger = new BigDecimal[n];
+      BigDecimal[] dAvailable = new BigDecimal[n];
+      BigDecimal[] dHold = new BigDecimal[n];
+      for (int i = 0; i < n; i++) {
+          BalanceDelta d = sorted.get(i);
+          ids[i] = d.accountId();
+          dLedger[i] = d.dLedger();
+          dAvailable[i] = d.dAvailable();
+          dHold[i] = d.dHold();
+      }
+      return jpa.applyDeltasBatch(ids, dLedger, dAvailable, dHold);
   }
 
+  private Map<UUID, Integer> hotSlots(List<BalanceDelta> deltas) {
+      UUID[] ids = deltas.stream().map(BalanceDelta::accountId).toArray(UUID[]::new);
+      return jpa.findHot(ids).stream().collect(Collectors.toMap(HotAccount::getAccountId, HotAccount::getSlots));
+  }
+
+
 }
@@ -1,8 +1,12 @@
 package com.tagokoder.account.infra.out.persistence.jpa.adapter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.stereotype.Component;
@@ -12,20 +16,23 @@ import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort;
 import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountHoldJpa;
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountHoldEntity;
 import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountHoldId;
+import com.tagokoder.account.infra.props.HoldExpiryProperties;
 
 @Component
 public class AccountHoldRepositoryAdapter implements AccountHoldRepositoryPort {
 
   private final SpringDataAccountHoldJpa jpa;
+  private final HoldExpiryProperties expiry;
 
-  public AccountHoldRepositoryAdapter(SpringDataAccountHoldJpa jpa) {
+  public AccountHoldRepositoryAdapter(SpringDataAccountHoldJpa jpa, HoldExpiryProperties expiry) {
     this.jpa = jpa;
+    this.expiry = expiry;
   }
 
   @Override
   public Optional<HoldRow> findByIdempotencyKey(String idempotencyKey) {
     if (idempotencyKey == null || idempotencyKey.isBlank()) return Optional.empty();
-    return jpa.findByIdempotencyKey(idempotencyKey).map(this::toRow);
+    return jpa.findFirstByIdempotencyKeyOrderByCreatedAtDesc(idempotencyKey).map(this::toRow);
   }
 
   @Override
@@ -49,8 +56,10 @@ public class AccountHoldRepositoryAdapter implements AccountHoldRepositoryPort {
     e.setAmount(amount);
     e.setStatus("reserved");
     e.setIdempotencyKey(idempotencyKey);
-    e.setCreatedAt(OffsetDateTime.now());
-    e.setUpdatedAt(OffsetDateTime.now());
+    OffsetDateTime now = OffsetDateTime.now();
+    e.setCreatedAt(now);
+    e.setUpdatedAt(now);
+    e.setExpiresAt(now.plus(expiry.getTtl()));
     jpa.save(e);
   }
 
@@ -67,6 +76,58 @@ public class AccountHoldRepositoryAdapter implements AccountHoldRepositoryPort {
     jpa.save(e);
   }
 
+  @Override
+  public ReserveOutcome reserveAtomic(UUID accountId, UUID holdId, String currency, BigDecimal amount, String idempotencyKey) {
+    var r = jpa.reserveAtomic(accountId, holdId, currency, amount, idempotencyKey, expiry.getTtl().toSeconds());
+    return new ReserveOutcome(
+      r.getAccountStatus(),
+      r.getAccountCurrency(),
+      r.getDuplicateOf(),
+      r.getNewHold(),
+      r.getCurrentHold(),
+      Boolean.TRUE.equals(r.getHot())
+    );
+  }
+
+  @Override
+  public ReleaseOutcome releaseAtomic(UUID accountId, UUID holdId, String currency, BigDecimal amount) {
+    var r = jpa.releaseAtomic(accountId, holdId, currency, amount);
+    return new ReleaseOutcome(
+      r.getAccountCurrency(),
+      r.getHoldStatus(),
+      r.getHoldAmount(),
+      r.getHoldDay() == null ? null : LocalDate.parse(r.getHoldDay()),
+      Boolean.TRUE.equals(r.getReleased()),
+      r.getNewHold(),
+      r.getCurrentHold(),
+      Boolean.TRUE.equals(r.getHot())
+    );
+  }
+
+  @Override
+  @Transactional
+  public boolean releaseIfReserved(UUID accountId, UUID holdId, BigDecimal amount) {
+    return jpa.releaseIfReserved(accountId, holdId, amount) == 1;
+  }
+
+  @Override
+  @Transactional
+  public Set<HoldKey> settleCaptured(Collection<HoldKey> captured) {
+    if (captured == null || captured.isEmpty()) return Set.of();
+    UUID[] accountIds = new UUID[captured.size()];
+    UUID[] holdIds = new UUID[captured.size()];
+    int i = 0;
+    for (HoldKey k : captured) {
+      accountIds[i] = k.accountId();
+      holdIds[i++] = k.holdId();
+    }
+    jpa.settleReserved(accountIds, holdIds);
+
+    Set<HoldKey> released = new HashSet<>();
+    for (var r : jpa.findReleased(accountIds, holdIds)) released.add(new HoldKey(r.getAccountId(), r.getHoldId()));
+    return released;
+  }
+
   private HoldRow toRow(AccountHoldEntity e) {
     return new HoldRow(
       e.getId().getAccountId(),
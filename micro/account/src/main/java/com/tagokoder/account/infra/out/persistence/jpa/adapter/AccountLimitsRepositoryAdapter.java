@@ -7,6 +7,9 @@ import com.tagokoder.account.infra.out.persistence.jpa.entity.AccountLimitEntity
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import jakarta.persistence.EntityManager;
@@ -31,6 +34,16 @@ public class AccountLimitsRepositoryAdapter implements AccountLimitsRepositoryPo
         ));
     }
 
+    @Override
+    public Map<UUID, LimitsRow> findByAccountIds(Collection<UUID> accountIds) {
+        Map<UUID, LimitsRow> out = new HashMap<>();
+        if (accountIds == null || accountIds.isEmpty()) return out;
+        for (AccountLimitEntity e : jpa.findByAccountIdIn(accountIds)) {
+            out.put(e.getAccountId(), new LimitsRow(e.getDailyOut(), e.getDailyIn()));
+        }
+        return out;
+    }
+
     @Override
     public LimitsRow patch(UUID accountId, BigDecimal dailyOut, BigDecimal dailyIn) {
         AccountLimitEntity e = jpa.findByAccountId(accountId).orElseGet(() -> {
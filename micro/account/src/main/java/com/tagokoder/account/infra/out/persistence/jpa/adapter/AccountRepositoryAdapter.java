@@ -1,10 +1,13 @@
 package com.tagokoder.account.infra.out.persistence.jpa.adapter;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tagokoder.account.domain.model.Account;
 import com.tagokoder.account.domain.port.out.AccountRepositoryPort;
@@ -59,4 +62,12 @@ public class AccountRepositoryAdapter implements AccountRepositoryPort {
     public Optional<Account> findByAccountNumber(long accountNumber) {
     return accountJpa.findByAccountNumber(accountNumber).map(mapper::toDomain);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AccountWithBalancesRow> listWithBalances(UUID customerId, String status, String currency, String productType,
+                                                         OffsetDateTime afterOpenedAt, UUID afterId, Integer limit) {
+        return accountJpa.listWithBalances(customerId, status, currency, productType, afterOpenedAt, afterId,
+                limit == null ? Limit.unlimited() : Limit.of(limit));
+    }
 }
@@ -0,0 +1,56 @@
+package com.tagokoder.account.infra.out.persistence.jpa.adapter;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.tagokoder.account.domain.port.out.AccountValidationReadPort;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort.Usage;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountJpa;
+import com.tagokoder.account.infra.out.persistence.usage.LimitUsageAccumulator;
+
+@Component
+public class AccountValidationReadAdapter implements AccountValidationReadPort {
+
+  private final SpringDataAccountJpa jpa;
+  private final LimitUsageAccumulator usage;
+
+  public AccountValidationReadAdapter(SpringDataAccountJpa jpa, LimitUsageAccumulator usage) {
+    this.jpa = jpa;
+    this.usage = usage;
+  }
+
+  @Override
+  public Map<UUID, ValidationRow> load(Collection<UUID> accountIds) {
+    if (accountIds == null || accountIds.isEmpty()) return new HashMap<>();
+
+    // el uso de la DB viene en la misma query; lo pendiente del acumulador se suma en memoria,
+    // en la misma lectura consistente contra el commit de un flush
+    LocalDate day = usage.day();
+    UUID[] ids = new LinkedHashSet<>(accountIds).toArray(UUID[]::new);
+    return usage.consistentRead(() -> rows(ids, day));
+  }
+
+  private Map<UUID, ValidationRow> rows(UUID[] ids, LocalDate day) {
+    Map<UUID, ValidationRow> out = new HashMap<>();
+    for (var r : jpa.findForValidation(ids, day)) {
+      Usage u = usage.withPending(r.getAccountId(), day, new Usage(r.getOutUsed(), r.getInUsed()));
+      out.put(r.getAccountId(), new ValidationRow(
+        r.getAccountId(),
+        r.getStatus(),
+        r.getCurrency(),
+        r.getAvailable(),
+        r.getDailyOut(),
+        r.getDailyIn(),
+        u.outUsed(),
+        u.inUsed()
+      ));
+    }
+    return out;
+  }
+}
@@ -1,7 +1,9 @@
 package com.tagokoder.account.infra.out.persistence.jpa.adapter;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,20 +22,49 @@ public class IdempotencyRepositoryAdapter implements IdempotencyRepositoryPort {
   }
 
   @Override
-  public Optional<Record> find(String key) {
-    if (key == null || key.isBlank()) return Optional.empty();
-    return jpa.findByIdempotencyKey(key).map(e -> new Record(e.getIdempotencyKey(), e.getOperation(), e.getStatusCode(), e.getResponseJson()));
+  @Transactional
+  public Begin begin(String key, String operation, Duration staleAfter) {
+    jpa.lockKey(key, operation);
+
+    var existing = jpa.findFirstByIdempotencyKeyAndOperationOrderByCreatedAtDesc(key, operation)
+      // completed sin respuesta guardada no sirve para responder: se re-ejecuta
+      .filter(e -> "in_flight".equals(e.getStatus()) || e.getResponseBin() != null || e.getResponseJson() != null);
+
+    UUID owner = UUID.randomUUID();
+    if (existing.isEmpty()) {
+      jpa.insertInFlight(key, operation, owner);
+      return new Begin(BeginState.ACQUIRED, null, null, owner);
+    }
+
+    IdempotencyRecordEntity e = existing.get();
+    if ("completed".equals(e.getStatus())) {
+      // filas previas a V6 (status default completed) solo tienen response_json
+      return new Begin(BeginState.COMPLETED, e.getResponseBin(), e.getResponseBin() == null ? e.getResponseJson() : null);
+    }
+    if (jpa.takeOverStale(key, operation, OffsetDateTime.now().minus(staleAfter), owner) > 0) {
+      return new Begin(BeginState.ACQUIRED, null, null, owner);
+    }
+    return new Begin(BeginState.IN_FLIGHT, null, null);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<byte[]> findCompleted(String key, String operation) {
+    return jpa.findFirstByIdempotencyKeyAndOperationOrderByCreatedAtDesc(key, operation)
+      .filter(e -> "completed".equals(e.getStatus()))
+      .map(IdempotencyRecordEntity::getResponseBin);
+  }
+
+  @Override
+  @Transactional
+  public boolean complete(String key, String operation, UUID owner, int statusCode, byte[] response) {
+    return jpa.complete(key, operation, owner, statusCode, response) > 0;
   }
 
   @Override
   @Transactional
-  public void save(String key, String operation, int statusCode, String responseJson) {
-    IdempotencyRecordEntity e = new IdempotencyRecordEntity();
-    e.setIdempotencyKey(key);
-    e.setOperation(operation);
-    e.setStatusCode(statusCode);
-    e.setResponseJson(responseJson);
-    e.setCreatedAt(OffsetDateTime.now());
-    jpa.save(e);
+  public void abandon(String key, String operation, UUID owner) {
+    // 0 filas: la key ya es de quien la tomó por stale, su marcador no se toca
+    jpa.deleteInFlight(key, operation, owner);
   }
 }
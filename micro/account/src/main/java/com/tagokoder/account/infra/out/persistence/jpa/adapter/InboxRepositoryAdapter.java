@@ -1,8 +1,13 @@
 package com.tagokoder.account.infra.out.persistence.jpa.adapter;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,20 +28,7 @@ public class InboxRepositoryAdapter implements InboxRepositoryPort {
   @Transactional
   public boolean tryBegin(String eventId, String eventType) {
     if (eventId == null || eventId.isBlank()) return true; // no dedupe posible, procesa igual
-
-    try {
-      InboxEventEntity e = new InboxEventEntity();
-      e.setEventId(eventId);
-      e.setEventType(eventType);
-      e.setReceivedAt(OffsetDateTime.now());
-      e.setStatus("received");
-      jpa.save(e);
-      return true;
-    } catch (DataIntegrityViolationException dup) {
-      // ya existe: si está processed -> no reprocesar
-      var existing = jpa.findById(eventId).orElse(null);
-      return existing != null && !"processed".equalsIgnoreCase(existing.getStatus());
-    }
+    return !tryBeginAll(List.of(eventId), eventType).isEmpty();
   }
 
   @Override
@@ -51,6 +43,28 @@ public class InboxRepositoryAdapter implements InboxRepositoryPort {
     jpa.save(e);
   }
 
+  @Override
+  @Transactional
+  public Set<String> tryBeginAll(Collection<String> eventIds, String eventType) {
+    String[] ids = eventIds.stream()
+      .filter(id -> id != null && !id.isBlank())
+      .distinct()
+      .toArray(String[]::new);
+    if (ids.length == 0) return Set.of();
+    jpa.lockEventIds(ids);
+    return new HashSet<>(jpa.tryBeginAll(ids, eventType));
+  }
+
+  @Override
+  @Transactional
+  public void markProcessedAll(Collection<String> eventIds) {
+    String[] ids = eventIds.stream()
+      .filter(id -> id != null && !id.isBlank())
+      .toArray(String[]::new);
+    if (ids.length == 0) return;
+    jpa.markProcessedAll(ids);
+  }
+
   @Override
   @Transactional
   public void markFailedSafe(String eventIdOrNull, String eventType, String error) {
@@ -67,4 +81,48 @@ public class InboxRepositoryAdapter implements InboxRepositoryPort {
     e.setError(error);
     jpa.save(e);
   }
+
+  @Override
+  @Transactional
+  public void quarantine(String eventId, String eventType, int attempts, String payload, String error) {
+    if (eventId == null || eventId.isBlank()) return;
+    var e = jpa.findById(eventId).orElseGet(() -> {
+      InboxEventEntity x = new InboxEventEntity();
+      x.setEventId(eventId);
+      x.setEventType(eventType);
+      x.setReceivedAt(OffsetDateTime.now());
+      return x;
+    });
+    // nunca pisar un evento ya aplicado
+    if ("processed".equalsIgnoreCase(e.getStatus())) return;
+
+    e.setStatus("quarantined");
+    e.setAttempts(attempts);
+    e.setPayload(payload);
+    e.setError(error);
+    e.setQuarantinedAt(OffsetDateTime.now());
+    jpa.save(e);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<QuarantinedEvent> findQuarantined(String eventType, int limit) {
+    return jpa.findByEventTypeAndStatusOrderByQuarantinedAtAsc(eventType, "quarantined", PageRequest.of(0, limit))
+      .stream()
+      .map(InboxRepositoryAdapter::toQuarantined)
+      .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<QuarantinedEvent> findQuarantined(String eventId) {
+    if (eventId == null || eventId.isBlank()) return Optional.empty();
+    return jpa.findById(eventId)
+      .filter(e -> "quarantined".equalsIgnoreCase(e.getStatus()))
+      .map(InboxRepositoryAdapter::toQuarantined);
+  }
+
+  private static QuarantinedEvent toQuarantined(InboxEventEntity e) {
+    return new QuarantinedEvent(e.getEventId(), e.getEventType(), e.getAttempts(), e.getPayload(), e.getError());
+  }
 }
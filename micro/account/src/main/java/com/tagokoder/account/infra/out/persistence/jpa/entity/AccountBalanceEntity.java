@@ -34,4 +34,12 @@ public class AccountBalanceEntity {
     private BigDecimal available;
     @Column(name="hold", nullable=false, precision=20, scale=6)
     private BigDecimal hold;
+
+    // la incrementa el trigger de account_balances en cada cambio (V8); solo lectura desde JPA
+    @Column(name="version", nullable=false, insertable=false, updatable=false)
+    private long version;
+
+    // > 0: cuenta hot, el saldo vive en account_balance_slots (V9); solo lectura desde JPA
+    @Column(name="slots", nullable=false, insertable=false, updatable=false)
+    private int slots;
 }
@@ -0,0 +1,25 @@
+package com.tagokoder.account.infra.out.persistence.jpa.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// sub-fila de una cuenta hot (V9); se escribe solo con los statements nativos de SpringDataAccountBalanceSlotJpa
+@Entity
+@Table(name = "account_balance_slots")
+@Data
+public class AccountBalanceSlotEntity {
+  @EmbeddedId
+  private AccountBalanceSlotId id;
+
+  @Column(name="ledger", nullable=false, precision=20, scale=6)
+  private BigDecimal ledger;
+  @Column(name="available", nullable=false, precision=20, scale=6)
+  private BigDecimal available;
+  @Column(name="hold", nullable=false, precision=20, scale=6)
+  private BigDecimal hold;
+}
@@ -0,0 +1,18 @@
+package com.tagokoder.account.infra.out.persistence.jpa.entity;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+@Embeddable
+@Data
+public class AccountBalanceSlotId implements Serializable {
+  @Column(name="account_id")
+  private UUID accountId;
+
+  @Column(name="slot")
+  private int slot;
+}
@@ -42,4 +42,8 @@ public class AccountHoldEntity {
 
     @Column(name="updated_at", nullable=false)
     private OffsetDateTime updatedAt;
+
+  // null = no vence (holds previos a V11)
+  @Column(name="expires_at")
+  private OffsetDateTime expiresAt;
 }
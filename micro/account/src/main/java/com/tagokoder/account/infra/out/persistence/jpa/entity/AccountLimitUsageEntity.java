@@ -0,0 +1,27 @@
+package com.tagokoder.account.infra.out.persistence.jpa.entity;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// uso diario por cuenta y día UTC (V12); se escribe solo con el upsert de SpringDataAccountLimitUsageJpa
+@Entity
+@Table(name = "account_limit_usage")
+@Data
+public class AccountLimitUsageEntity {
+  @EmbeddedId
+  private AccountLimitUsageId id;
+
+  @Column(name="out_used", nullable=false, precision=20, scale=6)
+  private BigDecimal outUsed;
+  @Column(name="in_used", nullable=false, precision=20, scale=6)
+  private BigDecimal inUsed;
+
+  @Column(name="updated_at", nullable=false)
+  private OffsetDateTime updatedAt;
+}
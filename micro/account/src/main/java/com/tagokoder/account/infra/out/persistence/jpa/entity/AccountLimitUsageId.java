@@ -0,0 +1,19 @@
+package com.tagokoder.account.infra.out.persistence.jpa.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+@Embeddable
+@Data
+public class AccountLimitUsageId implements Serializable {
+  @Column(name="account_id")
+  private UUID accountId;
+
+  @Column(name="day")
+  private LocalDate day;
+}
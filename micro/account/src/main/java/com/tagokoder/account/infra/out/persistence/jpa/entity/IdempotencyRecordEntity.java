@@ -21,12 +21,22 @@ public class IdempotencyRecordEntity {
   @Column(name = "operation", nullable = false)
   private String operation;
 
-  @Column(name = "response_json", nullable = false, columnDefinition = "jsonb")
+  // filas previas a V6; las nuevas guardan response_bin
+  @Column(name = "response_json", columnDefinition = "jsonb")
   private String responseJson;
 
+  @Column(name = "response_bin")
+  private byte[] responseBin;
+
+  @Column(name = "status", nullable = false)
+  private String status; // in_flight|completed
+
   @Column(name = "status_code", nullable = false)
   private int statusCode;
 
   @Column(name = "created_at", nullable = false)
   private OffsetDateTime createdAt;
+
+  @Column(name = "started_at", nullable = false)
+  private OffsetDateTime startedAt;
 }
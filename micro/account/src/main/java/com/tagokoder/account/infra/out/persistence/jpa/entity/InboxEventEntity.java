@@ -27,8 +27,17 @@ public class InboxEventEntity {
   private OffsetDateTime processedAt;
 
   @Column(name = "status", nullable = false)
-  private String status; // received|processed|failed
+  private String status; // received|processed|failed|quarantined
 
   @Column(name = "error")
   private String error;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "payload")
+  private String payload;
+
+  @Column(name = "quarantined_at")
+  private OffsetDateTime quarantinedAt;
 }
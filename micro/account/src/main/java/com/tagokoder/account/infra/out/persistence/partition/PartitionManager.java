@@ -0,0 +1,288 @@
+package com.tagokoder.account.infra.out.persistence.partition;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tagokoder.account.infra.props.PartitionProperties;
+import com.tagokoder.account.infra.props.PartitionProperties.Granularity;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Mantenimiento de tablas particionadas por rango de tiempo (ver V5__partition_retention_tables.sql):
+ * - pre-crea {@code premake} periodos hacia adelante (CREATE vacía + ATTACH: solo SHARE UPDATE EXCLUSIVE en el padre);
+ *   un periodo cubierto a medias por legacy se completa con una partición puente [cutover, fin del periodo)
+ * - particiones cuyo límite superior salió de la retención: DETACH CONCURRENTLY y DROP
+ *   (se saltan si aún tienen filas vivas: holds reserved / eventos en cuarentena)
+ * - lock_timeout corto en toda la sesión: si hay contención se reintenta en la próxima corrida
+ * - métricas: bytes y filas estimadas por partición, y periodos pre-creados por tabla
+ *
+ * Corre en autocommit (fuera de @Transactional): DETACH CONCURRENTLY no admite bloque de transacción.
+ */
+@Component
+public class PartitionManager {
+
+  private static final Logger log = LoggerFactory.getLogger(PartitionManager.class);
+
+  // tablas gestionadas -> filas que impiden borrar una partición vencida ("" = ninguna)
+  private static final Map<String, String> LIVE_ROWS = Map.of(
+    "inbox_events", "status = 'quarantined'",
+    "idempotency_records", "",
+    "account_holds", "status = 'reserved'"
+  );
+
+  private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+  private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+  private final DataSource dataSource;
+  private final PartitionProperties cfg;
+  private final MeterRegistry meters;
+
+  private final MultiGauge partitionBytes;
+  private final MultiGauge partitionRows;
+  // periodos pre-creados por delante de ahora; < 1 = próximas escrituras sin partición
+  private final Map<String, AtomicInteger> headroom = new ConcurrentHashMap<>();
+
+  public PartitionManager(DataSource dataSource, PartitionProperties cfg, MeterRegistry meters) {
+    this.dataSource = dataSource;
+    this.cfg = cfg;
+    this.meters = meters;
+    this.partitionBytes = MultiGauge.builder("account.partition.bytes")
+      .description("pg_total_relation_size por partición").baseUnit("bytes").register(meters);
+    this.partitionRows = MultiGauge.builder("account.partition.rows")
+      .description("filas estimadas (reltuples) por partición").register(meters);
+  }
+
+  // al arrancar: garantiza que existan particiones para hoy antes de recibir tráfico
+  @EventListener(ApplicationReadyEvent.class)
+  public void onReady() {
+    maintain();
+  }
+
+  @Scheduled(
+    initialDelayString = "${persistence.partitions.interval-ms:3600000}",
+    fixedDelayString = "${persistence.partitions.interval-ms:3600000}"
+  )
+  public void maintain() {
+    if (!cfg.isEnabled()) return;
+
+    try (Connection c = dataSource.getConnection()) {
+      c.setAutoCommit(true);
+      exec(c, "set lock_timeout = " + cfg.getLockTimeout().toMillis());
+      try {
+        List<MultiGauge.Row<?>> bytes = new ArrayList<>();
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+
+        for (var e : cfg.getTables().entrySet()) {
+          String table = e.getKey();
+          if (!LIVE_ROWS.containsKey(table)) {
+            log.warn("partition maintenance: table not managed, ignored table={}", table);
+            continue;
+          }
+          try {
+            premake(c, table, e.getValue().getGranularity());
+            expire(c, table, e.getValue());
+            collectSizes(c, table, bytes, rows);
+          } catch (SQLException ex) {
+            log.warn("partition maintenance failed table={} err={}", table, ex.toString());
+          }
+        }
+
+        partitionBytes.register(bytes, true);
+        partitionRows.register(rows, true);
+      } finally {
+        exec(c, "reset lock_timeout");
+      }
+    } catch (SQLException e) {
+      log.warn("partition maintenance aborted err={}", e.toString());
+    }
+  }
+
+  private void premake(Connection c, String table, Granularity g) throws SQLException {
+    List<Part> parts = partitions(c, table);
+    LocalDate start = periodStart(LocalDate.now(ZoneOffset.UTC), g);
+
+    for (int i = 0; i <= cfg.getPremake(); i++) {
+      LocalDate from = plus(start, g, i);
+      LocalDate to = plus(from, g, 1);
+      Instant periodFrom = from.atStartOfDay().toInstant(ZoneOffset.UTC);
+      Instant toTs = to.atStartOfDay().toInstant(ZoneOffset.UTC);
+
+      // la partición legacy (MINVALUE .. cutover) puede cubrir el comienzo del periodo:
+      // el resto [cutover, fin del periodo) va a una partición puente, sin hueco sin partición
+      Instant fromTs = uncoveredFrom(parts, periodFrom, toTs);
+      if (fromTs == null) continue;
+
+      String name = table + "_p" + (!fromTs.equals(periodFrom)
+        ? DAY.format(LocalDate.ofInstant(fromTs, ZoneOffset.UTC))
+        : g == Granularity.DAY ? DAY.format(from) : MONTH.format(from));
+      exec(c, "create table if not exists " + ident(name)
+        + " (like " + ident(table) + " including defaults including constraints)");
+      exec(c, "alter table " + ident(table) + " attach partition " + ident(name)
+        + " for values from ('" + fromTs + "') to ('" + toTs + "')");
+      parts.add(new Part(name, fromTs, toTs, false));
+      log.info("partition created table={} partition={} from={} to={}", table, name, fromTs, toTs);
+    }
+
+    Instant now = Instant.now();
+    int ahead = (int) parts.stream().filter(p -> p.to() != null && p.to().isAfter(now)).count();
+    headroom.computeIfAbsent(table, t -> {
+      AtomicInteger v = new AtomicInteger();
+      Gauge.builder("account.partition.headroom", v, AtomicInteger::get).tag("table", t).register(meters);
+      return v;
+    }).set(ahead);
+  }
+
+  private void expire(Connection c, String table, PartitionProperties.Table t) throws SQLException {
+    Instant cutoff = Instant.now().minus(t.getRetention());
+    String liveRows = LIVE_ROWS.get(table);
+
+    for (Part p : partitions(c, table)) {
+      if (p.detachPending()) {
+        // un DETACH CONCURRENTLY interrumpido deja la partición a medio camino
+        exec(c, "alter table " + ident(table) + " detach partition " + ident(p.name()) + " finalize");
+      } else {
+        if (p.to() == null || p.to().isAfter(cutoff)) continue;
+        if (!liveRows.isEmpty() && exists(c, "select 1 from " + ident(p.name()) + " where " + liveRows + " limit 1")) {
+          log.warn("partition expired but still has live rows, kept table={} partition={}", table, p.name());
+          continue;
+        }
+        exec(c, "alter table " + ident(table) + " detach partition " + ident(p.name()) + " concurrently");
+      }
+
+      if (cfg.isDropExpired()) exec(c, "drop table if exists " + ident(p.name()));
+      log.info("partition expired table={} partition={} dropped={}", table, p.name(), cfg.isDropExpired());
+    }
+  }
+
+  private void collectSizes(Connection c, String table, List<MultiGauge.Row<?>> bytes, List<MultiGauge.Row<?>> rows)
+      throws SQLException {
+    String sql = """
+      select c.relname, pg_total_relation_size(c.oid), greatest(c.reltuples, 0)::bigint
+      from pg_inherits i
+      join pg_class c on c.oid = i.inhrelid
+      where i.inhparent = cast(? as regclass)
+      """;
+    try (PreparedStatement ps = c.prepareStatement(sql)) {
+      ps.setString(1, table);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          Tags tags = Tags.of("table", table, "partition", rs.getString(1));
+          bytes.add(MultiGauge.Row.of(tags, rs.getLong(2)));
+          rows.add(MultiGauge.Row.of(tags, rs.getLong(3)));
+        }
+      }
+    }
+  }
+
+  private static List<Part> partitions(Connection c, String table) throws SQLException {
+    // bounds: "FOR VALUES FROM ('..') TO ('..')" o FROM (MINVALUE)
+    String sql = """
+      select c.relname,
+             substring(pg_get_expr(c.relpartbound, c.oid) from 'FROM \\(''([^'']+)''\\)'),
+             substring(pg_get_expr(c.relpartbound, c.oid) from 'TO \\(''([^'']+)''\\)'),
+             i.inhdetachpending
+      from pg_inherits i
+      join pg_class c on c.oid = i.inhrelid
+      where i.inhparent = cast(? as regclass)
+      """;
+    List<Part> out = new ArrayList<>();
+    try (PreparedStatement ps = c.prepareStatement(sql)) {
+      ps.setString(1, table);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          out.add(new Part(rs.getString(1), ts(c, rs.getString(2)), ts(c, rs.getString(3)), rs.getBoolean(4)));
+        }
+      }
+    }
+    return out;
+  }
+
+  // los bounds vienen en el formato de salida de timestamptz de la sesión; que lo parsee Postgres
+  private static Instant ts(Connection c, String pgText) throws SQLException {
+    if (pgText == null) return null;
+    try (PreparedStatement ps = c.prepareStatement("select cast(? as timestamptz)")) {
+      ps.setString(1, pgText);
+      try (ResultSet rs = ps.executeQuery()) {
+        rs.next();
+        return rs.getObject(1, OffsetDateTime.class).toInstant();
+      }
+    }
+  }
+
+  private static boolean exists(Connection c, String sql) throws SQLException {
+    try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+      return rs.next();
+    }
+  }
+
+  private static void exec(Connection c, String sql) throws SQLException {
+    try (Statement st = c.createStatement()) {
+      st.execute(sql);
+    }
+  }
+
+  private static String ident(String name) {
+    if (!name.matches("[a-z_][a-z0-9_]*")) throw new IllegalArgumentException("invalid identifier: " + name);
+    return name;
+  }
+
+  /**
+   * Comienzo de la parte de [from, to) que ninguna partición cubre.
+   * null = ya cubierto, o una partición empieza a mitad del rango (no se adivina).
+   */
+  private static Instant uncoveredFrom(List<Part> parts, Instant from, Instant to) {
+    Instant start = from;
+    List<Part> sorted = parts.stream()
+      .sorted(Comparator.comparing(Part::from, Comparator.nullsFirst(Comparator.naturalOrder())))
+      .toList();
+    for (Part p : sorted) {
+      if (!p.overlaps(start, to)) continue;
+      if (p.from() != null && p.from().isAfter(start)) return null;
+      if (p.to() == null || !p.to().isBefore(to)) return null;
+      start = p.to();
+    }
+    return start;
+  }
+
+  private static LocalDate periodStart(LocalDate d, Granularity g) {
+    return g == Granularity.DAY ? d : d.withDayOfMonth(1);
+  }
+
+  private static LocalDate plus(LocalDate d, Granularity g, int n) {
+    return g == Granularity.DAY ? d.plusDays(n) : d.plusMonths(n);
+  }
+
+  private record Part(String name, Instant from, Instant to, boolean detachPending) {
+    // from == null: MINVALUE
+    boolean overlaps(Instant a, Instant b) {
+      return (from == null || from.isBefore(b)) && (to == null || to.isAfter(a));
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.tagokoder.account.infra.out.persistence.slots;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceJpa;
+import com.tagokoder.account.infra.props.HotAccountProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Job de cuentas hot:
+ * - aplica balances.hot.accounts (cuenta -> slots) a la DB
+ * - empareja el available entre slots para que reserve encuentre fondos sin gather
+ * Seguro con varias réplicas: resize bloquea la fila principal y el rebalanceo usa skip locked.
+ */
+@Component
+public class BalanceSlotRebalancer {
+
+  private static final Logger log = LoggerFactory.getLogger(BalanceSlotRebalancer.class);
+
+  private final BalanceSlots slots;
+  private final SpringDataAccountBalanceJpa balances;
+  private final HotAccountProperties cfg;
+  private final MeterRegistry meters;
+
+  public BalanceSlotRebalancer(
+    BalanceSlots slots,
+    SpringDataAccountBalanceJpa balances,
+    HotAccountProperties cfg,
+    MeterRegistry meters
+  ) {
+    this.slots = slots;
+    this.balances = balances;
+    this.cfg = cfg;
+    this.meters = meters;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onReady() {
+    if (cfg.isEnabled()) reconcile();
+  }
+
+  @Scheduled(
+    initialDelayString = "${balances.hot.rebalance-interval-ms:5000}",
+    fixedDelayString = "${balances.hot.rebalance-interval-ms:5000}"
+  )
+  public void run() {
+    if (!cfg.isEnabled()) return;
+    reconcile();
+
+    for (UUID accountId : balances.findHotAccountIds()) {
+      try {
+        if (slots.rebalance(accountId) > 0) meters.counter("account.balance.slots.rebalanced").increment();
+      } catch (RuntimeException e) {
+        log.warn("balance slots rebalance failed account_id={} err={}", accountId, e.toString());
+      }
+    }
+  }
+
+  void reconcile() {
+    for (Map.Entry<UUID, Integer> e : cfg.getAccounts().entrySet()) {
+      int n = e.getValue() == null ? 0 : e.getValue();
+      if (n < 0 || n > cfg.getMaxSlots()) {
+        log.warn("balance slots ignored account_id={} slots={} max={}", e.getKey(), n, cfg.getMaxSlots());
+        continue;
+      }
+      try {
+        slots.resize(e.getKey(), n);
+      } catch (RuntimeException ex) {
+        log.warn("balance slots resize failed account_id={} err={}", e.getKey(), ex.toString());
+      }
+    }
+  }
+}
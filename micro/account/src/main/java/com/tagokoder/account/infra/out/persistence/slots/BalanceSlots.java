@@ -0,0 +1,138 @@
+package com.tagokoder.account.infra.out.persistence.slots;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort.BalancesRow;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceJpa;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountBalanceSlotJpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Saldo de cuentas hot repartido en N filas de account_balance_slots (V9):
+ * - reserve/release toman un solo slot (primero skip locked, después esperando, al final gather)
+ * - créditos van a un slot al azar; débitos/capturas a un slot con fondos/hold suficientes
+ * - lecturas suman todos los slots
+ * El available se empareja en background ({@link BalanceSlotRebalancer}).
+ */
+@Component
+public class BalanceSlots {
+
+  private static final Logger log = LoggerFactory.getLogger(BalanceSlots.class);
+
+  private final SpringDataAccountBalanceSlotJpa slots;
+  private final SpringDataAccountBalanceJpa balances;
+  private final MeterRegistry meters;
+
+  public BalanceSlots(SpringDataAccountBalanceSlotJpa slots, SpringDataAccountBalanceJpa balances, MeterRegistry meters) {
+    this.slots = slots;
+    this.balances = balances;
+    this.meters = meters;
+  }
+
+  /** @return hold total de la cuenta después de reservar */
+  @Transactional
+  public BigDecimal reserve(UUID accountId, int n, BigDecimal amount) {
+    int start = ThreadLocalRandom.current().nextInt(n);
+    if (slots.reserveSkipLocked(accountId, amount, start) != 1
+        && slots.reserveWait(accountId, amount, start) != 1) {
+      // ningún slot alcanza solo: se junta el available en uno y se reintenta ahí
+      fallback("reserve");
+      slots.gatherAvailable(accountId, start);
+      if (slots.reserveWait(accountId, amount, start) != 1) {
+        throw new IllegalArgumentException("insufficient available or balances not found");
+      }
+    }
+    return totals(accountId).hold();
+  }
+
+  /** @return hold total de la cuenta después de liberar */
+  @Transactional
+  public BigDecimal release(UUID accountId, int n, BigDecimal amount) {
+    int start = ThreadLocalRandom.current().nextInt(n);
+    if (slots.releaseSkipLocked(accountId, amount, start) != 1
+        && slots.releaseWait(accountId, amount, start) != 1) {
+      fallback("release");
+      slots.gatherHold(accountId, start);
+      if (slots.releaseWait(accountId, amount, start) != 1) {
+        throw new IllegalArgumentException("insufficient hold or balances not found");
+      }
+    }
+    return totals(accountId).hold();
+  }
+
+  /**
+   * Un delta neto (ledger consumer, créditos). El ledger ya decidió: si ningún slot alcanza se
+   * junta todo en uno y se aplica igual, como en modo normal.
+   *
+   * @return false si la cuenta dejó de ser hot (no hay slots): el caller aplica en la fila principal
+   */
+  @Transactional
+  public boolean apply(UUID accountId, int n, BigDecimal dLedger, BigDecimal dAvailable, BigDecimal dHold) {
+    int start = ThreadLocalRandom.current().nextInt(n);
+    int slot = start;
+    if (dHold.signum() < 0) {
+      Optional<Integer> picked = slots.pickHeldSlot(accountId, dHold.negate(), start);
+      if (picked.isPresent()) {
+        slot = picked.get();
+      } else {
+        fallback("apply");
+        slots.gatherHold(accountId, start);
+      }
+    } else if (dAvailable.signum() < 0) {
+      Optional<Integer> picked = slots.pickFundedSlot(accountId, dAvailable.negate(), start);
+      if (picked.isPresent()) {
+        slot = picked.get();
+      } else {
+        fallback("apply");
+        slots.gatherAvailable(accountId, start);
+      }
+    }
+    return slots.applyToSlot(accountId, slot, dLedger, dAvailable, dHold) == 1;
+  }
+
+  public BalancesRow totals(UUID accountId) {
+    var t = slots.totals(accountId);
+    return new BalancesRow(t.getLedger(), t.getAvailable(), t.getHold());
+  }
+
+  /**
+   * Lleva la cuenta a {@code n} slots (0 = modo normal). Con la fila principal bloqueada:
+   * primero vuelve a modo normal si hacía falta y después reparte.
+   *
+   * @return true si cambió algo
+   */
+  @Transactional
+  public boolean resize(UUID accountId, int n) {
+    Optional<Integer> current = balances.slotsOf(accountId);
+    if (current.isEmpty() || current.get() == n) return false;
+
+    int locked = balances.lockSlots(accountId).orElse(n);
+    if (locked == n) return false;
+    if (locked > 0) slots.merge(accountId);
+    if (n > 0) {
+      slots.split(accountId, n);
+      slots.markHot(accountId, n);
+    }
+    log.info("account balance slots changed account_id={} from={} to={}", accountId, locked, n);
+    return true;
+  }
+
+  /** Empareja available entre los slots libres en este momento; nunca espera al hot path. */
+  @Transactional
+  public int rebalance(UUID accountId) {
+    return slots.rebalanceIdle(accountId);
+  }
+
+  private void fallback(String op) {
+    meters.counter("account.balance.slots.gather", "op", op).increment();
+  }
+}
@@ -0,0 +1,306 @@
+package com.tagokoder.account.infra.out.persistence.usage;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort;
+import com.tagokoder.account.infra.out.persistence.jpa.SpringDataAccountLimitUsageJpa;
+import com.tagokoder.account.infra.props.LimitUsageProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Uso diario con write-behind:
+ * - add() suma en memoria por (cuenta, día UTC), después del commit de la transacción que lo origina;
+ *   reverse() resta igual, en el día en que se había contado
+ * - flush() vuelca todo en upserts de hasta batch-size filas (suma en SQL, sin read-modify-write)
+ * - today() = fila de la DB (pk) + lo pendiente local (incluido lo que se está flusheando)
+ * - pending -> flushing y flushing -> fuera se hacen dentro de pending.compute de la key: una
+ *   lectura local la ve en uno de los dos, nunca en ninguno ni en ambos
+ * - el upsert y la baja de flushing van bajo el write lock de commitLock: una lectura DB + local
+ *   (consistentRead) no cuenta el delta dos veces (DB y flushing) ni cero (entre commit y baja)
+ * Entre réplicas el uso se ve con hasta flush-interval de atraso; si un flush falla lo drenado
+ * vuelve al acumulador. Una caída del proceso pierde a lo sumo un intervalo de uso.
+ */
+@Component
+public class LimitUsageAccumulator implements LimitUsageRepositoryPort, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(LimitUsageAccumulator.class);
+
+  record Key(UUID accountId, LocalDate day) {}
+
+  private final SpringDataAccountLimitUsageJpa jpa;
+  private final LimitUsageProperties cfg;
+  private final MeterRegistry meters;
+  private final Timer flushTimer;
+  private final Clock clock;
+
+  private final ConcurrentHashMap<Key, Usage> pending = new ConcurrentHashMap<>();
+  // drenado y todavía sin commit: today() lo sigue sumando para no sub-contar durante el flush.
+  // Solo se modifica dentro de pending.compute de la misma key (ver readLocal)
+  private final ConcurrentHashMap<Key, Usage> flushing = new ConcurrentHashMap<>();
+  // lectores optimistas; flush toma el write lock solo mientras hace el upsert y saca flushing
+  private final StampedLock commitLock = new StampedLock();
+
+  @Autowired
+  public LimitUsageAccumulator(SpringDataAccountLimitUsageJpa jpa, LimitUsageProperties cfg, MeterRegistry meters) {
+    this(jpa, cfg, meters, Clock.systemUTC());
+  }
+
+  LimitUsageAccumulator(SpringDataAccountLimitUsageJpa jpa, LimitUsageProperties cfg, MeterRegistry meters, Clock clock) {
+    this.jpa = jpa;
+    this.cfg = cfg;
+    this.meters = meters;
+    this.clock = clock;
+    this.flushTimer = Timer.builder("account.limits.usage.flush")
+      .description("latencia de un upsert del acumulador de uso diario")
+      .register(meters);
+    Gauge.builder("account.limits.usage.pending", pending, Map::size)
+      .description("(cuenta, día) con uso sin volcar a la DB")
+      .register(meters);
+  }
+
+  @Override
+  public void add(UUID accountId, BigDecimal out, BigDecimal in) {
+    addAll(List.of(new UsageDelta(accountId, out, in)));
+  }
+
+  @Override
+  public void addAll(Collection<UsageDelta> deltas) {
+    if (!cfg.isEnabled() || deltas == null || deltas.isEmpty()) return;
+
+    // el día se fija ahora (momento del movimiento), no al commit ni al flush
+    mergeAfterCommit(day(), List.copyOf(deltas));
+  }
+
+  @Override
+  public void reverse(LocalDate day, Collection<UsageDelta> deltas) {
+    if (!cfg.isEnabled() || day == null || deltas == null || deltas.isEmpty()) return;
+    // fuera de retención la fila ya no existe ni cuenta para ningún límite
+    if (day.isBefore(day().minusDays(cfg.getRetentionDays()))) return;
+
+    List<UsageDelta> negated = new ArrayList<>(deltas.size());
+    for (UsageDelta d : deltas) {
+      negated.add(new UsageDelta(d.accountId(),
+        d.out() == null ? null : d.out().negate(),
+        d.in() == null ? null : d.in().negate()));
+    }
+    mergeAfterCommit(day, negated);
+  }
+
+  private void mergeAfterCommit(LocalDate day, List<UsageDelta> copy) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      merge(day, copy);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        merge(day, copy);
+      }
+    });
+  }
+
+  private void merge(LocalDate day, List<UsageDelta> deltas) {
+    for (UsageDelta d : deltas) {
+      BigDecimal out = d.out() == null ? BigDecimal.ZERO : d.out();
+      BigDecimal in = d.in() == null ? BigDecimal.ZERO : d.in();
+      if (out.signum() == 0 && in.signum() == 0) continue;
+      pending.merge(new Key(d.accountId(), day), new Usage(out, in), Usage::plus);
+    }
+  }
+
+  @Override
+  public Usage today(UUID accountId) {
+    if (!cfg.isEnabled()) return Usage.ZERO;
+    Key key = new Key(accountId, day());
+    return consistentRead(() -> {
+      Usage db = jpa.findUsage(accountId, key.day())
+        .map(r -> new Usage(r.getOutUsed(), r.getInUsed()))
+        .orElse(Usage.ZERO);
+      return withLocal(key, db);
+    });
+  }
+
+  @Override
+  public Map<UUID, Usage> today(Collection<UUID> accountIds) {
+    if (accountIds == null || accountIds.isEmpty()) return new HashMap<>();
+    if (!cfg.isEnabled()) {
+      Map<UUID, Usage> out = new HashMap<>();
+      for (UUID id : accountIds) out.put(id, Usage.ZERO);
+      return out;
+    }
+
+    LocalDate day = day();
+    UUID[] ids = new LinkedHashSet<>(accountIds).toArray(UUID[]::new);
+    return consistentRead(() -> {
+      Map<UUID, Usage> out = new HashMap<>();
+      for (UUID id : ids) out.put(id, Usage.ZERO);
+      for (var r : jpa.findUsages(ids, day)) {
+        out.put(r.getAccountId(), new Usage(r.getOutUsed(), r.getInUsed()));
+      }
+      out.replaceAll((id, db) -> withLocal(new Key(id, day), db));
+      return out;
+    });
+  }
+
+  /**
+   * Lectura de la fila de uso + lo local (withPending) sin cruzarse con el commit de un flush.
+   * Optimista: solo si un flush commiteó en el medio se repite una vez, esperando que termine.
+   * read no debe tener efectos (puede correr dos veces) ni anidar otra consistentRead.
+   */
+  public <T> T consistentRead(Supplier<T> read) {
+    long stamp = commitLock.tryOptimisticRead();
+    if (stamp != 0) {
+      T value = read.get();
+      if (commitLock.validate(stamp)) return value;
+    }
+    stamp = commitLock.readLock();
+    try {
+      return read.get();
+    } finally {
+      commitLock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Para lecturas que ya traen la fila de uso en otra query (validación en un round trip):
+   * suma lo pendiente local. Con el acumulador apagado el uso es siempre cero.
+   * La query y withPending van dentro de la misma {@link #consistentRead}.
+   */
+  public Usage withPending(UUID accountId, LocalDate day, Usage db) {
+    if (!cfg.isEnabled()) return Usage.ZERO;
+    return withLocal(new Key(accountId, day), db);
+  }
+
+  private Usage withLocal(Key key, Usage db) {
+    return db.plus(readLocal(key));
+  }
+
+  // pending + flushing de la key bajo el lock del bin de pending: el mismo que usa flush para moverla
+  private Usage readLocal(Key key) {
+    Usage[] local = { Usage.ZERO };
+    pending.compute(key, (k, p) -> {
+      Usage f = flushing.get(k);
+      if (p != null) local[0] = local[0].plus(p);
+      if (f != null) local[0] = local[0].plus(f);
+      return p;
+    });
+    return local[0];
+  }
+
+  @Scheduled(
+    initialDelayString = "${limits.usage.flush-interval-ms:1000}",
+    fixedDelayString = "${limits.usage.flush-interval-ms:1000}"
+  )
+  public synchronized void flush() {
+    while (!pending.isEmpty()) {
+      Set<Key> moved = new LinkedHashSet<>();
+      for (Key k : pending.keySet()) {
+        if (moved.size() >= cfg.getBatchSize()) break;
+        pending.computeIfPresent(k, (key, u) -> {
+          flushing.merge(key, u, Usage::plus);
+          moved.add(key);
+          return null;
+        });
+      }
+      if (moved.isEmpty()) return;
+      List<Key> keys = new ArrayList<>(moved);
+
+      boolean written;
+      long stamp = commitLock.writeLock();
+      try {
+        written = write(keys);
+        for (Key k : keys) {
+          pending.compute(k, (key, p) -> {
+            Usage f = flushing.remove(key);
+            // falló: vuelve al acumulador; se reintenta en el próximo intervalo
+            if (written || f == null) return p;
+            return p == null ? f : p.plus(f);
+          });
+        }
+      } finally {
+        commitLock.unlockWrite(stamp);
+      }
+      if (!written) return;
+    }
+  }
+
+  private boolean write(List<Key> keys) {
+    int n = keys.size();
+    UUID[] ids = new UUID[n];
+    String[] days = new String[n];
+    BigDecimal[] out = new BigDecimal[n];
+    BigDecimal[] in = new BigDecimal[n];
+    for (int i = 0; i < n; i++) {
+      Key k = keys.get(i);
+      Usage u = flushing.get(k);
+      ids[i] = k.accountId();
+      days[i] = k.day().toString();
+      out[i] = u.outUsed();
+      in[i] = u.inUsed();
+    }
+
+    long start = System.nanoTime();
+    try {
+      jpa.addBatch(ids, days, out, in);
+      meters.counter("account.limits.usage.flushed").increment(n);
+      return true;
+    } catch (RuntimeException e) {
+      meters.counter("account.limits.usage.flush.failed").increment();
+      log.warn("limit usage flush failed rows={} err={}", n, e.toString());
+      return false;
+    } finally {
+      flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Scheduled(
+    initialDelayString = "${limits.usage.purge-interval-ms:3600000}",
+    fixedDelayString = "${limits.usage.purge-interval-ms:3600000}"
+  )
+  public void purge() {
+    if (!cfg.isEnabled()) return;
+    try {
+      int n = jpa.purgeBefore(day().minusDays(cfg.getRetentionDays()));
+      if (n > 0) log.info("limit usage purged rows={}", n);
+    } catch (RuntimeException e) {
+      log.warn("limit usage purge failed err={}", e.toString());
+    }
+  }
+
+  // al destruir el bean (después de parar los consumers): lo pendiente se vuelca antes de cerrar el pool
+  @Override
+  public void close() {
+    flush();
+  }
+
+  /** Día UTC en curso (el mismo reloj con el que se acumula). */
+  public LocalDate day() {
+    return LocalDate.now(clock.withZone(ZoneOffset.UTC));
+  }
+}
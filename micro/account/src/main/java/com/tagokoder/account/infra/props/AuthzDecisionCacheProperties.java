@@ -0,0 +1,28 @@
+package com.tagokoder.account.infra.props;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "security.authz.decision-cache")
+@Data
+public class AuthzDecisionCacheProperties {
+    private boolean enabled = true;
+
+    private long maxSize = 50_000;
+
+    // siempre acotados además por el exp del token
+    private Duration allowTtl = Duration.ofSeconds(60);
+    private Duration denyTtl = Duration.ofSeconds(5);
+
+    // rutas RouteDef.critical: false = siempre van a AVP
+    private boolean cacheCriticalRoutes = false;
+
+    // context attrs únicos por request: en la key solo cuenta si están presentes, no su valor
+    private List<String> presenceOnlyContextKeys = List.of("idempotency_key");
+}
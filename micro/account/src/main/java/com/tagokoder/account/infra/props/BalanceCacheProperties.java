@@ -0,0 +1,26 @@
+package com.tagokoder.account.infra.props;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "balances.cache")
+@Data
+public class BalanceCacheProperties {
+    private boolean enabled = true;
+
+    private long maxSize = 100_000;
+
+    // cota dura: ninguna lectura cacheada es más vieja que esto aunque se pierda un NOTIFY
+    private Duration maxStaleness = Duration.ofSeconds(2);
+
+    // canal LISTEN/NOTIFY (lo emite el trigger de account_balances, V8)
+    private String channel = "account_balances";
+
+    // espera entre reintentos si se cae la conexión LISTEN (mientras tanto las lecturas van a la DB)
+    private Duration reconnectBackoff = Duration.ofSeconds(1);
+}
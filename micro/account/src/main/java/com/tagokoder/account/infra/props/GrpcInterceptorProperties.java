@@ -0,0 +1,17 @@
+package com.tagokoder.account.infra.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "security.grpc")
+@Data
+public class GrpcInterceptorProperties {
+    // true = FusedServerInterceptor (headers parseados una vez); false = correlation -> authz por separado
+    private boolean fused = true;
+
+    // hashes salteados de x-forwarded-for / user-agent ya calculados (los valores se repiten mucho)
+    private long hashCacheSize = 10_000;
+}
@@ -0,0 +1,29 @@
+package com.tagokoder.account.infra.props;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "holds.expiry")
+@Data
+public class HoldExpiryProperties {
+    // solo el sweeper (los holds nuevos igual llevan expires_at); prender recién cuando el ledger
+    // mande la captura (posting con hold_id), si no vence holds de pagos ya posteados
+    private boolean enabled = false;
+
+    // vida de un hold reservado sin release/settle
+    private Duration ttl = Duration.ofHours(24);
+
+    // holds por statement (skip locked: cada réplica toma su propio lote)
+    private int batchSize = 500;
+
+    // tope de lotes por corrida para no acaparar el pool con un backlog grande
+    private int maxBatchesPerRun = 20;
+
+    // periodo del sweeper (lo lee @Scheduled por placeholder)
+    private long intervalMs = 10_000;
+}
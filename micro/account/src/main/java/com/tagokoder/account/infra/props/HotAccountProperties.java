@@ -0,0 +1,25 @@
+package com.tagokoder.account.infra.props;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "balances.hot")
+@Data
+public class HotAccountProperties {
+    private boolean enabled = true;
+
+    // cuentas hot -> cantidad de slots (0 = volver a modo normal); lo aplica BalanceSlotRebalancer
+    private Map<UUID, Integer> accounts = new LinkedHashMap<>();
+
+    private int maxSlots = 64;
+
+    // periodo del rebalanceo de available entre slots (lo lee @Scheduled por placeholder)
+    private long rebalanceIntervalMs = 5_000;
+}
@@ -0,0 +1,26 @@
+package com.tagokoder.account.infra.props;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "security.jwt.cache")
+@Data
+public class JwtCacheProperties {
+    private boolean enabled = true;
+
+    private long maxSize = 100_000;
+
+    // el token deja de servirse desde cache este margen antes de su exp
+    private Duration expirySkew = Duration.ofSeconds(30);
+
+    // tope por entrada aunque el exp sea más lejano
+    private Duration maxTtl = Duration.ofMinutes(15);
+
+    // kids vigentes del JWKS: tokens firmados con una key retirada salen del cache (0 = sin chequeo)
+    private Duration jwksRefreshInterval = Duration.ofMinutes(5);
+}
@@ -0,0 +1,36 @@
+package com.tagokoder.account.infra.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "messaging.sqs")
+@Data
+public class LedgerConsumerProperties {
+    private boolean enabled = true;
+
+    // loops de receive concurrentes (cada uno hace su propio long-poll)
+    private int workers = 2;
+    private boolean virtualThreads = true;
+
+    // particiones por hash(account_id): receives sobre cuentas disjuntas se aplican en paralelo
+    private int partitions = 16;
+
+    private int waitTimeSeconds = 20;
+    private int maxMessages = 10;
+
+    // si un mensaje lleva más de extendAfterSeconds en proceso, se le extiende la visibilidad
+    private int visibilityTimeoutSeconds = 30;
+    private int visibilityExtendAfterSeconds = 20;
+
+    // reintentos de un mensaje que falla: backoff exponencial vía ChangeMessageVisibility,
+    // y a cuarentena (inbox_events.status=quarantined) al llegar a maxAttempts
+    private int maxAttempts = 5;
+    private int backoffBaseSeconds = 5;
+    private int backoffMaxSeconds = 900;
+
+    // LRU de event_ids ya aplicados por esta instancia: corta re-entregas de SQS sin ir a la DB
+    private int recentEventIdsCapacity = 100_000;
+}
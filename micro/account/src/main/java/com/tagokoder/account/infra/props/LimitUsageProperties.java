@@ -0,0 +1,26 @@
+package com.tagokoder.account.infra.props;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "limits.usage")
+@Data
+public class LimitUsageProperties {
+    // false: no se acumula uso y la validación compara solo el monto contra el límite
+    private boolean enabled = true;
+
+    // cada cuánto se vuelca el acumulador a account_limit_usage (lo lee @Scheduled por placeholder)
+    private long flushIntervalMs = 1_000;
+
+    // (cuenta, día) por upsert
+    private int batchSize = 1_000;
+
+    // días UTC que se conservan en account_limit_usage
+    private int retentionDays = 7;
+
+    // periodo de la purga por retención (lo lee @Scheduled por placeholder)
+    private long purgeIntervalMs = 3_600_000;
+}
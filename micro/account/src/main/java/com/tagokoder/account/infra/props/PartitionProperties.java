@@ -0,0 +1,55 @@
+package com.tagokoder.account.infra.props;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "persistence.partitions")
+@Data
+public class PartitionProperties {
+    private boolean enabled = true;
+
+    // periodo del job (lo lee @Scheduled por placeholder)
+    private long intervalMs = 3_600_000;
+
+    // cuántos periodos hacia adelante quedan creados (colchón si el job no corre unos días)
+    private int premake = 7;
+
+    // nunca esperar locks de otros: si no se consigue rápido, se reintenta en la próxima corrida
+    private Duration lockTimeout = Duration.ofSeconds(2);
+
+    // false = solo DETACH (la tabla queda para archivar a mano)
+    private boolean dropExpired = true;
+
+    private Map<String, Table> tables = defaults();
+
+    public enum Granularity { DAY, MONTH }
+
+    @Data
+    public static class Table {
+        private Granularity granularity = Granularity.DAY;
+        private Duration retention = Duration.ofDays(30);
+    }
+
+    private static Map<String, Table> defaults() {
+        Map<String, Table> m = new LinkedHashMap<>();
+        // > retención máxima de SQS (14d): una re-entrega nunca llega sin su fila de dedupe
+        m.put("inbox_events", table(Granularity.DAY, Duration.ofDays(15)));
+        m.put("idempotency_records", table(Granularity.DAY, Duration.ofDays(7)));
+        m.put("account_holds", table(Granularity.MONTH, Duration.ofDays(180)));
+        return m;
+    }
+
+    private static Table table(Granularity g, Duration retention) {
+        Table t = new Table();
+        t.setGranularity(g);
+        t.setRetention(retention);
+        return t;
+    }
+}
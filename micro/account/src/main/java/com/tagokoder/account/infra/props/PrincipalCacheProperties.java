@@ -0,0 +1,24 @@
+package com.tagokoder.account.infra.props;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "identity.principal-cache")
+@Data
+public class PrincipalCacheProperties {
+    private boolean enabled = true;
+
+    private long maxSize = 50_000;
+
+    // acotado además por el exp del token que cargó la entrada
+    private Duration ttl = Duration.ofSeconds(60);
+
+    // identity.principal.changed (EventBridge -> SQS); vacío = sin invalidación, solo TTL
+    private String eventsQueueUrl = "";
+    private int waitTimeSeconds = 20;
+}
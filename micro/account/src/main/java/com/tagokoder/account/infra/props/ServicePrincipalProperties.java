@@ -0,0 +1,34 @@
+package com.tagokoder.account.infra.props;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Component
+@ConfigurationProperties(prefix = "security.service-principals")
+@Data
+public class ServicePrincipalProperties {
+    // false = InternalAccountsService siempre por el pipeline de usuario (token + identity + AVP)
+    private boolean enabled = true;
+
+    // nombre del servicio (payments, identity) -> credenciales y acciones permitidas
+    private Map<String, Service> services = new LinkedHashMap<>();
+
+    @Data
+    public static class Service {
+        // app clients Cognito con client_credentials (token verificado local contra el JWKS)
+        private List<String> clientIds = new ArrayList<>();
+
+        // subject DN del certificado cliente (mTLS)
+        private List<String> peers = new ArrayList<>();
+
+        // actionIds de RouteAuthzRegistry
+        private List<String> actions = new ArrayList<>();
+    }
+}
@@ -1,10 +1,13 @@
 package com.tagokoder.account.infra.security.authz;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import com.tagokoder.account.domain.model.Account;
 import com.tagokoder.account.domain.port.out.AccountRepositoryPort;
 import com.tagokoder.account.infra.security.avp.AvpValues;
 
@@ -20,10 +23,32 @@ public class AccountResourceTemplates {
       Map<String, AttributeValue> contextAttrs
   ) {}
 
+  /** Templates multi-recurso (AUTHZ_BATCH): un item por id distinto del request, en orden. */
+  public record ResolvedBatch(
+      List<BatchItem> items,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) {}
+
+  /** resourceEntity null = la cuenta no existe: no hay nada que autorizar (el use case responde not_found). */
+  public record BatchItem(UUID id, EntityItem resourceEntity) {}
+
   private static final String USER_TYPE = "ImaginaryBank::User";
   private static final String ACCOUNT_TYPE = "ImaginaryBank::Account";
   private static final String CUSTOMER_TYPE = "ImaginaryBank::Customer"; // lo vamos a agregar en schema
 
+  // getters enlazados una vez por clase de request (sin reflexión por llamada)
+  private static final RequestField ID = RequestField.of("getId");
+  private static final RequestField CUSTOMER_ID = RequestField.of("getCustomerId");
+  private static final RequestField EXTERNAL_REF = RequestField.of("getExternalRef");
+  private static final RequestField ACCOUNT_IDS = RequestField.list("getAccountIdsList");
+  private static final RequestField LEGS = RequestField.list("getLegsList");
+  private static final RequestField SOURCE_ACCOUNT_ID = RequestField.of("getSourceAccountId");
+  private static final RequestField DESTINATION_ACCOUNT_ID = RequestField.of("getDestinationAccountId");
+
+  private static final int MAX_BATCH_IDS = 200;
+  private static final int MAX_BATCH_LEGS = 500;
+
   private final AccountRepositoryPort accountRepo;
 
   public AccountResourceTemplates(AccountRepositoryPort accountRepo) {
@@ -39,10 +64,19 @@ public class AccountResourceTemplates {
       case RouteAuthzRegistry.T_CUSTOMER_PATCH   -> customerPatch(request);
       case RouteAuthzRegistry.T_HOLD_ACCOUNT_BY_ID -> accountById(request);
       case RouteAuthzRegistry.T_ACCOUNT_OPEN_BONUS -> accountOpenBonus(request);
+      case RouteAuthzRegistry.T_INBOX_REPLAY -> inboxReplay(principal);
       default -> throw new IllegalStateException("Unknown resource template: " + template + " for route=" + route);
     };
   }
 
+  public ResolvedBatch resolveBatch(String template, String route, Object request, PrincipalData principal) {
+    return switch (template) {
+      case RouteAuthzRegistry.T_ACCOUNTS_BY_IDS -> accountsByIds(request);
+      case RouteAuthzRegistry.T_ACCOUNTS_OF_LEGS -> accountsOfLegs(request);
+      default -> throw new IllegalStateException("Unknown batch resource template: " + template + " for route=" + route);
+    };
+  }
+
   // ---- Template implementations ----
 
   private Resolved accountsOfSelf(PrincipalData principal) {
@@ -63,26 +97,71 @@ public class AccountResourceTemplates {
   }
 
   private Resolved accountById(Object request) {
-    UUID accountId = extractUuidFromGetter(request, "getId");
+    UUID accountId = ID.uuid(request);
     if (accountId == null) throw new IllegalArgumentException("account id is required");
 
     var acc = accountRepo.findById(accountId).orElseThrow(() -> new IllegalArgumentException("account not found"));
+    return new Resolved(accountEntity(acc), List.of(), Map.of());
+  }
+
+  // una sola lectura (findByIds) para todas las cuentas del request; ids inválidos los reporta el validator
+  private ResolvedBatch accountsByIds(Object request) {
+    List<String> raw = ACCOUNT_IDS.strings(request);
+    if (raw.size() > MAX_BATCH_IDS) throw new IllegalArgumentException("too many account ids");
+
+    LinkedHashSet<UUID> ids = new LinkedHashSet<>();
+    for (String s : raw) addId(ids, s);
+    return accountItems(ids);
+  }
+
+  // origen y destino de cada leg, deduplicados: una cuenta en varios legs se autoriza una vez
+  private ResolvedBatch accountsOfLegs(Object request) {
+    List<?> legs = LEGS.values(request);
+    if (legs.size() > MAX_BATCH_LEGS) throw new IllegalArgumentException("too many legs");
+
+    LinkedHashSet<UUID> ids = new LinkedHashSet<>();
+    for (Object leg : legs) {
+      addId(ids, SOURCE_ACCOUNT_ID.string(leg));
+      addId(ids, DESTINATION_ACCOUNT_ID.string(leg));
+    }
+    return accountItems(ids);
+  }
 
+  private static void addId(LinkedHashSet<UUID> ids, String s) {
+    if (s == null) return;
+    try {
+      ids.add(UUID.fromString(s.trim()));
+    } catch (IllegalArgumentException ignored) {}
+  }
+
+  private ResolvedBatch accountItems(LinkedHashSet<UUID> ids) {
+    Map<UUID, Account> byId = new HashMap<>();
+    for (Account a : accountRepo.findByIds(new ArrayList<>(ids))) byId.put(a.getId(), a);
+
+    List<BatchItem> items = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      Account acc = byId.get(id);
+      items.add(new BatchItem(id, acc == null ? null : accountEntity(acc)));
+    }
+    return new ResolvedBatch(items, List.of(), Map.of());
+  }
+
+  private static EntityItem accountEntity(Account acc) {
+    String accountId = acc.getId().toString();
     String ownerCustomerId = acc.getCustomerId() == null ? "unknown" : acc.getCustomerId().toString();
 
     var attrs = new HashMap<String, AttributeValue>();
-    attrs.put("account_id", AvpValues.str(accountId.toString()));
+    attrs.put("account_id", AvpValues.str(accountId));
     attrs.put("owner_customer_id", AvpValues.str(ownerCustomerId));
     attrs.put("status", AvpValues.str(acc.getStatus() == null ? "" : acc.getStatus()));
 
-    EntityIdentifier id = EntityIdentifier.builder().entityType(ACCOUNT_TYPE).entityId(accountId.toString()).build();
-    EntityItem resource = EntityItem.builder().identifier(id).attributes(attrs).build();
-    return new Resolved(resource, List.of(), Map.of());
+    EntityIdentifier id = EntityIdentifier.builder().entityType(ACCOUNT_TYPE).entityId(accountId).build();
+    return EntityItem.builder().identifier(id).attributes(attrs).build();
   }
 
   private Resolved accountCreate(Object request, PrincipalData principal) {
     // tu proto CreateAccountRequest normalmente trae customer_id (string uuid)
-    String customerId = extractStringFromGetter(request, "getCustomerId");
+    String customerId = CUSTOMER_ID.string(request);
     if (customerId == null || customerId.isBlank()) customerId = principal.customerId(); // fallback
 
     // resource “virtual” representando el futuro Account
@@ -114,7 +193,7 @@ public class AccountResourceTemplates {
   }
 
   private Resolved customerPatch(Object request) {
-    String customerId = extractStringFromGetter(request, "getId"); // o getCustomerId, depende tu proto
+    String customerId = ID.string(request); // o getCustomerId, depende tu proto
     if (customerId == null || customerId.isBlank()) throw new IllegalArgumentException("customer id is required");
 
     var attrs = new HashMap<String, AttributeValue>();
@@ -127,8 +206,8 @@ public class AccountResourceTemplates {
   }
 
   private Resolved accountOpenBonus(Object request) {
-    String customerId = extractStringFromGetter(request, "getCustomerId");
-    String externalRef = extractStringFromGetter(request, "getExternalRef");
+    String customerId = CUSTOMER_ID.string(request);
+    String externalRef = EXTERNAL_REF.string(request);
 
     if (customerId == null || customerId.isBlank()) throw new IllegalArgumentException("customer_id required");
     if (externalRef == null || externalRef.isBlank()) throw new IllegalArgumentException("external_ref required");
@@ -150,23 +229,18 @@ public class AccountResourceTemplates {
     return new Resolved(resource, List.of(), ctx);
     }
 
-  // ---- reflection helpers (para que pegues rápido) ----
-  private static UUID extractUuidFromGetter(Object req, String getter) {
-    try {
-      var m = req.getClass().getMethod(getter);
-      Object v = m.invoke(req);
-      if (v instanceof String s && !s.isBlank()) return UUID.fromString(s);
-    } catch (Exception ignored) {}
-    return null;
-  }
+  private Resolved inboxReplay(PrincipalData principal) {
+    // resource virtual: el inbox de eventos del ledger (solo ops)
+    String rid = "inbox:ledger.journal.posted";
 
-  private static String extractStringFromGetter(Object req, String getter) {
-    try {
-      var m = req.getClass().getMethod(getter);
-      Object v = m.invoke(req);
-      if (v instanceof String s) return s;
-    } catch (Exception ignored) {}
-    return null;
+    var attrs = new HashMap<String, AttributeValue>();
+    attrs.put("account_id", AvpValues.str(rid));
+    attrs.put("owner_customer_id", AvpValues.str("system"));
+    attrs.put("status", AvpValues.str("ops"));
+
+    EntityIdentifier id = EntityIdentifier.builder().entityType(ACCOUNT_TYPE).entityId(rid).build();
+    EntityItem resource = EntityItem.builder().identifier(id).attributes(attrs).build();
+    return new Resolved(resource, List.of(), Map.of());
   }
 
   // ---- principal data used by templates ----
@@ -3,5 +3,6 @@ package com.tagokoder.account.infra.security.authz;
 public enum AuthzMode {
   PUBLIC,       // no token, no AVP
   AUTHN_ONLY,   // token OK, no AVP
-  AUTHZ         // token OK + AVP
+  AUTHZ,        // token OK + AVP
+  AUTHZ_BATCH   // token OK + una decisión AVP por recurso del request (batch); los denegados no cortan la llamada
 }
\ No newline at end of file
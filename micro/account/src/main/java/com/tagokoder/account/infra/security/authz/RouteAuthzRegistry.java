@@ -13,6 +13,12 @@ public class RouteAuthzRegistry {
 
   public static final String T_HOLD_ACCOUNT_BY_ID = "HOLD_ACCOUNT_BY_ID";
   public static final String T_ACCOUNT_OPEN_BONUS = "ACCOUNT_OPEN_BONUS";
+  public static final String T_INBOX_REPLAY = "INBOX_REPLAY";
+
+  // multi-recurso (AUTHZ_BATCH): un recurso por id del request
+  public static final String T_ACCOUNTS_BY_IDS = "ACCOUNTS_BY_IDS";
+  // un recurso por cuenta origen/destino de cada leg
+  public static final String T_ACCOUNTS_OF_LEGS = "ACCOUNTS_OF_LEGS";
 
   private final Map<String, RouteDef> routes = Map.ofEntries(
       // ---- Accounts ----
@@ -40,13 +46,25 @@ public class RouteAuthzRegistry {
       Map.entry("bank.accounts.v1.InternalAccountsService/ValidateAccountsAndLimits",
           new RouteDef("accounts:validate", false, AuthzMode.AUTHZ, true, T_ACCOUNT_BY_ID)),
 
+      Map.entry("bank.accounts.v1.InternalAccountsService/BatchValidateAccountsAndLimits",
+          new RouteDef("accounts:validate", false, AuthzMode.AUTHZ_BATCH, true, T_ACCOUNTS_OF_LEGS)),
+
       Map.entry("bank.accounts.v1.InternalAccountsService/ReserveHold",
           new RouteDef("accounts:hold_reserve", true, AuthzMode.AUTHZ, true, T_HOLD_ACCOUNT_BY_ID)),
 
       Map.entry("bank.accounts.v1.InternalAccountsService/ReleaseHold",
           new RouteDef("accounts:hold_release", true, AuthzMode.AUTHZ, true, T_HOLD_ACCOUNT_BY_ID)),
+      Map.entry("bank.accounts.v1.InternalAccountsService/BatchGetAccountSummaries",
+        new RouteDef("accounts:batch_summaries_read", false, AuthzMode.AUTHZ_BATCH, true, T_ACCOUNTS_BY_IDS)),
+      Map.entry("bank.accounts.v1.InternalAccountsService/GetDailyLimitUsage",
+        new RouteDef("accounts:limits_read", false, AuthzMode.AUTHZ_BATCH, true, T_ACCOUNTS_BY_IDS)),
+
       Map.entry("bank.accounts.v1.InternalAccountsService/OpenAccountWithOpeningBonus",
-        new RouteDef("accounts:open_with_bonus", true, AuthzMode.PUBLIC, false, T_ACCOUNT_OPEN_BONUS))
+        new RouteDef("accounts:open_with_bonus", true, AuthzMode.PUBLIC, false, T_ACCOUNT_OPEN_BONUS)),
+
+      // ---- Ops ----
+      Map.entry("bank.accounts.v1.InternalAccountsService/ReplayQuarantinedEvents",
+        new RouteDef("accounts:inbox_replay", true, AuthzMode.AUTHZ, false, T_INBOX_REPLAY))
   );
 
   public RouteDef get(String fullMethodName) {
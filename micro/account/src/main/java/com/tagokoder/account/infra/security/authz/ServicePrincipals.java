@@ -0,0 +1,70 @@
+package com.tagokoder.account.infra.security.authz;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+import com.tagokoder.account.infra.props.ServicePrincipalProperties;
+import com.tagokoder.account.infra.security.jwt.VerifiedTokenCache;
+
+import io.grpc.Attributes;
+import io.grpc.Grpc;
+
+/**
+ * Identidad de servicio para InternalAccountsService (payments, identity):
+ * - credencial local: peer mTLS (subject DN) o token client_credentials (sub == client_id) ya verificado
+ * - allowlist estática servicio -> actionIds, evaluada en memoria (sin ResolvePrincipal ni AVP)
+ * Cualquier otra credencial sigue por el pipeline de usuario.
+ */
+public class ServicePrincipals {
+
+  public static final String INTERNAL_PREFIX = "bank.accounts.v1.InternalAccountsService/";
+
+  private final boolean enabled;
+  private final Map<String, String> byClientId = new HashMap<>();
+  private final Map<String, String> byPeer = new HashMap<>();
+  private final Map<String, Set<String>> actions = new HashMap<>();
+
+  public ServicePrincipals(ServicePrincipalProperties cfg) {
+    this.enabled = cfg.isEnabled();
+    cfg.getServices().forEach((name, svc) -> {
+      svc.getClientIds().stream().filter(s -> !s.isBlank()).forEach(c -> byClientId.put(c, name));
+      svc.getPeers().stream().filter(s -> !s.isBlank()).forEach(p -> byPeer.put(p, name));
+      actions.put(name, Set.copyOf(svc.getActions()));
+    });
+  }
+
+  public boolean applies(String route) {
+    return enabled && route.startsWith(INTERNAL_PREFIX);
+  }
+
+  /** Servicio del certificado cliente (mTLS), o null si no hay TLS / no está registrado. */
+  public String fromPeer(Attributes attrs) {
+    if (byPeer.isEmpty() || attrs == null) return null;
+    SSLSession ssl = attrs.get(Grpc.TRANSPORT_ATTR_SSL_SESSION);
+    if (ssl == null) return null;
+    try {
+      Principal peer = ssl.getPeerPrincipal();
+      return peer == null ? null : byPeer.get(peer.getName());
+    } catch (SSLPeerUnverifiedException e) {
+      return null;
+    }
+  }
+
+  /** Servicio del token client_credentials (Cognito: sub == client_id, sin usuario), o null. */
+  public String fromToken(VerifiedTokenCache.VerifiedToken vt) {
+    if (byClientId.isEmpty() || vt == null) return null;
+    String clientId = vt.jwt().getClaimAsString("client_id");
+    if (clientId == null || !clientId.equals(vt.sub()) || vt.jwt().hasClaim("username")) return null;
+    return byClientId.get(clientId);
+  }
+
+  public boolean allowed(String service, String actionId) {
+    Set<String> a = actions.get(service);
+    return a != null && a.contains(actionId);
+  }
+}
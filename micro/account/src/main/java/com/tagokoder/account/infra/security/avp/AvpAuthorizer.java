@@ -1,14 +1,39 @@
 package com.tagokoder.account.infra.security.avp;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.tagokoder.account.infra.config.AppProps;
+import com.tagokoder.account.infra.props.AuthzDecisionCacheProperties;
+import com.tagokoder.account.infra.props.AuthzEngineProperties;
+import com.tagokoder.account.infra.security.cedar.CedarLocalAuthorizer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import software.amazon.awssdk.services.verifiedpermissions.VerifiedPermissionsClient;
 import software.amazon.awssdk.services.verifiedpermissions.model.ActionIdentifier;
 import software.amazon.awssdk.services.verifiedpermissions.model.AttributeValue;
+import software.amazon.awssdk.services.verifiedpermissions.model.BatchIsAuthorizedWithTokenInputItem;
+import software.amazon.awssdk.services.verifiedpermissions.model.BatchIsAuthorizedWithTokenOutputItem;
+import software.amazon.awssdk.services.verifiedpermissions.model.BatchIsAuthorizedWithTokenRequest;
+import software.amazon.awssdk.services.verifiedpermissions.model.BatchIsAuthorizedWithTokenResponse;
 import software.amazon.awssdk.services.verifiedpermissions.model.ContextDefinition;
 import software.amazon.awssdk.services.verifiedpermissions.model.Decision;
 import software.amazon.awssdk.services.verifiedpermissions.model.DeterminingPolicyItem;
@@ -18,17 +43,279 @@ import software.amazon.awssdk.services.verifiedpermissions.model.EntityItem;
 import software.amazon.awssdk.services.verifiedpermissions.model.IsAuthorizedWithTokenRequest;
 import software.amazon.awssdk.services.verifiedpermissions.model.IsAuthorizedWithTokenResponse;
 
+/**
+ * Decisión de autorización según security.authz.engine.mode:
+ * - REMOTE: IsAuthorizedWithToken contra Verified Permissions, con cache de decisiones por instancia
+ *   (key: principal, action, recurso, fingerprint de token/entidades/context; TTL distinto para ALLOW
+ *   y DENY, nunca más allá del exp del token; rutas críticas sin cache salvo cacheCriticalRoutes=true)
+ * - LOCAL: Cedar in-process ({@link CedarLocalAuthorizer}), sin llamada remota
+ * - SHADOW: decide REMOTE y evalúa LOCAL al lado; las diferencias se cuentan y se loguean
+ * batchAuthorizeWithToken: una decisión por recurso en un solo BatchIsAuthorizedWithToken (o una pasada local).
+ */
 public class AvpAuthorizer {
 
+  private static final Logger log = LoggerFactory.getLogger(AvpAuthorizer.class);
+
+  // límite de requests por BatchIsAuthorizedWithToken
+  private static final int AVP_BATCH_MAX = 30;
+
   private final VerifiedPermissionsClient avp;
   private final AppProps props;
+  private final AuthzDecisionCacheProperties cacheCfg;
+  private final AuthzEngineProperties.Mode mode;
+  private final CedarLocalAuthorizer local;
+  private final MeterRegistry meters;
+  private final Cache<DecisionKey, CachedDecision> decisions;
 
-  public AvpAuthorizer(VerifiedPermissionsClient avp, AppProps props) {
+  public AvpAuthorizer(
+      VerifiedPermissionsClient avp,
+      AppProps props,
+      AuthzDecisionCacheProperties cacheCfg,
+      AuthzEngineProperties engineCfg,
+      CedarLocalAuthorizer local,
+      MeterRegistry meters
+  ) {
+    if (engineCfg.getMode() != AuthzEngineProperties.Mode.REMOTE && local == null) {
+      throw new IllegalStateException("authz engine mode " + engineCfg.getMode() + " requires a local authorizer");
+    }
     this.avp = avp;
     this.props = props;
+    this.cacheCfg = cacheCfg;
+    this.mode = engineCfg.getMode();
+    this.local = local;
+    this.meters = meters;
+    this.decisions = Caffeine.newBuilder()
+        .maximumSize(cacheCfg.getMaxSize())
+        .expireAfter(new Expiry<DecisionKey, CachedDecision>() {
+          @Override public long expireAfterCreate(DecisionKey k, CachedDecision v, long now) { return v.ttlNanos(); }
+          @Override public long expireAfterUpdate(DecisionKey k, CachedDecision v, long now, long cur) { return v.ttlNanos(); }
+          @Override public long expireAfterRead(DecisionKey k, CachedDecision v, long now, long cur) { return cur; }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meters, decisions, "authz_decisions");
+  }
+
+  /** Sin cache (no hay exp de token para acotar el TTL). */
+  public DecisionResult authorizeWithToken(
+      String accessToken,
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) {
+    return authorizeWithToken(accessToken, actionId, principalEntity, resourceEntity, extraEntities, contextAttrs, null, true);
   }
 
   public DecisionResult authorizeWithToken(
+      String accessToken,
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs,
+      Instant tokenExpiresAt,
+      boolean criticalRoute
+  ) {
+    return switch (mode) {
+      case LOCAL -> evaluateLocal(actionId, principalEntity, resourceEntity, extraEntities, contextAttrs);
+      case SHADOW -> {
+        DecisionResult remote = remote(accessToken, actionId, principalEntity, resourceEntity, extraEntities,
+            contextAttrs, tokenExpiresAt, criticalRoute);
+        shadow(remote, actionId, principalEntity, resourceEntity, extraEntities, contextAttrs);
+        yield remote;
+      }
+      case REMOTE -> remote(accessToken, actionId, principalEntity, resourceEntity, extraEntities,
+          contextAttrs, tokenExpiresAt, criticalRoute);
+    };
+  }
+
+  /**
+   * Una decisión por recurso, en el orden de resources, con el mismo principal/action/context.
+   * REMOTE: cache por recurso y los misses en BatchIsAuthorizedWithToken (de a 30).
+   */
+  public List<DecisionResult> batchAuthorizeWithToken(
+      String accessToken,
+      String actionId,
+      EntityItem principalEntity,
+      List<EntityItem> resources,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs,
+      Instant tokenExpiresAt,
+      boolean criticalRoute
+  ) {
+    if (resources.isEmpty()) return List.of();
+    return switch (mode) {
+      case LOCAL -> {
+        List<DecisionResult> out = new ArrayList<>(resources.size());
+        for (EntityItem r : resources) out.add(evaluateLocal(actionId, principalEntity, r, extraEntities, contextAttrs));
+        yield out;
+      }
+      case SHADOW -> {
+        List<DecisionResult> remote = remoteBatch(accessToken, actionId, principalEntity, resources, extraEntities,
+            contextAttrs, tokenExpiresAt, criticalRoute);
+        for (int i = 0; i < resources.size(); i++) {
+          shadow(remote.get(i), actionId, principalEntity, resources.get(i), extraEntities, contextAttrs);
+        }
+        yield remote;
+      }
+      case REMOTE -> remoteBatch(accessToken, actionId, principalEntity, resources, extraEntities,
+          contextAttrs, tokenExpiresAt, criticalRoute);
+    };
+  }
+
+  private DecisionResult remote(
+      String accessToken,
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs,
+      Instant tokenExpiresAt,
+      boolean criticalRoute
+  ) {
+    boolean cacheable = cacheCfg.isEnabled()
+        && tokenExpiresAt != null
+        && (!criticalRoute || cacheCfg.isCacheCriticalRoutes());
+
+    DecisionKey key = cacheable
+        ? keyOf(accessToken, actionId, principalEntity, resourceEntity, extraEntities, contextAttrs)
+        : null;
+    if (key == null) {
+      count(actionId, "bypass");
+      return callAvp(accessToken, actionId, principalEntity, resourceEntity, extraEntities, contextAttrs);
+    }
+
+    CachedDecision hit = decisions.getIfPresent(key);
+    if (hit != null) {
+      count(actionId, "hit");
+      return hit.result();
+    }
+    count(actionId, "miss");
+
+    DecisionResult result = callAvp(accessToken, actionId, principalEntity, resourceEntity, extraEntities, contextAttrs);
+    remember(key, result, tokenExpiresAt);
+    return result;
+  }
+
+  private List<DecisionResult> remoteBatch(
+      String accessToken,
+      String actionId,
+      EntityItem principalEntity,
+      List<EntityItem> resources,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs,
+      Instant tokenExpiresAt,
+      boolean criticalRoute
+  ) {
+    boolean cacheable = cacheCfg.isEnabled()
+        && tokenExpiresAt != null
+        && (!criticalRoute || cacheCfg.isCacheCriticalRoutes());
+
+    int n = resources.size();
+    DecisionResult[] out = new DecisionResult[n];
+    DecisionKey[] keys = new DecisionKey[n];
+    List<Integer> misses = new ArrayList<>();
+
+    for (int i = 0; i < n; i++) {
+      DecisionKey key = cacheable
+          ? keyOf(accessToken, actionId, principalEntity, resources.get(i), extraEntities, contextAttrs)
+          : null;
+      keys[i] = key;
+      if (key == null) {
+        count(actionId, "bypass");
+      } else {
+        CachedDecision hit = decisions.getIfPresent(key);
+        if (hit != null) {
+          count(actionId, "hit");
+          out[i] = hit.result();
+          continue;
+        }
+        count(actionId, "miss");
+      }
+      misses.add(i);
+    }
+
+    for (int from = 0; from < misses.size(); from += AVP_BATCH_MAX) {
+      List<Integer> chunk = misses.subList(from, Math.min(from + AVP_BATCH_MAX, misses.size()));
+      List<EntityItem> chunkResources = new ArrayList<>(chunk.size());
+      for (int i : chunk) chunkResources.add(resources.get(i));
+
+      List<DecisionResult> got = callAvpBatch(accessToken, actionId, chunkResources, extraEntities, contextAttrs);
+      for (int j = 0; j < chunk.size(); j++) {
+        int i = chunk.get(j);
+        out[i] = got.get(j);
+        if (keys[i] != null) remember(keys[i], out[i], tokenExpiresAt);
+      }
+    }
+    return List.of(out);
+  }
+
+  private void remember(DecisionKey key, DecisionResult result, Instant tokenExpiresAt) {
+    Duration ttl = result.decision() == Decision.ALLOW ? cacheCfg.getAllowTtl() : cacheCfg.getDenyTtl();
+    Duration untilExp = Duration.between(Instant.now(), tokenExpiresAt);
+    if (untilExp.compareTo(ttl) < 0) ttl = untilExp;
+    if (ttl.isPositive()) decisions.put(key, new CachedDecision(result, ttl.toNanos()));
+  }
+
+  private DecisionResult evaluateLocal(
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) {
+    long t0 = System.nanoTime();
+    DecisionResult result;
+    try {
+      result = local.authorize(actionId, principalEntity, resourceEntity, extraEntities, contextAttrs);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("local authorization failed", e);
+    }
+    Timer.builder("authz.local.latency")
+        .tag("action", actionId)
+        .tag("decision", String.valueOf(result.decision()))
+        .register(meters)
+        .record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+    return result;
+  }
+
+  // nunca afecta la respuesta: solo mide cuánto difiere la evaluación local de AVP
+  private void shadow(
+      DecisionResult remote,
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) {
+    String result;
+    try {
+      DecisionResult mine = evaluateLocal(actionId, principalEntity, resourceEntity, extraEntities, contextAttrs);
+      if (mine.decision() == remote.decision()) {
+        result = "match";
+      } else {
+        result = "mismatch";
+        log.warn("AUTHZ_SHADOW_MISMATCH action={} resource={}::{} remote={} local={} remotePolicies={} localPolicies={}",
+            actionId,
+            resourceEntity.identifier().entityType(),
+            resourceEntity.identifier().entityId(),
+            remote.decision(),
+            mine.decision(),
+            remote.determiningPolicies().stream().map(DeterminingPolicyItem::policyId).toList(),
+            mine.determiningPolicies().stream().map(DeterminingPolicyItem::policyId).toList());
+      }
+    } catch (Exception e) {
+      result = "error";
+      log.warn("AUTHZ_SHADOW_ERROR action={} err={}", actionId, e.toString());
+    }
+    meters.counter("authz.shadow.comparisons", "action", actionId, "result", result).increment();
+  }
+
+  private DecisionResult callAvp(
       String accessToken,
       String actionId,
       EntityItem principalEntity,
@@ -63,9 +350,182 @@ public class AvpAuthorizer {
       req.context(ContextDefinition.fromContextMap(contextAttrs));
     }
 
+    long t0 = System.nanoTime();
     IsAuthorizedWithTokenResponse resp = avp.isAuthorizedWithToken(req.build());
+    Timer.builder("authz.avp.latency")
+        .tag("action", actionId)
+        .tag("decision", String.valueOf(resp.decision()))
+        .register(meters)
+        .record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
     return new DecisionResult(resp.decision(), resp.determiningPolicies());
   }
 
+  // todos los recursos en un solo BatchIsAuthorizedWithToken; cada resultado trae su request -> se empareja por recurso
+  private List<DecisionResult> callAvpBatch(
+      String accessToken,
+      String actionId,
+      List<EntityItem> resources,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) {
+    ActionIdentifier action = ActionIdentifier.builder()
+        .actionType("ImaginaryBank::Action")
+        .actionId(actionId)
+        .build();
+
+    List<EntityItem> all = new ArrayList<>(resources);
+    if (extraEntities != null && !extraEntities.isEmpty()) all.addAll(extraEntities);
+
+    ContextDefinition context = (contextAttrs != null && !contextAttrs.isEmpty())
+        ? ContextDefinition.fromContextMap(contextAttrs)
+        : null;
+
+    List<BatchIsAuthorizedWithTokenInputItem> items = new ArrayList<>(resources.size());
+    for (EntityItem r : resources) {
+      BatchIsAuthorizedWithTokenInputItem.Builder item = BatchIsAuthorizedWithTokenInputItem.builder()
+          .action(action)
+          .resource(r.identifier());
+      if (context != null) item.context(context);
+      items.add(item.build());
+    }
+
+    BatchIsAuthorizedWithTokenRequest req = BatchIsAuthorizedWithTokenRequest.builder()
+        .policyStoreId(props.aws().avpPolicyStoreId())
+        .accessToken(accessToken)
+        .entities(EntitiesDefinition.builder().entityList(all).build())
+        .requests(items)
+        .build();
+
+    long t0 = System.nanoTime();
+    BatchIsAuthorizedWithTokenResponse resp = avp.batchIsAuthorizedWithToken(req);
+    Timer.builder("authz.avp.batch.latency")
+        .tag("action", actionId)
+        .register(meters)
+        .record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+
+    Map<String, DecisionResult> byResource = new HashMap<>();
+    for (BatchIsAuthorizedWithTokenOutputItem o : resp.results()) {
+      EntityIdentifier rid = o.request().resource();
+      byResource.put(rid.entityType() + "::" + rid.entityId(), new DecisionResult(o.decision(), o.determiningPolicies()));
+    }
+
+    // recurso sin resultado => DENY (fail-closed)
+    List<DecisionResult> out = new ArrayList<>(resources.size());
+    for (EntityItem r : resources) {
+      EntityIdentifier rid = r.identifier();
+      DecisionResult d = byResource.get(rid.entityType() + "::" + rid.entityId());
+      out.add(d != null ? d : new DecisionResult(Decision.DENY, List.of()));
+    }
+    return out;
+  }
+
+  // null = algo no canonicalizable (tipo de atributo desconocido): no se cachea
+  private DecisionKey keyOf(
+      String accessToken,
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) {
+    try {
+      // el token entra al fingerprint: AVP evalúa sus claims (grupos, scopes)
+      StringBuilder sb = new StringBuilder(256).append(accessToken).append('\u0000');
+      canonEntity(sb, principalEntity);
+      canonEntity(sb, resourceEntity);
+      if (extraEntities != null) {
+        List<String> extras = new ArrayList<>(extraEntities.size());
+        for (EntityItem e : extraEntities) {
+          StringBuilder x = new StringBuilder();
+          canonEntity(x, e);
+          extras.add(x.toString());
+        }
+        extras.sort(null);
+        extras.forEach(x -> sb.append(x).append('\u0000'));
+      }
+      if (contextAttrs != null) {
+        for (var e : new TreeMap<>(contextAttrs).entrySet()) {
+          sb.append(e.getKey()).append('=');
+          if (cacheCfg.getPresenceOnlyContextKeys().contains(e.getKey())) sb.append('*');
+          else canon(sb, e.getValue());
+          sb.append(';');
+        }
+      }
+      EntityIdentifier rid = resourceEntity.identifier();
+      return new DecisionKey(
+          principalEntity.identifier().entityId(),
+          actionId,
+          rid.entityType() + "::" + rid.entityId(),
+          sha256(sb));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static void canonEntity(StringBuilder sb, EntityItem e) {
+    sb.append(e.identifier().entityType()).append("::").append(e.identifier().entityId()).append('{');
+    if (e.hasAttributes()) {
+      for (var a : new TreeMap<>(e.attributes()).entrySet()) {
+        sb.append(a.getKey()).append('=');
+        canon(sb, a.getValue());
+        sb.append(';');
+      }
+    }
+    if (e.hasParents()) {
+      e.parents().stream().map(p -> p.entityType() + "::" + p.entityId()).sorted().forEach(p -> sb.append('^').append(p));
+    }
+    sb.append('}');
+  }
+
+  private static void canon(StringBuilder sb, AttributeValue v) {
+    if (v == null) {
+      sb.append('-');
+    } else if (v.string() != null) {
+      sb.append("s:").append(v.string().length()).append(':').append(v.string());
+    } else if (v.booleanValue() != null) {
+      sb.append("b:").append(v.booleanValue());
+    } else if (v.longValue() != null) {
+      sb.append("l:").append(v.longValue());
+    } else if (v.entityIdentifier() != null) {
+      sb.append("e:").append(v.entityIdentifier().entityType()).append("::").append(v.entityIdentifier().entityId());
+    } else if (v.hasSet()) {
+      List<String> items = new ArrayList<>(v.set().size());
+      for (AttributeValue i : v.set()) {
+        StringBuilder x = new StringBuilder();
+        canon(x, i);
+        items.add(x.toString());
+      }
+      items.sort(null);
+      sb.append("[").append(String.join(",", items)).append(']');
+    } else if (v.hasRecord()) {
+      sb.append('{');
+      for (var r : new TreeMap<>(v.record()).entrySet()) {
+        sb.append(r.getKey()).append('=');
+        canon(sb, r.getValue());
+        sb.append(';');
+      }
+      sb.append('}');
+    } else {
+      throw new IllegalArgumentException("attribute type not cacheable");
+    }
+  }
+
+  private static String sha256(CharSequence s) {
+    try {
+      byte[] d = MessageDigest.getInstance("SHA-256").digest(s.toString().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(d);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void count(String actionId, String outcome) {
+    meters.counter("authz.decision.cache.requests", "action", actionId, "outcome", outcome).increment();
+  }
+
+  private record DecisionKey(String principalId, String actionId, String resource, String fingerprint) {}
+
+  private record CachedDecision(DecisionResult result, long ttlNanos) {}
+
   public record DecisionResult(Decision decision, List<DeterminingPolicyItem> determiningPolicies) {}
-}
\ No newline at end of file
+}
@@ -14,6 +14,32 @@ public final class AuthCtx {
     public static final Context.Key<String> UA_HASH = Context.key("ua_hash");
     public static final Context.Key<String> CHANNEL = Context.key("channel");
 
+    // lectores: funcionan con el interceptor fusionado (CallContext) y con la cadena clásica (una key por campo)
+    public static String correlationId() {
+        CallContext c = CallContext.current();
+        return c != null ? c.correlationId() : CORRELATION_ID.get();
+    }
+
+    public static String idempotencyKey() {
+        CallContext c = CallContext.current();
+        return c != null ? c.idempotencyKey() : IDEMPOTENCY_KEY.get();
+    }
+
+    public static String ipHash() {
+        CallContext c = CallContext.current();
+        return c != null ? c.ipHash() : IP_HASH.get();
+    }
+
+    public static String uaHash() {
+        CallContext c = CallContext.current();
+        return c != null ? c.uaHash() : UA_HASH.get();
+    }
+
+    public static String channel() {
+        CallContext c = CallContext.current();
+        return c != null ? c.channel() : CHANNEL.get();
+    }
+
     public record AuthPrincipal(
             String sub,
             String customerIdOrNull,
@@ -0,0 +1,39 @@
+package com.tagokoder.account.infra.security.context;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.grpc.Context;
+
+/**
+ * Resultado por item de las rutas AUTHZ_BATCH: el interceptor marca los recursos denegados y el handler
+ * los devuelve como missing(forbidden) en vez de fallar toda la llamada.
+ */
+public final class BatchDecisions {
+
+  private static final Context.Key<BatchDecisions> KEY = Context.key("batch_decisions");
+
+  private final Set<UUID> forbidden = ConcurrentHashMap.newKeySet();
+
+  private BatchDecisions() {}
+
+  public static Context attach(Context ctx) {
+    return ctx.withValue(KEY, new BatchDecisions());
+  }
+
+  public static BatchDecisions current() {
+    return KEY.get();
+  }
+
+  /** Ids denegados en esta llamada (vacío fuera de AUTHZ_BATCH, p.ej. servicio interno o perfil local). */
+  public static Set<UUID> forbidden() {
+    BatchDecisions b = KEY.get();
+    return b == null ? Set.of() : Collections.unmodifiableSet(b.forbidden);
+  }
+
+  public void forbid(UUID id) {
+    forbidden.add(id);
+  }
+}
@@ -0,0 +1,26 @@
+package com.tagokoder.account.infra.security.context;
+
+import io.grpc.Context;
+
+/**
+ * Datos de la llamada derivados de los headers, parseados una sola vez (FusedServerInterceptor)
+ * y guardados bajo una única key del Context en vez de una withValue por campo.
+ */
+public record CallContext(
+        String correlationId,
+        String routeTemplate,
+        String idempotencyKey,
+        String ipHash,
+        String uaHash,
+        String channel
+) {
+    static final Context.Key<CallContext> KEY = Context.key("call_context");
+
+    public Context attach(Context ctx) {
+        return ctx.withValue(KEY, this);
+    }
+
+    public static CallContext current() {
+        return KEY.get();
+    }
+}
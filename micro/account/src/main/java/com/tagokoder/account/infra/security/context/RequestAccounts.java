@@ -0,0 +1,61 @@
+package com.tagokoder.account.infra.security.context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.tagokoder.account.domain.model.Account;
+
+import io.grpc.Context;
+
+/**
+ * Cuentas leídas durante una llamada gRPC: el template de authz (accountById/accountsByIds) y el use case
+ * comparten una sola lectura de la fila. Vive en el Context de la llamada; fuera de gRPC no hay.
+ */
+public final class RequestAccounts {
+
+  private static final Context.Key<RequestAccounts> KEY = Context.key("request_accounts");
+
+  private final ConcurrentHashMap<UUID, Optional<Account>> byId = new ConcurrentHashMap<>();
+
+  private RequestAccounts() {}
+
+  public static Context attach(Context ctx) {
+    return ctx.withValue(KEY, new RequestAccounts());
+  }
+
+  public static RequestAccounts current() {
+    return KEY.get();
+  }
+
+  public Optional<Account> findById(UUID id, Function<UUID, Optional<Account>> loader) {
+    return byId.computeIfAbsent(id, loader);
+  }
+
+  /** Las ya leídas salen del mapa; el resto se lee de una vez con loader y queda memoizado (también las ausentes). */
+  public List<Account> findByIds(List<UUID> ids, Function<List<UUID>, List<Account>> loader) {
+    LinkedHashSet<UUID> wanted = new LinkedHashSet<>(ids);
+    List<UUID> pending = new ArrayList<>();
+    for (UUID id : wanted) if (!byId.containsKey(id)) pending.add(id);
+
+    if (!pending.isEmpty()) {
+      Map<UUID, Account> loaded = new HashMap<>();
+      for (Account a : loader.apply(pending)) loaded.put(a.getId(), a);
+      for (UUID id : pending) byId.putIfAbsent(id, Optional.ofNullable(loaded.get(id)));
+    }
+
+    List<Account> out = new ArrayList<>(wanted.size());
+    for (UUID id : wanted) byId.get(id).ifPresent(out::add);
+    return out;
+  }
+
+  public void evict(UUID id) {
+    if (id != null) byId.remove(id);
+  }
+}
@@ -1,16 +1,24 @@
 package com.tagokoder.account.infra.security.grpc;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 
 import com.tagokoder.account.domain.port.out.IdentityPrincipalPort;
 import com.tagokoder.account.infra.config.AppProps;
@@ -18,14 +26,18 @@ import com.tagokoder.account.infra.out.audit.AuditPublisher;
 import com.tagokoder.account.infra.security.authz.AccountResourceTemplates;
 import com.tagokoder.account.infra.security.authz.AuthzMode;
 import com.tagokoder.account.infra.security.authz.RouteAuthzRegistry;
+import com.tagokoder.account.infra.security.authz.RouteDef;
+import com.tagokoder.account.infra.security.authz.ServicePrincipals;
 import com.tagokoder.account.infra.security.avp.AvpAuthorizer;
 import com.tagokoder.account.infra.security.avp.AvpValues;
 import com.tagokoder.account.infra.security.context.AuthCtx;
+import com.tagokoder.account.infra.security.context.BatchDecisions;
+import com.tagokoder.account.infra.security.context.RequestAccounts;
+import com.tagokoder.account.infra.security.jwt.VerifiedTokenCache;
 
 import io.grpc.Context;
 import io.grpc.Contexts;
 import io.grpc.ForwardingServerCall;
-import io.grpc.ForwardingServerCallListener;
 import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
@@ -45,30 +57,36 @@ public class AuthzServerInterceptor implements ServerInterceptor {
   private static final String USER_TYPE = "ImaginaryBank::User";
 
   private final AppProps props;
-  private final JwtDecoder jwtDecoder;
+  private final VerifiedTokenCache tokens;
   private final AvpAuthorizer avp;
   private final AuditPublisher audit;
 
   private final RouteAuthzRegistry registry;
   private final AccountResourceTemplates templates;
   private final IdentityPrincipalPort principalPort;
+  private final ServicePrincipals services;
+
+  // resolvePrincipal/AVP son I/O remoto: nunca en el executor de gRPC
+  private final ExecutorService async = Executors.newVirtualThreadPerTaskExecutor();
 
   public AuthzServerInterceptor(
       AppProps props,
-      JwtDecoder jwtDecoder,
+      VerifiedTokenCache tokens,
       AvpAuthorizer avp,
       AuditPublisher audit,
       RouteAuthzRegistry registry,
       AccountResourceTemplates templates,
-      IdentityPrincipalPort principalPort
+      IdentityPrincipalPort principalPort,
+      ServicePrincipals services
   ) {
     this.props = props;
-    this.jwtDecoder = jwtDecoder;
+    this.tokens = tokens;
     this.avp = avp;
     this.audit = audit;
     this.registry = registry;
     this.templates = templates;
     this.principalPort = principalPort;
+    this.services = services;
   }
 
   @Override
@@ -77,7 +95,7 @@ public class AuthzServerInterceptor implements ServerInterceptor {
 
     final long started = System.nanoTime();
     final String route = call.getMethodDescriptor().getFullMethodName();
-    final String corrId = AuthCtx.CORRELATION_ID.get();
+    final String corrId = AuthCtx.correlationId();
 
     // bypass infra
     if (route.startsWith("grpc.health.v1.Health/") ||
@@ -97,6 +115,13 @@ public class AuthzServerInterceptor implements ServerInterceptor {
       return next.startCall(call, headers);
     }
 
+    // servicio interno con mTLS: no hace falta token
+    final boolean internal = services != null && services.applies(route);
+    if (internal) {
+      String svc = services.fromPeer(call.getAttributes());
+      if (svc != null) return serviceCall(call, headers, next, def, route, svc, started);
+    }
+
     // ---- token required for AUTHN_ONLY / AUTHZ ----
     String token = extractBearer(headers.get(AUTH));
     if (token == null) {
@@ -105,68 +130,40 @@ public class AuthzServerInterceptor implements ServerInterceptor {
       return new ServerCall.Listener<>() {};
     }
 
-    Jwt jwt;
+    VerifiedTokenCache.VerifiedToken vt;
     try {
-      jwt = jwtDecoder.decode(token);
+      vt = tokens.verify(token);
     } catch (Exception e) {
       publish("DENY", "invalid_token", def.actionId(), route, null, started);
       call.close(Status.UNAUTHENTICATED.withDescription("Invalid token"), new Metadata());
       return new ServerCall.Listener<>() {};
     }
 
-    // principal id AVP (pool|sub)
-    String principalId = buildAvpPrincipalId(jwt);
-    String sub = jwt.getSubject();
+    // token client_credentials de un servicio registrado: allowlist local, sin identity ni AVP
+    if (internal) {
+      String svc = services.fromToken(vt);
+      if (svc != null) return serviceCall(call, headers, next, def, route, svc, started);
+    }
 
-    // roles + mfa (señal, NO obligatoria para pago)
-    List<String> roles = claimStringList(jwt, "cognito:groups");
-    boolean mfa = claimStringList(jwt, "amr").contains("mfa");
+    // principal id AVP (pool|sub), roles, mfa (señal, NO obligatoria para pago): derivados una vez por token
+    Jwt jwt = vt.jwt();
+    String principalId = vt.principalId();
+    String sub = vt.sub();
+    List<String> roles = vt.roles();
+    boolean mfa = vt.mfa();
 
     // customer_id: claim o identity fallback (solo si hace falta)
-    String customerId = claimString(jwt, "custom:customer_id");
-    if ((customerId == null || customerId.isBlank()) || def.requireCustomerLink()) {
-      try {
-        var p = principalPort.resolvePrincipal(token, def.requireCustomerLink(), def.actionId());
-        if (p.customerId() != null && !p.customerId().isBlank()) customerId = p.customerId();
-        if (p.roles() != null && !p.roles().isEmpty()) roles = p.roles();
-        log.debug("AUTHZ principal sub={} principalId={} customerId={} roles={} mfa={} token_iss={}",
-            sub, principalId, customerId, roles, mfa, (jwt.getIssuer() == null ? "" : jwt.getIssuer().toString()));
-      } catch (io.grpc.StatusRuntimeException sre) {
-        log.warn("AUTHZ principalPort.resolvePrincipal FAILED route={} status={} desc={}",
-            route, sre.getStatus().getCode(), sre.getStatus().getDescription(), sre);
-    } 
-      catch (Exception e) {
-        log.warn("AUTHZ principalPort.resolvePrincipal FAILED route={} err={}",
-            route, e.toString(), e);
-        // si requireCustomerLink=true y falla => DENY
-        if (def.requireCustomerLink() && (customerId == null || customerId.isBlank())) {
-        publish("DENY", "customer_link_missing", def.actionId(), route, null, started);
-        call.close(Status.PERMISSION_DENIED.withDescription("Denied"), new Metadata());
-        return new ServerCall.Listener<>() {};
-        }
-      }
-    }
-    if (def.requireCustomerLink() && (customerId == null || customerId.isBlank())) {
-    log.warn("AUTHZ_DENY_EARLY reason=customer_link_missing route={} action={}", route, def.actionId());
-    publish("DENY", "customer_link_missing", def.actionId(), route, null, started);
-    call.close(Status.PERMISSION_DENIED.withDescription("Denied"), new Metadata());
-    return new ServerCall.Listener<>() {};
-    }
-    final String tokenF = token;
-    final String principalIdF = principalId;
-    final String subF = sub;
-    final String customerIdF = customerId;              // <-- final copy
-    final List<String> rolesF = List.copyOf(roles);     // <-- final copy
-    final boolean mfaF = mfa;
+    String customerId = vt.customerId();
 
-    // AUTHN_ONLY: solo token válido, sin AVP
-    if (def.mode() == AuthzMode.AUTHN_ONLY) {
-      var principal = new AuthCtx.AuthPrincipal(sub, customerId, roles, mfa);
-      Context ctxWithPrincipal = Context.current().withValue(AuthCtx.PRINCIPAL, principal);
-      return Contexts.interceptCall(ctxWithPrincipal, call, headers, next);
-    }
+    final String tokenF = token;
+    final Instant tokenExpF = jwt.getExpiresAt();
+    // cache de cuentas por llamada: authz (accountById) y el handler comparten la lectura
+    Context base = RequestAccounts.attach(Context.current());
+    if (def.mode() == AuthzMode.AUTHZ_BATCH) base = BatchDecisions.attach(base);
+    final Context outer = base;
+    // todo lo remoto (identity, AVP) corre en virtual threads con el Context de la llamada
+    final Executor asyncExec = outer.fixedContextExecutor(async);
 
-    // ---- AUTHZ path ----
     final AtomicBoolean closed = new AtomicBoolean(false);
     ServerCall<ReqT, RespT> callSafe = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
       @Override public void close(Status status, Metadata trailers) {
@@ -174,13 +171,22 @@ public class AuthzServerInterceptor implements ServerInterceptor {
       }
     };
 
+    CompletableFuture<ResolvedPrincipal> principalF;
+    if ((customerId == null || customerId.isBlank()) || def.requireCustomerLink()) {
+      principalF = CompletableFuture.supplyAsync(
+          () -> resolvePrincipal(tokenF, def, route, sub, principalId, customerId, roles, mfa, jwt),
+          asyncExec);
+    } else {
+      principalF = CompletableFuture.completedFuture(new ResolvedPrincipal(customerId, List.copyOf(roles)));
+    }
+
     BiConsumer<Status, String> deny = (st, note) -> {
     log.warn("AUTHZ_DENY note={} route={} action={}", note, route, def.actionId());
 
     Metadata trailers = new Metadata();
     trailers.put(Metadata.Key.of("x-authz-deny-reason", Metadata.ASCII_STRING_MARSHALLER), note);
 
-    String cid = AuthCtx.CORRELATION_ID.get();
+    String cid = AuthCtx.correlationId();
     if (cid != null && !cid.isBlank()) {
         trailers.put(Metadata.Key.of("x-correlation-id", Metadata.ASCII_STRING_MARSHALLER), cid);
     }
@@ -189,105 +195,428 @@ public class AuthzServerInterceptor implements ServerInterceptor {
     callSafe.close(st, trailers);
     };
 
-    var principal = new AuthCtx.AuthPrincipal(sub, customerId, roles, mfa);
-    Context ctxWithPrincipal = Context.current().withValue(AuthCtx.PRINCIPAL, principal);
-    ServerCall.Listener<ReqT> delegate = Contexts.interceptCall(ctxWithPrincipal, callSafe, headers, next);
+    final AvpAttrs avpAttrs = new AvpAttrs(principalId, mfa);
+    AsyncAuthzListener<ReqT, RespT> listener = new AsyncAuthzListener<>(callSafe, headers, next, outer, principalF, asyncExec,
+        p -> outer.withValue(AuthCtx.PRINCIPAL, new AuthCtx.AuthPrincipal(sub, p.customerId(), p.roles(), mfa)),
+        (p, message) -> def.mode() == AuthzMode.AUTHZ_BATCH
+            ? authorizeBatch(def, route, started, tokenF, tokenExpF, principalId, mfa, p, avpAttrs, message, deny)
+            : authorize(def, route, started, tokenF, tokenExpF, principalId, mfa, p, avpAttrs, message, deny),
+        deny,
+        (note) -> {
+          publish("DENY", note, def.actionId(), route, null, started);
+          callSafe.close(Status.PERMISSION_DENIED.withDescription("Denied"), new Metadata());
+        });
+
+    // AUTHN_ONLY: solo token válido, sin AVP (el handler arranca apenas se resuelve el principal)
+    if (def.mode() == AuthzMode.AUTHN_ONLY) {
+      listener.startWithoutMessage();
+      return listener;
+    }
+
+    // ---- AUTHZ path ----
+    // el handler todavía no arrancó: pedimos el primer mensaje nosotros para decidir sobre él
+    listener.startWithFirstMessage();
+    return listener;
+  }
+
+  // fast path servicio-a-servicio: decisión en memoria; las acciones critical se auditan igual
+  private <ReqT, RespT> ServerCall.Listener<ReqT> serviceCall(
+      ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next,
+      RouteDef def, String route, String service, long started) {
+
+    Context ctx = Context.current().withValue(AuthCtx.PRINCIPAL,
+        new AuthCtx.AuthPrincipal("svc:" + service, null, List.of("service"), false));
+
+    if (!services.allowed(service, def.actionId())) {
+      log.warn("AUTHZ_DENY note=service_not_allowed service={} route={} action={}", service, route, def.actionId());
+      ctx.run(() -> publish("DENY", "service_not_allowed", def.actionId(), route, started, "service_allowlist"));
+      call.close(Status.PERMISSION_DENIED.withDescription("Denied"), new Metadata());
+      return new ServerCall.Listener<>() {};
+    }
+
+    if (def.critical()) {
+      ctx.run(() -> publish("ALLOW", "service_allow", def.actionId(), route, started, "service_allowlist"));
+    }
+    return Contexts.interceptCall(RequestAccounts.attach(ctx), call, headers, next);
+  }
+
+  // customer link vía identity (remoto): corre fuera del executor de gRPC
+  private ResolvedPrincipal resolvePrincipal(
+      String token, RouteDef def, String route, String sub, String principalId,
+      String customerId, List<String> roles, boolean mfa, Jwt jwt) {
+    try {
+      // cacheado por subject en el adapter (hasta el exp del token)
+      var p = principalPort.resolvePrincipal(token, sub, jwt.getExpiresAt(), def.requireCustomerLink(), def.actionId());
+      if (p.customerId() != null && !p.customerId().isBlank()) customerId = p.customerId();
+      if (p.roles() != null && !p.roles().isEmpty()) roles = p.roles();
+      log.debug("AUTHZ principal sub={} principalId={} customerId={} roles={} mfa={} token_iss={}",
+          sub, principalId, customerId, roles, mfa, (jwt.getIssuer() == null ? "" : jwt.getIssuer().toString()));
+    } catch (io.grpc.StatusRuntimeException sre) {
+      log.warn("AUTHZ principalPort.resolvePrincipal FAILED route={} status={} desc={}",
+          route, sre.getStatus().getCode(), sre.getStatus().getDescription(), sre);
+    } catch (Exception e) {
+      log.warn("AUTHZ principalPort.resolvePrincipal FAILED route={} err={}",
+          route, e.toString(), e);
+      // si requireCustomerLink=true y falla => DENY
+      if (def.requireCustomerLink() && (customerId == null || customerId.isBlank())) {
+        throw new EarlyDeny("customer_link_missing");
+      }
+    }
+    if (def.requireCustomerLink() && (customerId == null || customerId.isBlank())) {
+      log.warn("AUTHZ_DENY_EARLY reason=customer_link_missing route={} action={}", route, def.actionId());
+      throw new EarlyDeny("customer_link_missing");
+    }
+    return new ResolvedPrincipal(customerId, List.copyOf(roles));
+  }
+
+  /** Decide sobre un mensaje (AVP o Cedar local). false = ya se cerró la llamada con deny. */
+  private boolean authorize(
+      RouteDef def, String route, long started, String tokenF, Instant tokenExpF, String principalId, boolean mfa,
+      ResolvedPrincipal p, AvpAttrs attrs, Object message, BiConsumer<Status, String> deny) {
+
+    final String customerIdF = p.customerId();
+    final List<String> rolesF = p.roles();
+
+    AccountResourceTemplates.PrincipalData pd =
+        new AccountResourceTemplates.PrincipalData(principalId, customerIdF, rolesF, mfa);
+
+    AccountResourceTemplates.Resolved res;
+    try {
+      res = templates.resolve(def.resourceTemplate(), route, message, pd);
+    } catch (Exception e) {
+      deny.accept(Status.PERMISSION_DENIED.withDescription("Denied"), "resource_resolve_error");
+      return false;
+    }
+
+    // principal entity + context estándar: se arman recién acá (el template ya resolvió) y una vez por llamada
+    EntityItem principalEntity = attrs.principal(p);
+    Map<String, AttributeValue> ctxAttrs = attrs.context(p, res.contextAttrs());
+
+    AvpAuthorizer.DecisionResult decision;
+    log.debug("AUTHZ AVP_REQUEST route={} action={} ctx.customer_id={} resourceType={} resourceId={} resourceAttrs={}",
+        route,
+        def.actionId(),
+        customerIdF,
+        res.resourceEntity().identifier().entityType(),
+        res.resourceEntity().identifier().entityId(),
+        res.resourceEntity().attributes()
+    );
+
+    log.debug("AUTHZ AVP_CONTEXT keys={}", ctxAttrs.keySet());
+    try {
+      decision = avp.authorizeWithToken(
+        tokenF,
+        def.actionId(),
+        principalEntity,
+        res.resourceEntity(),
+        res.extraEntities(),
+        ctxAttrs,
+        tokenExpF,
+        def.critical()
+        );
+    } catch (Exception e) {
+      deny.accept(Status.PERMISSION_DENIED.withDescription("Authorization error"), "avp_error");
+      return false;
+    }
+
+    log.debug("AUTHZ AVP_RESPONSE decision={} determiningPolicies={}",
+        decision.decision(),
+        decision.determiningPolicies()
+    );
+
+    if (decision.decision() != Decision.ALLOW) {
+    log.warn("AUTHZ_DENY route={} action={} ctx.customer_id={} resource.owner_customer_id={} resourceId={} policies={}",
+        route,
+        def.actionId(),
+        customerIdF,
+        (res.resourceEntity().attributes().get("owner_customer_id") == null ? null : res.resourceEntity().attributes().get("owner_customer_id").string()),
+        res.resourceEntity().identifier().entityId(),
+        decision.determiningPolicies()
+    );
+    }
+
+    if (def.critical()) {
+      publish("ALLOW", "avp_allow", def.actionId(), route, null, started);
+    }
+    return true;
+  }
+
+  /**
+   * AUTHZ_BATCH: una decisión por recurso del mensaje en una sola llamada (BatchIsAuthorizedWithToken o
+   * una pasada local). Los denegados quedan en {@link BatchDecisions} y la llamada sigue con el resto.
+   */
+  private boolean authorizeBatch(
+      RouteDef def, String route, long started, String tokenF, Instant tokenExpF, String principalId, boolean mfa,
+      ResolvedPrincipal p, AvpAttrs attrs, Object message, BiConsumer<Status, String> deny) {
+
+    AccountResourceTemplates.PrincipalData pd =
+        new AccountResourceTemplates.PrincipalData(principalId, p.customerId(), p.roles(), mfa);
+
+    AccountResourceTemplates.ResolvedBatch res;
+    try {
+      res = templates.resolveBatch(def.resourceTemplate(), route, message, pd);
+    } catch (Exception e) {
+      deny.accept(Status.PERMISSION_DENIED.withDescription("Denied"), "resource_resolve_error");
+      return false;
+    }
+
+    // cuentas inexistentes no se autorizan: el handler las devuelve como not_found
+    List<AccountResourceTemplates.BatchItem> known = res.items().stream()
+        .filter(i -> i.resourceEntity() != null)
+        .toList();
 
-    // construye principal entity
-    Map<String, AttributeValue> principalAttrs = new HashMap<>();
-    if (customerId != null && !customerId.isBlank()) {
-      principalAttrs.put("customer_id", AvpValues.str(customerId));
+    List<AvpAuthorizer.DecisionResult> decisions;
+    try {
+      decisions = avp.batchAuthorizeWithToken(
+          tokenF,
+          def.actionId(),
+          attrs.principal(p),
+          known.stream().map(AccountResourceTemplates.BatchItem::resourceEntity).toList(),
+          res.extraEntities(),
+          attrs.context(p, res.contextAttrs()),
+          tokenExpF,
+          def.critical());
+    } catch (Exception e) {
+      deny.accept(Status.PERMISSION_DENIED.withDescription("Authorization error"), "avp_error");
+      return false;
     }
-    principalAttrs.put("roles", AvpValues.setStr(roles));
 
-    EntityIdentifier pid = EntityIdentifier.builder().entityType(USER_TYPE).entityId(principalId).build();
-    EntityItem principalEntity = EntityItem.builder().identifier(pid).attributes(principalAttrs).build();
+    BatchDecisions batch = BatchDecisions.current();
+    int denied = 0;
+    for (int i = 0; i < known.size(); i++) {
+      if (decisions.get(i).decision() != Decision.ALLOW) {
+        batch.forbid(known.get(i).id());
+        denied++;
+      }
+    }
+    log.debug("AUTHZ AVP_BATCH route={} action={} resources={} denied={}", route, def.actionId(), known.size(), denied);
 
-    return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
-      @Override
-      public void onMessage(ReqT message) {
+    if (def.critical()) {
+      publish("ALLOW", "avp_batch_allow", def.actionId(), route, null, started);
+    }
+    return true;
+  }
+
+  private record ResolvedPrincipal(String customerId, List<String> roles) {}
+
+  /**
+   * Entidad principal y context AVP de la llamada, armados la primera vez que se pide una decisión.
+   * El principal y los headers no cambian entre mensajes de la misma llamada; los mensajes se autorizan
+   * encadenados (nunca en paralelo), así que no hace falta sincronizar.
+   */
+  private static final class AvpAttrs {
+    private final String principalId;
+    private final boolean mfa;
+    private EntityItem principal;
+    private Map<String, AttributeValue> context;
+
+    AvpAttrs(String principalId, boolean mfa) {
+      this.principalId = principalId;
+      this.mfa = mfa;
+    }
+
+    EntityItem principal(ResolvedPrincipal p) {
+      if (principal == null) {
+        Map<String, AttributeValue> principalAttrs = new HashMap<>();
+        if (p.customerId() != null && !p.customerId().isBlank()) {
+          principalAttrs.put("customer_id", AvpValues.str(p.customerId()));
+        }
+        principalAttrs.put("roles", AvpValues.setStr(p.roles()));
+
+        EntityIdentifier pid = EntityIdentifier.builder().entityType(USER_TYPE).entityId(principalId).build();
+        principal = EntityItem.builder().identifier(pid).attributes(principalAttrs).build();
+      }
+      return principal;
+    }
 
-        // context attrs estándar
+    // context estándar + lo que agregue el template (solo en ese caso se copia)
+    Map<String, AttributeValue> context(ResolvedPrincipal p, Map<String, AttributeValue> extra) {
+      if (context == null) {
         Map<String, AttributeValue> ctxAttrs = new HashMap<>();
-        if (customerIdF != null && !customerIdF.isBlank()) {
-        ctxAttrs.put("customer_id", AvpValues.str(customerIdF));
+        if (p.customerId() != null && !p.customerId().isBlank()) {
+          ctxAttrs.put("customer_id", AvpValues.str(p.customerId()));
         }
-        ctxAttrs.put("channel", AvpValues.str(nvl(AuthCtx.CHANNEL.get(), "unknown")));
-        ctxAttrs.put("ip_hash", AvpValues.str(nvl(AuthCtx.IP_HASH.get(), "unknown")));
-        ctxAttrs.put("user_agent_hash", AvpValues.str(nvl(AuthCtx.UA_HASH.get(), "unknown")));
-        if (AuthCtx.IDEMPOTENCY_KEY.get() != null) {
-          ctxAttrs.put("idempotency_key", AvpValues.str(AuthCtx.IDEMPOTENCY_KEY.get()));
+        ctxAttrs.put("channel", AvpValues.str(nvl(AuthCtx.channel(), "unknown")));
+        ctxAttrs.put("ip_hash", AvpValues.str(nvl(AuthCtx.ipHash(), "unknown")));
+        ctxAttrs.put("user_agent_hash", AvpValues.str(nvl(AuthCtx.uaHash(), "unknown")));
+        if (AuthCtx.idempotencyKey() != null) {
+          ctxAttrs.put("idempotency_key", AvpValues.str(AuthCtx.idempotencyKey()));
         }
-        ctxAttrs.put("mfa_verified", AvpValues.bool(principal.mfa())); // SOLO señal, NO policy obligatoria
+        ctxAttrs.put("mfa_verified", AvpValues.bool(mfa)); // SOLO señal, NO policy obligatoria
+        context = Collections.unmodifiableMap(ctxAttrs);
+      }
+      if (extra == null || extra.isEmpty()) return context;
+      Map<String, AttributeValue> merged = new HashMap<>(context);
+      merged.putAll(extra);
+      return merged;
+    }
+  }
 
-        AccountResourceTemplates.PrincipalData p =
-            new AccountResourceTemplates.PrincipalData(principalId, customerIdF, rolesF, mfaF);
+  // deny previo a AVP (sin trailers de motivo, como antes)
+  private static final class EarlyDeny extends RuntimeException {
+    EarlyDeny(String note) {
+      super(note, null, false, false);
+    }
+  }
 
-        AccountResourceTemplates.Resolved res;
-        try {
-          res = templates.resolve(def.resourceTemplate(), route, message, p);
-        } catch (Exception e) {
-          deny.accept(Status.PERMISSION_DENIED.withDescription("Denied"), "resource_resolve_error");
-          return;
-        }
+  /**
+   * Listener que no bloquea el executor de gRPC:
+   * - el handler real (delegate) recién arranca cuando hay principal y, en AUTHZ, el primer mensaje autorizado
+   * - cada mensaje se autoriza en un virtual thread; las decisiones se encadenan en orden de llegada
+   * - halfClose/ready se encolan detrás de los mensajes pendientes; onCancel/deadline corta la cadena
+   * Todos los eventos hacia el delegate se entregan bajo el mismo lock (nunca concurrentes).
+   */
+  private static final class AsyncAuthzListener<ReqT, RespT> extends ServerCall.Listener<ReqT> {
+
+    private final ServerCall<ReqT, RespT> call;
+    private final Metadata headers;
+    private final ServerCallHandler<ReqT, RespT> next;
+    private final Context outer;
+    private final Executor asyncExec;
+    private final Function<ResolvedPrincipal, Context> principalCtx;
+    private final BiPredicate<ResolvedPrincipal, ReqT> authorize;
+    private final BiConsumer<Status, String> deny;
+    private final Consumer<String> earlyDeny;
+
+    private final Object lock = new Object();
+    private ServerCall.Listener<ReqT> delegate;
+    private CompletableFuture<ResolvedPrincipal> tail;
+    private volatile boolean done;
+
+    AsyncAuthzListener(
+        ServerCall<ReqT, RespT> call,
+        Metadata headers,
+        ServerCallHandler<ReqT, RespT> next,
+        Context outer,
+        CompletableFuture<ResolvedPrincipal> principalF,
+        Executor asyncExec,
+        Function<ResolvedPrincipal, Context> principalCtx,
+        BiPredicate<ResolvedPrincipal, ReqT> authorize,
+        BiConsumer<Status, String> deny,
+        Consumer<String> earlyDeny
+    ) {
+      this.call = call;
+      this.headers = headers;
+      this.next = next;
+      this.outer = outer;
+      this.asyncExec = asyncExec;
+      this.principalCtx = principalCtx;
+      this.authorize = authorize;
+      this.deny = deny;
+      this.earlyDeny = earlyDeny;
+      this.tail = principalF.whenComplete((p, err) -> {
+        if (err != null) fail(err);
+      });
+    }
 
-        // merge context attrs si template agrega algo
-        if (res.contextAttrs() != null && !res.contextAttrs().isEmpty()) {
-          ctxAttrs.putAll(res.contextAttrs());
-        }
+    void startWithoutMessage() {
+      append(p -> deliver(p, null));
+    }
 
-        AvpAuthorizer.DecisionResult decision;
-        log.debug("AUTHZ AVP_REQUEST route={} action={} ctx.customer_id={} resourceType={} resourceId={} resourceAttrs={}",
-            route,
-            def.actionId(),
-            customerIdF,
-            res.resourceEntity().identifier().entityType(),
-            res.resourceEntity().identifier().entityId(),
-            res.resourceEntity().attributes()
-        );
+    void startWithFirstMessage() {
+      // si el principal falla el mensaje se descarta; igual se pide para no dejar la llamada colgada
+      call.request(1);
+    }
 
-        log.debug("AUTHZ AVP_CONTEXT keys={}", ctxAttrs.keySet());
-        try {
-          decision = avp.authorizeWithToken(
-            tokenF,
-            def.actionId(),
-            principalEntity,
-            res.resourceEntity(),
-            res.extraEntities(),
-            ctxAttrs
-            );
-        } catch (Exception e) {
-          deny.accept(Status.PERMISSION_DENIED.withDescription("Authorization error"), "avp_error");
+    @Override
+    public void onMessage(ReqT message) {
+      synchronized (lock) {
+        if (done) return;
+        tail = tail.thenApplyAsync(p -> {
+          if (done || outer.isCancelled()) return p;
+          boolean allowed;
+          try {
+            allowed = authorize.test(p, message);
+          } catch (RuntimeException e) {
+            fail(e);
+            return p;
+          }
+          if (allowed) deliver(p, l -> l.onMessage(message));
+          else done = true;
+          return p;
+        }, asyncExec);
+      }
+    }
+
+    @Override
+    public void onHalfClose() {
+      append(p -> deliver(p, ServerCall.Listener::onHalfClose));
+    }
+
+    @Override
+    public void onReady() {
+      synchronized (lock) {
+        if (delegate != null) {
+          delegate.onReady();
           return;
         }
+      }
+      append(p -> deliver(p, ServerCall.Listener::onReady));
+    }
 
-        log.debug("AUTHZ AVP_RESPONSE decision={} determiningPolicies={}",
-            decision.decision(),
-            decision.determiningPolicies()
-        );
+    @Override
+    public void onCancel() {
+      // cancelación del cliente o deadline vencido: lo que esté en vuelo se descarta
+      synchronized (lock) {
+        done = true;
+        if (delegate != null) delegate.onCancel();
+      }
+    }
 
-        if (decision.decision() != Decision.ALLOW) {
-        log.warn("AUTHZ_DENY route={} action={} ctx.customer_id={} resource.owner_customer_id={} resourceId={} policies={}",
-            route,
-            def.actionId(),
-            customerIdF,
-            (res.resourceEntity().attributes().get("owner_customer_id") == null ? null : res.resourceEntity().attributes().get("owner_customer_id").string()),
-            res.resourceEntity().identifier().entityId(),
-            decision.determiningPolicies()
-        );
-        }
+    @Override
+    public void onComplete() {
+      synchronized (lock) {
+        done = true;
+        if (delegate != null) delegate.onComplete();
+      }
+    }
+
+    private void append(Consumer<ResolvedPrincipal> step) {
+      synchronized (lock) {
+        if (done) return;
+        tail = tail.thenApply(p -> {
+          if (!done) step.accept(p);
+          return p;
+        });
+      }
+    }
 
-        if (def.critical()) {
-          publish("ALLOW", "avp_allow", def.actionId(), route, null, started);
+    // arranca el handler con el principal en el Context (una sola vez) y le entrega el evento
+    private void deliver(ResolvedPrincipal p, Consumer<ServerCall.Listener<ReqT>> event) {
+      synchronized (lock) {
+        if (done) return;
+        try {
+          if (delegate == null) {
+            delegate = Contexts.interceptCall(principalCtx.apply(p), call, headers, next);
+          }
+          if (event != null) event.accept(delegate);
+        } catch (RuntimeException e) {
+          // mismo trato que ServerImpl para un listener que lanza: se cierra la llamada
+          done = true;
+          call.close(Status.fromThrowable(e), new Metadata());
         }
+      }
+    }
 
-        super.onMessage(message);
+    private void fail(Throwable err) {
+      Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+      synchronized (lock) {
+        if (done) return;
+        done = true;
       }
-    };
+      outer.run(() -> {
+        if (cause instanceof EarlyDeny ed) earlyDeny.accept(ed.getMessage());
+        else deny.accept(Status.PERMISSION_DENIED.withDescription("Authorization error"), "authz_error");
+      });
+    }
   }
 
   private void publish(String outcome, String note, String actionId, String route, Object resOrNull, long startedNano) {
-    String corrId = AuthCtx.CORRELATION_ID.get();
+    publish(outcome, note, actionId, route, startedNano, "avp");
+  }
+
+  private void publish(String outcome, String note, String actionId, String route, long startedNano, String source) {
+    String corrId = AuthCtx.correlationId();
     long elapsedMs = (System.nanoTime() - startedNano) / 1_000_000;
 
     var base = new HashMap<>(AuditPublisher.base("account", props.env(), corrId));
@@ -303,14 +632,14 @@ public class AuthzServerInterceptor implements ServerInterceptor {
     if (principal != null) {
       base.put("actor", Map.of(
           "sub", principal.sub(),
-          "customer_id", principal.customerIdOrNull(),
+          "customer_id", nvl(principal.customerIdOrNull(), ""),
           "roles", principal.roles(),
           "mfa", principal.mfa()
       ));
     }
 
     base.put("decision", Map.of(
-        "source", "avp",
+        "source", source,
         "policy_store_id", props.aws().avpPolicyStoreId(),
         "decision", outcome
     ));
@@ -325,24 +654,6 @@ public class AuthzServerInterceptor implements ServerInterceptor {
     return null;
   }
 
-  private static String claimString(Jwt jwt, String name) {
-    Object v = jwt.getClaims().get(name);
-    return v == null ? null : String.valueOf(v);
-  }
-
-  @SuppressWarnings("unchecked")
-  private static List<String> claimStringList(Jwt jwt, String name) {
-    Object v = jwt.getClaims().get(name);
-    if (v instanceof List<?> list) return list.stream().map(String::valueOf).toList();
-    return List.of();
-  }
-
-  private static String buildAvpPrincipalId(Jwt jwt) {
-    String iss = jwt.getIssuer() != null ? jwt.getIssuer().toString() : "";
-    String poolId = iss.substring(iss.lastIndexOf('/') + 1);
-    return poolId + "|" + jwt.getSubject();
-  }
-
   private static String nvl(String v, String def) {
     return (v == null || v.isBlank()) ? def : v;
   }
@@ -0,0 +1,71 @@
+package com.tagokoder.account.infra.security.grpc;
+
+import java.util.UUID;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tagokoder.account.infra.config.AppProps;
+import com.tagokoder.account.infra.security.context.CallContext;
+import com.tagokoder.account.infra.security.util.Hashing;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Correlation + idempotency-key + authz en una sola pasada:
+ * - headers parseados una vez a un {@link CallContext} inmutable (una sola key en el Context)
+ * - hashes salteados de IP/UA memoizados en un cache acotado (mismo valor => mismo hash)
+ * - un único Contexts.interceptCall alrededor del authz (antes uno por interceptor)
+ * Reemplaza a CorrelationServerInterceptor cuando security.grpc.fused=true.
+ */
+public class FusedServerInterceptor implements ServerInterceptor {
+
+    private static final Metadata.Key<String> CORR =
+            Metadata.Key.of("x-correlation-id", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> IDEMP =
+            Metadata.Key.of("idempotency-key", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> XFF =
+            Metadata.Key.of("x-forwarded-for", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> UA =
+            Metadata.Key.of("user-agent", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final String salt;
+    private final String channel;
+    private final ServerInterceptor authz;
+    private final Cache<String, String> hashes;
+
+    public FusedServerInterceptor(AppProps props, ServerInterceptor authz, long hashCacheSize) {
+        this.salt = props.security().hashSalt();
+        this.channel = props.security().channel();
+        this.authz = authz;
+        this.hashes = Caffeine.newBuilder().maximumSize(hashCacheSize).build();
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+
+        String cid = headers.get(CORR);
+        if (cid == null || cid.isBlank()) cid = UUID.randomUUID().toString();
+
+        CallContext cc = new CallContext(
+                cid,
+                call.getMethodDescriptor().getFullMethodName(),
+                headers.get(IDEMP),
+                hash(headers.get(XFF)),
+                hash(headers.get(UA)),
+                channel);
+
+        Context ctx = cc.attach(Context.current());
+        return Contexts.interceptCall(ctx, call, headers, (c, h) -> authz.interceptCall(c, h, next));
+    }
+
+    private String hash(String value) {
+        if (value == null) return null;
+        return hashes.get(value, v -> Hashing.sha256Hex(salt, v));
+    }
+}
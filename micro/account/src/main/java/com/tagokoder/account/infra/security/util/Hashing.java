@@ -2,6 +2,7 @@ package com.tagokoder.account.infra.security.util;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.HexFormat;
 
 public final class Hashing {
     private Hashing() {}
@@ -11,9 +12,7 @@ public final class Hashing {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
             byte[] out = md.digest((salt + ":" + value).getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(out.length * 2);
-            for (byte b : out) sb.append(String.format("%02x", b));
-            return sb.toString();
+            return HexFormat.of().formatHex(out);
         } catch (Exception e) {
             return null;
         }
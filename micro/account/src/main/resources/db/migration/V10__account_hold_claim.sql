@@ -0,0 +1,17 @@
+-- ReserveHold en un solo statement (SpringDataAccountHoldJpa.reserveAtomic).
+-- account_holds está particionada por created_at: no hay unique global sobre idempotency_key.
+-- account_hold_claim serializa por key con un advisory lock de transacción y, al ser VOLATILE,
+-- busca con un snapshot nuevo (tomado después del lock): un reintento concurrente con la misma
+-- key espera al primero y ve su fila en vez de reservar dos veces.
+create or replace function account_hold_claim(p_idempotency_key text)
+returns table(account_id uuid, hold_id uuid, status text)
+language plpgsql volatile as $$
+begin
+  perform pg_advisory_xact_lock(hashtextextended('account_holds:' || p_idempotency_key, 0));
+  return query
+    select h.account_id, h.hold_id, h.status
+    from account_holds h
+    where h.idempotency_key = p_idempotency_key
+    order by h.created_at desc
+    limit 1;
+end $$;
@@ -0,0 +1,10 @@
+-- Vencimiento de holds: un hold 'reserved' que nadie libera ni liquida deja available retenido
+-- para siempre (pago abandonado, caller caído). expires_at se fija al reservar (holds.expiry.ttl)
+-- y HoldExpirySweeper libera los vencidos por lotes con FOR UPDATE SKIP LOCKED.
+-- Holds previos quedan con expires_at null: no vencen solos.
+alter table account_holds add column if not exists expires_at timestamptz;
+
+-- backlog del sweeper: solo los reservados, ordenados por vencimiento
+create index if not exists idx_account_holds_expiring
+  on account_holds(expires_at)
+  where status = 'reserved' and expires_at is not null;
@@ -0,0 +1,15 @@
+-- Uso diario de límites (daily_out / daily_in) por cuenta y día UTC: una fila por (cuenta, día),
+-- validación = lookup por pk, sin sumar historia. Escribe LimitUsageAccumulator en lotes
+-- (upsert sumando); filas de días viejos se purgan por retención (limits.usage.retention-days).
+-- Sin FK a accounts: un posting de una cuenta desconocida no debe tumbar el lote entero.
+create table if not exists account_limit_usage (
+  account_id uuid not null,
+  day date not null,
+  out_used numeric(20,6) not null default 0,
+  in_used numeric(20,6) not null default 0,
+  updated_at timestamptz not null default now(),
+  primary key (account_id, day)
+) with (fillfactor = 80);
+
+-- purga por retención
+create index if not exists idx_account_limit_usage_day on account_limit_usage(day);
@@ -0,0 +1,22 @@
+-- Estado 'expired_unapplied': hold vencido que el sweeper no pudo devolver porque el hold de la
+-- cuenta no alcanza (releases sin hold_id, holds previos a account_holds). Queda fuera del
+-- backlog (idx_account_holds_expiring es solo 'reserved') para que una cuenta inconsistente no
+-- frene el vencimiento del resto; se revisa a mano (HoldExpirySweeper lo loguea y lo cuenta).
+--
+-- El CHECK original (V1) se copió a cada partición (V5 / PartitionManager, "including constraints"):
+-- se saca del padre y de cada partición y se vuelve a poner en el padre, que lo propaga.
+do $$
+declare
+  p regclass;
+begin
+  alter table account_holds drop constraint if exists account_holds_status_check;
+  for p in select inhrelid::regclass from pg_inherits where inhparent = 'account_holds'::regclass loop
+    execute format('alter table %s drop constraint if exists account_holds_status_check', p);
+  end loop;
+end $$;
+
+-- superconjunto del anterior: NOT VALID + VALIDATE sin bloquear escrituras durante el scan
+alter table account_holds
+  add constraint account_holds_status_check
+  check (status in ('reserved', 'released', 'settled', 'expired_unapplied')) not valid;
+alter table account_holds validate constraint account_holds_status_check;
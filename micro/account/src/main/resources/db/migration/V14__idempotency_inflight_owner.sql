@@ -0,0 +1,6 @@
+-- Dueño del marcador in_flight (IdempotencyRepositoryAdapter): begin y la toma de un marcador
+-- stale escriben un token nuevo; complete y abandon solo tocan la fila si el token sigue siendo
+-- el suyo. Un dueño lento al que le tomaron la key no pisa ni borra la fila del que la tomó.
+-- Filas previas: owner null (completed, o in_flight de réplicas sin esta versión).
+alter table idempotency_records
+  add column if not exists owner uuid null;
@@ -0,0 +1,15 @@
+-- Inbox: aislamiento de mensajes venenosos (ledger.journal.posted)
+-- status: received|processed|failed|quarantined
+alter table inbox_events
+  add column if not exists attempts int not null default 0;
+
+-- body SQS crudo, solo se guarda al poner en cuarentena (para replay)
+alter table inbox_events
+  add column if not exists payload text null;
+
+alter table inbox_events
+  add column if not exists quarantined_at timestamptz null;
+
+create index if not exists idx_inbox_events_quarantined
+  on inbox_events(event_type, quarantined_at)
+  where status = 'quarantined';
@@ -0,0 +1,146 @@
+-- Particionado por rango de tiempo de inbox_events / idempotency_records / account_holds
+-- (retención y pre-creación de particiones: PartitionManager).
+--
+-- Camino para datos existentes, sin copiar filas ni locks largos (corre fuera de transacción,
+-- ver V5__partition_retention_tables.sql.conf):
+-- 1) las claves nuevas de la tabla actual se construyen con CREATE UNIQUE INDEX CONCURRENTLY
+-- 2) CHECK del rango legacy: NOT VALID (lock corto) + VALIDATE CONSTRAINT (SHARE UPDATE EXCLUSIVE,
+--    no bloquea lecturas ni escrituras)
+-- 3) swap en un solo DO block (atómico, sin scans): claves viejas -> nuevas con USING INDEX,
+--    la tabla se renombra a <tabla>_p_legacy, se crea el padre particionado con el mismo shape
+--    y legacy se adjunta como [MINVALUE, cutover): ATTACH reusa índices y CHECK ya validados.
+--    El job borra legacy cuando sale de la retención.
+-- cutover = pasado mañana 00:00 UTC: el CHECK rige para escrituras nuevas desde el paso 2
+-- y el margen cubre una migración que cruza medianoche.
+--
+-- Postgres exige que las claves únicas incluyan la columna de partición:
+-- - inbox_events: pk (event_id, received_at); el dedupe global lo hace tryBeginAll con advisory locks
+-- - idempotency_records: unique (idempotency_key, created_at)
+-- - account_holds: pk (account_id, hold_id, created_at), unique (idempotency_key, created_at)
+--
+-- IMPORTANTE: se pierde la unicidad global de idempotency_key en idempotency_records y
+-- account_holds (la misma key en dos particiones no choca). Desde acá el único dedupe es el
+-- protocolo de advisory locks:
+-- - idempotency_records: IdempotencyRepositoryAdapter.begin, lock por (key, operation)
+-- - account_holds: account_hold_claim (V10), lock por key antes de reservar
+-- Todo INSERT nuevo en estas tablas debe pasar por esos caminos.
+
+select set_config('v5.cutover',
+  (date_trunc('day', now() at time zone 'UTC') at time zone 'UTC' + interval '2 days')::text, false);
+
+-- =========================================================
+-- 1) claves nuevas, sin bloquear escrituras
+-- (si un build concurrente falla queda un índice INVALID: dropearlo y re-ejecutar)
+-- =========================================================
+create unique index concurrently if not exists inbox_events_p_legacy_pkey
+  on inbox_events(event_id, received_at);
+
+create unique index concurrently if not exists idempotency_records_p_legacy_pkey
+  on idempotency_records(id, created_at);
+create unique index concurrently if not exists idempotency_records_p_legacy_key_uq
+  on idempotency_records(idempotency_key, created_at);
+
+create unique index concurrently if not exists account_holds_p_legacy_pkey
+  on account_holds(account_id, hold_id, created_at);
+create unique index concurrently if not exists account_holds_p_legacy_idk_uq
+  on account_holds(idempotency_key, created_at);
+
+-- =========================================================
+-- 2) CHECK del rango legacy: NOT VALID + VALIDATE por separado
+-- =========================================================
+do $$
+declare
+  t record;
+begin
+  for t in
+    select * from (values
+      ('inbox_events', 'received_at'),
+      ('idempotency_records', 'created_at'),
+      ('account_holds', 'created_at')
+    ) as v(parent, col)
+  loop
+    execute format(
+      'alter table %I add constraint %I check (%I is not null and %I < %L) not valid',
+      t.parent, t.parent || '_p_legacy_bound', t.col, t.col, current_setting('v5.cutover'));
+  end loop;
+end $$;
+
+alter table inbox_events validate constraint inbox_events_p_legacy_bound;
+alter table idempotency_records validate constraint idempotency_records_p_legacy_bound;
+alter table account_holds validate constraint account_holds_p_legacy_bound;
+
+-- =========================================================
+-- 3) swap + attach, un DO block por tabla: solo catálogo, ACCESS EXCLUSIVE breve
+-- =========================================================
+
+-- inbox_events (received_at)
+do $$
+begin
+  alter table inbox_events drop constraint inbox_events_pkey;
+  alter table inbox_events
+    add constraint inbox_events_p_legacy_pkey primary key using index inbox_events_p_legacy_pkey;
+  alter table inbox_events rename to inbox_events_p_legacy;
+  alter index idx_inbox_events_quarantined rename to inbox_events_p_legacy_quarantined_idx;
+
+  create table inbox_events (like inbox_events_p_legacy including defaults)
+    partition by range (received_at);
+  alter table inbox_events add constraint inbox_events_pkey primary key (event_id, received_at);
+  create index idx_inbox_events_quarantined
+    on inbox_events(event_type, quarantined_at)
+    where status = 'quarantined';
+
+  execute format(
+    'alter table inbox_events attach partition inbox_events_p_legacy for values from (minvalue) to (%L)',
+    current_setting('v5.cutover'));
+  alter table inbox_events_p_legacy drop constraint inbox_events_p_legacy_bound;
+end $$;
+
+-- idempotency_records (created_at)
+do $$
+begin
+  alter table idempotency_records drop constraint idempotency_records_pkey;
+  alter table idempotency_records drop constraint idempotency_records_idempotency_key_key;
+  alter table idempotency_records
+    add constraint idempotency_records_p_legacy_pkey primary key using index idempotency_records_p_legacy_pkey;
+  alter table idempotency_records
+    add constraint idempotency_records_p_legacy_key_uq unique using index idempotency_records_p_legacy_key_uq;
+  alter table idempotency_records rename to idempotency_records_p_legacy;
+
+  create table idempotency_records (like idempotency_records_p_legacy including defaults)
+    partition by range (created_at);
+  alter table idempotency_records add constraint idempotency_records_pkey primary key (id, created_at);
+  alter table idempotency_records
+    add constraint uq_idempotency_records_key unique (idempotency_key, created_at);
+
+  execute format(
+    'alter table idempotency_records attach partition idempotency_records_p_legacy for values from (minvalue) to (%L)',
+    current_setting('v5.cutover'));
+  alter table idempotency_records_p_legacy drop constraint idempotency_records_p_legacy_bound;
+end $$;
+
+-- account_holds (created_at)
+do $$
+begin
+  alter table account_holds drop constraint account_holds_pkey;
+  drop index if exists uq_account_holds_idk;
+  alter table account_holds
+    add constraint account_holds_p_legacy_pkey primary key using index account_holds_p_legacy_pkey;
+  alter table account_holds
+    add constraint account_holds_p_legacy_idk_uq unique using index account_holds_p_legacy_idk_uq;
+  alter table account_holds rename to account_holds_p_legacy;
+
+  create table account_holds (like account_holds_p_legacy including defaults including constraints)
+    partition by range (created_at);
+  -- including constraints también copia el CHECK de rango: en el padre no va
+  alter table account_holds drop constraint account_holds_p_legacy_bound;
+  alter table account_holds add constraint account_holds_pkey primary key (account_id, hold_id, created_at);
+  alter table account_holds add constraint uq_account_holds_idk unique (idempotency_key, created_at);
+  alter table account_holds
+    add constraint account_holds_account_id_fkey
+    foreign key (account_id) references accounts(id) on delete cascade;
+
+  execute format(
+    'alter table account_holds attach partition account_holds_p_legacy for values from (minvalue) to (%L)',
+    current_setting('v5.cutover'));
+  alter table account_holds_p_legacy drop constraint account_holds_p_legacy_bound;
+end $$;
@@ -0,0 +1,15 @@
+-- Idempotency de dos niveles (IdempotencyService):
+-- - response_bin: respuesta protobuf serializada (reemplaza response_json jsonb para filas nuevas)
+-- - status: in_flight mientras la primera ejecución corre; completed con la respuesta
+-- - started_at: edad del marcador in_flight (un dueño caído se toma tras el timeout)
+alter table idempotency_records
+  add column if not exists response_bin bytea null;
+
+alter table idempotency_records
+  add column if not exists status text not null default 'completed';
+
+alter table idempotency_records
+  add column if not exists started_at timestamptz not null default now();
+
+alter table idempotency_records
+  alter column response_json drop not null;
@@ -0,0 +1,4 @@
+-- ListAccounts: filtro por cliente + orden keyset (opened_at, id) servidos por el mismo índice
+-- (reemplaza idx_accounts_customer, que es prefijo de este)
+create index if not exists idx_accounts_customer_opened on accounts(customer_id, opened_at, id);
+drop index if exists idx_accounts_customer;
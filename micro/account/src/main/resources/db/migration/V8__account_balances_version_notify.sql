@@ -0,0 +1,23 @@
+-- Near-cache de balances (CachedAccountBalanceRepository / BalanceChangeListener):
+-- - version: +1 en cada cambio de la fila (trigger); las réplicas solo descartan entradas más viejas
+-- - NOTIFY account_balances '<account_id>:<version>:<epoch_ms>' por fila cambiada.
+--   Postgres entrega la notificación al commit (nunca si hay rollback) y deduplica payloads iguales.
+alter table account_balances add column if not exists version bigint not null default 0;
+
+create or replace function account_balances_bump_version() returns trigger
+language plpgsql as $$
+begin
+  new.version := old.version + 1;
+  perform pg_notify(
+    'account_balances',
+    new.account_id::text || ':' || new.version || ':' || (extract(epoch from clock_timestamp()) * 1000)::bigint);
+  return new;
+end $$;
+
+create trigger trg_account_balances_version
+  before update on account_balances
+  for each row
+  when (old.ledger is distinct from new.ledger
+        or old.available is distinct from new.available
+        or old.hold is distinct from new.hold)
+  execute function account_balances_bump_version();
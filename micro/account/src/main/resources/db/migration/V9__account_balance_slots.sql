@@ -0,0 +1,29 @@
+-- Cuentas hot (comercios / cuentas de sistema): el saldo se reparte en N slots para que
+-- reserve/release/créditos concurrentes no serialicen sobre una sola fila (BalanceSlots).
+-- - account_balances.slots = 0: modo normal, todo en la fila principal
+-- - slots > 0: la fila principal queda en 0 y el saldo es la suma de account_balance_slots
+-- Los statements de modo normal filtran slots = 0; una cuenta hot nunca bloquea su fila principal.
+alter table account_balances add column if not exists slots int not null default 0;
+
+create table if not exists account_balance_slots (
+  account_id uuid not null references account_balances(account_id) on delete cascade,
+  slot int not null,
+  ledger numeric(20,6) not null default 0,
+  available numeric(20,6) not null default 0,
+  hold numeric(20,6) not null default 0,
+  primary key (account_id, slot)
+);
+
+-- BalanceSlotRebalancer recorre solo las cuentas hot
+create index if not exists idx_account_balances_hot on account_balances(account_id) where slots > 0;
+
+-- el near-cache tiene que enterarse también del cambio de modo (aunque los saldos no cambien)
+drop trigger if exists trg_account_balances_version on account_balances;
+create trigger trg_account_balances_version
+  before update on account_balances
+  for each row
+  when (old.ledger is distinct from new.ledger
+        or old.available is distinct from new.available
+        or old.hold is distinct from new.hold
+        or old.slots is distinct from new.slots)
+  execute function account_balances_bump_version();
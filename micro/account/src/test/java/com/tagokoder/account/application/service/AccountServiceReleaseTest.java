@@ -0,0 +1,133 @@
+package com.tagokoder.account.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.tagokoder.account.domain.port.in.ReleaseHoldUseCase.Command;
+import com.tagokoder.account.domain.port.out.AccountBalanceRepositoryPort;
+import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort;
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort;
+
+/** release con hold_id: holds registrados, y sin fila solo en modo legacy (decrementHold con hold suficiente). */
+class AccountServiceReleaseTest {
+
+  private final FakeHolds holds = new FakeHolds();
+  private final FakeBalances balances = new FakeBalances();
+  private final FakeUsage usage = new FakeUsage();
+  private final AccountService service = new AccountService(null, balances, null, null, holds, usage, null, true);
+
+  @Test
+  void legacyHoldWithoutRowIsReleasedFromBalance() {
+    holds.outcome = notFound();
+    balances.hold = new BigDecimal("25");
+
+    var res = service.release(release("10"));
+
+    assertEquals("released", res.status());
+    assertEquals(0, new BigDecimal("15").compareTo(res.newHold()));
+    assertEquals(0, new BigDecimal("-10").compareTo(usage.out));
+  }
+
+  @Test
+  void legacyReleaseNeverTakesMoreThanTheAccountHold() {
+    holds.outcome = notFound();
+    balances.hold = new BigDecimal("5");
+
+    var e = assertThrows(IllegalArgumentException.class, () -> service.release(release("10")));
+    assertEquals("insufficient hold or balances not found", e.getMessage());
+    assertEquals(0, new BigDecimal("5").compareTo(balances.hold));
+    assertEquals(0, BigDecimal.ZERO.compareTo(usage.out));
+  }
+
+  @Test
+  void unknownHoldIdIsRejectedWithoutTouchingBalanceWhenLegacyIsOff() {
+    var strict = new AccountService(null, balances, null, null, holds, usage, null, false);
+    holds.outcome = notFound();
+    balances.hold = new BigDecimal("25");
+
+    var e = assertThrows(IllegalArgumentException.class, () -> strict.release(release("10")));
+    assertEquals("hold not found", e.getMessage());
+    assertEquals(0, new BigDecimal("25").compareTo(balances.hold));
+  }
+
+  @Test
+  void alreadyReleasedHoldIsDuplicate() {
+    holds.outcome = new AccountHoldRepositoryPort.ReleaseOutcome(
+        "USD", "released", BigDecimal.TEN, null, false, null, BigDecimal.ONE, false);
+
+    var res = service.release(release("10"));
+    assertEquals("duplicate", res.status());
+    assertEquals(BigDecimal.ONE, res.newHold());
+  }
+
+  private static AccountHoldRepositoryPort.ReleaseOutcome notFound() {
+    return new AccountHoldRepositoryPort.ReleaseOutcome("USD", null, null, null, false, null, BigDecimal.TEN, false);
+  }
+
+  private static Command release(String amount) {
+    return new Command(UUID.randomUUID(), "USD", new BigDecimal(amount), null, UUID.randomUUID());
+  }
+
+  private static final class FakeHolds implements AccountHoldRepositoryPort {
+    ReleaseOutcome outcome;
+
+    @Override public ReleaseOutcome releaseAtomic(UUID accountId, UUID holdId, String currency, BigDecimal amount) {
+      return outcome;
+    }
+
+    @Override public Optional<HoldRow> findByIdempotencyKey(String idempotencyKey) { throw new UnsupportedOperationException(); }
+    @Override public Optional<HoldRow> find(UUID accountId, UUID holdId) { throw new UnsupportedOperationException(); }
+    @Override public void insertReserved(UUID accountId, UUID holdId, String currency, BigDecimal amount, String idempotencyKey) {
+      throw new UnsupportedOperationException();
+    }
+    @Override public void markReleased(UUID accountId, UUID holdId) { throw new UnsupportedOperationException(); }
+    @Override public ReserveOutcome reserveAtomic(UUID accountId, UUID holdId, String currency, BigDecimal amount, String idempotencyKey) {
+      throw new UnsupportedOperationException();
+    }
+    @Override public boolean releaseIfReserved(UUID accountId, UUID holdId, BigDecimal amount) { throw new UnsupportedOperationException(); }
+    @Override public Set<HoldKey> settleCaptured(Collection<HoldKey> captured) { throw new UnsupportedOperationException(); }
+  }
+
+  // como releaseHoldAtomic: solo baja si hold >= amount
+  private static final class FakeBalances implements AccountBalanceRepositoryPort {
+    BigDecimal hold = BigDecimal.ZERO;
+
+    @Override public BigDecimal decrementHold(UUID accountId, BigDecimal amount) {
+      if (hold.compareTo(amount) < 0) throw new IllegalArgumentException("insufficient hold or balances not found");
+      hold = hold.subtract(amount);
+      return hold;
+    }
+
+    @Override public Optional<BalancesRow> findByAccountId(UUID accountId) { throw new UnsupportedOperationException(); }
+    @Override public void init(UUID accountId, BigDecimal ledger, BigDecimal available, BigDecimal hold) {
+      throw new UnsupportedOperationException();
+    }
+    @Override public void initZero(UUID accountId) { throw new UnsupportedOperationException(); }
+    @Override public BigDecimal incrementHold(UUID accountId, BigDecimal amount) { throw new UnsupportedOperationException(); }
+    @Override public BigDecimal applyCredit(UUID accountId, BigDecimal amount) { throw new UnsupportedOperationException(); }
+    @Override public int applyDeltas(Collection<BalanceDelta> deltas) { throw new UnsupportedOperationException(); }
+  }
+
+  private static final class FakeUsage implements LimitUsageRepositoryPort {
+    BigDecimal out = BigDecimal.ZERO;
+
+    @Override public void add(UUID accountId, BigDecimal out, BigDecimal in) {
+      this.out = this.out.add(out);
+    }
+
+    @Override public void addAll(Collection<UsageDelta> deltas) { throw new UnsupportedOperationException(); }
+    @Override public void reverse(LocalDate day, Collection<UsageDelta> deltas) { throw new UnsupportedOperationException(); }
+    @Override public Usage today(UUID accountId) { throw new UnsupportedOperationException(); }
+    @Override public Map<UUID, Usage> today(Collection<UUID> accountIds) { throw new UnsupportedOperationException(); }
+  }
+}
@@ -0,0 +1,84 @@
+package com.tagokoder.account.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tagokoder.account.domain.port.in.BatchValidateAccountsAndLimitsUseCase;
+import com.tagokoder.account.domain.port.in.ValidateAccountsAndLimitsUseCase.Command;
+import com.tagokoder.account.domain.port.in.ValidateAccountsAndLimitsUseCase.Result;
+import com.tagokoder.account.domain.port.out.AccountValidationReadPort.ValidationRow;
+
+/** validate / validateBatch solo usan AccountValidationReadPort: una lectura por llamada, legs en secuencia. */
+class AccountServiceValidateTest {
+
+  private final UUID payer = UUID.randomUUID();
+  private final UUID alice = UUID.randomUUID();
+  private final UUID bob = UUID.randomUUID();
+  private final Map<UUID, ValidationRow> rows = new HashMap<>();
+  private final AtomicInteger reads = new AtomicInteger();
+
+  private final AccountService service = new AccountService(null, null, null, null, null, null, ids -> {
+    reads.incrementAndGet();
+    Map<UUID, ValidationRow> out = new HashMap<>();
+    for (UUID id : ids) if (rows.containsKey(id)) out.put(id, rows.get(id));
+    return out;
+  }, false);
+
+  @Test
+  void approvedLegsConsumeAvailableForTheNextOnes() {
+    rows.put(payer, row(payer, "250", "0", "0"));
+    rows.put(alice, row(alice, "0", "0", "0"));
+    rows.put(bob, row(bob, "0", "0", "0"));
+
+    var res = batch(leg(payer, alice, "100"), leg(payer, bob, "100"), leg(payer, alice, "100"));
+
+    assertEquals(1, reads.get());
+    assertTrue(res.get(0).ok());
+    assertTrue(res.get(1).ok());
+    assertEquals("insufficient available", res.get(2).reasonOrNull());
+  }
+
+  @Test
+  void dailyOutCountsUsageAlreadyRecordedToday() {
+    rows.put(payer, row(payer, "1000", "500", "420"));
+    rows.put(alice, row(alice, "0", "0", "0"));
+
+    var res = batch(leg(payer, alice, "50"), leg(payer, alice, "50"));
+
+    assertTrue(res.get(0).ok());
+    assertEquals("dailyOut limit exceeded", res.get(1).reasonOrNull());
+    assertEquals("dailyOut limit exceeded", service.validate(leg(payer, alice, "81")).reasonOrNull());
+  }
+
+  @Test
+  void missingAccountsAreReportedPerLeg() {
+    rows.put(payer, row(payer, "100", "0", "0"));
+
+    var res = batch(leg(payer, UUID.randomUUID(), "10"), leg(UUID.randomUUID(), payer, "10"));
+
+    assertEquals(new Result(false, "destination account not found"), res.get(0));
+    assertEquals(new Result(false, "source account not found"), res.get(1));
+  }
+
+  private List<Result> batch(Command... legs) {
+    return service.validateBatch(new BatchValidateAccountsAndLimitsUseCase.Command(List.of(legs))).results();
+  }
+
+  private static Command leg(UUID src, UUID dst, String amount) {
+    return new Command(src, dst, "USD", new BigDecimal(amount));
+  }
+
+  private static ValidationRow row(UUID id, String available, String dailyOut, String outUsed) {
+    return new ValidationRow(id, "active", "USD", new BigDecimal(available),
+        new BigDecimal(dailyOut), BigDecimal.ZERO, new BigDecimal(outUsed), BigDecimal.ZERO);
+  }
+}
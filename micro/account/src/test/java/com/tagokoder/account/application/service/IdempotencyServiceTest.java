@@ -0,0 +1,122 @@
+package com.tagokoder.account.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tagokoder.account.domain.port.out.IdempotencyRepositoryPort;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Filas completed previas a V6 (solo response_json) responden sin volver a ejecutar la acción;
+ * un dueño al que le tomaron el marcador no guarda ni cachea su respuesta.
+ */
+class IdempotencyServiceTest {
+
+  record LegacyResult(String accountId, Long accountNumber) {}
+
+  private static final IdempotencyService.Codec<String> CODEC = IdempotencyService.Codec
+    .<String>of(v -> v.getBytes(StandardCharsets.UTF_8), b -> new String(b, StandardCharsets.UTF_8))
+    .withLegacyJson(LegacyResult.class, r -> r.accountId() + ":" + r.accountNumber());
+
+  @Test
+  void legacyCompletedRowIsAnsweredFromItsJson() {
+    var repo = new FakeRepo(new IdempotencyRepositoryPort.Begin(
+      IdempotencyRepositoryPort.BeginState.COMPLETED, null, "{\"accountId\":\"a-1\",\"accountNumber\":42}"));
+    var idem = service(repo);
+
+    String first = idem.execute("k", "accounts.createAccount", CODEC, () -> fail("action must not run"));
+    String again = idem.execute("k", "accounts.createAccount", CODEC, () -> fail("action must not run"));
+
+    assertEquals("a-1:42", first);
+    assertEquals("a-1:42", again);
+    assertEquals(1, repo.begins);
+  }
+
+  @Test
+  void binaryResponseWinsOverLegacyJson() {
+    var repo = new FakeRepo(new IdempotencyRepositoryPort.Begin(
+      IdempotencyRepositoryPort.BeginState.COMPLETED, "bin".getBytes(StandardCharsets.UTF_8), null));
+
+    assertEquals("bin", service(repo).execute("k", "op", CODEC, () -> fail("action must not run")));
+  }
+
+  @Test
+  void takenOverOwnerDoesNotStoreItsResponse() {
+    UUID owner = UUID.randomUUID();
+    var repo = new FakeRepo(new IdempotencyRepositoryPort.Begin(
+      IdempotencyRepositoryPort.BeginState.ACQUIRED, null, null, owner));
+    repo.completes = false;
+    var idem = service(repo);
+    var runs = new AtomicInteger();
+
+    assertThrows(IdempotencyService.TakenOverException.class,
+      () -> idem.execute("k", "op", CODEC, () -> "v" + runs.incrementAndGet()));
+    assertEquals(owner, repo.completedBy);
+
+    // no quedó en L1: el reintento vuelve a pasar por el store
+    assertThrows(IdempotencyService.TakenOverException.class,
+      () -> idem.execute("k", "op", CODEC, () -> "v" + runs.incrementAndGet()));
+    assertEquals(2, repo.begins);
+  }
+
+  @Test
+  void failedActionAbandonsOnlyItsOwnMarker() {
+    UUID owner = UUID.randomUUID();
+    var repo = new FakeRepo(new IdempotencyRepositoryPort.Begin(
+      IdempotencyRepositoryPort.BeginState.ACQUIRED, null, null, owner));
+
+    assertThrows(IllegalStateException.class,
+      () -> service(repo).execute("k", "op", CODEC, () -> { throw new IllegalStateException("boom"); }));
+    assertEquals(owner, repo.abandonedBy);
+  }
+
+  private static IdempotencyService service(IdempotencyRepositoryPort repo) {
+    return new IdempotencyService(repo, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1),
+      Duration.ofSeconds(1), Duration.ofSeconds(30));
+  }
+
+  private static final class FakeRepo implements IdempotencyRepositoryPort {
+    private final Begin begin;
+    int begins;
+    boolean completes = true;
+    UUID completedBy;
+    UUID abandonedBy;
+
+    FakeRepo(Begin begin) {
+      this.begin = begin;
+    }
+
+    @Override
+    public Begin begin(String key, String operation, Duration staleAfter) {
+      begins++;
+      return begin;
+    }
+
+    @Override
+    public Optional<byte[]> findCompleted(String key, String operation) {
+      return Optional.ofNullable(begin.response());
+    }
+
+    @Override
+    public boolean complete(String key, String operation, UUID owner, int statusCode, byte[] response) {
+      if (begin.state() != BeginState.ACQUIRED) fail("complete must not be called");
+      completedBy = owner;
+      return completes;
+    }
+
+    @Override
+    public void abandon(String key, String operation, UUID owner) {
+      abandonedBy = owner;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.LedgerPostedDetail;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.Posting;
+
+/**
+ * Decoder streaming vs. el decoder anterior basado en árbol Jackson (readTree por cada nivel + readerForListOf).
+ *
+ * Ejecutar: mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.tagokoder.account.infra.in.sqs.LedgerEventDecoderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerEventDecoderBenchmark {
+
+  // sns = SNS envelope con detail string (peor caso del decoder anterior); eventbridge = detail objeto directo
+  @Param({ "sns", "eventbridge" })
+  String shape;
+
+  @Param({ "2", "8" })
+  int legs;
+
+  private String body;
+  private final LedgerEventDecoder streaming = new LedgerEventDecoder();
+  private final TreeDecoder tree = new TreeDecoder();
+
+  @Setup
+  public void setup() throws Exception {
+    ObjectMapper om = new ObjectMapper();
+    List<Map<String, Object>> postings = new ArrayList<>();
+    for (int i = 0; i < legs; i++) {
+      postings.add(Map.of(
+        "account_id", UUID.randomUUID().toString(),
+        "d_ledger", (i % 2 == 0 ? "-" : "") + "125.500000",
+        "d_available", (i % 2 == 0 ? "-" : "") + "125.500000",
+        "d_hold", "0.000000",
+        "currency", "USD"
+      ));
+    }
+    String detail = om.writeValueAsString(Map.of(
+      "event_id", UUID.randomUUID().toString(),
+      "journal_id", UUID.randomUUID().toString(),
+      "postings", postings
+    ));
+
+    if (shape.equals("sns")) {
+      String eb = om.writeValueAsString(Map.of(
+        "id", UUID.randomUUID().toString(),
+        "source", "bank.ledger",
+        "detail-type", "ledger.journal.posted",
+        "detail", detail
+      ));
+      body = om.writeValueAsString(Map.of(
+        "Type", "Notification",
+        "MessageId", UUID.randomUUID().toString(),
+        "TopicArn", "arn:aws:sns:us-east-1:000000000000:ledger-events",
+        "Message", eb
+      ));
+    } else {
+      body = om.writeValueAsString(Map.of(
+        "id", UUID.randomUUID().toString(),
+        "source", "bank.ledger",
+        "detail-type", "ledger.journal.posted",
+        "detail", om.readTree(detail)
+      ));
+    }
+  }
+
+  @Benchmark
+  public LedgerPostedDetail streaming() throws Exception {
+    return streaming.decode(body);
+  }
+
+  @Benchmark
+  public LedgerPostedDetail jacksonTree() throws Exception {
+    return tree.decode(body);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(LedgerEventDecoderBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+
+  /** Decoder previo: un readTree por nivel, data-binding de postings y BigDecimal desde String. */
+  static final class TreeDecoder {
+    private final ObjectMapper om = new ObjectMapper();
+
+    LedgerPostedDetail decode(String sqsBody) throws Exception {
+      JsonNode root = om.readTree(sqsBody);
+      LedgerPostedDetail detail = (root.has("Type") && root.has("Message"))
+        ? fromEventBridge(root.get("Message").asText())
+        : fromEventBridge(sqsBody);
+      if (detail.eventId() == null || detail.eventId().isBlank()) {
+        detail = new LedgerPostedDetail(extractEventId(sqsBody), detail.postings());
+      }
+      return detail;
+    }
+
+    private LedgerPostedDetail fromEventBridge(String json) throws Exception {
+      JsonNode eb = om.readTree(json);
+      String ebId = eb.has("id") ? eb.get("id").asText(null) : null;
+      JsonNode detailNode = eb.get("detail");
+      JsonNode d = detailNode.isTextual() ? om.readTree(detailNode.asText()) : detailNode;
+      String detailEventId = d.has("event_id") ? d.get("event_id").asText(null) : null;
+
+      List<LegacyPosting> legacy = om.readerForListOf(LegacyPosting.class).readValue(d.get("postings"));
+      List<Posting> postings = new ArrayList<>(legacy.size());
+      for (LegacyPosting p : legacy) {
+        postings.add(new Posting(
+          UUID.fromString(p.account_id),
+          new BigDecimal(p.d_ledger),
+          new BigDecimal(p.d_available),
+          new BigDecimal(p.d_hold)));
+      }
+      return new LedgerPostedDetail(detailEventId != null ? detailEventId : ebId, postings);
+    }
+
+    private String extractEventId(String sqsBody) throws Exception {
+      JsonNode root = om.readTree(sqsBody);
+      if (root.has("Message")) {
+        JsonNode eb = om.readTree(root.get("Message").asText());
+        if (eb.has("id")) return eb.get("id").asText();
+      }
+      return root.has("id") ? root.get("id").asText() : null;
+    }
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class LegacyPosting {
+    public String account_id;
+    public String d_ledger;
+    public String d_available;
+    public String d_hold;
+  }
+}
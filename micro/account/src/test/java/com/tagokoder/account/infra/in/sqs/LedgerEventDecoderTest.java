@@ -0,0 +1,44 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/** extractEventIdSafe devuelve la misma clave que decode (la de inbox_events), aunque el body no decodifique. */
+class LedgerEventDecoderTest {
+
+  private final LedgerEventDecoder decoder = new LedgerEventDecoder();
+
+  private static final String POSTING =
+      "{\"account_id\":\"00000000-0000-0000-0000-000000000001\",\"d_ledger\":\"1\",\"d_available\":\"1\",\"d_hold\":\"0\"}";
+
+  @Test
+  void eventKeyIsDetailEventId() throws Exception {
+    String body = "{\"id\":\"env-1\",\"detail\":{\"event_id\":\"ev-1\",\"postings\":[" + POSTING + "]}}";
+
+    assertEquals("ev-1", decoder.decode(body).eventId());
+    assertEquals("ev-1", decoder.extractEventIdSafe(body));
+  }
+
+  @Test
+  void eventKeyFallsBackToEnvelopeId() throws Exception {
+    String body = "{\"id\":\"env-1\",\"detail\":{\"postings\":[" + POSTING + "]}}";
+
+    assertEquals("env-1", decoder.decode(body).eventId());
+    assertEquals("env-1", decoder.extractEventIdSafe(body));
+  }
+
+  @Test
+  void eventKeyOfUndecodableDetailInsideSns() {
+    String event = "{\"id\":\"env-1\",\"detail\":\"{\\\"event_id\\\":\\\"ev-2\\\",\\\"postings\\\":\\\"bad\\\"}\"}";
+    String body = "{\"Type\":\"Notification\",\"Message\":" + quote(event) + "}";
+
+    assertEquals("ev-2", decoder.extractEventIdSafe(body));
+    assertNull(decoder.extractEventIdSafe("not json"));
+  }
+
+  private static String quote(String s) {
+    return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
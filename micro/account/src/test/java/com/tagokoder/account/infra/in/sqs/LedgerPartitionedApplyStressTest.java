@@ -0,0 +1,159 @@
+package com.tagokoder.account.infra.in.sqs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.LedgerPostedDetail;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.Posting;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.AccountBalanceRepositoryAdapter;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.AccountHoldRepositoryAdapter;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.InboxRepositoryAdapter;
+import com.tagokoder.account.infra.out.persistence.slots.BalanceSlots;
+import com.tagokoder.account.infra.out.persistence.usage.LimitUsageAccumulator;
+import com.tagokoder.account.infra.props.HoldExpiryProperties;
+import com.tagokoder.account.infra.props.LedgerConsumerProperties;
+import com.tagokoder.account.infra.props.LimitUsageProperties;
+import com.tagokoder.account.support.AccountFixtures;
+import com.tagokoder.account.support.PostgresSliceTest;
+
+/**
+ * Aplica muchos journals multi-cuenta en paralelo sobre pocas cuentas (alta contención)
+ * y verifica que account_balances termina igual a la suma de todos los deltas
+ * (también con cuentas hot: fila principal + account_balance_slots).
+ */
+@PostgresSliceTest({
+  AccountBalanceRepositoryAdapter.class,
+  AccountHoldRepositoryAdapter.class,
+  HoldExpiryProperties.class,
+  BalanceSlots.class,
+  InboxRepositoryAdapter.class,
+  LedgerConsumerProperties.class,
+  RecentEventIds.class,
+  LedgerPostingApplier.class,
+  LimitUsageAccumulator.class,
+  LimitUsageProperties.class
+})
+class LedgerPartitionedApplyStressTest {
+
+  private static final int ACCOUNTS = 12;
+  private static final int JOURNALS = 2_000;
+  private static final int BATCH = 10;
+
+  @Autowired
+  LedgerPostingApplier applier;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Autowired
+  BalanceSlots slots;
+
+  @Test
+  void finalBalancesEqualSumOfDeltas() {
+    List<UUID> accounts = seedAccounts();
+    applyAndVerify(accounts, new Random(42));
+  }
+
+  @Test
+  void hotAccountsEndWithTheSameTotals() {
+    List<UUID> accounts = seedAccounts();
+    // la mitad en modo hot: los deltas se reparten entre slots (y gather cuando un slot no alcanza)
+    for (int i = 0; i < ACCOUNTS; i += 2) slots.resize(accounts.get(i), 4);
+    applyAndVerify(accounts, new Random(7));
+
+    // volver a modo normal deja todo en la fila principal
+    for (int i = 0; i < ACCOUNTS; i += 2) slots.resize(accounts.get(i), 0);
+    assertEquals(0, jdbc.queryForObject("select count(*) from account_balance_slots", Integer.class));
+  }
+
+  private void applyAndVerify(List<UUID> accounts, Random rnd) {
+    Map<UUID, BigDecimal[]> expected = new HashMap<>();
+    for (UUID a : accounts) expected.put(a, new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO });
+
+    // journals de 2-3 patas sobre cuentas aleatorias, agrupados como receives de SQS
+    List<List<LedgerPostedDetail>> batches = new ArrayList<>();
+    List<LedgerPostedDetail> current = new ArrayList<>();
+    for (int j = 0; j < JOURNALS; j++) {
+      List<Posting> postings = new ArrayList<>();
+      int legs = 2 + rnd.nextInt(2);
+      for (int l = 0; l < legs; l++) {
+        UUID account = accounts.get(rnd.nextInt(ACCOUNTS));
+        BigDecimal dLedger = BigDecimal.valueOf(rnd.nextInt(20_000) - 10_000, 2);
+        BigDecimal dAvailable = BigDecimal.valueOf(rnd.nextInt(20_000) - 10_000, 2);
+        BigDecimal dHold = BigDecimal.valueOf(rnd.nextInt(2_000) - 1_000, 2);
+        postings.add(new Posting(account, dLedger, dAvailable, dHold));
+
+        BigDecimal[] sum = expected.get(account);
+        sum[0] = sum[0].add(dLedger);
+        sum[1] = sum[1].add(dAvailable);
+        sum[2] = sum[2].add(dHold);
+      }
+      current.add(new LedgerPostedDetail(UUID.randomUUID().toString(), postings));
+      if (current.size() == BATCH) {
+        batches.add(current);
+        current = new ArrayList<>();
+      }
+    }
+    if (!current.isEmpty()) batches.add(current);
+
+    try (AccountPartitionedExecutor executor = new AccountPartitionedExecutor(4)) {
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      for (List<LedgerPostedDetail> batch : batches) {
+        futures.add(executor.submit(accountsOf(batch), () -> applier.applyBatch(batch)));
+      }
+      // re-entrega del primer receive: el inbox lo descarta
+      futures.add(executor.submit(accountsOf(batches.get(0)), () -> applier.applyBatch(batches.get(0))));
+
+      int applied = futures.stream().mapToInt(CompletableFuture::join).sum();
+      assertEquals(JOURNALS, applied);
+    }
+
+    for (UUID a : accounts) {
+      Map<String, Object> row = jdbc.queryForMap("""
+        select b.ledger + coalesce(sum(s.ledger), 0) as ledger,
+               b.available + coalesce(sum(s.available), 0) as available,
+               b.hold + coalesce(sum(s.hold), 0) as hold
+        from account_balances b
+        left join account_balance_slots s on s.account_id = b.account_id
+        where b.account_id = ?
+        group by b.account_id
+        """, a);
+      BigDecimal[] sum = expected.get(a);
+      assertEquals(0, sum[0].compareTo((BigDecimal) row.get("ledger")), "ledger " + a);
+      assertEquals(0, sum[1].compareTo((BigDecimal) row.get("available")), "available " + a);
+      assertEquals(0, sum[2].compareTo((BigDecimal) row.get("hold")), "hold " + a);
+    }
+    String[] eventIds = batches.stream().flatMap(List::stream).map(LedgerPostedDetail::eventId).toArray(String[]::new);
+    assertEquals(JOURNALS, jdbc.queryForObject(
+      "select count(*) from inbox_events where status = 'processed' and event_id = any(?)", Integer.class,
+      (Object) eventIds));
+  }
+
+  private List<UUID> seedAccounts() {
+    UUID customer = AccountFixtures.seedCustomer(jdbc);
+    List<UUID> accounts = new ArrayList<>();
+    for (int i = 0; i < ACCOUNTS; i++) accounts.add(AccountFixtures.seedAccount(jdbc, customer, BigDecimal.ZERO));
+    return accounts;
+  }
+
+  private static Set<UUID> accountsOf(List<LedgerPostedDetail> batch) {
+    return batch.stream()
+      .flatMap(d -> d.postings().stream())
+      .map(Posting::accountId)
+      .collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,110 @@
+package com.tagokoder.account.infra.out.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tagokoder.account.infra.props.AuditPipelineProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+/** EventBridge falso que guarda el tamaño de cada PutEvents; close() drena la cola. */
+class EventBridgeBatcherTest {
+
+  private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+  private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+  @Test
+  void packsUpToTenEntriesPerPutEvents() {
+    EventBridgeBatcher batcher = batcher(fake(0));
+
+    batcher.start();
+    for (int i = 0; i < 25; i++) batcher.submit(entry("e" + i));
+    batcher.close();
+
+    assertEquals(25, batches.stream().mapToInt(Integer::intValue).sum());
+    assertTrue(batches.stream().allMatch(n -> n <= EventBridgeBatcher.MAX_ENTRIES));
+    assertEquals(25.0, meters.counter("audit.events", "outcome", "published").count());
+  }
+
+  @Test
+  void retriesOnlyFailedEntries() {
+    // el primer PutEvents rechaza 2 entradas; el reintento lleva solo esas 2
+    EventBridgeBatcher batcher = batcher(fake(2));
+
+    for (int i = 0; i < 5; i++) batcher.submit(entry("e" + i));
+    batcher.start();
+    batcher.close();
+
+    assertEquals(List.of(5, 2), batches);
+    assertEquals(5.0, meters.counter("audit.events", "outcome", "published").count());
+    assertEquals(2.0, meters.counter("audit.events", "outcome", "retried").count());
+  }
+
+  @Test
+  void dropsWhenQueueIsFull() {
+    AuditPipelineProperties cfg = cfg();
+    cfg.setQueueCapacity(2);
+    EventBridgeBatcher batcher = new EventBridgeBatcher(fake(0), cfg, meters);
+
+    // sin start(): nada sale de la cola
+    for (int i = 0; i < 3; i++) batcher.submit(entry("e" + i));
+
+    assertEquals(2.0, meters.counter("audit.events", "outcome", "enqueued").count());
+    assertEquals(1.0, meters.counter("audit.events", "outcome", "dropped_overflow").count());
+  }
+
+  private EventBridgeBatcher batcher(EventBridgeClient eb) {
+    return new EventBridgeBatcher(eb, cfg(), meters);
+  }
+
+  private static AuditPipelineProperties cfg() {
+    AuditPipelineProperties cfg = new AuditPipelineProperties();
+    cfg.setLinger(Duration.ofMillis(5));
+    cfg.setRetryBackoff(Duration.ofMillis(1));
+    return cfg;
+  }
+
+  private static PutEventsRequestEntry entry(String detail) {
+    return PutEventsRequestEntry.builder()
+        .eventBusName("audit")
+        .source("bank.account")
+        .detailType("AuditEvent")
+        .detail("{\"id\":\"" + detail + "\"}")
+        .build();
+  }
+
+  // falla las primeras failFirst entradas del primer PutEvents
+  private EventBridgeClient fake(int failFirst) {
+    AtomicInteger calls = new AtomicInteger();
+    return new EventBridgeClient() {
+      @Override
+      public PutEventsResponse putEvents(PutEventsRequest req) {
+        batches.add(req.entries().size());
+        boolean first = calls.getAndIncrement() == 0;
+        List<PutEventsResultEntry> results = new ArrayList<>();
+        for (int i = 0; i < req.entries().size(); i++) {
+          results.add(first && i < failFirst
+              ? PutEventsResultEntry.builder().errorCode("ThrottlingException").build()
+              : PutEventsResultEntry.builder().eventId("id-" + i).build());
+        }
+        return PutEventsResponse.builder().entries(results).build();
+      }
+
+      @Override public String serviceName() { return "events"; }
+      @Override public void close() {}
+    };
+  }
+}
@@ -0,0 +1,210 @@
+package com.tagokoder.account.infra.out.persistence.holds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.LedgerPostedDetail;
+import com.tagokoder.account.infra.in.sqs.LedgerEventDecoder.Posting;
+import com.tagokoder.account.infra.in.sqs.LedgerPostingApplier;
+import com.tagokoder.account.infra.in.sqs.RecentEventIds;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.AccountBalanceRepositoryAdapter;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.AccountHoldRepositoryAdapter;
+import com.tagokoder.account.infra.out.persistence.jpa.adapter.InboxRepositoryAdapter;
+import com.tagokoder.account.infra.out.persistence.slots.BalanceSlots;
+import com.tagokoder.account.infra.out.persistence.usage.LimitUsageAccumulator;
+import com.tagokoder.account.infra.props.HoldExpiryProperties;
+import com.tagokoder.account.infra.props.LedgerConsumerProperties;
+import com.tagokoder.account.infra.props.LimitUsageProperties;
+import com.tagokoder.account.support.AccountFixtures;
+import com.tagokoder.account.support.PostgresSliceTest;
+
+/**
+ * HoldExpirySweeper contra Postgres real: solo libera holds reserved vencidos y devuelve
+ * el monto agregado por cuenta al available, y el uso diario contado al reservar; una cuenta
+ * con hold insuficiente queda en cuarentena sin frenar al resto del lote.
+ */
+@PostgresSliceTest(
+  value = {
+    AccountHoldRepositoryAdapter.class,
+    AccountBalanceRepositoryAdapter.class,
+    BalanceSlots.class,
+    HoldExpiryProperties.class,
+    HoldExpirySweeper.class,
+    InboxRepositoryAdapter.class,
+    LedgerConsumerProperties.class,
+    RecentEventIds.class,
+    LedgerPostingApplier.class,
+    LimitUsageAccumulator.class,
+    LimitUsageProperties.class
+  },
+  properties = { "holds.expiry.enabled=true", "holds.expiry.batch-size=2" }
+)
+class HoldExpirySweeperTest {
+
+  @Autowired
+  AccountHoldRepositoryPort holds;
+
+  @Autowired
+  HoldExpirySweeper sweeper;
+
+  @Autowired
+  LedgerPostingApplier applier;
+
+  @Autowired
+  LimitUsageAccumulator usage;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void releasesOnlyExpiredHoldsInBatches() {
+    UUID account = seedAccount(new BigDecimal("100"));
+    UUID live = reserve(account, "10");
+    for (int i = 0; i < 3; i++) expire(reserve(account, "20"));
+
+    // batch-size=2: la corrida encadena lotes hasta que uno sale incompleto
+    sweeper.run();
+
+    assertEquals(0, new BigDecimal("90").compareTo(balance(account, "available")));
+    assertEquals(0, new BigDecimal("10").compareTo(balance(account, "hold")));
+    assertEquals(1, jdbc.queryForObject(
+      "select count(*) from account_holds where account_id = ? and status = 'reserved'", Integer.class, account));
+    assertEquals("reserved", jdbc.queryForObject(
+      "select status from account_holds where hold_id = ?", String.class, live));
+    assertEquals(0, new BigDecimal("10").compareTo(outUsed(account)));
+  }
+
+  @Test
+  void expiredHoldIsNotReleasedTwice() {
+    UUID account = seedAccount(new BigDecimal("50"));
+    UUID holdId = reserve(account, "30");
+    expire(holdId);
+
+    sweeper.run();
+    var again = holds.releaseAtomic(account, holdId, "USD", new BigDecimal("30"));
+    sweeper.run();
+
+    assertEquals("released", again.holdStatus());
+    assertEquals(0, new BigDecimal("50").compareTo(balance(account, "available")));
+    assertEquals(0, BigDecimal.ZERO.compareTo(balance(account, "hold")));
+  }
+
+  @Test
+  void capturedHoldIsSettledAndNotExpired() {
+    UUID account = seedAccount(new BigDecimal("100"));
+    UUID holdId = reserve(account, "30");
+
+    capture(account, holdId, "30");
+    expire(holdId);
+    sweeper.run();
+
+    assertEquals("settled", jdbc.queryForObject(
+      "select status from account_holds where hold_id = ?", String.class, holdId));
+    assertEquals(0, new BigDecimal("70").compareTo(balance(account, "ledger")));
+    assertEquals(0, new BigDecimal("70").compareTo(balance(account, "available")));
+    assertEquals(0, BigDecimal.ZERO.compareTo(balance(account, "hold")));
+    assertEquals(0, new BigDecimal("30").compareTo(outUsed(account)));
+  }
+
+  @Test
+  void captureAfterExpiryTakesFromAvailable() {
+    UUID account = seedAccount(new BigDecimal("100"));
+    UUID holdId = reserve(account, "30");
+    expire(holdId);
+    sweeper.run();
+
+    assertEquals(0, BigDecimal.ZERO.compareTo(outUsed(account)));
+
+    // el hold ya volvió a available: la captura no puede bajar hold de nuevo
+    capture(account, holdId, "30");
+
+    assertEquals("released", jdbc.queryForObject(
+      "select status from account_holds where hold_id = ?", String.class, holdId));
+    assertEquals(0, new BigDecimal("70").compareTo(balance(account, "ledger")));
+    assertEquals(0, new BigDecimal("70").compareTo(balance(account, "available")));
+    assertEquals(0, BigDecimal.ZERO.compareTo(balance(account, "hold")));
+    // el vencimiento devolvió el uso de la reserva: la captura cuenta una sola vez
+    assertEquals(0, new BigDecimal("30").compareTo(outUsed(account)));
+  }
+
+  @Test
+  void accountWithInsufficientHoldIsQuarantinedWithoutBlockingTheBatch() {
+    UUID a = seedAccount(new BigDecimal("100"));
+    UUID b = seedAccount(new BigDecimal("100"));
+    UUID c = seedAccount(new BigDecimal("100"));
+    UUID holdA = reserve(a, "20");
+    UUID holdB = reserve(b, "20");
+    UUID holdC = reserve(c, "20");
+    // orden de vencimiento a, b, c: b cae en medio del primer lote (batch-size=2)
+    expire(holdA, 3);
+    expire(holdB, 2);
+    expire(holdC, 1);
+    jdbc.update("update account_balances set hold = 0 where account_id = ?", b);
+
+    sweeper.run();
+
+    for (UUID ok : List.of(a, c)) {
+      assertEquals(0, new BigDecimal("100").compareTo(balance(ok, "available")));
+      assertEquals(0, BigDecimal.ZERO.compareTo(balance(ok, "hold")));
+    }
+    assertEquals("released", status(holdA));
+    assertEquals("released", status(holdC));
+    assertEquals("expired_unapplied", status(holdB));
+    assertEquals(0, new BigDecimal("80").compareTo(balance(b, "available")));
+    assertEquals(0, BigDecimal.ZERO.compareTo(balance(b, "hold")));
+    // el uso de b no se devuelve: el hold nunca volvió a available
+    assertEquals(0, new BigDecimal("20").compareTo(outUsed(b)));
+
+    // fuera del backlog: la próxima corrida no lo vuelve a tomar
+    sweeper.run();
+    assertEquals("expired_unapplied", status(holdB));
+    assertEquals(0, new BigDecimal("80").compareTo(balance(b, "available")));
+  }
+
+  // pata de débito de un pago: ledger y hold bajan, available ya bajó al reservar
+  private void capture(UUID account, UUID holdId, String amount) {
+    BigDecimal a = new BigDecimal(amount);
+    Posting debit = new Posting(account, a.negate(), BigDecimal.ZERO, a.negate(), holdId);
+    applier.applyBatch(List.of(new LedgerPostedDetail(UUID.randomUUID().toString(), List.of(debit))));
+  }
+
+  // como AccountService.reserve: hold + uso diario
+  private UUID reserve(UUID account, String amount) {
+    UUID holdId = UUID.randomUUID();
+    holds.reserveAtomic(account, holdId, "USD", new BigDecimal(amount), "idk-" + holdId);
+    usage.add(account, new BigDecimal(amount), BigDecimal.ZERO);
+    return holdId;
+  }
+
+  private void expire(UUID holdId) {
+    expire(holdId, 1);
+  }
+
+  private void expire(UUID holdId, int minutesAgo) {
+    jdbc.update("update account_holds set expires_at = now() - make_interval(mins => ?) where hold_id = ?", minutesAgo, holdId);
+  }
+
+  private String status(UUID holdId) {
+    return jdbc.queryForObject("select status from account_holds where hold_id = ?", String.class, holdId);
+  }
+
+  private BigDecimal outUsed(UUID account) {
+    return usage.today(account).outUsed();
+  }
+
+  private UUID seedAccount(BigDecimal available) {
+    return AccountFixtures.seedAccount(jdbc, available);
+  }
+
+  private BigDecimal balance(UUID account, String column) {
+    return AccountFixtures.balance(jdbc, account, column);
+  }
+}
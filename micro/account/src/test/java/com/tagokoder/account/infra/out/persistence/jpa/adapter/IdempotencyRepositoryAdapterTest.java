@@ -0,0 +1,71 @@
+package com.tagokoder.account.infra.out.persistence.jpa.adapter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tagokoder.account.domain.port.out.IdempotencyRepositoryPort;
+import com.tagokoder.account.domain.port.out.IdempotencyRepositoryPort.BeginState;
+import com.tagokoder.account.support.PostgresSliceTest;
+
+/**
+ * Marcador in_flight contra Postgres real: quien lo toma por stale queda como único dueño,
+ * el dueño anterior ya no completa ni borra la fila.
+ */
+@PostgresSliceTest(IdempotencyRepositoryAdapter.class)
+class IdempotencyRepositoryAdapterTest {
+
+  private static final Duration STALE_AFTER = Duration.ofSeconds(30);
+
+  @Autowired
+  IdempotencyRepositoryPort repo;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void slowOwnerCannotCompleteAfterTakeover() {
+    String key = "idk-" + UUID.randomUUID();
+    var slow = repo.begin(key, "op", STALE_AFTER);
+    makeStale(key);
+    var taker = repo.begin(key, "op", STALE_AFTER);
+
+    assertEquals(BeginState.ACQUIRED, taker.state());
+    assertNotEquals(slow.owner(), taker.owner());
+
+    assertFalse(repo.complete(key, "op", slow.owner(), 200, bytes("slow")));
+    assertTrue(repo.complete(key, "op", taker.owner(), 200, bytes("taker")));
+    assertArrayEquals(bytes("taker"), repo.findCompleted(key, "op").orElseThrow());
+  }
+
+  @Test
+  void slowOwnerAbandonLeavesTakersMarker() {
+    String key = "idk-" + UUID.randomUUID();
+    var slow = repo.begin(key, "op", STALE_AFTER);
+    makeStale(key);
+    var taker = repo.begin(key, "op", STALE_AFTER);
+
+    repo.abandon(key, "op", slow.owner());
+
+    assertEquals(BeginState.IN_FLIGHT, repo.begin(key, "op", STALE_AFTER).state());
+    assertTrue(repo.complete(key, "op", taker.owner(), 200, bytes("taker")));
+  }
+
+  private void makeStale(String key) {
+    jdbc.update("update idempotency_records set started_at = now() - interval '1 minute' where idempotency_key = ?", key);
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,90 @@
+package com.tagokoder.account.infra.out.persistence.jpa.adapter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tagokoder.account.domain.port.out.AccountHoldRepositoryPort;
+import com.tagokoder.account.infra.props.HoldExpiryProperties;
+import com.tagokoder.account.support.AccountFixtures;
+import com.tagokoder.account.support.PostgresSliceTest;
+
+/**
+ * reserveAtomic / releaseAtomic contra Postgres real: balance, fila de hold y dedupe
+ * salen del mismo statement.
+ */
+@PostgresSliceTest({ AccountHoldRepositoryAdapter.class, HoldExpiryProperties.class })
+class ReserveHoldAtomicTest {
+
+  @Autowired
+  AccountHoldRepositoryPort holds;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void reserveIsAppliedOncePerIdempotencyKey() {
+    UUID account = seedAccount(new BigDecimal("100"));
+    UUID holdId = UUID.randomUUID();
+
+    var first = holds.reserveAtomic(account, holdId, "USD", new BigDecimal("30"), "idk-" + holdId);
+    var retry = holds.reserveAtomic(account, UUID.randomUUID(), "USD", new BigDecimal("30"), "idk-" + holdId);
+
+    assertEquals(0, new BigDecimal("30").compareTo(first.newHold()));
+    assertNull(first.duplicateOf());
+    assertEquals(holdId, retry.duplicateOf());
+    assertNull(retry.newHold());
+    assertEquals(0, new BigDecimal("70").compareTo(available(account)));
+    assertEquals(1, jdbc.queryForObject("select count(*) from account_holds where account_id = ?", Integer.class, account));
+  }
+
+  @Test
+  void insufficientOrInactiveLeavesNothingBehind() {
+    UUID account = seedAccount(new BigDecimal("10"));
+
+    var tooMuch = holds.reserveAtomic(account, UUID.randomUUID(), "USD", new BigDecimal("50"), "idk-" + UUID.randomUUID());
+    assertEquals("active", tooMuch.accountStatus());
+    assertNull(tooMuch.newHold());
+    assertFalse(tooMuch.hot());
+
+    jdbc.update("update accounts set status = 'frozen' where id = ?", account);
+    var frozen = holds.reserveAtomic(account, UUID.randomUUID(), "USD", new BigDecimal("5"), "idk-" + UUID.randomUUID());
+    assertEquals("frozen", frozen.accountStatus());
+    assertNull(frozen.newHold());
+
+    assertEquals(0, jdbc.queryForObject("select count(*) from account_holds where account_id = ?", Integer.class, account));
+    assertEquals(0, new BigDecimal("10").compareTo(available(account)));
+  }
+
+  @Test
+  void releaseFlipsTheHoldOnce() {
+    UUID account = seedAccount(new BigDecimal("100"));
+    UUID holdId = UUID.randomUUID();
+    holds.reserveAtomic(account, holdId, "USD", new BigDecimal("40"), "idk-" + holdId);
+
+    var first = holds.releaseAtomic(account, holdId, "USD", new BigDecimal("40"));
+    var again = holds.releaseAtomic(account, holdId, "USD", new BigDecimal("40"));
+
+    assertTrue(first.released());
+    assertEquals(0, BigDecimal.ZERO.compareTo(first.newHold()));
+    assertFalse(again.released());
+    assertEquals("released", again.holdStatus());
+    assertEquals(0, new BigDecimal("100").compareTo(available(account)));
+  }
+
+  private UUID seedAccount(BigDecimal available) {
+    return AccountFixtures.seedAccount(jdbc, available);
+  }
+
+  private BigDecimal available(UUID account) {
+    return AccountFixtures.balance(jdbc, account, "available");
+  }
+}
@@ -0,0 +1,78 @@
+package com.tagokoder.account.infra.out.persistence.partition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tagokoder.account.infra.props.PartitionProperties;
+import com.tagokoder.account.support.AccountFixtures;
+import com.tagokoder.account.support.PostgresSliceTest;
+
+/**
+ * PartitionManager contra el esquema de Flyway: legacy cubre [MINVALUE, cutover de V5)
+ * y account_holds es mensual; desde el corte en adelante toda fecha tiene partición.
+ */
+@PostgresSliceTest({ PartitionManager.class, PartitionProperties.class })
+class PartitionManagerTest {
+
+  @Autowired
+  PartitionManager partitions;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void monthlyHoldsHaveNoGapAfterTheLegacyCutover() {
+    partitions.maintain();
+    UUID account = AccountFixtures.seedAccount(jdbc, new BigDecimal("100"));
+
+    // sin partición DEFAULT: un día sin partición haría fallar el insert
+    // (justo después del corte cae en la partición puente [corte, 1ro del mes siguiente))
+    for (int day = 1; day <= 45; day++) insertHold(account, day);
+
+    assertEquals(45, jdbc.queryForObject(
+      "select count(*) from account_holds where account_id = ?", Integer.class, account));
+    assertNotEquals("account_holds_p_legacy", partitionOf(lastHold(account)));
+  }
+
+  @Test
+  void maintainIsIdempotent() {
+    partitions.maintain();
+    int before = partitionCount();
+    partitions.maintain();
+
+    assertEquals(before, partitionCount());
+  }
+
+  private UUID insertHold(UUID account, int daysAhead) {
+    UUID holdId = UUID.randomUUID();
+    jdbc.update("""
+      insert into account_holds(account_id, hold_id, currency, amount, status, idempotency_key, created_at, updated_at)
+      values (?, ?, 'USD', 1, 'released', ?,
+              date_trunc('day', now() at time zone 'UTC') at time zone 'UTC' + make_interval(days => ?, hours => 1),
+              now())
+      """, account, holdId, "idk-" + holdId, daysAhead);
+    return holdId;
+  }
+
+  private UUID lastHold(UUID account) {
+    return jdbc.queryForObject(
+      "select hold_id from account_holds where account_id = ? order by created_at desc limit 1", UUID.class, account);
+  }
+
+  private String partitionOf(UUID holdId) {
+    return jdbc.queryForObject(
+      "select tableoid::regclass::text from account_holds where hold_id = ?", String.class, holdId);
+  }
+
+  private int partitionCount() {
+    return jdbc.queryForObject(
+      "select count(*) from pg_inherits where inhparent = 'account_holds'::regclass", Integer.class);
+  }
+}
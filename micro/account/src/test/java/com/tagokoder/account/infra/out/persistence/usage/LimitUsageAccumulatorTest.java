@@ -0,0 +1,105 @@
+package com.tagokoder.account.infra.out.persistence.usage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tagokoder.account.domain.port.out.LimitUsageRepositoryPort.UsageDelta;
+import com.tagokoder.account.infra.props.LimitUsageProperties;
+import com.tagokoder.account.support.PostgresSliceTest;
+
+/**
+ * LimitUsageAccumulator contra Postgres real: el uso pendiente se ve antes del flush,
+ * los flushes suman sobre la misma fila (cuenta, día) y reverse resta en el día indicado;
+ * una lectura concurrente con el flush ve el delta exactamente una vez.
+ */
+@PostgresSliceTest({ LimitUsageAccumulator.class, LimitUsageProperties.class })
+class LimitUsageAccumulatorTest {
+
+  @Autowired
+  LimitUsageAccumulator usage;
+
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void pendingUsageIsVisibleBeforeAndAfterFlush() {
+    UUID account = UUID.randomUUID();
+
+    usage.add(account, new BigDecimal("30"), BigDecimal.ZERO);
+    usage.add(account, new BigDecimal("20"), new BigDecimal("5"));
+    assertEquals(0, new BigDecimal("50").compareTo(usage.today(account).outUsed()));
+    assertEquals(0, rows(account));
+
+    usage.flush();
+    usage.add(account, new BigDecimal("10"), BigDecimal.ZERO);
+
+    assertEquals(1, rows(account));
+    assertEquals(0, new BigDecimal("60").compareTo(usage.today(account).outUsed()));
+    assertEquals(0, new BigDecimal("5").compareTo(usage.today(account).inUsed()));
+  }
+
+  @Test
+  void flushesAddOntoTheSameDayRow() {
+    UUID a = UUID.randomUUID();
+    UUID b = UUID.randomUUID();
+
+    usage.addAll(List.of(new UsageDelta(a, new BigDecimal("1"), BigDecimal.ZERO), new UsageDelta(b, BigDecimal.ZERO, new BigDecimal("2"))));
+    usage.flush();
+    usage.addAll(List.of(new UsageDelta(a, new BigDecimal("4"), BigDecimal.ZERO)));
+    usage.flush();
+
+    var today = usage.today(List.of(a, b));
+    assertEquals(0, new BigDecimal("5").compareTo(today.get(a).outUsed()));
+    assertEquals(0, new BigDecimal("2").compareTo(today.get(b).inUsed()));
+    assertEquals(1, rows(a));
+    assertEquals(0, new BigDecimal("5").compareTo(
+      jdbc.queryForObject("select out_used from account_limit_usage where account_id = ?", BigDecimal.class, a)));
+  }
+
+  @Test
+  void reverseSubtractsOnTheDayItWasCounted() {
+    UUID account = UUID.randomUUID();
+    LocalDate yesterday = usage.day().minusDays(1);
+    jdbc.update("insert into account_limit_usage(account_id, day, out_used, in_used) values (?, ?, 40, 0)",
+      account, yesterday);
+
+    usage.add(account, new BigDecimal("25"), BigDecimal.ZERO);
+    usage.reverse(usage.day(), List.of(new UsageDelta(account, new BigDecimal("10"), BigDecimal.ZERO)));
+    usage.reverse(yesterday, List.of(new UsageDelta(account, new BigDecimal("15"), BigDecimal.ZERO)));
+    usage.flush();
+
+    assertEquals(0, new BigDecimal("15").compareTo(usage.today(account).outUsed()));
+    assertEquals(0, new BigDecimal("25").compareTo(jdbc.queryForObject(
+      "select out_used from account_limit_usage where account_id = ? and day = ?", BigDecimal.class, account, yesterday)));
+  }
+
+  @Test
+  void readsDuringFlushCountTheDeltaExactlyOnce() {
+    UUID account = UUID.randomUUID();
+    for (int round = 1; round <= 20; round++) {
+      usage.add(account, BigDecimal.ONE, BigDecimal.ZERO);
+      BigDecimal expected = BigDecimal.valueOf(round);
+
+      // pending -> flushing -> DB: en ningún punto el delta falta ni se suma dos veces
+      var flusher = CompletableFuture.runAsync(usage::flush);
+      while (!flusher.isDone()) {
+        assertEquals(0, expected.compareTo(usage.today(account).outUsed()));
+      }
+      flusher.join();
+      assertEquals(0, expected.compareTo(usage.today(account).outUsed()));
+    }
+  }
+
+  private int rows(UUID account) {
+    return jdbc.queryForObject("select count(*) from account_limit_usage where account_id = ?", Integer.class, account);
+  }
+}
@@ -0,0 +1,63 @@
+package com.tagokoder.account.infra.security.authz;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import bank.accounts.v1.BatchValidateAccountsAndLimitsRequest;
+import bank.accounts.v1.ValidateAccountsAndLimitsRequest;
+
+/** Mismas respuestas que los helpers por reflexión que reemplaza. */
+class RequestFieldTest {
+
+  public static class Req {
+    private final String id;
+    public Req(String id) { this.id = id; }
+    public String getId() { return id; }
+    public long getAmount() { return 1L; }
+  }
+
+  @Test
+  void readsStringAndUuid() {
+    UUID id = UUID.randomUUID();
+    Req req = new Req(id.toString());
+
+    assertEquals(id.toString(), RequestField.of("getId").string(req));
+    assertEquals(id, RequestField.of("getId").uuid(req));
+  }
+
+  @Test
+  void missingOrNonStringGetterIsNull() {
+    Req req = new Req("x");
+
+    assertNull(RequestField.of("getCustomerId").string(req));
+    assertNull(RequestField.of("getAmount").string(req));
+    assertNull(RequestField.of("getId").string(null));
+  }
+
+  @Test
+  void blankOrMalformedUuidIsNull() {
+    assertNull(RequestField.of("getId").uuid(new Req("")));
+    assertNull(RequestField.of("getId").uuid(new Req("not-a-uuid")));
+  }
+
+  @Test
+  void readsNestedLegs() {
+    var req = BatchValidateAccountsAndLimitsRequest.newBuilder()
+        .addLegs(ValidateAccountsAndLimitsRequest.newBuilder().setSourceAccountId("a").setDestinationAccountId("b"))
+        .addLegs(ValidateAccountsAndLimitsRequest.newBuilder().setSourceAccountId("c"))
+        .build();
+
+    List<?> legs = RequestField.list("getLegsList").values(req);
+    RequestField src = RequestField.of("getSourceAccountId");
+
+    assertEquals(2, legs.size());
+    assertEquals("a", src.string(legs.get(0)));
+    assertEquals("c", src.string(legs.get(1)));
+    assertEquals(List.of(), RequestField.list("getLegsList").values(new Req("x")));
+  }
+}
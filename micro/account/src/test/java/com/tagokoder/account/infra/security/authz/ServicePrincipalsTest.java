@@ -0,0 +1,64 @@
+package com.tagokoder.account.infra.security.authz;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.tagokoder.account.infra.props.ServicePrincipalProperties;
+import com.tagokoder.account.infra.security.jwt.VerifiedTokenCache.VerifiedToken;
+
+class ServicePrincipalsTest {
+
+  private final ServicePrincipals services = new ServicePrincipals(props());
+
+  @Test
+  void clientCredentialsTokenMapsToService() {
+    assertEquals("payments", services.fromToken(token("pay-client", "pay-client", false)));
+  }
+
+  @Test
+  void userTokensAndUnknownClientsFallThrough() {
+    // token de usuario emitido por el mismo app client: sigue por el pipeline de usuario
+    assertNull(services.fromToken(token("user-sub", "pay-client", true)));
+    assertNull(services.fromToken(token("other", "other", false)));
+  }
+
+  @Test
+  void allowlistIsPerServiceAndInternalRoutesOnly() {
+    assertTrue(services.allowed("payments", "accounts:hold_reserve"));
+    assertFalse(services.allowed("payments", "accounts:inbox_replay"));
+    assertFalse(services.allowed("unknown", "accounts:hold_reserve"));
+
+    assertTrue(services.applies("bank.accounts.v1.InternalAccountsService/ReserveHold"));
+    assertFalse(services.applies("bank.accounts.v1.AccountsService/ListAccounts"));
+  }
+
+  private static ServicePrincipalProperties props() {
+    ServicePrincipalProperties.Service payments = new ServicePrincipalProperties.Service();
+    payments.setClientIds(List.of("pay-client"));
+    payments.setActions(List.of("accounts:validate", "accounts:hold_reserve", "accounts:hold_release"));
+    ServicePrincipalProperties p = new ServicePrincipalProperties();
+    p.setServices(Map.of("payments", payments));
+    return p;
+  }
+
+  private static VerifiedToken token(String sub, String clientId, boolean user) {
+    Jwt.Builder b = Jwt.withTokenValue("t")
+        .header("alg", "RS256")
+        .subject(sub)
+        .claim("client_id", clientId)
+        .claim("token_use", "access")
+        .issuedAt(Instant.now())
+        .expiresAt(Instant.now().plusSeconds(600));
+    if (user) b.claim("username", sub);
+    return new VerifiedToken(b.build(), sub, "pool|" + sub, List.of(), false, null, null);
+  }
+}
@@ -0,0 +1,104 @@
+package com.tagokoder.account.infra.security.cedar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tagokoder.account.infra.props.AuthzDecisionCacheProperties;
+import com.tagokoder.account.infra.props.AuthzEngineProperties;
+import com.tagokoder.account.infra.security.avp.AvpAuthorizer;
+import com.tagokoder.account.infra.security.avp.AvpValues;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.verifiedpermissions.model.Decision;
+import software.amazon.awssdk.services.verifiedpermissions.model.EntityIdentifier;
+import software.amazon.awssdk.services.verifiedpermissions.model.EntityItem;
+
+/** Policies de infra/authz/cedar evaluadas in-process, sin AWS. */
+class CedarLocalAuthorizerTest {
+
+  private CedarPolicyStore store;
+  private CedarLocalAuthorizer authorizer;
+
+  @BeforeEach
+  void setUp() {
+    AuthzEngineProperties cfg = new AuthzEngineProperties();
+    cfg.setMode(AuthzEngineProperties.Mode.LOCAL);
+    cfg.setPolicyPath("classpath:cedar/policies.cedar");
+    store = new CedarPolicyStore(cfg, null, "ps-test", new SimpleMeterRegistry());
+    store.start();
+    authorizer = new CedarLocalAuthorizer(store, cfg);
+  }
+
+  @AfterEach
+  void tearDown() {
+    store.close();
+  }
+
+  @Test
+  void ownerCanReadBalances() throws Exception {
+    var d = authorizer.authorize("accounts:balances_read", user("c-1", List.of()), account("c-1"), List.of(), Map.of());
+    assertEquals(Decision.ALLOW, d.decision());
+    assertFalse(d.determiningPolicies().isEmpty());
+  }
+
+  @Test
+  void otherCustomerIsDenied() throws Exception {
+    var d = authorizer.authorize("accounts:balances_read", user("c-2", List.of()), account("c-1"), List.of(), Map.of());
+    assertEquals(Decision.DENY, d.decision());
+  }
+
+  @Test
+  void inboxReplayRequiresOpsRole() throws Exception {
+    EntityItem ops = EntityItem.builder()
+        .identifier(EntityIdentifier.builder().entityType("ImaginaryBank::Ops").entityId("inbox").build())
+        .build();
+    assertEquals(Decision.ALLOW,
+        authorizer.authorize("accounts:inbox_replay", user("c-1", List.of("ops")), ops, List.of(), Map.of()).decision());
+    assertEquals(Decision.DENY,
+        authorizer.authorize("accounts:inbox_replay", user("c-1", List.of("customer")), ops, List.of(), Map.of()).decision());
+  }
+
+  @Test
+  void batchDecidesEachResourceInOnePass() {
+    AvpAuthorizer avp = new AvpAuthorizer(null, null, new AuthzDecisionCacheProperties(), engine(), authorizer,
+        new SimpleMeterRegistry());
+
+    var d = avp.batchAuthorizeWithToken("tok", "accounts:batch_summaries_read", user("c-1", List.of()),
+        List.of(account("acc-1", "c-1"), account("acc-2", "c-2"), account("acc-3", "c-1")),
+        List.of(), Map.of(), null, false);
+
+    assertEquals(List.of(Decision.ALLOW, Decision.DENY, Decision.ALLOW),
+        d.stream().map(AvpAuthorizer.DecisionResult::decision).toList());
+  }
+
+  private static AuthzEngineProperties engine() {
+    AuthzEngineProperties cfg = new AuthzEngineProperties();
+    cfg.setMode(AuthzEngineProperties.Mode.LOCAL);
+    return cfg;
+  }
+
+  private static EntityItem user(String customerId, List<String> roles) {
+    return EntityItem.builder()
+        .identifier(EntityIdentifier.builder().entityType("ImaginaryBank::User").entityId("us-east-1_pool|sub-1").build())
+        .attributes(Map.of("customer_id", AvpValues.str(customerId), "roles", AvpValues.setStr(roles)))
+        .build();
+  }
+
+  private static EntityItem account(String ownerCustomerId) {
+    return account("acc-1", ownerCustomerId);
+  }
+
+  private static EntityItem account(String id, String ownerCustomerId) {
+    return EntityItem.builder()
+        .identifier(EntityIdentifier.builder().entityType("ImaginaryBank::Account").entityId(id).build())
+        .attributes(Map.of("owner_customer_id", AvpValues.str(ownerCustomerId)))
+        .build();
+  }
+}
@@ -0,0 +1,236 @@
+package com.tagokoder.account.infra.security.grpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tagokoder.account.infra.config.AppProps;
+import com.tagokoder.account.infra.security.avp.AvpValues;
+import com.tagokoder.account.infra.security.context.AuthCtx;
+
+import io.grpc.Attributes;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import software.amazon.awssdk.services.verifiedpermissions.model.AttributeValue;
+
+/**
+ * FusedServerInterceptor vs. la cadena anterior (correlation -> idempotency-key -> authz, hash con
+ * String.format por byte, maps AVP armados en cada mensaje). El "authz" es un stand-in que solo arma
+ * el context AVP desde el Context de la llamada: lo que se mide es el costo por llamada del pipeline.
+ *
+ * Ejecutar (con -prof gc para B/op): mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.tagokoder.account.infra.security.grpc.FusedInterceptorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FusedInterceptorBenchmark {
+
+  // 1 = unary; >1 = mensajes de un stream sobre la misma llamada
+  @Param({ "1", "4" })
+  int messages;
+
+  private static final Metadata.Key<String> CORR = Metadata.Key.of("x-correlation-id", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> IDEMP = Metadata.Key.of("idempotency-key", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> XFF = Metadata.Key.of("x-forwarded-for", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> UA = Metadata.Key.of("user-agent", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final AppProps props = new AppProps("bench", null, new AppProps.Security(null, null, "salt", "web"));
+  private final ServerCallHandler<Object, Object> handler = (call, headers) -> new ServerCall.Listener<>() {};
+
+  private Metadata[] headers;
+  private int i;
+  private ServerCall<Object, Object> call;
+  private ServerInterceptor fused;
+  private ServerInterceptor legacyCorr;
+  private ServerInterceptor legacyIdem;
+
+  @Setup
+  public void setup() {
+    // pocos clientes distintos: los mismos IP/UA se repiten como en tráfico real
+    headers = new Metadata[64];
+    for (int n = 0; n < headers.length; n++) {
+      Metadata h = new Metadata();
+      h.put(CORR, UUID.randomUUID().toString());
+      h.put(IDEMP, UUID.randomUUID().toString());
+      h.put(XFF, "10.0." + (n % 8) + ".1");
+      h.put(UA, "bank-web/1." + (n % 4) + " (Linux; x86_64)");
+      headers[n] = h;
+    }
+    call = new NoopCall();
+    fused = new FusedServerInterceptor(props, new LazyAttrsAuthz(), 10_000);
+    legacyCorr = new LegacyCorrelation(props);
+    legacyIdem = new IdempotencyKeyInterceptor();
+  }
+
+  @Benchmark
+  public void fused(Blackhole bh) {
+    ServerCall.Listener<Object> l = fused.interceptCall(call, next(), handler);
+    deliver(l, bh);
+  }
+
+  @Benchmark
+  public void legacyChain(Blackhole bh) {
+    ServerInterceptor authz = new EagerAttrsAuthz();
+    ServerCall.Listener<Object> l = legacyCorr.interceptCall(call, next(),
+        (c, h) -> legacyIdem.interceptCall(c, h, (c2, h2) -> authz.interceptCall(c2, h2, handler)));
+    deliver(l, bh);
+  }
+
+  private Metadata next() {
+    return headers[i++ & (headers.length - 1)];
+  }
+
+  private void deliver(ServerCall.Listener<Object> l, Blackhole bh) {
+    for (int m = 0; m < messages; m++) l.onMessage(m);
+    l.onHalfClose();
+    l.onComplete();
+    bh.consume(l);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(FusedInterceptorBenchmark.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .build()).run();
+  }
+
+  /** Stand-in del authz anterior: principal + context AVP armados en cada mensaje. */
+  static final class EagerAttrsAuthz implements ServerInterceptor {
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      ServerCall.Listener<ReqT> delegate = next.startCall(call, headers);
+      return new ServerCall.Listener<>() {
+        @Override public void onMessage(ReqT message) {
+          Map<String, AttributeValue> ctx = new HashMap<>();
+          ctx.put("channel", AvpValues.str(AuthCtx.CHANNEL.get()));
+          ctx.put("ip_hash", AvpValues.str(AuthCtx.IP_HASH.get()));
+          ctx.put("user_agent_hash", AvpValues.str(AuthCtx.UA_HASH.get()));
+          ctx.put("idempotency_key", AvpValues.str(AuthCtx.IDEMPOTENCY_KEY.get()));
+          ctx.put("mfa_verified", AvpValues.bool(true));
+          if (ctx.size() != 5) throw new IllegalStateException();
+          delegate.onMessage(message);
+        }
+        @Override public void onHalfClose() { delegate.onHalfClose(); }
+        @Override public void onComplete() { delegate.onComplete(); }
+      };
+    }
+  }
+
+  /** Stand-in del authz actual: context AVP armado la primera vez y reusado en la llamada. */
+  static final class LazyAttrsAuthz implements ServerInterceptor {
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      ServerCall.Listener<ReqT> delegate = next.startCall(call, headers);
+      return new ServerCall.Listener<>() {
+        private Map<String, AttributeValue> ctx;
+
+        @Override public void onMessage(ReqT message) {
+          if (ctx == null) {
+            Map<String, AttributeValue> m = new HashMap<>();
+            m.put("channel", AvpValues.str(AuthCtx.channel()));
+            m.put("ip_hash", AvpValues.str(AuthCtx.ipHash()));
+            m.put("user_agent_hash", AvpValues.str(AuthCtx.uaHash()));
+            m.put("idempotency_key", AvpValues.str(AuthCtx.idempotencyKey()));
+            m.put("mfa_verified", AvpValues.bool(true));
+            ctx = Collections.unmodifiableMap(m);
+          }
+          if (ctx.size() != 5) throw new IllegalStateException();
+          delegate.onMessage(message);
+        }
+        @Override public void onHalfClose() { delegate.onHalfClose(); }
+        @Override public void onComplete() { delegate.onComplete(); }
+      };
+    }
+  }
+
+  /** CorrelationServerInterceptor previo: seis withValue y sha256 con String.format por byte. */
+  static final class LegacyCorrelation implements ServerInterceptor {
+    private final AppProps props;
+
+    LegacyCorrelation(AppProps props) {
+      this.props = props;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      String cid = headers.get(CORR);
+      if (cid == null || cid.isBlank()) cid = UUID.randomUUID().toString();
+
+      Context ctx = Context.current()
+          .withValue(AuthCtx.CORRELATION_ID, cid)
+          .withValue(AuthCtx.ROUTE_TEMPLATE, call.getMethodDescriptor().getFullMethodName())
+          .withValue(AuthCtx.IDEMPOTENCY_KEY, headers.get(IDEMP))
+          .withValue(AuthCtx.IP_HASH, sha256Hex(props.security().hashSalt(), headers.get(XFF)))
+          .withValue(AuthCtx.UA_HASH, sha256Hex(props.security().hashSalt(), headers.get(UA)))
+          .withValue(AuthCtx.CHANNEL, props.security().channel());
+      return Contexts.interceptCall(ctx, call, headers, next);
+    }
+
+    private static String sha256Hex(String salt, String value) {
+      if (value == null) return null;
+      try {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] out = md.digest((salt + ":" + value).getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(out.length * 2);
+        for (byte b : out) sb.append(String.format("%02x", b));
+        return sb.toString();
+      } catch (Exception e) {
+        return null;
+      }
+    }
+  }
+
+  static final class NoopCall extends ServerCall<Object, Object> {
+    private static final MethodDescriptor.Marshaller<Object> NOOP = new MethodDescriptor.Marshaller<>() {
+      @Override public InputStream stream(Object value) { return new ByteArrayInputStream(new byte[0]); }
+      @Override public Object parse(InputStream stream) { return null; }
+    };
+    private static final MethodDescriptor<Object, Object> METHOD = MethodDescriptor.newBuilder(NOOP, NOOP)
+        .setType(MethodDescriptor.MethodType.UNARY)
+        .setFullMethodName("bank.accounts.v1.InternalAccountsService/ReserveHold")
+        .build();
+
+    @Override public void request(int numMessages) {}
+    @Override public void sendHeaders(Metadata headers) {}
+    @Override public void sendMessage(Object message) {}
+    @Override public void close(Status status, Metadata trailers) {}
+    @Override public boolean isCancelled() { return false; }
+    @Override public Attributes getAttributes() { return Attributes.EMPTY; }
+    @Override public MethodDescriptor<Object, Object> getMethodDescriptor() { return METHOD; }
+  }
+}
@@ -0,0 +1,87 @@
+package com.tagokoder.account.infra.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import com.tagokoder.account.infra.props.JwtCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** Decoder falso que cuenta verificaciones; sin JWKS (no hay chequeo de kids). */
+class VerifiedTokenCacheTest {
+
+  private final AtomicInteger decodes = new AtomicInteger();
+  private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+  @Test
+  void secondVerifyIsServedFromCache() {
+    VerifiedTokenCache cache = cache(decoder(Instant.now().plusSeconds(600)));
+
+    var first = cache.verify("tok-a");
+    var second = cache.verify("tok-a");
+
+    assertSame(first, second);
+    assertEquals(1, decodes.get());
+    assertEquals("us-east-1_pool|sub-1", first.principalId());
+    assertEquals(List.of("ops"), first.roles());
+    assertTrue(first.mfa());
+    assertEquals("c-1", first.customerId());
+    assertEquals(1.0, meters.counter("jwt.verify.requests", "outcome", "hit").count());
+  }
+
+  @Test
+  void tokenCloseToExpIsNotCached() {
+    // dentro del expiry-skew (30s): cada llamada verifica de nuevo
+    VerifiedTokenCache cache = cache(decoder(Instant.now().plusSeconds(10)));
+
+    cache.verify("tok-b");
+    cache.verify("tok-b");
+
+    assertEquals(2, decodes.get());
+  }
+
+  @Test
+  void verificationErrorsAreNotCached() {
+    JwtDecoder failing = token -> {
+      decodes.incrementAndGet();
+      throw new BadJwtException("bad signature");
+    };
+    VerifiedTokenCache cache = cache(failing);
+
+    assertThrows(BadJwtException.class, () -> cache.verify("tok-c"));
+    assertThrows(BadJwtException.class, () -> cache.verify("tok-c"));
+    assertEquals(2, decodes.get());
+  }
+
+  private VerifiedTokenCache cache(JwtDecoder decoder) {
+    return new VerifiedTokenCache(decoder, new JwtCacheProperties(), null, meters);
+  }
+
+  private JwtDecoder decoder(Instant exp) {
+    return token -> {
+      decodes.incrementAndGet();
+      return Jwt.withTokenValue(token)
+          .header("alg", "RS256")
+          .header("kid", "k1")
+          .issuer("https://cognito-idp.us-east-1.amazonaws.com/us-east-1_pool")
+          .subject("sub-1")
+          .claim("cognito:groups", List.of("ops"))
+          .claim("amr", List.of("pwd", "mfa"))
+          .claim("custom:customer_id", "c-1")
+          .issuedAt(Instant.now())
+          .expiresAt(exp)
+          .build();
+    };
+  }
+}
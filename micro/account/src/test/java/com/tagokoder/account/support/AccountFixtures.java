@@ -0,0 +1,42 @@
+package com.tagokoder.account.support;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Filas mínimas para tests contra Postgres: cliente, cuenta USD activa y su balance. */
+public final class AccountFixtures {
+
+  private AccountFixtures() {
+  }
+
+  public static UUID seedCustomer(JdbcTemplate jdbc) {
+    return jdbc.queryForObject("""
+      insert into customers(full_name, birth_date, tin, risk_segment, status)
+      values ('Test Customer', date '1990-01-01', 'TIN-TEST', 'low', 'active')
+      returning id
+      """, UUID.class);
+  }
+
+  /** cuenta nueva (con su propio cliente) con ledger = available */
+  public static UUID seedAccount(JdbcTemplate jdbc, BigDecimal available) {
+    return seedAccount(jdbc, seedCustomer(jdbc), available);
+  }
+
+  public static UUID seedAccount(JdbcTemplate jdbc, UUID customer, BigDecimal available) {
+    UUID id = jdbc.queryForObject("""
+      insert into accounts(customer_id, product_type, currency, status)
+      values (?, 'checking', 'USD', 'active')
+      returning id
+      """, UUID.class, customer);
+    jdbc.update("insert into account_balances(account_id, ledger, available) values (?, ?, ?)", id, available, available);
+    return id;
+  }
+
+  /** columna de la fila principal (ledger / available / hold); no suma slots */
+  public static BigDecimal balance(JdbcTemplate jdbc, UUID account, String column) {
+    if (!column.matches("ledger|available|hold")) throw new IllegalArgumentException("column: " + column);
+    return jdbc.queryForObject("select " + column + " from account_balances where account_id = ?", BigDecimal.class, account);
+  }
+}
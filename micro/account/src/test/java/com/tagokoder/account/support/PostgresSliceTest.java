@@ -0,0 +1,51 @@
+package com.tagokoder.account.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.TestPropertySource;
+
+import com.tagokoder.account.TestcontainersConfiguration;
+
+/**
+ * Contexto mínimo contra Postgres real (Testcontainers + Flyway): solo los beans bajo prueba,
+ * sin gRPC ni el resto de la app.
+ *
+ * <pre>
+ * {@literal @}PostgresSliceTest({ AccountHoldRepositoryAdapter.class, HoldExpiryProperties.class })
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest
+@Import(PostgresSliceTest.Infra.class)
+@TestPropertySource(properties = {
+  "grpc.server.port=-1",
+  "spring.flyway.enabled=true",
+  "spring.jpa.hibernate.ddl-auto=none"
+})
+public @interface PostgresSliceTest {
+
+  /** beans bajo prueba (adapters, props, jobs) */
+  @AliasFor(annotation = SpringBootTest.class, attribute = "classes")
+  Class<?>[] value();
+
+  /** properties extra del test, p. ej. "holds.expiry.batch-size=2" */
+  @AliasFor(annotation = SpringBootTest.class, attribute = "properties")
+  String[] properties() default {};
+
+  @Configuration(proxyBeanMethods = false)
+  @EnableAutoConfiguration
+  @Import(TestcontainersConfiguration.class)
+  class Infra {
+  }
+}
@@ -0,0 +1,30 @@
+package com.tagokoder.identity.application;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "identity.audit.pipeline")
+@Data
+public class AuditPipelineProperties {
+    // eventos pendientes de PutEvents (memoria acotada)
+    private int queueCapacity = 10_000;
+
+    // cuánto espera el flusher para llenar un lote después del primer evento
+    private Duration linger = Duration.ofMillis(20);
+
+    // intentos por entrada (las fallidas de un lote se reenvían solas)
+    private int maxAttempts = 3;
+    private Duration retryBackoff = Duration.ofMillis(200);
+
+    // cola llena: BLOCK espera hasta blockTimeout y después descarta; DROP descarta enseguida
+    private Overflow overflow = Overflow.DROP;
+    private Duration blockTimeout = Duration.ofMillis(50);
+
+    // al apagar: tiempo máximo para drenar la cola
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+    public enum Overflow { BLOCK, DROP }
+}
@@ -0,0 +1,35 @@
+package com.tagokoder.identity.application;
+
+import java.time.Duration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "identity.authz.engine")
+@Data
+public class AuthzEngineProperties {
+
+    public enum Mode {
+        REMOTE,  // Verified Permissions (IsAuthorizedWithToken)
+        LOCAL,   // Cedar in-process
+        SHADOW   // decide remoto; evalúa local en paralelo y reporta diferencias
+    }
+
+    public enum PolicySource {
+        FILE,    // directorio con *.cedar (o un solo archivo)
+        AVP      // snapshot del policy store vía ListPolicies/GetPolicy
+    }
+
+    private Mode mode = Mode.REMOTE;
+
+    private PolicySource policySource = PolicySource.FILE;
+
+    // FILE: directorio o archivo; admite prefijo classpath:
+    private String policyPath = "";
+
+    // cada cuánto se vuelve a leer la fuente; el snapshot solo se reemplaza si parsea completo
+    private Duration refreshInterval = Duration.ofSeconds(60);
+
+    // tipo de los grupos del token (cognito:groups) como padres del principal, igual que el identity source
+    private String groupEntityType = "ImaginaryBank::UserGroup";
+}
@@ -0,0 +1,23 @@
+package com.tagokoder.identity.application;
+
+import java.time.Duration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "identity.jwt.cache")
+@Data
+public class JwtCacheProperties {
+    private boolean enabled = true;
+
+    private long maxSize = 100_000;
+
+    // el token deja de servirse desde cache este margen antes de su exp
+    private Duration expirySkew = Duration.ofSeconds(30);
+
+    // tope por entrada aunque el exp sea más lejano
+    private Duration maxTtl = Duration.ofMinutes(15);
+
+    // kids vigentes del JWKS: tokens firmados con una key retirada salen del cache (0 = sin chequeo)
+    private Duration jwksRefreshInterval = Duration.ofMinutes(5);
+}
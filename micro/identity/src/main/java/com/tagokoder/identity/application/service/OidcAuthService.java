@@ -23,6 +23,7 @@ import com.tagokoder.identity.domain.port.out.IdentityLinkRepositoryPort;
 import com.tagokoder.identity.domain.port.out.IdentityRepositoryPort;
 import com.tagokoder.identity.domain.port.out.OidcIdpClientPort;
 import com.tagokoder.identity.domain.port.out.OidcStateRepositoryPort;
+import com.tagokoder.identity.domain.port.out.PrincipalEventsPublisher;
 import com.tagokoder.identity.domain.port.out.RegistrationIntentRepositoryPort;
 import com.tagokoder.identity.infra.audit.AuditEventV1;
 import com.tagokoder.identity.infra.security.OidcIdTokenValidator;
@@ -42,6 +43,7 @@ public class OidcAuthService implements StartLoginUseCase, CompleteLoginUseCase
     private final AppProps props;
     private final RegistrationIntentRepositoryPort registrationRepo;
     private final IdentityLinkRepositoryPort identityLinks;
+    private final PrincipalEventsPublisher principalEvents;
 
 
 
@@ -55,7 +57,8 @@ public class OidcAuthService implements StartLoginUseCase, CompleteLoginUseCase
                            CreateSessionUseCase createSessionUseCase,
                            AuditPublisher audit, AppProps props,
                            RegistrationIntentRepositoryPort registrationRepo,
-                           IdentityLinkRepositoryPort identityLinks) {
+                           IdentityLinkRepositoryPort identityLinks,
+                           PrincipalEventsPublisher principalEvents) {
         this.stateRepo = stateRepo;
         this.idpClient = idpClient;
         this.identityRepo = identityRepo;
@@ -66,6 +69,7 @@ public class OidcAuthService implements StartLoginUseCase, CompleteLoginUseCase
         this.props = props;
         this.registrationRepo = registrationRepo;
         this.identityLinks = identityLinks;
+        this.principalEvents = principalEvents;
     }
 
     @Override
@@ -148,9 +152,14 @@ public class OidcAuthService implements StartLoginUseCase, CompleteLoginUseCase
                         Instant.now()
                 ));
 
-        if (!identity.isActive()) identity = identity.activate();
+        boolean reactivated = false;
+        if (!identity.isActive()) {
+            identity = identity.activate();
+            reactivated = true;
+        }
         identity = identityRepo.save(identity);
-        linkIdentityToCustomerIfPossible(identity.getId(), email);
+        if (reactivated) principalEvents.principalChanged(identity.getId(), identity.getSubjectIdOidc(), "user_status");
+        linkIdentityToCustomerIfPossible(identity.getId(), identity.getSubjectIdOidc(), email);
         // 3) Sesión server-side: guardas refresh token cifrado + hash
         var created = createSessionUseCase.createSession(
             identity, 
@@ -220,7 +229,7 @@ public class OidcAuthService implements StartLoginUseCase, CompleteLoginUseCase
     }
 
     @Transactional
-    private void linkIdentityToCustomerIfPossible(UUID identityId, String email) {
+    private void linkIdentityToCustomerIfPossible(UUID identityId, String subject, String email) {
     if (email == null || email.isBlank()) return;
 
     var regOpt = registrationRepo.findLatestByEmail(email); // crear este método
@@ -236,7 +245,11 @@ public class OidcAuthService implements StartLoginUseCase, CompleteLoginUseCase
 
     // 2) si ya existe customerId, link inmediato
     if (reg.getCustomerId() != null && !reg.getCustomerId().isBlank()) {
+        boolean changed = !identityLinks.findCustomerIdByIdentityId(identityId)
+            .map(reg.getCustomerId()::equals)
+            .orElse(false);
         identityLinks.upsert(identityId, reg.getCustomerId());
+        if (changed) principalEvents.principalChanged(identityId, subject, "customer_link");
     }
     }
 
@@ -16,7 +16,9 @@ import com.tagokoder.identity.domain.port.in.ConfirmRegistrationKycUseCase;
 import com.tagokoder.identity.domain.port.in.StartRegistrationUseCase;
 import com.tagokoder.identity.domain.port.out.AccountsClientPort;
 import com.tagokoder.identity.domain.port.out.IdentityLinkRepositoryPort;
+import com.tagokoder.identity.domain.port.out.IdentityRepositoryPort;
 import com.tagokoder.identity.domain.port.out.KycPresignedStoragePort;
+import com.tagokoder.identity.domain.port.out.PrincipalEventsPublisher;
 import com.tagokoder.identity.domain.port.out.RegistrationIntentRepositoryPort;
 
 @Service
@@ -28,19 +30,25 @@ public class OnboardingService implements StartRegistrationUseCase, ConfirmRegis
   private final AccountsClientPort accounts;
   private final IdentityClientsProperties clientProps;
   private final IdentityLinkRepositoryPort identityLinks;
+  private final IdentityRepositoryPort identities;
+  private final PrincipalEventsPublisher principalEvents;
 
   public OnboardingService(
     RegistrationIntentRepositoryPort registrationRepo,
     KycPresignedStoragePort kycStorage,
     AccountsClientPort accounts,
     IdentityClientsProperties clientProps,
-    IdentityLinkRepositoryPort identityLinks
+    IdentityLinkRepositoryPort identityLinks,
+    IdentityRepositoryPort identities,
+    PrincipalEventsPublisher principalEvents
   ) {
     this.registrationRepo = registrationRepo;
     this.kycStorage = kycStorage;
     this.accounts = accounts;
     this.clientProps = clientProps;
     this.identityLinks = identityLinks;
+    this.identities = identities;
+    this.principalEvents = principalEvents;
   }
 
   @Override
@@ -140,6 +148,11 @@ public class OnboardingService implements StartRegistrationUseCase, ConfirmRegis
       registrationRepo.save(reg);
 
       identityLinks.upsert(reg.getIdentityId(), reg.getCustomerId());
+      if (reg.getIdentityId() != null) {
+        // caches de ResolvePrincipal (accounts) pueden tener customer_id vacío para este subject
+        identities.findById(reg.getIdentityId()).ifPresent(id ->
+            principalEvents.principalChanged(id.getId(), id.getSubjectIdOidc(), "customer_link"));
+      }
     }
 
     // (2) OPEN SAVING + BONUS (UNA sola llamada idempotente)
@@ -1,9 +1,13 @@
 package com.tagokoder.identity.domain.port.out;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface IdentityLinkRepositoryPort {
   Optional<String> findCustomerIdByIdentityId(UUID identityId);
+  // identityId -> customerId, solo los que tienen link
+  Map<UUID, String> findCustomerIdsByIdentityIds(Collection<UUID> identityIds);
   void upsert(UUID identityId, String customerId);
 }
\ No newline at end of file
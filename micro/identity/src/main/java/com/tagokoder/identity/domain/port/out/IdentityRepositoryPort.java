@@ -1,4 +1,6 @@
 package com.tagokoder.identity.domain.port.out;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -6,6 +8,8 @@ import com.tagokoder.identity.domain.model.Identity;
 
 public interface IdentityRepositoryPort {
     Optional<Identity> findBySubjectAndProvider(String sub, String provider);
+    // una sola query (BatchResolvePrincipals); subjects sin identity no aparecen
+    List<Identity> findBySubjectsAndProvider(Collection<String> subs, String provider);
     Identity save(Identity identity);
     Optional<Identity> findById(UUID id);
 }
@@ -0,0 +1,8 @@
+package com.tagokoder.identity.domain.port.out;
+
+import java.util.UUID;
+
+/** Cambios que invalidan lo que otros servicios cachean de ResolvePrincipal (customer link, user_status). */
+public interface PrincipalEventsPublisher {
+  void principalChanged(UUID identityId, String subjectIdOidc, String reason);
+}
@@ -5,21 +5,21 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.tagokoder.identity.domain.port.out.AuditPublisher;
+import com.tagokoder.identity.infra.out.audit.EventBridgeBatcher;
 
-import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
 import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
 
+// encola en EventBridgeBatcher: el resultado de PutEvents queda en métricas audit.events, no en el request
 public class EventBridgeAuditPublisher implements AuditPublisher {
   private static final Logger log = LoggerFactory.getLogger(EventBridgeAuditPublisher.class);
 
-  private final EventBridgeClient eb;
+  private final EventBridgeBatcher batcher;
   private final JsonMapper om;
   private final String busName;
   private final String source; // e.g. "bank.identity"
 
-  public EventBridgeAuditPublisher(EventBridgeClient eb, JsonMapper om, String busName, String source) {
-    this.eb = eb;
+  public EventBridgeAuditPublisher(EventBridgeBatcher batcher, JsonMapper om, String busName, String source) {
+    this.batcher = batcher;
     this.om = om;
     this.busName = busName;
     this.source = source;
@@ -37,20 +37,8 @@ public class EventBridgeAuditPublisher implements AuditPublisher {
           .detail(detail)
           .build();
 
-      var resp = eb.putEvents(PutEventsRequest.builder().entries(entry).build());
-
-      // log útil SIEMPRE (para prueba)
-      var r0 = resp.entries().isEmpty() ? null : resp.entries().get(0);
-      if (r0 != null && r0.eventId() != null) {
-        log.info("audit_publish_ok correlation_id={} action={} eventId={}",
-            evt.correlation_id(), evt.action(), r0.eventId());
-      } else if (r0 != null) {
-        log.warn("audit_publish_failed_entry correlation_id={} action={} code={} msg={}",
-            evt.correlation_id(), evt.action(), r0.errorCode(), r0.errorMessage());
-      } else {
-        log.warn("audit_publish_no_entries correlation_id={} action={}",
-            evt.correlation_id(), evt.action());
-      }
+      batcher.submit(entry);
+      log.debug("audit_publish_queued correlation_id={} action={}", evt.correlation_id(), evt.action());
 
     } catch (Exception e) {
       log.warn("audit_publish_failed correlation_id={} action={} err={}",
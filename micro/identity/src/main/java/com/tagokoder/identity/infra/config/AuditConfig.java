@@ -5,9 +5,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tagokoder.identity.application.AuditPipelineProperties;
 import com.tagokoder.identity.domain.port.out.AuditPublisher;
 import com.tagokoder.identity.infra.audit.EventBridgeAuditPublisher;
+import com.tagokoder.identity.infra.out.audit.EventBridgeBatcher;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -21,13 +24,21 @@ public class AuditConfig {
         .build();
   }
 
+  // un solo batcher para los dos publishers (AuditEventV1 y auditoría de authz)
+  @Bean(destroyMethod = "close")
+  public EventBridgeBatcher auditBatcher(EventBridgeClient eb, AuditPipelineProperties cfg, MeterRegistry meters) {
+    EventBridgeBatcher batcher = new EventBridgeBatcher(eb, cfg, meters);
+    batcher.start();
+    return batcher;
+  }
+
   @Bean
   public AuditPublisher auditPublisher(
-      EventBridgeClient eb,
+      EventBridgeBatcher auditBatcher,
       JsonMapper auditJsonMapper,
       @Value("${identity.audit.bus-name}") String busName,
       @Value("${identity.audit.source}") String source
   ) {
-    return new EventBridgeAuditPublisher(eb, auditJsonMapper, busName, source);
+    return new EventBridgeAuditPublisher(auditBatcher, auditJsonMapper, busName, source);
   }
 }
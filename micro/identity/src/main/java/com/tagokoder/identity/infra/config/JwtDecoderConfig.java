@@ -14,6 +14,10 @@ import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 
 import com.tagokoder.identity.application.AppProps;
+import com.tagokoder.identity.application.JwtCacheProperties;
+import com.tagokoder.identity.infra.security.jwt.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class JwtDecoderConfig {
@@ -65,4 +69,14 @@ public class JwtDecoderConfig {
         decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(withIssuer, tokenUseAccess, clientIdOrAudValidator));
         return decoder;
     }
+
+    // compartido por AuthzServerInterceptor y PrincipalGrpcService: un decode completo por token
+    @Bean(destroyMethod = "close")
+    public VerifiedTokenCache verifiedTokenCache(JwtDecoder jwtDecoder, JwtCacheProperties cfg, AppProps props, MeterRegistry meters) {
+        String issuer = props.security().issuerUri();
+        String jwks = (issuer == null || issuer.isBlank()) ? null : issuer.replaceAll("/+$", "") + "/.well-known/jwks.json";
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtDecoder, cfg, jwks, meters);
+        cache.start();
+        return cache;
+    }
 }
@@ -0,0 +1,27 @@
+package com.tagokoder.identity.infra.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tagokoder.identity.domain.port.out.PrincipalEventsPublisher;
+import com.tagokoder.identity.infra.events.EventBridgePrincipalEventsPublisher;
+
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+
+@Configuration
+public class PrincipalEventsConfig {
+
+  @Bean
+  public PrincipalEventsPublisher principalEventsPublisher(
+      EventBridgeClient eb,
+      JsonMapper auditJsonMapper,
+      @Value("${identity.principal-events.enabled:true}") boolean enabled,
+      @Value("${identity.principal-events.bus-name}") String busName,
+      @Value("${identity.principal-events.source:bank.identity}") String source
+  ) {
+    if (!enabled) return (identityId, sub, reason) -> {};
+    return new EventBridgePrincipalEventsPublisher(eb, auditJsonMapper, busName, source);
+  }
+}
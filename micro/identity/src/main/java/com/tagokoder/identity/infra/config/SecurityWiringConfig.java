@@ -4,19 +4,24 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 
 import com.tagokoder.identity.application.AppProps;
+import com.tagokoder.identity.application.AuthzDecisionCacheProperties;
+import com.tagokoder.identity.application.AuthzEngineProperties;
 import com.tagokoder.identity.infra.out.audit.AuditPublisher;
+import com.tagokoder.identity.infra.out.audit.EventBridgeBatcher;
 import com.tagokoder.identity.infra.security.authz.IdentityResourceTemplates;
 import com.tagokoder.identity.infra.security.authz.RouteAuthzRegistry;
 import com.tagokoder.identity.infra.security.avp.AvpAuthorizer;
+import com.tagokoder.identity.infra.security.cedar.CedarLocalAuthorizer;
+import com.tagokoder.identity.infra.security.cedar.CedarPolicyStore;
 import com.tagokoder.identity.infra.security.grpc.AuthzServerInterceptor;
 import com.tagokoder.identity.infra.security.grpc.CorrelationServerInterceptor;
 import com.tagokoder.identity.infra.security.grpc.NoAuthzServerInterceptor;
+import com.tagokoder.identity.infra.security.jwt.VerifiedTokenCache;
 
 import io.grpc.ServerInterceptor;
-import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.services.verifiedpermissions.VerifiedPermissionsClient;
 
 @Configuration
@@ -35,21 +40,45 @@ public class SecurityWiringConfig {
 
   @Bean(name = "authzAuditPublisher")
   @Profile("!local")
-  public AuditPublisher auditPublisher(EventBridgeClient eb, AppProps props) {
-    return new AuditPublisher(eb, props);
+  public AuditPublisher auditPublisher(EventBridgeBatcher auditBatcher, AppProps props) {
+    return new AuditPublisher(auditBatcher, props);
+  }
+
+  // solo se carga/refresca si identity.authz.engine.mode es local o shadow
+  @Bean(destroyMethod = "close")
+  @Profile("!local")
+  public CedarPolicyStore cedarPolicyStore(
+      AuthzEngineProperties engine,
+      VerifiedPermissionsClient avp,
+      AppProps props,
+      MeterRegistry meters
+  ) {
+    CedarPolicyStore store = new CedarPolicyStore(engine, avp, props.aws().avpPolicyStoreId(), meters);
+    if (engine.getMode() != AuthzEngineProperties.Mode.REMOTE) store.start();
+    return store;
   }
 
   @Bean
   @Profile("!local")
-  public AvpAuthorizer avpAuthorizer(VerifiedPermissionsClient avp, AppProps props) {
-    return new AvpAuthorizer(avp, props);
+  public AvpAuthorizer avpAuthorizer(
+      VerifiedPermissionsClient avp,
+      AppProps props,
+      AuthzDecisionCacheProperties decisionCache,
+      AuthzEngineProperties engine,
+      CedarPolicyStore policyStore,
+      MeterRegistry meters
+  ) {
+    CedarLocalAuthorizer local = engine.getMode() == AuthzEngineProperties.Mode.REMOTE
+        ? null
+        : new CedarLocalAuthorizer(policyStore, engine);
+    return new AvpAuthorizer(avp, props, decisionCache, engine, local, meters);
   }
 
   @Bean(name = "authzInterceptor")
   @Profile("!local")
   public AuthzServerInterceptor authzServerInterceptor(
       AppProps props,
-      JwtDecoder jwtDecoder,
+      VerifiedTokenCache tokens,
       AvpAuthorizer avpAuthorizer,
       @Qualifier("authzAuditPublisher") AuditPublisher auditPublisher,
       RouteAuthzRegistry registry,
@@ -57,7 +86,7 @@ public class SecurityWiringConfig {
   ) {
     return new AuthzServerInterceptor(
         props,
-        jwtDecoder,
+        tokens,
         avpAuthorizer,
         auditPublisher,
         registry,
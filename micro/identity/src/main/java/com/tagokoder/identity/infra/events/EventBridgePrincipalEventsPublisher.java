@@ -0,0 +1,81 @@
+package com.tagokoder.identity.infra.events;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tagokoder.identity.domain.port.out.PrincipalEventsPublisher;
+
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+
+/**
+ * identity.principal.changed al domain bus. Dentro de una transacción se publica recién en afterCommit:
+ * quien invalide y vuelva a resolver ya ve el cambio. Best-effort: el TTL del cache del consumidor acota
+ * el peor caso si el evento se pierde.
+ */
+public class EventBridgePrincipalEventsPublisher implements PrincipalEventsPublisher {
+  private static final Logger log = LoggerFactory.getLogger(EventBridgePrincipalEventsPublisher.class);
+
+  public static final String DETAIL_TYPE = "identity.principal.changed";
+
+  private final EventBridgeClient eb;
+  private final JsonMapper om;
+  private final String busName;
+  private final String source;
+
+  public EventBridgePrincipalEventsPublisher(EventBridgeClient eb, JsonMapper om, String busName, String source) {
+    this.eb = eb;
+    this.om = om;
+    this.busName = busName;
+    this.source = source;
+  }
+
+  @Override
+  public void principalChanged(UUID identityId, String subjectIdOidc, String reason) {
+    if (subjectIdOidc == null || subjectIdOidc.isBlank()) return;
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override public void afterCommit() {
+          send(identityId, subjectIdOidc, reason);
+        }
+      });
+    } else {
+      send(identityId, subjectIdOidc, reason);
+    }
+  }
+
+  private void send(UUID identityId, String subjectIdOidc, String reason) {
+    try {
+      String detail = om.writeValueAsString(Map.of(
+          "identity_id", identityId == null ? "" : identityId.toString(),
+          "subject_id_oidc", subjectIdOidc,
+          "reason", reason,
+          "occurred_at", Instant.now().toString()
+      ));
+
+      var resp = eb.putEvents(PutEventsRequest.builder().entries(PutEventsRequestEntry.builder()
+          .eventBusName(busName)
+          .source(source)
+          .detailType(DETAIL_TYPE)
+          .detail(detail)
+          .build()).build());
+
+      if (resp.failedEntryCount() != null && resp.failedEntryCount() > 0) {
+        var r0 = resp.entries().get(0);
+        log.warn("principal_event_failed_entry sub={} reason={} code={} msg={}",
+            subjectIdOidc, reason, r0.errorCode(), r0.errorMessage());
+      }
+    } catch (Exception e) {
+      log.warn("principal_event_failed sub={} reason={} err={}", subjectIdOidc, reason, e.toString());
+    }
+  }
+}
@@ -1,14 +1,19 @@
 package com.tagokoder.identity.infra.in.grpc;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.slf4j.LoggerFactory;
-import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 
+import com.tagokoder.identity.domain.model.Identity;
 import com.tagokoder.identity.domain.port.out.IdentityLinkRepositoryPort;
 import com.tagokoder.identity.domain.port.out.IdentityRepositoryPort;
 import com.tagokoder.identity.infra.security.grpc.GrpcAuth;
+import com.tagokoder.identity.infra.security.jwt.VerifiedTokenCache;
 
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
@@ -21,17 +26,19 @@ import org.slf4j.Logger;
 @GrpcService
 public class PrincipalGrpcService extends PrincipalServiceGrpc.PrincipalServiceImplBase {
 
-  private final JwtDecoder jwtDecoder;
+  private final VerifiedTokenCache tokens;
   private final IdentityRepositoryPort identities;
   private final IdentityLinkRepositoryPort identityLinks;
 private static final Logger log = LoggerFactory.getLogger(PrincipalGrpcService.class);
 
+  private static final int MAX_BATCH = 500;
+
   public PrincipalGrpcService(
-      JwtDecoder jwtDecoder,
+      VerifiedTokenCache tokens,
       IdentityRepositoryPort identities,
       IdentityLinkRepositoryPort identityLinks
   ) {
-    this.jwtDecoder = jwtDecoder;
+    this.tokens = tokens;
     this.identities = identities;
     this.identityLinks = identityLinks;
   }
@@ -43,14 +50,14 @@ private static final Logger log = LoggerFactory.getLogger(PrincipalGrpcService.c
     try {
       // 1) extraer bearer token desde metadata
       String token = GrpcAuth.extractBearerOrThrow();
-      Jwt jwt = jwtDecoder.decode(token);
+      // el interceptor ya verificó este token: normalmente es un hit del cache
+      var vt = tokens.verify(token);
 
-      String sub = jwt.getSubject();
-      String principalId = buildPrincipalId(jwt); // pool|sub (igual que account)
+      String sub = vt.sub();
+      String principalId = vt.principalId(); // pool|sub (igual que account)
 
       // 2) roles: desde token (cognito:groups) si vienen; si no, vacío
-      List<String> roles = jwt.getClaimAsStringList("cognito:groups");
-      if (roles == null) roles = List.of();
+      List<String> roles = vt.roles();
 
       // 3) user_status: desde tu tabla identity
       var id = identities.findBySubjectAndProvider(sub, "cognito");
@@ -86,9 +93,55 @@ private static final Logger log = LoggerFactory.getLogger(PrincipalGrpcService.c
     }
   }
 
-  private static String buildPrincipalId(Jwt jwt) {
-    String iss = jwt.getIssuer() != null ? jwt.getIssuer().toString() : "";
-    String poolId = iss.substring(iss.lastIndexOf('/') + 1);
-    return poolId + "|" + jwt.getSubject();
+  @Override
+  public void batchResolvePrincipals(BatchResolvePrincipalsRequest request,
+      StreamObserver<BatchResolvePrincipalsResponse> responseObserver) {
+
+    try {
+      // pool del caller: los subjects pedidos son del mismo user pool
+      var caller = tokens.verify(GrpcAuth.extractBearerOrThrow());
+      String poolId = caller.principalId().substring(0, caller.principalId().indexOf('|'));
+
+      var subs = new LinkedHashSet<String>();
+      for (String sub : request.getSubjectIdsOidcList()) {
+        if (sub != null && !sub.isBlank()) subs.add(sub.trim());
+      }
+      if (subs.size() > MAX_BATCH) {
+        responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("too many subjects").asRuntimeException());
+        return;
+      }
+      String provider = request.getProvider().isBlank() ? "cognito" : request.getProvider();
+
+      // 2 queries para todo el batch (identities + identity_links)
+      Map<String, Identity> bySub = identities.findBySubjectsAndProvider(subs, provider).stream()
+          .collect(Collectors.toMap(Identity::getSubjectIdOidc, Function.identity(), (a, b) -> a));
+      Map<UUID, String> links = identityLinks.findCustomerIdsByIdentityIds(
+          bySub.values().stream().map(Identity::getId).toList());
+
+      var resp = BatchResolvePrincipalsResponse.newBuilder();
+      for (String sub : subs) {
+        Identity id = bySub.get(sub);
+        var p = ResolvedPrincipal.newBuilder()
+            .setSubjectIdOidc(sub)
+            .setPrincipalId(poolId + "|" + sub)
+            .setFound(id != null);
+        if (id != null) {
+          p.setUserStatus(id.getUserStatus().name());
+          p.setCustomerId(links.getOrDefault(id.getId(), ""));
+        }
+        resp.addPrincipals(p);
+      }
+
+      responseObserver.onNext(resp.build());
+      responseObserver.onCompleted();
+
+    } catch (StatusRuntimeException e) {
+      log.warn("BatchResolvePrincipals failed status={} desc={}",
+          e.getStatus().getCode(), e.getStatus().getDescription());
+      responseObserver.onError(e);
+    } catch (Exception e) {
+      log.error("BatchResolvePrincipals INTERNAL error", e);
+      responseObserver.onError(Status.INTERNAL.withDescription("INTERNAL").asRuntimeException());
+    }
   }
 }
\ No newline at end of file
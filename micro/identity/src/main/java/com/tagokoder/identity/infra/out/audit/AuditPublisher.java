@@ -11,19 +11,18 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.tagokoder.identity.application.AppProps;
 
-import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
 import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
 
+/** Serializa y encola en EventBridgeBatcher; el PutEvents sale en lote fuera del request. */
 public class AuditPublisher {
     private static final Logger log = LoggerFactory.getLogger(AuditPublisher.class);
 
-    private final EventBridgeClient eb;
+    private final EventBridgeBatcher batcher;
     private final AppProps props;
     private final JsonMapper om = new JsonMapper();
 
-    public AuditPublisher(EventBridgeClient eb, AppProps props) {
-        this.eb = eb;
+    public AuditPublisher(EventBridgeBatcher batcher, AppProps props) {
+        this.batcher = batcher;
         this.props = props;
     }
 
@@ -39,7 +38,7 @@ public class AuditPublisher {
                     .detail(detail)
                     .build();
 
-            eb.putEvents(PutEventsRequest.builder().entries(entry).build());
+            batcher.submit(entry);
         } catch (Exception e) {
             log.warn("audit.publish_failed correlation_id={} err={}",
                     auditEvent.get("correlation_id"), e.toString());
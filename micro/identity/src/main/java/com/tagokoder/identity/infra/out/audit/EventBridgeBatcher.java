@@ -0,0 +1,196 @@
+package com.tagokoder.identity.infra.out.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tagokoder.identity.application.AuditPipelineProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+/**
+ * PutEvents de auditoría fuera del request:
+ * - submit() solo encola en una cola acotada; un virtual thread arma lotes de hasta 10 entradas / 256KB
+ * - las entradas que fallan dentro de un lote se reenvían solas (maxAttempts, backoff lineal)
+ * - cola llena: overflow BLOCK espera hasta blockTimeout y después descarta; DROP descarta enseguida
+ * - close() deja de aceptar y drena lo pendiente hasta shutdownTimeout
+ * Todo queda contado en audit.events{outcome}.
+ */
+public class EventBridgeBatcher implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(EventBridgeBatcher.class);
+
+  // límites de PutEvents
+  static final int MAX_ENTRIES = 10;
+  static final int MAX_BYTES = 256 * 1024;
+
+  private final EventBridgeClient eb;
+  private final AuditPipelineProperties cfg;
+  private final MeterRegistry meters;
+  private final BlockingQueue<Pending> queue;
+  private final Thread flusher;
+
+  private volatile boolean accepting = true;
+  private volatile boolean running = true;
+
+  public EventBridgeBatcher(EventBridgeClient eb, AuditPipelineProperties cfg, MeterRegistry meters) {
+    this.eb = eb;
+    this.cfg = cfg;
+    this.meters = meters;
+    this.queue = new ArrayBlockingQueue<>(cfg.getQueueCapacity());
+    this.flusher = Thread.ofVirtual().name("audit-flusher").unstarted(this::loop);
+    Gauge.builder("audit.queue.size", queue, BlockingQueue::size).register(meters);
+  }
+
+  public void start() {
+    flusher.start();
+  }
+
+  /** Nunca lanza ni espera a EventBridge; a lo sumo blockTimeout con overflow=BLOCK. */
+  public void submit(PutEventsRequestEntry entry) {
+    int size = sizeOf(entry);
+    if (size > MAX_BYTES) {
+      count("dropped_oversize", 1);
+      log.warn("audit.event_too_large bytes={} detail_type={}", size, entry.detailType());
+      return;
+    }
+    if (!accepting) {
+      count("dropped_closed", 1);
+      return;
+    }
+
+    Pending p = new Pending(entry, size);
+    boolean queued;
+    if (cfg.getOverflow() == AuditPipelineProperties.Overflow.BLOCK) {
+      try {
+        queued = queue.offer(p, cfg.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        queued = false;
+      }
+    } else {
+      queued = queue.offer(p);
+    }
+    count(queued ? "enqueued" : "dropped_overflow", 1);
+  }
+
+  @Override
+  public void close() {
+    accepting = false;
+    running = false;
+    try {
+      if (!flusher.join(cfg.getShutdownTimeout())) {
+        flusher.interrupt();
+        int left = queue.size();
+        queue.clear();
+        count("dropped_shutdown", left);
+        log.warn("audit.flush_timeout dropped={}", left);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void loop() {
+    List<Pending> batch = new ArrayList<>(MAX_ENTRIES);
+    Pending carry = null;
+    while (running || carry != null || !queue.isEmpty()) {
+      try {
+        Pending first = carry != null ? carry : queue.poll(cfg.getLinger().toMillis(), TimeUnit.MILLISECONDS);
+        carry = null;
+        if (first == null) continue;
+
+        batch.add(first);
+        int bytes = first.size();
+        long deadline = System.nanoTime() + cfg.getLinger().toNanos();
+        while (batch.size() < MAX_ENTRIES) {
+          long wait = running ? deadline - System.nanoTime() : 0;
+          Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) break;
+          if (bytes + next.size() > MAX_BYTES) {
+            carry = next;
+            break;
+          }
+          batch.add(next);
+          bytes += next.size();
+        }
+        send(batch);
+      } catch (InterruptedException e) {
+        // solo close() interrumpe, y solo después de shutdownTimeout
+        count("dropped_shutdown", batch.size() + (carry == null ? 0 : 1));
+        return;
+      } catch (RuntimeException e) {
+        log.warn("audit.flush_failed entries={} err={}", batch.size(), e.toString());
+        count("dropped_failed", batch.size());
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void send(List<Pending> batch) throws InterruptedException {
+    List<Pending> pending = batch;
+    for (int attempt = 1; ; attempt++) {
+      List<Pending> failed = new ArrayList<>();
+      try {
+        List<PutEventsRequestEntry> entries = new ArrayList<>(pending.size());
+        for (Pending p : pending) entries.add(p.entry());
+        PutEventsResponse resp = eb.putEvents(PutEventsRequest.builder().entries(entries).build());
+
+        // un resultado por entrada, en el mismo orden
+        List<PutEventsResultEntry> results = resp.entries();
+        for (int i = 0; i < pending.size(); i++) {
+          PutEventsResultEntry r = i < results.size() ? results.get(i) : null;
+          if (r == null || r.errorCode() != null) failed.add(pending.get(i));
+        }
+      } catch (Exception e) {
+        log.warn("audit.put_events_failed entries={} attempt={} err={}", pending.size(), attempt, e.toString());
+        failed = pending;
+      }
+
+      count("published", pending.size() - failed.size());
+      if (failed.isEmpty()) return;
+
+      if (attempt >= cfg.getMaxAttempts()) {
+        count("dropped_failed", failed.size());
+        log.warn("audit.events_dropped entries={} attempts={}", failed.size(), attempt);
+        return;
+      }
+      count("retried", failed.size());
+      Thread.sleep(cfg.getRetryBackoff().multipliedBy(attempt));
+      pending = failed;
+    }
+  }
+
+  private void count(String outcome, int n) {
+    if (n > 0) meters.counter("audit.events", "outcome", outcome).increment(n);
+  }
+
+  // tamaño según EventBridge: Time (14) + Source + DetailType + Detail + Resources, en UTF-8
+  static int sizeOf(PutEventsRequestEntry e) {
+    int size = e.time() != null ? 14 : 0;
+    size += utf8(e.source()) + utf8(e.detailType()) + utf8(e.detail());
+    if (e.hasResources()) {
+      for (String r : e.resources()) size += utf8(r);
+    }
+    return size;
+  }
+
+  private static int utf8(String s) {
+    return s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private record Pending(PutEventsRequestEntry entry, int size) {}
+}
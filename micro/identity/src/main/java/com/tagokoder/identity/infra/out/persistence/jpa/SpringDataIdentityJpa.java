@@ -1,5 +1,7 @@
 package com.tagokoder.identity.infra.out.persistence.jpa;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,4 +11,5 @@ import com.tagokoder.identity.infra.out.persistence.jpa.entity.IdentityEntity;
 
 public interface SpringDataIdentityJpa extends JpaRepository<IdentityEntity, UUID> {
     Optional<IdentityEntity> findBySubjectIdOidcAndProvider(String subjectIdOidc, String provider);
+    List<IdentityEntity> findBySubjectIdOidcInAndProvider(Collection<String> subjectIdOidc, String provider);
 }
@@ -1,5 +1,7 @@
 package com.tagokoder.identity.infra.out.persistence.jpa;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,5 +11,6 @@ import com.tagokoder.identity.infra.out.persistence.jpa.entity.IdentityLinkEntit
 
 public interface SpringDataIdentityLinkJpa extends JpaRepository<IdentityLinkEntity, UUID> {
   Optional<IdentityLinkEntity> findByIdentityId(UUID identityId);
+  List<IdentityLinkEntity> findByIdentityIdIn(Collection<UUID> identityIds);
   Optional<IdentityLinkEntity> findByCustomerId(String customerId);
 }
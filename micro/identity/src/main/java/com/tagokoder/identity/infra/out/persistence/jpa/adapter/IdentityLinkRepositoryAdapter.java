@@ -1,7 +1,10 @@
 package com.tagokoder.identity.infra.out.persistence.jpa.adapter;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
@@ -23,6 +26,13 @@ public class IdentityLinkRepositoryAdapter implements IdentityLinkRepositoryPort
     return jpa.findByIdentityId(identityId).map(IdentityLinkEntity::getCustomerId);
   }
 
+  @Override
+  public Map<UUID, String> findCustomerIdsByIdentityIds(Collection<UUID> identityIds) {
+    if (identityIds == null || identityIds.isEmpty()) return Map.of();
+    return jpa.findByIdentityIdIn(identityIds).stream()
+        .collect(Collectors.toMap(IdentityLinkEntity::getIdentityId, IdentityLinkEntity::getCustomerId));
+  }
+
   @Override
   public void upsert(UUID identityId, String customerId) {
     if (identityId == null || customerId == null || customerId.isBlank()) return;
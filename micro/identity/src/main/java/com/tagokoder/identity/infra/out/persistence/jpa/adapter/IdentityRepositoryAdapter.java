@@ -7,6 +7,8 @@ import com.tagokoder.identity.infra.out.persistence.jpa.mapper.IdentityJpaMapper
 
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,6 +29,14 @@ public class IdentityRepositoryAdapter implements IdentityRepositoryPort {
                 .map(mapper::toDomain);
     }
 
+    @Override
+    public List<Identity> findBySubjectsAndProvider(Collection<String> subs, String provider) {
+        if (subs == null || subs.isEmpty()) return List.of();
+        return jpa.findBySubjectIdOidcInAndProvider(subs, provider).stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
     @Override
     public Identity save(Identity identity) {
         return mapper.toDomain(jpa.save(mapper.fromDomain(identity)));
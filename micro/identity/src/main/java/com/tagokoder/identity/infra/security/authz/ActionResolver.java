@@ -31,7 +31,9 @@ public class ActionResolver {
 
             // Principal Service
             Map.entry("bank.identity.v1.PrincipalService/ResolvePrincipal",
-                    new ActionDef("identity.principal.resolve", false, true))
+                    new ActionDef("identity.principal.resolve", false, true)),
+            Map.entry("bank.identity.v1.PrincipalService/BatchResolvePrincipals",
+                    new ActionDef("identity.principal.batch_resolve", false, true))
     );
 
     public ActionDef resolve(String fullMethodName) {
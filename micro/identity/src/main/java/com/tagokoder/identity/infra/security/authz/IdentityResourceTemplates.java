@@ -25,11 +25,14 @@ public class IdentityResourceTemplates {
   private static final String REGISTRATION_TYPE = "ImaginaryBank::Registration";
   private static final String SESSION_TYPE      = "ImaginaryBank::Session";
 
+  private static final RequestField REGISTRATION_ID = RequestField.of("getRegistrationId");
+  private static final RequestField SESSION_ID = RequestField.of("getSessionId");
+
   public Resolved resolve(String template, String route, Object request) {
     return switch (template) {
       case RouteAuthzRegistry.T_SYSTEM -> system();
-      case RouteAuthzRegistry.T_REGISTRATION_ID -> byUuid(request, "getRegistrationId", REGISTRATION_TYPE, "registration_id");
-      case RouteAuthzRegistry.T_SESSION_ID -> byUuid(request, "getSessionId", SESSION_TYPE, "session_id");
+      case RouteAuthzRegistry.T_REGISTRATION_ID -> byUuid(request, REGISTRATION_ID, REGISTRATION_TYPE, "registration_id");
+      case RouteAuthzRegistry.T_SESSION_ID -> byUuid(request, SESSION_ID, SESSION_TYPE, "session_id");
       default -> throw new IllegalStateException("Unknown resource template: " + template + " route=" + route);
     };
   }
@@ -43,8 +46,8 @@ public class IdentityResourceTemplates {
     return new Resolved(resource, List.of(), Map.of());
   }
 
-  private Resolved byUuid(Object request, String getter, String type, String attrName) {
-    UUID idVal = extractUuidFromGetter(request, getter);
+  private Resolved byUuid(Object request, RequestField field, String type, String attrName) {
+    UUID idVal = field.uuid(request);
     String rid = (idVal == null) ? "unknown" : idVal.toString();
 
     var attrs = new HashMap<String, AttributeValue>();
@@ -54,13 +57,4 @@ public class IdentityResourceTemplates {
     EntityItem resource = EntityItem.builder().identifier(id).attributes(attrs).build();
     return new Resolved(resource, List.of(), Map.of());
   }
-
-  private static UUID extractUuidFromGetter(Object req, String getter) {
-    try {
-      var m = req.getClass().getMethod(getter);
-      Object v = m.invoke(req);
-      if (v instanceof String s && !s.isBlank()) return UUID.fromString(s);
-    } catch (Exception ignored) {}
-    return null;
-  }
 }
\ No newline at end of file
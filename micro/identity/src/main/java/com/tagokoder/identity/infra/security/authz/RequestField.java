@@ -0,0 +1,83 @@
+package com.tagokoder.identity.infra.security.authz;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Getter de un mensaje proto (p.ej. "getId" o "getAccountIdsList"), enlazado una sola vez por clase de
+ * request como MethodHandle (ClassValue) y después invocado sin reflexión.
+ * Getter inexistente, no público o de otro tipo => null (igual que antes con reflexión).
+ */
+public final class RequestField {
+
+  private static final MethodType ERASED = MethodType.methodType(Object.class, Object.class);
+  private static final MethodHandle ABSENT =
+      MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class);
+
+  private final String getter;
+  private final Class<?> returnType;
+  private final ClassValue<MethodHandle> handles = new ClassValue<>() {
+    @Override protected MethodHandle computeValue(Class<?> type) { return bind(type); }
+  };
+
+  private RequestField(String getter, Class<?> returnType) {
+    this.getter = getter;
+    this.returnType = returnType;
+  }
+
+  /** Campo string (getter que devuelve String). */
+  public static RequestField of(String getter) {
+    return new RequestField(getter, String.class);
+  }
+
+  /** Campo repeated string (getter "get...List" del proto). */
+  public static RequestField list(String getter) {
+    return new RequestField(getter, List.class);
+  }
+
+  public String string(Object request) {
+    return invoke(request) instanceof String s ? s : null;
+  }
+
+  public List<String> strings(Object request) {
+    if (!(invoke(request) instanceof List<?> l)) return List.of();
+    List<String> out = new ArrayList<>(l.size());
+    for (Object o : l) if (o instanceof String s) out.add(s);
+    return out;
+  }
+
+  public UUID uuid(Object request) {
+    String s = string(request);
+    if (s == null || s.isBlank()) return null;
+    try {
+      return UUID.fromString(s);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private Object invoke(Object request) {
+    if (request == null) return null;
+    try {
+      return (Object) handles.get(request.getClass()).invokeExact(request);
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  // el tipo declarado puede ser un subtipo (repeated string => ProtocolStringList)
+  private MethodHandle bind(Class<?> owner) {
+    try {
+      Method m = owner.getMethod(getter);
+      if (!returnType.isAssignableFrom(m.getReturnType())) return ABSENT;
+      return MethodHandles.publicLookup().unreflect(m).asType(ERASED);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return ABSENT;
+    }
+  }
+}
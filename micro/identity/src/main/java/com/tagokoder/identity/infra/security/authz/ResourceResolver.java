@@ -7,14 +7,17 @@ public class ResourceResolver {
 
     public record ResourceDef(String type, String id, Map<String, Object> attrs) {}
 
+    private static final RequestField REGISTRATION_ID = RequestField.of("getRegistrationId");
+    private static final RequestField SESSION_ID = RequestField.of("getSessionId");
+
     public ResourceDef resolve(String fullMethodName, Object request, String principalCustomerIdOrNull) {
 
-        UUID regId = extractUuid(request, "getRegistrationId");
+        UUID regId = REGISTRATION_ID.uuid(request);
         if (regId != null) {
             return new ResourceDef("Registration", regId.toString(), Map.of());
         }
 
-        UUID sessionId = extractUuid(request, "getSessionId");
+        UUID sessionId = SESSION_ID.uuid(request);
         if (sessionId != null) {
             return new ResourceDef("Session", sessionId.toString(), Map.of());
         }
@@ -22,13 +25,4 @@ public class ResourceResolver {
         // OIDC start: no hay resource id, usar System
         return new ResourceDef("System", "system", Map.of());
     }
-
-    private UUID extractUuid(Object request, String getter) {
-        try {
-            var m = request.getClass().getMethod(getter);
-            Object v = m.invoke(request);
-            if (v instanceof String s && !s.isBlank()) return UUID.fromString(s);
-        } catch (Exception ignored) {}
-        return null;
-    }
 }
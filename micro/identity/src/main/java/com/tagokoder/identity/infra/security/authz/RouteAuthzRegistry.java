@@ -37,7 +37,10 @@ public class RouteAuthzRegistry {
       // ---- Principal (AUTHN_ONLY) ----
       // esto fuerza a que Account→Identity siempre mande Bearer
       Map.entry("bank.identity.v1.PrincipalService/ResolvePrincipal",
-          new RouteDef("identity.principal.resolve", false, AuthzMode.AUTHN_ONLY, T_SYSTEM))
+          new RouteDef("identity.principal.resolve", false, AuthzMode.AUTHN_ONLY, T_SYSTEM)),
+      // batch: solo callers de servicio/ops (policy 05_identity_principal_batch.cedar)
+      Map.entry("bank.identity.v1.PrincipalService/BatchResolvePrincipals",
+          new RouteDef("identity.principal.batch_resolve", false, AuthzMode.AUTHZ, T_SYSTEM))
   );
 
   public RouteDef get(String fullMethodName) {
@@ -0,0 +1,135 @@
+package com.tagokoder.identity.infra.security.cedar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cedarpolicy.BasicAuthorizationEngine;
+import com.cedarpolicy.model.AuthorizationRequest;
+import com.cedarpolicy.model.AuthorizationResponse;
+import com.cedarpolicy.model.AuthorizationSuccessResponse;
+import com.cedarpolicy.model.entity.Entity;
+import com.cedarpolicy.value.CedarList;
+import com.cedarpolicy.value.CedarMap;
+import com.cedarpolicy.value.EntityTypeName;
+import com.cedarpolicy.value.EntityUID;
+import com.cedarpolicy.value.PrimBool;
+import com.cedarpolicy.value.PrimLong;
+import com.cedarpolicy.value.PrimString;
+import com.cedarpolicy.value.Value;
+import com.tagokoder.identity.application.AuthzEngineProperties;
+import com.tagokoder.identity.infra.security.avp.AvpAuthorizer.DecisionResult;
+
+import software.amazon.awssdk.services.verifiedpermissions.model.AttributeValue;
+import software.amazon.awssdk.services.verifiedpermissions.model.Decision;
+import software.amazon.awssdk.services.verifiedpermissions.model.DeterminingPolicyItem;
+import software.amazon.awssdk.services.verifiedpermissions.model.EntityIdentifier;
+import software.amazon.awssdk.services.verifiedpermissions.model.EntityItem;
+
+/**
+ * Evalúa Cedar in-process con las mismas entidades que se mandan a AVP
+ * (IdentityResourceTemplates). El principal lo arma el interceptor igual que AVP lo deriva del token:
+ * User "pool|sub" con customer_id/roles, y cada rol como padre de tipo groupEntityType.
+ */
+public class CedarLocalAuthorizer {
+
+  private static final String ACTION_TYPE = "ImaginaryBank::Action";
+
+  private final CedarPolicyStore store;
+  private final AuthzEngineProperties cfg;
+  private final BasicAuthorizationEngine engine = new BasicAuthorizationEngine();
+
+  public CedarLocalAuthorizer(CedarPolicyStore store, AuthzEngineProperties cfg) {
+    this.store = store;
+    this.cfg = cfg;
+  }
+
+  public DecisionResult authorize(
+      String actionId,
+      EntityItem principalEntity,
+      EntityItem resourceEntity,
+      List<EntityItem> extraEntities,
+      Map<String, AttributeValue> contextAttrs
+  ) throws Exception {
+    Set<Entity> entities = new HashSet<>();
+    entities.add(principal(principalEntity));
+    entities.add(entity(resourceEntity));
+    if (extraEntities != null) {
+      for (EntityItem e : extraEntities) entities.add(entity(e));
+    }
+
+    Map<String, Value> context = new HashMap<>();
+    if (contextAttrs != null) contextAttrs.forEach((k, v) -> context.put(k, value(v)));
+
+    AuthorizationRequest req = new AuthorizationRequest(
+        uid(principalEntity.identifier()),
+        uid(ACTION_TYPE, actionId),
+        uid(resourceEntity.identifier()),
+        context);
+
+    AuthorizationResponse resp = engine.isAuthorized(req, store.snapshot().policies(), entities);
+    AuthorizationSuccessResponse ok = resp.success
+        .orElseThrow(() -> new IllegalStateException("cedar evaluation failed: " + resp.errors));
+
+    List<DeterminingPolicyItem> determining = new ArrayList<>();
+    for (String id : ok.getReasons()) determining.add(DeterminingPolicyItem.builder().policyId(id).build());
+    return new DecisionResult(ok.isAllowed() ? Decision.ALLOW : Decision.DENY, determining);
+  }
+
+  // roles -> padres UserGroup, como los grupos del token en AVP
+  private Entity principal(EntityItem p) {
+    Set<EntityUID> parents = new HashSet<>();
+    AttributeValue roles = p.hasAttributes() ? p.attributes().get("roles") : null;
+    if (roles != null && roles.hasSet()) {
+      String pool = p.identifier().entityId();
+      pool = pool.contains("|") ? pool.substring(0, pool.indexOf('|')) : "";
+      for (AttributeValue r : roles.set()) {
+        if (r.string() != null) parents.add(uid(cfg.getGroupEntityType(), pool + "|" + r.string()));
+      }
+    }
+    return new Entity(uid(p.identifier()), attrs(p), parents);
+  }
+
+  private static Entity entity(EntityItem e) {
+    Set<EntityUID> parents = new HashSet<>();
+    if (e.hasParents()) e.parents().forEach(p -> parents.add(uid(p)));
+    return new Entity(uid(e.identifier()), attrs(e), parents);
+  }
+
+  private static Map<String, Value> attrs(EntityItem e) {
+    Map<String, Value> out = new HashMap<>();
+    if (e.hasAttributes()) e.attributes().forEach((k, v) -> out.put(k, value(v)));
+    return out;
+  }
+
+  private static Value value(AttributeValue v) {
+    if (v.string() != null) return new PrimString(v.string());
+    if (v.booleanValue() != null) return new PrimBool(v.booleanValue());
+    if (v.longValue() != null) return new PrimLong(v.longValue());
+    if (v.entityIdentifier() != null) return uid(v.entityIdentifier());
+    if (v.hasSet()) {
+      List<Value> items = new ArrayList<>(v.set().size());
+      for (AttributeValue i : v.set()) items.add(value(i));
+      return new CedarList(items);
+    }
+    if (v.hasRecord()) {
+      Map<String, Value> m = new HashMap<>();
+      v.record().forEach((k, x) -> m.put(k, value(x)));
+      return new CedarMap(m);
+    }
+    throw new IllegalArgumentException("unsupported attribute type");
+  }
+
+  private static EntityUID uid(EntityIdentifier id) {
+    return uid(id.entityType(), id.entityId());
+  }
+
+  private static EntityUID uid(String type, String id) {
+    EntityTypeName t = EntityTypeName.parse(type)
+        .orElseThrow(() -> new IllegalArgumentException("invalid entity type " + type));
+    return new EntityUID(t, id);
+  }
+}
@@ -0,0 +1,167 @@
+package com.tagokoder.identity.infra.security.cedar;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+import com.cedarpolicy.model.policy.Policy;
+import com.cedarpolicy.model.policy.PolicySet;
+import com.tagokoder.identity.application.AuthzEngineProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.services.verifiedpermissions.VerifiedPermissionsClient;
+import software.amazon.awssdk.services.verifiedpermissions.model.GetPolicyRequest;
+import software.amazon.awssdk.services.verifiedpermissions.model.GetPolicyResponse;
+import software.amazon.awssdk.services.verifiedpermissions.model.ListPoliciesRequest;
+import software.amazon.awssdk.services.verifiedpermissions.model.PolicyItem;
+
+/**
+ * Policy set Cedar para evaluación local. Se carga de archivos *.cedar o de un snapshot del
+ * policy store de AVP, y se refresca periódicamente:
+ * - el snapshot se reemplaza entero (AtomicReference) y solo si todo parsea; si falla se sigue con el anterior
+ * - los ids de policy son los de AVP (fuente AVP) o "archivo#n" (fuente FILE)
+ */
+public class CedarPolicyStore implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(CedarPolicyStore.class);
+
+  private final AuthzEngineProperties cfg;
+  private final VerifiedPermissionsClient avp;
+  private final String policyStoreId;
+  private final MeterRegistry meters;
+
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+  private ScheduledExecutorService refresher;
+
+  public CedarPolicyStore(AuthzEngineProperties cfg, VerifiedPermissionsClient avp, String policyStoreId, MeterRegistry meters) {
+    this.cfg = cfg;
+    this.avp = avp;
+    this.policyStoreId = policyStoreId;
+    this.meters = meters;
+    Gauge.builder("authz.local.policies", current, r -> r.get() == null ? 0 : r.get().policies().policies.size())
+        .register(meters);
+    Gauge.builder("authz.local.snapshot.age", current,
+            r -> r.get() == null ? -1 : Instant.now().getEpochSecond() - r.get().loadedAt().getEpochSecond())
+        .baseUnit("seconds")
+        .register(meters);
+  }
+
+  /** Primera carga síncrona (sin policies no se arranca en modo local) + refresh periódico. */
+  public void start() {
+    refresh();
+    if (current.get() == null) {
+      throw new IllegalStateException("cedar policy set could not be loaded source=" + cfg.getPolicySource());
+    }
+    long period = Math.max(1, cfg.getRefreshInterval().toSeconds());
+    refresher = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("cedar-policy-refresh").daemon(true).factory());
+    refresher.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.SECONDS);
+  }
+
+  public Snapshot snapshot() {
+    return current.get();
+  }
+
+  void refresh() {
+    try {
+      List<Policy> policies = cfg.getPolicySource() == AuthzEngineProperties.PolicySource.AVP ? fromAvp() : fromFiles();
+      String hash = hash(policies);
+      Snapshot prev = current.get();
+      if (prev != null && prev.hash().equals(hash)) return;
+
+      Set<Policy> set = new HashSet<>(policies);
+      current.set(new Snapshot(new PolicySet(set), hash, Instant.now()));
+      meters.counter("authz.local.snapshot.refresh", "outcome", "updated").increment();
+      log.info("cedar policy set loaded source={} policies={} hash={}", cfg.getPolicySource(), set.size(), hash.substring(0, 12));
+    } catch (Exception e) {
+      meters.counter("authz.local.snapshot.refresh", "outcome", "failed").increment();
+      log.warn("cedar policy refresh failed, keeping previous snapshot source={} err={}", cfg.getPolicySource(), e.toString());
+    }
+  }
+
+  private List<Policy> fromFiles() throws Exception {
+    String location = cfg.getPolicyPath();
+    if (location == null || location.isBlank()) throw new IllegalStateException("policy-path is required");
+
+    List<Policy> out = new ArrayList<>();
+    if (location.startsWith("classpath:")) {
+      Resource r = new DefaultResourceLoader().getResource(location);
+      try (InputStream in = r.getInputStream()) {
+        parseInto(out, r.getFilename(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      return out;
+    }
+
+    Path path = Path.of(location);
+    List<Path> files;
+    if (Files.isDirectory(path)) {
+      try (Stream<Path> s = Files.list(path)) {
+        files = s.filter(p -> p.getFileName().toString().endsWith(".cedar")).sorted().toList();
+      }
+    } else {
+      files = List.of(path);
+    }
+    for (Path f : files) parseInto(out, f.getFileName().toString(), Files.readString(f));
+    return out;
+  }
+
+  private static void parseInto(List<Policy> out, String source, String text) throws Exception {
+    int i = 0;
+    for (Policy p : PolicySet.parsePolicies(text).policies) {
+      out.add(new Policy(p.policySrc, source + "#" + i++));
+    }
+  }
+
+  private List<Policy> fromAvp() {
+    List<Policy> out = new ArrayList<>();
+    int skipped = 0;
+    var pages = avp.listPoliciesPaginator(ListPoliciesRequest.builder().policyStoreId(policyStoreId).build());
+    for (PolicyItem item : pages.policies()) {
+      GetPolicyResponse p = avp.getPolicy(GetPolicyRequest.builder()
+          .policyStoreId(policyStoreId).policyId(item.policyId()).build());
+      if (p.definition() == null || p.definition().staticValue() == null) {
+        // template-linked: el statement vive en el template; no se evalúa local
+        skipped++;
+        continue;
+      }
+      out.add(new Policy(p.definition().staticValue().statement(), item.policyId()));
+    }
+    if (skipped > 0) log.warn("cedar snapshot from AVP skipped template-linked policies count={}", skipped);
+    return out;
+  }
+
+  private static String hash(List<Policy> policies) throws NoSuchAlgorithmException {
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    policies.stream()
+        .sorted((a, b) -> a.policyID.compareTo(b.policyID))
+        .forEach(p -> md.update((p.policyID + "\u0000" + p.policySrc + "\u0000").getBytes(StandardCharsets.UTF_8)));
+    return HexFormat.of().formatHex(md.digest());
+  }
+
+  @Override
+  public void close() {
+    if (refresher != null) refresher.shutdownNow();
+  }
+
+  public record Snapshot(PolicySet policies, String hash, Instant loadedAt) {}
+}
@@ -10,7 +10,6 @@ import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 
 import com.tagokoder.identity.application.AppProps;
 import com.tagokoder.identity.infra.out.audit.AuditPublisher;
@@ -20,6 +19,7 @@ import com.tagokoder.identity.infra.security.authz.RouteAuthzRegistry;
 import com.tagokoder.identity.infra.security.avp.AvpAuthorizer;
 import com.tagokoder.identity.infra.security.avp.AvpValues;
 import com.tagokoder.identity.infra.security.context.AuthCtx;
+import com.tagokoder.identity.infra.security.jwt.VerifiedTokenCache;
 
 import io.grpc.Context;
 import io.grpc.Contexts;
@@ -45,7 +45,7 @@ public class AuthzServerInterceptor implements ServerInterceptor {
   private static final String USER_TYPE = "ImaginaryBank::User";
 
   private final AppProps props;
-  private final JwtDecoder jwtDecoder;
+  private final VerifiedTokenCache tokens;
   private final AvpAuthorizer avp;
   private final AuditPublisher audit;
 
@@ -54,14 +54,14 @@ public class AuthzServerInterceptor implements ServerInterceptor {
 
   public AuthzServerInterceptor(
       AppProps props,
-      JwtDecoder jwtDecoder,
+      VerifiedTokenCache tokens,
       AvpAuthorizer avp,
       AuditPublisher audit,
       RouteAuthzRegistry registry,
       IdentityResourceTemplates templates
   ) {
     this.props = props;
-    this.jwtDecoder = jwtDecoder;
+    this.tokens = tokens;
     this.avp = avp;
     this.audit = audit;
     this.registry = registry;
@@ -107,20 +107,22 @@ public class AuthzServerInterceptor implements ServerInterceptor {
       return new ServerCall.Listener<>() {};
     }
 
-    Jwt jwt;
+    VerifiedTokenCache.VerifiedToken vt;
     try {
-      jwt = jwtDecoder.decode(token);
+      vt = tokens.verify(token);
     } catch (Exception e) {
       publish("DENY", "invalid_token", def.actionId(), route, started);
       call.close(Status.UNAUTHENTICATED.withDescription("Invalid token"), new Metadata());
       return new ServerCall.Listener<>() {};
     }
 
-    String principalId = buildPrincipalId(jwt); // pool|sub
-    String sub = jwt.getSubject();
-    List<String> roles = claimStringList(jwt, "cognito:groups");
-    boolean mfa = claimStringList(jwt, "amr").contains("mfa");
-    String customerId = claimString(jwt, "custom:customer_id"); // puede venir vacío
+    // claims derivados una vez por token (VerifiedTokenCache)
+    Jwt jwt = vt.jwt();
+    String principalId = vt.principalId(); // pool|sub
+    String sub = vt.sub();
+    List<String> roles = vt.roles();
+    boolean mfa = vt.mfa();
+    String customerId = vt.customerId(); // puede venir vacío
 
     // Siempre setea principal en contexto
     var principal = new AuthCtx.AuthPrincipal(sub, customerId, roles, mfa);
@@ -167,6 +169,7 @@ public class AuthzServerInterceptor implements ServerInterceptor {
     EntityItem principalEntity = EntityItem.builder().identifier(pid).attributes(principalAttrs).build();
 
     final String tokenF = token;
+    final Instant tokenExpF = jwt.getExpiresAt();
 
     return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
       @Override
@@ -202,7 +205,9 @@ public class AuthzServerInterceptor implements ServerInterceptor {
               principalEntity,
               res.resourceEntity(),
               res.extraEntities(),
-              ctxAttrs
+              ctxAttrs,
+              tokenExpF,
+              def.critical()
           );
         } catch (Exception e) {
           log.error("AUTHZ avp_error route={} action={} err={}", route, def.actionId(), e.toString(), e);
@@ -262,24 +267,6 @@ public class AuthzServerInterceptor implements ServerInterceptor {
     return null;
   }
 
-  private static String claimString(Jwt jwt, String name) {
-    Object v = jwt.getClaims().get(name);
-    return v == null ? null : String.valueOf(v);
-  }
-
-  @SuppressWarnings("unchecked")
-  private static List<String> claimStringList(Jwt jwt, String name) {
-    Object v = jwt.getClaims().get(name);
-    if (v instanceof List<?> list) return list.stream().map(String::valueOf).toList();
-    return List.of();
-  }
-
-  private static String buildPrincipalId(Jwt jwt) {
-    String iss = jwt.getIssuer() != null ? jwt.getIssuer().toString() : "";
-    String poolId = iss.substring(iss.lastIndexOf('/') + 1);
-    return poolId + "|" + jwt.getSubject();
-  }
-
   private static String nvl(String v, String def) {
     return (v == null || v.isBlank()) ? def : v;
   }
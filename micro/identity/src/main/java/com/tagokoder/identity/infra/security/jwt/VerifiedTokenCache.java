@@ -0,0 +1,183 @@
+package com.tagokoder.identity.infra.security.jwt;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.tagokoder.identity.application.JwtCacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache de tokens ya verificados (firma + validators del JwtDecoder):
+ * - key = sha256 del token; nunca se guarda el token en claro
+ * - cada entrada vive hasta exp - expirySkew (tope maxTtl); errores de verificación no se cachean
+ * - rotación JWKS: se relee el set de kids y las entradas firmadas con una key retirada se descartan
+ * - principalId / roles / mfa / customer_id se derivan una sola vez por token
+ */
+public class VerifiedTokenCache implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+  private final JwtDecoder decoder;
+  private final JwtCacheProperties cfg;
+  private final String jwksUri;
+  private final MeterRegistry meters;
+  private final Cache<String, VerifiedToken> tokens;
+
+  // null = todavía sin cargar (o sin jwksUri): no se descarta nada por kid
+  private volatile Set<String> activeKids;
+  private ScheduledExecutorService refresher;
+
+  public VerifiedTokenCache(JwtDecoder decoder, JwtCacheProperties cfg, String jwksUri, MeterRegistry meters) {
+    this.decoder = decoder;
+    this.cfg = cfg;
+    this.jwksUri = jwksUri;
+    this.meters = meters;
+    this.tokens = Caffeine.newBuilder()
+        .maximumSize(cfg.getMaxSize())
+        .expireAfter(new Expiry<String, VerifiedToken>() {
+          @Override public long expireAfterCreate(String k, VerifiedToken v, long now) { return ttlNanos(v); }
+          @Override public long expireAfterUpdate(String k, VerifiedToken v, long now, long cur) { return ttlNanos(v); }
+          @Override public long expireAfterRead(String k, VerifiedToken v, long now, long cur) { return cur; }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meters, tokens, "jwt_verified");
+  }
+
+  /** Refresco periódico de kids del JWKS (si hay jwksUri y el intervalo es > 0). */
+  public void start() {
+    if (!cfg.isEnabled() || jwksUri == null || jwksUri.isBlank() || cfg.getJwksRefreshInterval().isZero()) return;
+    long period = Math.max(1, cfg.getJwksRefreshInterval().toSeconds());
+    refresher = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("jwks-kid-refresh").daemon(true).factory());
+    refresher.scheduleWithFixedDelay(this::refreshKids, 0, period, TimeUnit.SECONDS);
+  }
+
+  /** Token verificado (del cache o recién decodificado). Lanza JwtException igual que el decoder. */
+  public VerifiedToken verify(String token) {
+    if (!cfg.isEnabled()) return VerifiedToken.of(decoder.decode(token));
+
+    String key = sha256(token);
+    VerifiedToken hit = tokens.getIfPresent(key);
+    if (hit != null && keyActive(hit)) {
+      meters.counter("jwt.verify.requests", "outcome", "hit").increment();
+      return hit;
+    }
+    if (hit != null) tokens.invalidate(key);
+
+    meters.counter("jwt.verify.requests", "outcome", "miss").increment();
+    VerifiedToken v = VerifiedToken.of(decoder.decode(token));
+    if (ttlNanos(v) > 0) tokens.put(key, v);
+    return v;
+  }
+
+  void refreshKids() {
+    try {
+      Set<String> kids = new HashSet<>();
+      for (JWK k : JWKSet.load(URI.create(jwksUri).toURL()).getKeys()) {
+        if (k.getKeyID() != null) kids.add(k.getKeyID());
+      }
+      Set<String> prev = activeKids;
+      activeKids = Set.copyOf(kids);
+      if (prev != null && !prev.equals(kids)) {
+        long before = tokens.estimatedSize();
+        tokens.asMap().values().removeIf(v -> !keyActive(v));
+        meters.counter("jwt.verify.key_rotations").increment();
+        log.info("jwks rotated kids={} cached_before={} cached_after={}", kids, before, tokens.estimatedSize());
+      }
+    } catch (Exception e) {
+      // sin JWKS fresco se sigue con el set anterior; el decoder igual valida firmas en cada miss
+      log.warn("jwks kid refresh failed uri={} err={}", jwksUri, e.toString());
+    }
+  }
+
+  private boolean keyActive(VerifiedToken v) {
+    Set<String> kids = activeKids;
+    return kids == null || v.kid() == null || kids.contains(v.kid());
+  }
+
+  private long ttlNanos(VerifiedToken v) {
+    Instant exp = v.jwt().getExpiresAt();
+    if (exp == null) return 0;
+    Duration left = Duration.between(Instant.now(), exp.minus(cfg.getExpirySkew()));
+    if (left.isNegative()) return 0;
+    return Math.min(left.toNanos(), cfg.getMaxTtl().toNanos());
+  }
+
+  private static String sha256(String token) {
+    try {
+      return HexFormat.of().formatHex(
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (refresher != null) refresher.shutdownNow();
+  }
+
+  /** Jwt verificado + claims que usan los interceptores, extraídos una vez. */
+  public record VerifiedToken(
+      Jwt jwt,
+      String sub,
+      String principalId,
+      List<String> roles,
+      boolean mfa,
+      String customerId,
+      String kid
+  ) {
+    static VerifiedToken of(Jwt jwt) {
+      List<String> roles = claimStringList(jwt, "cognito:groups");
+      boolean mfa = claimStringList(jwt, "amr").contains("mfa");
+      Object cid = jwt.getClaims().get("custom:customer_id");
+      Object kid = jwt.getHeaders().get("kid");
+      return new VerifiedToken(
+          jwt,
+          jwt.getSubject(),
+          principalId(jwt),
+          roles,
+          mfa,
+          cid == null ? null : String.valueOf(cid),
+          kid == null ? null : String.valueOf(kid)
+      );
+    }
+
+    // principal AVP (pool|sub)
+    private static String principalId(Jwt jwt) {
+      String iss = jwt.getIssuer() != null ? jwt.getIssuer().toString() : "";
+      String poolId = iss.substring(iss.lastIndexOf('/') + 1);
+      return poolId + "|" + jwt.getSubject();
+    }
+
+    private static List<String> claimStringList(Jwt jwt, String name) {
+      Object v = jwt.getClaims().get(name);
+      if (v instanceof List<?> list) return list.stream().map(String::valueOf).toList();
+      return List.of();
+    }
+  }
+}